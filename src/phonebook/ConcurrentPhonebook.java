@@ -0,0 +1,194 @@
+package phonebook;
+
+import phonebook.hashes.ConcurrentStripedHashTable;
+import phonebook.hashes.HashTable;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>{@link ConcurrentPhonebook} is the <b>thread-safe</b> counterpart of {@link Phonebook}: it offers the exact same
+ * operations, and can be shared by any number of threads without external synchronization.</p>
+ *
+ * <p>Both internal indexes are {@link ConcurrentStripedHashTable} instances, so lookups ({@link #getNumberOf(String)},
+ * {@link #getOwnerOf(String)}) take no lock at all in the common case. Writes lock by <em>stripe</em>: every name and
+ * every number is assigned one of a fixed number of {@link ReentrantLock}s by its hash, and an update of the index entry
+ * of a name or a number only happens while its stripe is held. {@link #addEntry(String, String)} may have to touch up
+ * to four entries (the new name and number, plus the number that the name used to own and the name that used to own
+ * the number), so it acquires all of their stripes, <b>always in increasing order</b> to rule out deadlocks, and then
+ * checks that the entries it read before locking did not change in the meantime, retrying otherwise. Writers on
+ * unrelated entries therefore proceed in parallel, while the two indexes always describe the <b>same</b> set of
+ * &lt;name, number&gt; pairs as seen by any writer.</p>
+ *
+ * <p>Readers may observe a writer halfway, e.g see a name whose new number is not yet visible from the number side.
+ * {@link #size()} is an <em>estimate</em> while other threads are writing.</p>
+ *
+ * @see Phonebook
+ * @see ConcurrentStripedHashTable
+ */
+public class ConcurrentPhonebook {
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+
+    private final HashTable namesToNumbers;
+    private final HashTable numbersToNames;
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Default constructor. Sized for 64 concurrent writers.
+     */
+    public ConcurrentPhonebook() {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Instantiates a new {@link ConcurrentPhonebook} sized for the provided number of concurrent writers.
+     * @param concurrencyLevel The expected number of threads writing at the same time. Rounded up to a power of two.
+     * @throws IllegalArgumentException if concurrencyLevel is not positive.
+     */
+    public ConcurrentPhonebook(int concurrencyLevel) {
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Concurrency level should be positive, but was " + concurrencyLevel + ".");
+        }
+        namesToNumbers = new ConcurrentStripedHashTable(concurrencyLevel);
+        numbersToNames = new ConcurrentStripedHashTable(concurrencyLevel);
+        // More stripes than writers keeps the chance of two unrelated entries sharing a lock low.
+        int count = Integer.highestOneBit(Math.min(concurrencyLevel, 1 << 16) * 4 - 1) << 1;
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    private int stripeOf(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    // Stripes of all the provided keys, sorted and without duplicates. Null keys are skipped.
+    private int[] stripesOf(String... keys) {
+        int[] result = new int[keys.length];
+        int n = 0;
+        for (String key : keys) {
+            if (key != null) {
+                result[n++] = stripeOf(key);
+            }
+        }
+        Arrays.sort(result, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || result[distinct - 1] != result[i]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    private void lock(int[] held) {
+        for (int stripe : held) {
+            stripes[stripe].lock();
+        }
+    }
+
+    private void unlock(int[] held) {
+        for (int i = held.length - 1; i >= 0; i--) {
+            stripes[held[i]].unlock();
+        }
+    }
+
+    /** Retrieves the phone number associated with the provided full name. If the name is not in the database,
+     * this method returns {@code null}. Takes no lock.
+     * @param name The full name of the owner of the phone number that is being searched for.
+     * @return The phone number associated with name, or {@code null} if name is {@code null} or if name
+     * is not in the {@link ConcurrentPhonebook}.
+     */
+    public String getNumberOf(String name) {
+        return (name == null) ? null : namesToNumbers.get(name).getValue();
+    }
+
+    /** Retrieves the full name of the owner of the provided phone number. If the phone number is not in the database,
+     * this method returns {@code null}. Takes no lock.
+     * @param number The phone number whose owner is being searched for.
+     * @return The full name of the owner of number, or {@code null} if number is {@code null} or if number
+     * is not in the {@link ConcurrentPhonebook}.
+     */
+    public String getOwnerOf(String number) {
+        return (number == null) ? null : numbersToNames.get(number).getValue();
+    }
+
+    /** Adds the tuple &lt; name, number &gt; in the {@link ConcurrentPhonebook}. If either name or
+     * number are already in the collection, then the entire entry is <b>updated</b>: the number that name used to
+     * own and the name that used to own number are both dropped, so that the two indexes stay consistent.
+     * @param name The full name of the number's owner.
+     * @param number The phone number of the person.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     */
+    public void addEntry(String name, String number) {
+        if(name == null || number == null)
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        while (true) {
+            String oldNumber = namesToNumbers.get(name).getValue();
+            String oldName = numbersToNames.get(number).getValue();
+            int[] held = stripesOf(name, number, oldNumber, oldName);
+            lock(held);
+            try {
+                // Another writer may have moved the old entries before we got the locks; if so, start over.
+                String currNumber = namesToNumbers.get(name).getValue();
+                String currName = numbersToNames.get(number).getValue();
+                if (differ(oldNumber, currNumber) || differ(oldName, currName)) {
+                    continue;
+                }
+                if (oldNumber != null && !oldNumber.equals(number)) {
+                    numbersToNames.remove(oldNumber);
+                }
+                if (oldName != null && !oldName.equals(name)) {
+                    namesToNumbers.remove(oldName);
+                }
+                namesToNumbers.put(name, number);
+                numbersToNames.put(number, name);
+                return;
+            } finally {
+                unlock(held);
+            }
+        }
+    }
+
+    private static boolean differ(String a, String b) {
+        return (a == null) ? b != null : !a.equals(b);
+    }
+
+    /** Deletes the entry characterized by the arguments provided. If the entry is <b>not</b> contained by this
+     * {@link ConcurrentPhonebook} instance, e.g name is associated with another number, this method has <b>no effect</b>.
+     * @param name The &quot;owner&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @param number The &quot;number&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     */
+    public void deleteEntry(String name, String number) {
+        if(number == null || name == null)
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        int[] held = stripesOf(name, number);
+        lock(held);
+        try {
+            if (number.equals(namesToNumbers.get(name).getValue())) {
+                namesToNumbers.remove(name);
+                numbersToNames.remove(number);
+            }
+        } finally {
+            unlock(held);
+        }
+    }
+
+    /** Returns the number of entries in the phonebook. Only an estimate while other threads are writing.
+     * @return the number of entries in the phonebook.
+     */
+    public int size() {
+        return namesToNumbers.size();
+    }
+
+    /** Queries the phonebook for emptiness.
+     * @return {@code true} if, and only if, there are 0 entries in this {@link ConcurrentPhonebook}, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
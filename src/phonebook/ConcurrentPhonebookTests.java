@@ -0,0 +1,179 @@
+package phonebook;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import phonebook.hashes.ConcurrentStripedHashTable;
+import phonebook.utils.Probes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static phonebook.PhonebookFixtures.*;
+
+/**
+ * <p>{@link ConcurrentPhonebookTests} is a jUnit - based stress test suite for {@link ConcurrentPhonebook} and
+ * {@link ConcurrentStripedHashTable}. Several threads hammer a small pool of names and numbers, so that they keep
+ * colliding on the same entries, and the suite then checks that no update was lost and that both indexes agree.</p>
+ *
+ * @see ConcurrentPhonebook
+ * @see ConcurrentStripedHashTable
+ */
+public class ConcurrentPhonebookTests {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 20000;
+
+    private ConcurrentPhonebook pb;
+
+    // Runs body(threadIndex) on THREADS threads released at the same time, and rethrows the first failure.
+    private static void runConcurrently(ThreadBody body) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < THREADS; t++){
+            final int index = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    body.run(index);
+                } catch(Throwable th){
+                    failure.compareAndSet(null, th);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for(Thread thread : threads)
+            thread.join();
+        if(failure.get() != null)
+            throw new AssertionError("A worker thread failed: " + failure.get(), failure.get());
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    @Before
+    public void setUp(){
+        pb = new ConcurrentPhonebook(THREADS);
+    }
+
+    @After
+    public void tearDown(){
+        pb = null;
+    }
+
+    @Test
+    public void testSingleThreadedSemantics(){
+        pb.addEntry("Arnold", "894-59-0011");
+        pb.addEntry("Tiffany", "894-59-0012");
+        assertEquals("894-59-0011", pb.getNumberOf("Arnold"));
+        assertEquals("Tiffany", pb.getOwnerOf("894-59-0012"));
+
+        pb.addEntry("Arnold", "894-59-0099"); // Arnold changes number: the old one should be gone.
+        assertNull("The old number of Arnold should no longer be owned by anyone.", pb.getOwnerOf("894-59-0011"));
+        assertEquals("Arnold", pb.getOwnerOf("894-59-0099"));
+
+        pb.addEntry("Jessie", "894-59-0012"); // Tiffany's number is handed to Jessie: Tiffany should be gone.
+        assertNull("Tiffany's number was handed to Jessie, so Tiffany should no longer be in the phonebook.",
+                pb.getNumberOf("Tiffany"));
+        assertEquals(2, pb.size());
+
+        pb.deleteEntry("Arnold", "894-59-0012"); // Not an entry: no effect.
+        assertEquals(2, pb.size());
+        pb.deleteEntry("Arnold", "894-59-0099");
+        assertNull(pb.getNumberOf("Arnold"));
+        assertNull(pb.getOwnerOf("894-59-0099"));
+        assertEquals(1, pb.size());
+    }
+
+    @Test
+    public void testDisjointWritersLoseNothing() throws InterruptedException {
+        runConcurrently(t -> {
+            for(int i = t; i < OPERATIONS; i += THREADS)
+                pb.addEntry(name(i), number(i));
+        });
+        assertEquals("Every thread inserted its own entries, so none should be missing.", OPERATIONS, pb.size());
+        for(int i = 0; i < OPERATIONS; i++){
+            assertEquals(number(i), pb.getNumberOf(name(i)));
+            assertEquals(name(i), pb.getOwnerOf(number(i)));
+        }
+
+        runConcurrently(t -> {
+            for(int i = t; i < OPERATIONS; i += 2 * THREADS)
+                pb.deleteEntry(name(i), number(i));
+        });
+        for(int i = 0; i < OPERATIONS; i++){
+            boolean deleted = (i % (2 * THREADS)) < THREADS;
+            assertEquals(deleted ? null : number(i), pb.getNumberOf(name(i)));
+            assertEquals(deleted ? null : name(i), pb.getOwnerOf(number(i)));
+        }
+    }
+
+    @Test
+    public void testIndexesStayConsistentUnderContention() throws InterruptedException {
+        final int pool = 64; // Few names and numbers, so that writers keep stepping on each other's entries.
+        runConcurrently(t -> {
+            Random r = new Random(47 + t);
+            for(int i = 0; i < OPERATIONS; i++){
+                String name = name(r.nextInt(pool)), number = number(r.nextInt(pool));
+                switch(r.nextInt(4)){
+                    case 0:
+                        pb.deleteEntry(name, number);
+                        break;
+                    case 1: // Readers must never see a name mapped to something that is not a number of the pool.
+                        String seen = pb.getNumberOf(name);
+                        assertTrue("Read a value that was never written: " + seen, seen == null || seen.startsWith("301-"));
+                        break;
+                    default:
+                        pb.addEntry(name, number);
+                }
+            }
+        });
+
+        int names = 0;
+        for(int i = 0; i < pool; i++){
+            String number = pb.getNumberOf(name(i));
+            if(number != null){
+                names++;
+                assertEquals("The number of " + name(i) + " is owned by someone else.", name(i), pb.getOwnerOf(number));
+            }
+            String owner = pb.getOwnerOf(number(i));
+            if(owner != null)
+                assertEquals("The owner of " + number(i) + " has another number.", number(i), pb.getNumberOf(owner));
+        }
+        assertEquals("The size of the phonebook should match the names it contains.", names, pb.size());
+    }
+
+    @Test
+    public void testStripedTableUnderConcurrentResizes() throws InterruptedException {
+        ConcurrentStripedHashTable table = new ConcurrentStripedHashTable(4);
+        runConcurrently(t -> {
+            for(int i = t; i < OPERATIONS; i += THREADS){
+                table.put(name(i), number(i));
+                // Read back a key of another thread: it may or may not be there yet, but never with a wrong value.
+                Probes p = table.get(name(i / 2));
+                assertTrue(p.getValue() == null || p.getValue().equals(number(i / 2)));
+                if(i % 3 == 0)
+                    assertEquals(number(i), table.remove(name(i)).getValue());
+            }
+        });
+        int expected = 0;
+        for(int i = 0; i < OPERATIONS; i++){
+            boolean removed = i % 3 == 0;
+            if(!removed)
+                expected++;
+            assertEquals(removed ? null : number(i), table.get(name(i)).getValue());
+        }
+        assertEquals(expected, table.size());
+        assertTrue(table.containsValue(number(1)));
+        assertFalse(table.containsValue(number(3)));
+        assertFalse(table.containsValue(null));
+    }
+}
@@ -0,0 +1,535 @@
+package phonebook;
+
+import phonebook.hashes.CollisionResolver;
+import phonebook.hashes.TableSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * <p>{@link DurablePhonebook} is a {@link Phonebook} whose mutations survive crashes. It keeps its entries in memory,
+ * in a regular {@link Phonebook}, and records every {@link #addEntry(String, String)} and
+ * {@link #deleteEntry(String, String)} in an append-only <b>write-ahead log</b> in its directory before returning.
+ * {@link #checkpoint()} saves the whole {@link Phonebook} to a snapshot in the same directory (see
+ * {@link Phonebook#save(java.io.OutputStream)}) and empties the log.</p>
+ *
+ * <p>Forcing the log to the storage device on every call would cap the write rate at the rate of {@code fsync}s, so
+ * mutations are <b>group committed</b>: they are applied to memory and appended to an in-memory group under a short
+ * lock, and their callers then wait for a single background thread to write the group out and force it with
+ * <em>one</em> {@code fsync}. While one group is being forced, the next one fills up, so the more threads write, the more
+ * mutations share every {@code fsync}. A group is written once it holds the configured number of mutations, or once its
+ * oldest mutation has waited for the configured flush interval, whichever comes first; with an interval of zero, which is
+ * the default, a group is written as soon as the previous one is on disk.</p>
+ *
+ * <p>The log is a sequence of frames, one per group, each written as its length, its bytes and their CRC-32. A frame that
+ * is cut short or fails its CRC can only be the tail of a write interrupted by a crash, whose callers were never told
+ * that it succeeded, so opening the directory discards it and everything after it.</p>
+ *
+ * <p>Opening a directory loads the latest snapshot and <b>replays</b> the log onto it. Replay does not repeat the logged
+ * calls one by one: it streams the frames once, keeping only the last change of every name and of every number, and then
+ * applies all of them with one bulk insertion per table (see {@link phonebook.hashes.HashTable#putAll(java.util.Collection)}), so each
+ * table is enlarged at most once, and a key changed a million times is inserted once. Since every logged change simply
+ * overwrites or deletes a key, replaying a record that the snapshot already covers is harmless; a crash between the two
+ * steps of a {@link #checkpoint()} therefore loses nothing.</p>
+ *
+ * <p>A {@link DurablePhonebook} can be shared by any number of threads. Lookups only share a read lock on the entries,
+ * which a mutation only holds exclusively while it changes memory, not while it waits for the log: lookups run
+ * alongside each other, alongside mutations waiting for their {@code fsync}, and alongside a {@link #checkpoint()}, which
+ * only holds up mutations. If writing or forcing the log ever fails, every mutation from then on fails with an
+ * {@link UncheckedIOException}; the mutations whose callers saw that exception are visible in memory, but may be lost
+ * on a crash.</p>
+ *
+ * @see Phonebook
+ * @see TableSnapshot
+ */
+public class DurablePhonebook implements Closeable {
+
+    /**
+     * The name of the snapshot file in the directory of a {@link DurablePhonebook}.
+     */
+    public static final String SNAPSHOT_FILE = "phonebook.snapshot";
+
+    /**
+     * The name of the write-ahead log in the directory of a {@link DurablePhonebook}.
+     */
+    public static final String LOG_FILE = "phonebook.log";
+
+    /**
+     * The number of mutations past which a group is written out by default, however short its wait.
+     */
+    public static final int DEFAULT_GROUP_SIZE = 4096;
+
+    private static final int MAGIC = 0x50424C47; // "PBLG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_FRAME_BYTES = 1 << 30;
+
+    private static final byte ADD = 1;
+    private static final byte DELETE = 2;
+
+    private final Path snapshotPath;
+    private final Path logPath;
+    private final long flushIntervalNanos;
+    private final int groupSize;
+
+    private final Phonebook phonebook;
+    private final FileChannel log;
+    private final Thread flusher;
+
+    // Guards the group being filled, and keeps mutations out of a checkpoint. Writers wait on groupDurable, the flusher
+    // on groupReady.
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guards the entries of the phonebook. Only taken for writing with lock held, so while a checkpoint holds lock,
+    // no writer is ever queued in front of a lookup.
+    private final ReentrantReadWriteLock entries = new ReentrantReadWriteLock();
+    private final Condition groupReady = lock.newCondition();
+    private final Condition groupDurable = lock.newCondition();
+    // Held by whoever writes to, or truncates, the log file.
+    private final ReentrantLock logLock = new ReentrantLock();
+
+    private ByteArrayOutputStream filling = new ByteArrayOutputStream();
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream();
+    private int fillingCount;
+    private long fillingSince;
+    private long appended;      // Sequence number of the last mutation appended to a group.
+    private long durable;       // Sequence number of the last mutation forced to the device.
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Opens the {@link DurablePhonebook} stored in the provided directory, creating it if needed, with a flush interval
+     * of zero and groups of at most {@link #DEFAULT_GROUP_SIZE} mutations.
+     * @param directory The directory of the snapshot and the log. It is created if it does not exist.
+     * @param namesToNumbersHash The {@link CollisionResolver} of the table with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash The {@link CollisionResolver} of the table with <b>phone numbers</b> as keys.
+     * @throws IOException if the directory cannot be read or written, or holds a corrupted snapshot.
+     */
+    public DurablePhonebook(Path directory, CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash)
+            throws IOException {
+        this(directory, namesToNumbersHash, numbersToNamesHash, 0, TimeUnit.NANOSECONDS, DEFAULT_GROUP_SIZE);
+    }
+
+    /**
+     * Opens the {@link DurablePhonebook} stored in the provided directory, creating it if needed.
+     * @param directory The directory of the snapshot and the log. It is created if it does not exist.
+     * @param namesToNumbersHash The {@link CollisionResolver} of the table with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash The {@link CollisionResolver} of the table with <b>phone numbers</b> as keys.
+     * @param flushInterval How long a group may wait for more mutations before it is written out. A longer wait
+     *                      batches more mutations per {@code fsync}, but delays every one of them.
+     * @param unit The unit of flushInterval.
+     * @param groupSize The number of mutations past which a group is written out without waiting any longer.
+     * @throws IOException if the directory cannot be read or written, or holds a corrupted snapshot.
+     * @throws IllegalArgumentException if flushInterval is negative, or groupSize is not positive.
+     */
+    public DurablePhonebook(Path directory, CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash,
+                            long flushInterval, TimeUnit unit, int groupSize) throws IOException {
+        if (flushInterval < 0 || groupSize <= 0) {
+            throw new IllegalArgumentException("Provided: flushInterval=" + flushInterval + " and groupSize=" + groupSize);
+        }
+        Files.createDirectories(directory);
+        snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        logPath = directory.resolve(LOG_FILE);
+        this.flushIntervalNanos = unit.toNanos(flushInterval);
+        this.groupSize = groupSize;
+
+        if (Files.exists(snapshotPath)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshotPath), 1 << 16)) {
+                phonebook = Phonebook.load(in, namesToNumbersHash, numbersToNamesHash);
+            }
+        } else {
+            phonebook = new Phonebook(namesToNumbersHash, numbersToNamesHash);
+        }
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long end = replay();
+            log.truncate(end);
+            log.position(end);
+            log.force(true);
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+        flusher = new Thread(this::flushGroups, "phonebook-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /* *************************************************************** */
+    /* **************************** Replay *************************** */
+    /* *************************************************************** */
+
+    // Applies every complete frame of the log to the phonebook, and returns the length of the log up to the last of them.
+    // An empty log is given its header.
+    private long replay() throws IOException {
+        if (log.size() < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            log.truncate(0);
+            log.write(header, 0);
+            return HEADER_BYTES;
+        }
+        // Sized for a log of mostly distinct keys, so that the maps do not go through every intermediate capacity.
+        int expected = (int) Math.min(log.size() / 24, 1 << 26);
+        Map<String, String> byName = new HashMap<>(expected);
+        Map<String, String> byNumber = new HashMap<>(expected);
+        long end = HEADER_BYTES;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(logPath + " is not a log of version " + VERSION + ".");
+            }
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] frame;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_FRAME_BYTES) {
+                        break;
+                    }
+                    frame = new byte[length];
+                    in.readFully(frame);
+                    crc.reset();
+                    crc.update(frame, 0, length);
+                    if ((int) crc.getValue() != in.readInt()) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;  // A torn write at the tail.
+                }
+                ByteBuffer records = ByteBuffer.wrap(frame);
+                while (records.hasRemaining()) {
+                    byte op = records.get();
+                    String name = readString(records), number = readString(records);
+                    byName.put(name, (op == ADD) ? number : null);
+                    byNumber.put(number, (op == ADD) ? name : null);
+                }
+                end += 8 + frame.length;
+            }
+        }
+        phonebook.applyAll(byName, byNumber);
+        return end;
+    }
+
+    private static String readString(ByteBuffer records) {
+        int length = records.getInt();
+        String s = new String(records.array(), records.position(), length, StandardCharsets.UTF_8);
+        records.position(records.position() + length);
+        return s;
+    }
+
+    /* *************************************************************** */
+    /* ************************* Group commit ************************ */
+    /* *************************************************************** */
+
+    private static void writeString(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        out.write(length >>> 24);
+        out.write(length >>> 16);
+        out.write(length >>> 8);
+        out.write(length);
+        out.write(bytes, 0, length);
+    }
+
+    private void checkWritable() {
+        if (closed) {
+            throw new IllegalStateException("The phonebook in " + logPath.getParent() + " is closed.");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("The log " + logPath + " could not be written.", failure);
+        }
+    }
+
+    // Appends a mutation to the group being filled. Lock held. Returns the sequence number of the mutation.
+    private long append(byte op, String name, String number) {
+        filling.write(op);
+        writeString(filling, name);
+        writeString(filling, number);
+        if (fillingCount++ == 0) {
+            fillingSince = System.nanoTime();
+            groupReady.signal();
+        } else if (fillingCount == groupSize) {
+            groupReady.signal();
+        }
+        return ++appended;
+    }
+
+    // Waits until the mutation with sequence number sequence is on the device. Lock held.
+    private void awaitDurable(long sequence) {
+        while (durable < sequence && failure == null) {
+            groupDurable.awaitUninterruptibly();
+        }
+        if (durable < sequence) {
+            throw new UncheckedIOException("The log " + logPath + " could not be written.", failure);
+        }
+    }
+
+    // The body of the flusher thread: writes out every group, until the phonebook is closed and the last group is out.
+    private void flushGroups() {
+        while (true) {
+            ByteArrayOutputStream group;
+            long last;
+            lock.lock();
+            try {
+                while (fillingCount == 0 && !closed) {
+                    groupReady.awaitUninterruptibly();
+                }
+                if (fillingCount == 0) {
+                    return;
+                }
+                long wait;
+                while (!closed && fillingCount < groupSize
+                        && (wait = fillingSince + flushIntervalNanos - System.nanoTime()) > 0) {
+                    try {
+                        groupReady.awaitNanos(wait);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                group = filling;
+                filling = spare;
+                fillingCount = 0;
+                last = appended;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                writeFrame(group);
+            } catch (IOException e) {
+                error = e;
+            }
+            group.reset();
+
+            lock.lock();
+            try {
+                spare = group;
+                if (error != null && failure == null) {
+                    failure = error;
+                } else if (error == null) {
+                    durable = last;
+                }
+                groupDurable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void writeFrame(ByteArrayOutputStream group) throws IOException {
+        byte[] bytes = group.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        ByteBuffer frame = ByteBuffer.allocate(bytes.length + 8);
+        frame.putInt(bytes.length).put(bytes).putInt((int) crc.getValue());
+        frame.flip();
+        logLock.lock();
+        try {
+            while (frame.hasRemaining()) {
+                log.write(frame);
+            }
+            log.force(false);
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    /* *************************************************************** */
+    /* ************************** Operations ************************* */
+    /* *************************************************************** */
+
+    /** Retrieves the phone number associated with the provided full name. See {@link Phonebook#getNumberOf(String)}.
+     * @param name The full name of the owner of the phone number that is being searched for.
+     * @return The phone number associated with name, or {@code null} if name is {@code null} or not in the phonebook.
+     */
+    public String getNumberOf(String name) {
+        entries.readLock().lock();
+        try {
+            return phonebook.getNumberOf(name);
+        } finally {
+            entries.readLock().unlock();
+        }
+    }
+
+    /** Retrieves the full name of the owner of the provided phone number. See {@link Phonebook#getOwnerOf(String)}.
+     * @param number The phone number whose owner is being searched for.
+     * @return The full name of the owner of number, or {@code null} if number is {@code null} or not in the phonebook.
+     */
+    public String getOwnerOf(String number) {
+        entries.readLock().lock();
+        try {
+            return phonebook.getOwnerOf(number);
+        } finally {
+            entries.readLock().unlock();
+        }
+    }
+
+    /** Adds the tuple &lt; name, number &gt;, exactly like {@link Phonebook#addEntry(String, String)}, and returns once
+     * the mutation is on the storage device.
+     * @param name The full name of the number's owner.
+     * @param number The phone number of the person.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     * @throws IllegalStateException if this phonebook has been closed.
+     * @throws UncheckedIOException if the log could not be written.
+     */
+    public void addEntry(String name, String number) {
+        lock.lock();
+        try {
+            // Checked before the phonebook changes, so that memory never holds a mutation that could not be logged.
+            checkWritable();
+            entries.writeLock().lock();
+            try {
+                phonebook.addEntry(name, number);
+            } finally {
+                entries.writeLock().unlock();
+            }
+            awaitDurable(append(ADD, name, number));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Deletes the entry characterized by the arguments provided, exactly like {@link Phonebook#deleteEntry(String, String)},
+     * and returns once the mutation is on the storage device.
+     * @param name The &quot;owner&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @param number The &quot;number&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     * @throws IllegalStateException if this phonebook has been closed.
+     * @throws UncheckedIOException if the log could not be written.
+     */
+    public void deleteEntry(String name, String number) {
+        lock.lock();
+        try {
+            checkWritable();
+            entries.writeLock().lock();
+            try {
+                phonebook.deleteEntry(name, number);
+            } finally {
+                entries.writeLock().unlock();
+            }
+            awaitDurable(append(DELETE, name, number));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns the number of entries in the phonebook.
+     * @return the number of entries in the phonebook.
+     */
+    public int size() {
+        entries.readLock().lock();
+        try {
+            return phonebook.size();
+        } finally {
+            entries.readLock().unlock();
+        }
+    }
+
+    /** Queries the phonebook for emptiness.
+     * @return {@code true} if, and only if, there are 0 entries in this {@link DurablePhonebook}, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Saves every entry to a fresh snapshot, which atomically replaces the previous one once it is on the device, and
+     * then empties the log, so that the next opening of the directory has nothing to replay. Mutations wait while the
+     * snapshot is written, but lookups do not.
+     * @throws IOException if the snapshot could not be written or the log could not be emptied.
+     * @throws IllegalStateException if this phonebook has been closed.
+     */
+    public void checkpoint() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The phonebook in " + logPath.getParent() + " is closed.");
+            }
+            // No mutation can change the entries while lock is held, so they are saved without locking out lookups.
+            Path fresh = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+            try (FileOutputStream file = new FileOutputStream(fresh.toFile());
+                 BufferedOutputStream out = new BufferedOutputStream(file, 1 << 16)) {
+                phonebook.save(out);
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(fresh, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(snapshotPath.getParent());
+            // Mutations in a group that is still being written are in the snapshot too, so they may land either before
+            // or after the truncation: replaying them again is harmless.
+            logLock.lock();
+            try {
+                log.truncate(HEADER_BYTES);
+                log.position(HEADER_BYTES);
+                log.force(true);
+            } finally {
+                logLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Makes the rename of the snapshot durable. Not every platform can force a directory, in which case the rename is
+    // left to the file system.
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Writes out the last group of mutations, stops the flusher and closes the log. Has no effect if this phonebook is
+     * already closed.
+     * @throws IOException if the log could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            groupReady.signal();
+        } finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                flusher.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        log.close();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package phonebook;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static phonebook.PhonebookFixtures.*;
+import static phonebook.hashes.CollisionResolver.*;
+
+/**
+ * <p>{@link DurablePhonebookTests} checks that a {@link DurablePhonebook} finds all of its acknowledged mutations again
+ * after being reopened, whether it was closed, abandoned without closing, checkpointed, or left with a torn log.</p>
+ *
+ * @see DurablePhonebook
+ */
+public class DurablePhonebookTests {
+
+    private Path directory;
+    private final List<DurablePhonebook> opened = new ArrayList<>();
+
+    private DurablePhonebook open() throws IOException {
+        DurablePhonebook pb = new DurablePhonebook(directory, LINEAR_PROBING, QUADRATIC_PROBING);
+        opened.add(pb);
+        return pb;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("phonebook-log");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for(DurablePhonebook pb : opened)
+            pb.close();
+        deleteDirectory(directory);
+    }
+
+    // Random additions, updates and deletions, some of which hit no entry, replayed against a plain Phonebook.
+    @Test
+    public void testReplayMatchesPhonebook() throws IOException {
+        DurablePhonebook durable = open();
+        Phonebook expected = new Phonebook(LINEAR_PROBING, QUADRATIC_PROBING);
+        Random random = new Random(17);
+        for(int i = 0; i < 20000; i++){
+            int person = random.nextInt(3000), line = random.nextInt(3000);
+            if(random.nextInt(4) == 0){
+                durable.deleteEntry(name(person), number(line));
+                expected.deleteEntry(name(person), number(line));
+            } else {
+                durable.addEntry(name(person), number(line));
+                expected.addEntry(name(person), number(line));
+            }
+        }
+        // Abandoned without closing, as a crashed process would.
+        DurablePhonebook reopened = open();
+        for(int i = 0; i < 3000; i++){
+            assertEquals(expected.getNumberOf(name(i)), reopened.getNumberOf(name(i)));
+            assertEquals(expected.getOwnerOf(number(i)), reopened.getOwnerOf(number(i)));
+        }
+    }
+
+    @Test
+    public void testCheckpointAndTornTail() throws IOException {
+        DurablePhonebook pb = open();
+        for(int i = 0; i < 5000; i++)
+            pb.addEntry(name(i), number(i));
+        pb.checkpoint();
+        assertTrue(Files.exists(directory.resolve(DurablePhonebook.SNAPSHOT_FILE)));
+        assertTrue("A checkpoint should empty the log.", Files.size(directory.resolve(DurablePhonebook.LOG_FILE)) < 64);
+        for(int i = 0; i < 5000; i += 2)
+            pb.deleteEntry(name(i), number(i));
+        pb.addEntry("Zo\u00eb", "301-999-9999");
+        pb.close();
+
+        // Half a frame at the tail of the log, as a crash in the middle of a write would leave.
+        try(FileChannel log = FileChannel.open(directory.resolve(DurablePhonebook.LOG_FILE), StandardOpenOption.APPEND)){
+            log.write(ByteBuffer.wrap(new byte[] {0, 0, 1, 0, 42, 42, 42}));
+        }
+        pb = open();
+        assertEquals(2501, pb.size());
+        assertEquals("Zo\u00eb", pb.getOwnerOf("301-999-9999"));
+        for(int i = 0; i < 5000; i++)
+            assertEquals((i % 2 == 0) ? null : number(i), pb.getNumberOf(name(i)));
+        pb.addEntry("Arnold", "894-59-0011");   // Must land after the last good frame, not after the torn one.
+        pb.close();
+        pb = open();
+        assertEquals("894-59-0011", pb.getNumberOf("Arnold"));
+        assertEquals(2502, pb.size());
+        pb.close();
+        try {
+            pb.addEntry("Tiffany", "894-59-0012");
+            fail("A closed phonebook should not accept mutations.");
+        } catch(IllegalStateException ignored){
+        }
+    }
+
+    @Test
+    public void testConcurrentGroupCommit() throws Exception {
+        int threads = 8, perThread = 500;
+        DurablePhonebook pb = new DurablePhonebook(directory, LINEAR_PROBING, ROBIN_HOOD, 1, TimeUnit.MILLISECONDS, 64);
+        opened.add(pb);
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for(int t = 0; t < threads; t++){
+            final int first = t * perThread;
+            Thread worker = new Thread(() -> {
+                try {
+                    for(int i = first; i < first + perThread; i++)
+                        pb.addEntry(name(i), number(i));
+                } catch(Throwable th){
+                    synchronized(failures){
+                        failures.add(th);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for(Thread worker : workers)
+            worker.join();
+        assertTrue("A writer failed: " + failures, failures.isEmpty());
+
+        DurablePhonebook reopened = open();
+        assertEquals(threads * perThread, reopened.size());
+        for(int i = 0; i < threads * perThread; i++)
+            assertEquals(name(i), reopened.getOwnerOf(number(i)));
+    }
+
+    // Lookups share the entries with checkpoints and with writers that wait for the log, and never see a torn entry.
+    @Test
+    public void testLookupsDuringCheckpoints() throws Exception {
+        DurablePhonebook pb = open();
+        for(int i = 0; i < 2000; i++)
+            pb.addEntry(name(i), number(i));
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for(int t = 0; t < 4; t++){
+            final int seed = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    Random random = new Random(seed);
+                    for(int i = 0; i < 20000; i++){
+                        int person = random.nextInt(2000);
+                        assertEquals(number(person), pb.getNumberOf(name(person)));
+                        assertEquals(name(person), pb.getOwnerOf(number(person)));
+                    }
+                } catch(Throwable th){
+                    synchronized(failures){
+                        failures.add(th);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for(int round = 0; round < 10; round++){
+            pb.addEntry(name(2000 + round), number(2000 + round));
+            pb.checkpoint();
+        }
+        for(Thread worker : workers)
+            worker.join();
+        assertTrue("A reader failed: " + failures, failures.isEmpty());
+        assertEquals(2010, pb.size());
+
+        DurablePhonebook reopened = open();
+        assertEquals(2010, reopened.size());
+        assertEquals(number(2009), reopened.getNumberOf(name(2009)));
+    }
+}
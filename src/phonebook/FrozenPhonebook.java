@@ -0,0 +1,81 @@
+package phonebook;
+
+import phonebook.hashes.HashTable;
+import phonebook.hashes.PerfectHashTable;
+
+/**
+ * <p>{@link FrozenPhonebook} is a <b>read-only</b> snapshot of a {@link Phonebook}, built by {@link Phonebook#freeze()}
+ * for serving lookups once the entries stop changing. Both of its indexes are {@link PerfectHashTable}s, so
+ * {@link #getNumberOf(String)} and {@link #getOwnerOf(String)} hash their argument once and compare it with exactly one
+ * stored key, whether it is in the phonebook or not, and the whole snapshot takes little more memory than the bytes of
+ * its names and numbers.</p>
+ *
+ * <p>A {@link FrozenPhonebook} shares nothing with the {@link Phonebook} it was built from, which may keep changing
+ * without affecting it. Being immutable, it can be shared by any number of threads without synchronization.</p>
+ *
+ * @see Phonebook
+ * @see PerfectHashTable
+ */
+public final class FrozenPhonebook {
+
+    private final PerfectHashTable namesToNumbers;
+    private final PerfectHashTable numbersToNames;
+
+    FrozenPhonebook(HashTable namesToNumbers, HashTable numbersToNames) {
+        this.namesToNumbers = new PerfectHashTable(namesToNumbers);
+        this.numbersToNames = new PerfectHashTable(numbersToNames);
+    }
+
+    /** Retrieves the phone number associated with the provided full name.
+     * @param name The full name of the owner of the phone number that is being searched for.
+     * @return The phone number associated with name, or {@code null} if name is {@code null} or if name
+     * is not in the {@link FrozenPhonebook}.
+     */
+    public String getNumberOf(String name) {
+        return namesToNumbers.get(name).getValue();
+    }
+
+    /** Retrieves the full name of the owner of the provided phone number.
+     * @param number The phone number whose owner is being searched for.
+     * @return The full name of the owner of number, or {@code null} if number is {@code null} or if number
+     * is not in the {@link FrozenPhonebook}.
+     */
+    public String getOwnerOf(String number) {
+        return numbersToNames.get(number).getValue();
+    }
+
+    /** Returns the number of entries in the phonebook.
+     * @return the number of entries in the phonebook.
+     */
+    public int size() {
+        return namesToNumbers.size();
+    }
+
+    /** Queries the phonebook for emptiness.
+     * @return {@code true} if, and only if, there are 0 entries in this {@link FrozenPhonebook}, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Returns an estimate of the heap taken up by both indexes, in bytes. See {@link PerfectHashTable#footprint()}.
+     * @return An estimate of the heap taken up by this {@link FrozenPhonebook}, in bytes.
+     */
+    public long footprint() {
+        return namesToNumbers.footprint() + numbersToNames.footprint();
+    }
+
+    /** Returns the index with <b>peoples' names</b> as keys, e.g to measure its {@link phonebook.utils.Probes}.
+     * @return The {@link PerfectHashTable} that maps names to numbers.
+     */
+    public PerfectHashTable namesToNumbers() {
+        return namesToNumbers;
+    }
+
+    /** Returns the index with <b>phone numbers</b> as keys, e.g to measure its {@link phonebook.utils.Probes}.
+     * @return The {@link PerfectHashTable} that maps numbers to names.
+     */
+    public PerfectHashTable numbersToNames() {
+        return numbersToNames;
+    }
+}
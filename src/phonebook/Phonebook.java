@@ -1,145 +1,535 @@
-package phonebook;
-
-import phonebook.hashes.*;
-
-/**
- * <p>{@link Phonebook} is an abstraction over phonebooks: databases of &lt; Full Name,
- * Phone Number&gt; pairs. It allows for <b>both</b> phone <b>and</b> name search, both in
- * <em>amortized constant</em> time. The efficiency of either search will be dependent on
- * the nature of the underlying hash table. No {@code null} entries are allowed. </p>
- *
- * <p>{@link Phonebook} only allows for <b>unique</b> Person / Phone pairs. That is, every person will have
- * <b>exactly one</b> phone number associated with them, and every phone number will be associated with
- * <b>exactly one</b> person. Study the implementation of this class to see for yourselves how this is attained by
- * interfacing with both internal hash tables. </p>
- *
- * <p>The Release Tests on the <a href ="https://submit.cs.umd.edu/">submit server</a> primarily test the methods of {@link Phonebook}
- * Since {@link Phonebook}'s methods rely on methods of {@link HashTable} instances, by parameterizing
- * {@link Phonebook} instances in all 3^2 = 9 possible ways, we can run the same tests against all of the hash
- * tables that you will have to implement. </p>
- *
- * <p><b>**** STUDY, BUT DO NOT EDIT THIS CLASS' SOURCE CODE! </b></p>
- *
- * @author <a href="https://github.com/JasonFil">Jason Filippou</a>
- * @see HashTable
- * @see SeparateChainingHashTable
- * @see LinearProbingHashTable
- * @see QuadraticProbingHashTable
- */
-public class Phonebook {
-
-    private HashTable namesToNumbers ;
-    private HashTable numbersToNames ;
-
-
-    /**
-     * Instantiates a new {@link Phonebook}. The parameters provide the collision resolution strategy
-     * for lookups based on name or number, respectively.
-     *
-     * @param namesToNumbersHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
-     *                           create our hash table with <b>peoples' names</b> as keys.
-     * @param numbersToNamesHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
-     *                           create our hash table with <b>phone numbers</b> as keys.
-     * @see CollisionResolver
-     */
-    public Phonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash) {
-
-        switch(namesToNumbersHash){
-            case SEPARATE_CHAINING:
-                namesToNumbers = new SeparateChainingHashTable();
-                break;
-            case LINEAR_PROBING:
-                namesToNumbers = new LinearProbingHashTable(false);
-                break;
-            case ORDERED_LINEAR_PROBING:
-                namesToNumbers = new OrderedLinearProbingHashTable(false);
-                break;
-            case QUADRATIC_PROBING:
-                namesToNumbers = new QuadraticProbingHashTable(false);
-                break;
-            default:
-                throw new RuntimeException("Encountered unsupported CollisionResolver argument: " + namesToNumbersHash  + "." );
-        }
-
-        switch(numbersToNamesHash){
-            case SEPARATE_CHAINING:
-                numbersToNames = new SeparateChainingHashTable();
-                break;
-            case LINEAR_PROBING:
-                numbersToNames = new LinearProbingHashTable(false);
-                break;
-            case ORDERED_LINEAR_PROBING:
-                numbersToNames = new OrderedLinearProbingHashTable(false);
-                break;
-            case QUADRATIC_PROBING:
-                numbersToNames = new QuadraticProbingHashTable(false);
-                break;
-            default:
-                throw new RuntimeException("Encountered unsupported Collision Resolver " + numbersToNamesHash + ".");
-        }
-    }
-
-    /** Retrieves the phone number associated with the provided full name. If the name is not in the database,
-     * this method returns {@code null}.
-     * @param name The full name of the owner of the phone number that is being searched for.
-     * @return The phone number associated with name, or {@code null} if name is {@code null} or if name
-     * is not in the {@link Phonebook}.
-     */
-    public String getNumberOf(String name) {
-        return (name == null) ? null : namesToNumbers.get(name).getValue();
-    }
-
-    /** Retrieves the full name of the owner of the provided phone number. If the phone number is not in the database,
-     * this method returns {@code null}.
-     * @param number The phone number whose owner is being searched for.
-     * @return The full name of the owner of number, or {@code null} if number is {@code null} or if number
-     * is not in the {@link Phonebook}.
-     */
-    public String getOwnerOf(String number) {
-        return (number == null) ? null : numbersToNames.get(number).getValue();
-    }
-
-    /** Adds the tuple &lt; name, number &gt; in the {@link Phonebook}. If either name or
-     * number are already in the collection, then the entire entry is <b>updated</b>.
-     * @param name The full name of the number's owner.
-     * @param number The phone number of the person.
-     * @throws IllegalArgumentException if either name or number is {@code null}.
-     */
-    public void addEntry(String name, String number) {
-        if(name == null || number == null)
-            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
-        namesToNumbers.put(name, number);
-        numbersToNames.put(number, name);
-    }
-
-    /** Deletes the entry characterized by the arguments provided. If either argument is {@code null}, or if the
-     * entry is <b>not</b> contained by this {@link Phonebook} instance, this method has <b>no effect</b>.
-     * @param name The &quot;owner&quot; part of the &lt; owner, phone number &gt; tuple.
-     * @param number The &quot;number&quot; part of the &lt; owner, phone number &gt; tuple.
-     * @throws IllegalArgumentException if either name or number is {@code null}.
-     */
-    public void deleteEntry(String name, String number) {
-        if(number == null || name == null)
-            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
-        namesToNumbers.remove(name);
-        numbersToNames.remove(number);
-    }
-
-    /** Returns the number of entries in the phonebook.
-     * @return the number of entries in the phonebook.
-     */
-    public int size() {
-        assert namesToNumbers.size() == numbersToNames.size() :
-                "Mismatch in internal hash table counts. Names->Numbers has count: " +
-                        namesToNumbers.size() + ", while Numbers->Names has count:  " +
-                        numbersToNames.size() + ".";
-        return namesToNumbers.size();
-    }
-
-    /** Queries the phonebook for emptiness.
-     * @return {@code true} if, and only if, there are 0 entries in this {@link Phonebook}, {@code false} otherwise.
-     */
-    public boolean isEmpty() {
-        return size() == 0;
-    }
-}
+package phonebook;
+
+import phonebook.hashes.*;
+import phonebook.utils.KVPair;
+import phonebook.utils.LookupResults;
+import phonebook.utils.SortedStringIndex;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>{@link Phonebook} is an abstraction over phonebooks: databases of &lt; Full Name,
+ * Phone Number&gt; pairs. It allows for <b>both</b> phone <b>and</b> name search, both in
+ * <em>amortized constant</em> time. The efficiency of either search will be dependent on
+ * the nature of the underlying hash table. No {@code null} entries are allowed. </p>
+ *
+ * <p>{@link Phonebook} only allows for <b>unique</b> Person / Phone pairs. That is, every person will have
+ * <b>exactly one</b> phone number associated with them, and every phone number will be associated with
+ * <b>exactly one</b> person. Study the implementation of this class to see for yourselves how this is attained by
+ * interfacing with both internal hash tables. </p>
+ *
+ * <p>The Release Tests on the <a href ="https://submit.cs.umd.edu/">submit server</a> primarily test the methods of {@link Phonebook}
+ * Since {@link Phonebook}'s methods rely on methods of {@link HashTable} instances, by parameterizing
+ * {@link Phonebook} instances in all 3^2 = 9 possible ways, we can run the same tests against all of the hash
+ * tables that you will have to implement. </p>
+ *
+ * <p><b>**** STUDY, BUT DO NOT EDIT THIS CLASS' SOURCE CODE! </b></p>
+ *
+ * @author <a href="https://github.com/JasonFil">Jason Filippou</a>
+ * @see HashTable
+ * @see SeparateChainingHashTable
+ * @see ArrayChainingHashTable
+ * @see LinearProbingHashTable
+ * @see QuadraticProbingHashTable
+ * @see RobinHoodHashTable
+ * @see CuckooHashTable
+ * @see HopscotchHashTable
+ * @see MappedHashTable
+ * @see ArenaHashTable
+ * @see BidirectionalHashTable
+ * @see PhoneNumberHashTable
+ * @see TableSnapshot
+ * @see FrozenPhonebook
+ */
+public class Phonebook implements Closeable {
+
+    private HashTable namesToNumbers ;
+    private HashTable numbersToNames ;
+    private BidirectionalHashTable entries ;   // Non-null if both tables above are its views.
+    private SortedStringIndex nameIndex ;      // The keys of namesToNumbers, built by the first prefixSearch().
+
+    private static final int SNAPSHOT_MAGIC = 0x5042534E; // "PBSN"
+    private static final int SNAPSHOT_VERSION = 1;
+
+
+    /**
+     * Instantiates a new {@link Phonebook}. The parameters provide the collision resolution strategy
+     * for lookups based on name or number, respectively.
+     *
+     * @param namesToNumbersHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
+     *                           create our hash table with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
+     *                           create our hash table with <b>phone numbers</b> as keys.
+     * @see CollisionResolver
+     */
+    public Phonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash) {
+        this(namesToNumbersHash, numbersToNamesHash, HashFunction.DEFAULT);
+    }
+
+    /**
+     * Instantiates a new {@link Phonebook} whose hash tables hash their keys with the provided {@link HashFunction}, e.g
+     * a {@link SeededHashFunction} to keep crafted names and numbers from flooding a single cell.
+     *
+     * @param namesToNumbersHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
+     *                           create our hash table with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
+     *                           create our hash table with <b>phone numbers</b> as keys.
+     * @param hashFunction The {@link HashFunction} of both hash tables. Ignored by {@link CollisionResolver#MEMORY_MAPPED}
+     *                     tables, whose hashes must stay the same across runs.
+     * @throws IllegalArgumentException if hashFunction is {@code null}, or if exactly one of the resolvers is
+     * {@link CollisionResolver#MEMORY_MAPPED}.
+     * @see CollisionResolver
+     */
+    public Phonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash, HashFunction hashFunction) {
+        this(createTable(paired(namesToNumbersHash, numbersToNamesHash), "namesToNumbers", hashFunction),
+                numberTable(numbersToNamesHash, "numbersToNames", hashFunction));
+    }
+
+    /**
+     * Instantiates a new {@link Phonebook} over the provided hash tables, e.g a pair of {@link MappedHashTable}s that
+     * already hold the entries of a previous run. The tables are used as they are, and must be kept consistent with each
+     * other: number must be mapped to name in numbersToNames if, and only if, name is mapped to number in namesToNumbers.
+     *
+     * @param namesToNumbers The {@link HashTable} with <b>peoples' names</b> as keys.
+     * @param numbersToNames The {@link HashTable} with <b>phone numbers</b> as keys.
+     * @throws IllegalArgumentException if either table is {@code null}, if they are the same table, or if only one of
+     * them is a {@link MappedHashTable}.
+     */
+    public Phonebook(HashTable namesToNumbers, HashTable numbersToNames) {
+        if(namesToNumbers == null || numbersToNames == null || namesToNumbers == numbersToNames)
+            throw new IllegalArgumentException("Phonebook needs two distinct hash tables.");
+        if((namesToNumbers instanceof MappedHashTable) != (numbersToNames instanceof MappedHashTable))
+            throw new IllegalArgumentException("A MappedHashTable cannot be paired with an in-memory table: the " +
+                    "entries of the other table would be lost when the process exits.");
+        this.namesToNumbers = namesToNumbers;
+        this.numbersToNames = numbersToNames;
+    }
+
+    /**
+     * Instantiates a new {@link Phonebook} over a {@link BidirectionalHashTable}, which stores every entry <b>once</b>
+     * and indexes it both by name and by number. {@link #addEntry(String, String)} and {@link #deleteEntry(String, String)}
+     * then become single operations on the shared entries, so the two lookup directions can never disagree.
+     *
+     * @param entries The {@link BidirectionalHashTable} that will hold the entries of this {@link Phonebook}.
+     * @throws IllegalArgumentException if entries is {@code null}.
+     */
+    public Phonebook(BidirectionalHashTable entries) {
+        this(entries == null ? null : entries.forward(), entries == null ? null : entries.reverse());
+        this.entries = entries;
+    }
+
+    /**
+     * Checks that either both or neither of the provided resolvers are {@link CollisionResolver#MEMORY_MAPPED}, before
+     * any file is opened: the entries of an in-memory table would not survive the run, while its mapped counterpart
+     * would still hold them on the next one.
+     * @param namesToNumbersHash The {@link CollisionResolver} of the table with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash The {@link CollisionResolver} of the table with <b>phone numbers</b> as keys.
+     * @return namesToNumbersHash, for convenience.
+     * @throws IllegalArgumentException if exactly one of the resolvers is {@link CollisionResolver#MEMORY_MAPPED}.
+     */
+    static CollisionResolver paired(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash) {
+        if((namesToNumbersHash == CollisionResolver.MEMORY_MAPPED) != (numbersToNamesHash == CollisionResolver.MEMORY_MAPPED))
+            throw new IllegalArgumentException("Provided: namesToNumbersHash=" + namesToNumbersHash +
+                    " and numbersToNamesHash=" + numbersToNamesHash + ". A MEMORY_MAPPED table cannot be paired with an in-memory one.");
+        return namesToNumbersHash;
+    }
+
+    /**
+     * Creates an empty {@link HashTable} whose subtype is governed by the provided {@link CollisionResolver}. Openly
+     * addressed tables use <b>hard</b> deletion. {@link CollisionResolver#MEMORY_MAPPED} tables are opened in the
+     * directory named by the system property {@value MappedHashTable#DIRECTORY_PROPERTY}, and are only empty the
+     * first time.
+     * @param resolver The collision resolution strategy of the new table.
+     * @param name The role of the table in the {@link Phonebook}, which names the files of persistent tables.
+     * @param hashFunction The {@link HashFunction} of the new table, unless it is persistent.
+     * @return A new {@link HashTable}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}.
+     * @throws RuntimeException if the {@link CollisionResolver} is not supported.
+     */
+    static HashTable createTable(CollisionResolver resolver, String name, HashFunction hashFunction) {
+        if(hashFunction == null)
+            throw new IllegalArgumentException("Provided: hashFunction=null");
+        switch(resolver){
+            case SEPARATE_CHAINING:
+                return new SeparateChainingHashTable(hashFunction);
+            case ARRAY_CHAINING:
+                return new ArrayChainingHashTable(hashFunction);
+            case LINEAR_PROBING:
+                return new LinearProbingHashTable(false, false, hashFunction);
+            case ORDERED_LINEAR_PROBING:
+                return new OrderedLinearProbingHashTable(false, false, hashFunction);
+            case QUADRATIC_PROBING:
+                return new QuadraticProbingHashTable(false, false, hashFunction);
+            case ROBIN_HOOD:
+                return new RobinHoodHashTable(hashFunction);
+            case CUCKOO:
+                return new CuckooHashTable(hashFunction);
+            case HOPSCOTCH:
+                return new HopscotchHashTable(hashFunction);
+            case MEMORY_MAPPED:
+                return new MappedHashTable(Paths.get(System.getProperty(MappedHashTable.DIRECTORY_PROPERTY,
+                        MappedHashTable.DEFAULT_DIRECTORY)), name);
+            case ARENA:
+                return new ArenaHashTable(hashFunction);
+            default:
+                throw new RuntimeException("Encountered unsupported CollisionResolver argument: " + resolver  + "." );
+        }
+    }
+
+    /**
+     * Creates the empty {@link HashTable} with <b>phone numbers</b> as keys. Unless it is persistent, it is a
+     * {@link PhoneNumberHashTable}, which keeps every number that is a plain string of digits and dashes packed into a
+     * {@code long}, and hands all other numbers to a table of the provided type.
+     * @param resolver The collision resolution strategy of the table that holds the numbers that cannot be packed.
+     * @param name The role of the table, which names the files of persistent tables.
+     * @param hashFunction The {@link HashFunction} of that table, which also seeds the hash of the packed numbers, unless
+     *                     it is persistent.
+     * @return A new {@link HashTable}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}.
+     * @throws RuntimeException if the {@link CollisionResolver} is not supported.
+     */
+    static HashTable numberTable(CollisionResolver resolver, String name, HashFunction hashFunction) {
+        HashTable table = createTable(resolver, name, hashFunction);
+        return (resolver == CollisionResolver.MEMORY_MAPPED) ? table : new PhoneNumberHashTable(table, hashFunction);
+    }
+
+    /** Retrieves the phone number associated with the provided full name. If the name is not in the database,
+     * this method returns {@code null}.
+     * @param name The full name of the owner of the phone number that is being searched for.
+     * @return The phone number associated with name, or {@code null} if name is {@code null} or if name
+     * is not in the {@link Phonebook}.
+     */
+    public String getNumberOf(String name) {
+        return (name == null) ? null : namesToNumbers.getValue(name);
+    }
+
+    /** Retrieves the full name of the owner of the provided phone number. If the phone number is not in the database,
+     * this method returns {@code null}.
+     * @param number The phone number whose owner is being searched for.
+     * @return The full name of the owner of number, or {@code null} if number is {@code null} or if number
+     * is not in the {@link Phonebook}.
+     */
+    public String getOwnerOf(String number) {
+        return (number == null) ? null : numbersToNames.getValue(number);
+    }
+
+    /** Retrieves the phone numbers associated with every provided full name at once, through
+     * {@link HashTable#getAll(List, LookupResults)}, which lets the internal hash table overlap the memory accesses of
+     * the different searches. Reusing the same results buffer from one batch to the next, the batch allocates nothing.
+     * @param names The full names whose numbers are being searched for. {@code null} names are allowed.
+     * @param results The buffer that receives the numbers, in the order of names: {@code null} for every name that is
+     *                {@code null} or not in the {@link Phonebook}, along with the probes made by every search.
+     * @return results, for convenience.
+     * @throws IllegalArgumentException if names or results is {@code null}.
+     */
+    public LookupResults getNumbersOf(List<String> names, LookupResults results) {
+        if(names == null || results == null)
+            throw new IllegalArgumentException("Provided: names=" + names + " and results=" + results);
+        namesToNumbers.getAll(names, results);
+        return results;
+    }
+
+    /** Retrieves the phone numbers associated with every provided full name at once. See
+     * {@link #getNumbersOf(List, LookupResults)}, which avoids allocating a new buffer for every batch.
+     * @param names The full names whose numbers are being searched for. {@code null} names are allowed.
+     * @return The numbers, in the order of names: {@code null} for every name that is {@code null} or not in the
+     * {@link Phonebook}.
+     * @throws IllegalArgumentException if names is {@code null}.
+     */
+    public List<String> getNumbersOf(List<String> names) {
+        return new ArrayList<>(getNumbersOf(names, new LookupResults()).values());
+    }
+
+    /** Retrieves the full names of the owners of every provided phone number at once, through
+     * {@link HashTable#getAll(List, LookupResults)}. See {@link #getNumbersOf(List, LookupResults)}.
+     * @param numbers The phone numbers whose owners are being searched for. {@code null} numbers are allowed.
+     * @param results The buffer that receives the owners, in the order of numbers: {@code null} for every number that is
+     *                {@code null} or not in the {@link Phonebook}, along with the probes made by every search.
+     * @return results, for convenience.
+     * @throws IllegalArgumentException if numbers or results is {@code null}.
+     */
+    public LookupResults getOwnersOf(List<String> numbers, LookupResults results) {
+        if(numbers == null || results == null)
+            throw new IllegalArgumentException("Provided: numbers=" + numbers + " and results=" + results);
+        numbersToNames.getAll(numbers, results);
+        return results;
+    }
+
+    /** Retrieves the full names of the owners of every provided phone number at once. See
+     * {@link #getOwnersOf(List, LookupResults)}, which avoids allocating a new buffer for every batch.
+     * @param numbers The phone numbers whose owners are being searched for. {@code null} numbers are allowed.
+     * @return The owners, in the order of numbers: {@code null} for every number that is {@code null} or not in the
+     * {@link Phonebook}.
+     * @throws IllegalArgumentException if numbers is {@code null}.
+     */
+    public List<String> getOwnersOf(List<String> numbers) {
+        return new ArrayList<>(getOwnersOf(numbers, new LookupResults()).values());
+    }
+
+    /** Adds the tuple &lt; name, number &gt; in the {@link Phonebook}. If either name or
+     * number are already in the collection, then the entire entry is <b>updated</b>.
+     * @param name The full name of the number's owner.
+     * @param number The phone number of the person.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     */
+    public void addEntry(String name, String number) {
+        if(name == null || number == null)
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        // Over a BidirectionalHashTable, the previous owner of number loses their entry.
+        String previousOwner = (nameIndex != null && entries != null) ? numbersToNames.getValue(number) : null;
+        namesToNumbers.putValue(name, number);
+        if(entries == null)
+            numbersToNames.putValue(number, name);
+        if(nameIndex != null){
+            nameIndex.add(name);
+            if(previousOwner != null && !previousOwner.equals(name))
+                nameIndex.remove(previousOwner);
+        }
+    }
+
+    /** Adds every &lt; name, number &gt; tuple of entries to the {@link Phonebook}, exactly as if
+     * {@link #addEntry(String, String)} was called on each of them in iteration order. The entries are walked <b>once</b>,
+     * and each internal hash table is then loaded through {@link HashTable#putAll(java.util.Collection)}, which lets it
+     * enlarge itself once to its final capacity instead of resizing over and over.
+     * @param entries The entries to add, with names as keys and numbers as values.
+     * @throws IllegalArgumentException if any entry, name or number is {@code null}. In that case, no entry is added.
+     */
+    public void addAll(Iterable<KVPair> entries) {
+        if(entries == null)
+            throw new IllegalArgumentException("Provided: entries=null");
+        List<KVPair> byName = new ArrayList<>();
+        List<KVPair> byNumber = new ArrayList<>();
+        for(KVPair entry : entries){
+            if(entry == null || entry.getKey() == null || entry.getValue() == null)
+                throw new IllegalArgumentException("Provided: entry=" + ((entry == null) ? null :
+                        "<" + entry.getKey() + ", " + entry.getValue() + ">"));
+            byName.add(entry);
+            byNumber.add(new KVPair(entry.getValue(), entry.getKey()));
+        }
+        namesToNumbers.putAll(byName);
+        if(this.entries == null)
+            numbersToNames.putAll(byNumber);
+        if(nameIndex != null){
+            if(this.entries != null)
+                nameIndex = null;   // Owners displaced by the bulk insertion are unknown: rebuilt on the next search.
+            else
+                nameIndex.addAll(byName.stream().map(KVPair::getKey).collect(Collectors.toList()));
+        }
+    }
+
+    /** Adds every &lt; name, number &gt; tuple of entries to the {@link Phonebook}. See {@link #addAll(Iterable)}.
+     * @param entries The entries to add, with names as keys and numbers as values. The stream is consumed.
+     * @throws IllegalArgumentException if any entry, name or number is {@code null}. In that case, no entry is added.
+     */
+    public void addAll(Stream<KVPair> entries) {
+        if(entries == null)
+            throw new IllegalArgumentException("Provided: entries=null");
+        addAll((Iterable<KVPair>) entries::iterator);
+    }
+
+    /** Deletes the entry characterized by the arguments provided. If either argument is {@code null}, or if the
+     * entry is <b>not</b> contained by this {@link Phonebook} instance, this method has <b>no effect</b>. Over a
+     * {@link BidirectionalHashTable}, the entry is removed as one operation, and only if name is mapped to number.
+     * @param name The &quot;owner&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @param number The &quot;number&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     */
+    public void deleteEntry(String name, String number) {
+        if(number == null || name == null)
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        if(entries != null){
+            if(entries.removeEntry(name, number).getValue() != null && nameIndex != null)
+                nameIndex.remove(name);
+            return;
+        }
+        namesToNumbers.removeValue(name);
+        numbersToNames.removeValue(number);
+        if(nameIndex != null)
+            nameIndex.remove(name);
+    }
+
+    /** Brings each internal hash table to the state described by the provided changes: every key mapped to
+     * {@code null} is removed, and all other keys are inserted with a single {@link HashTable#putAll(java.util.Collection)}.
+     * Each map describes its table on its own, exactly as the last {@link #addEntry(String, String)} or
+     * {@link #deleteEntry(String, String)} that touched each of its keys left it, which makes this the bulk counterpart
+     * of replaying those calls one by one.
+     * @param byName The final state of every changed name: its number, or {@code null} if it was deleted.
+     * @param byNumber The final state of every changed number: its owner, or {@code null} if it was deleted.
+     * @throws IllegalStateException if this {@link Phonebook} is backed by a {@link BidirectionalHashTable}, whose two
+     * directions cannot be changed independently.
+     */
+    void applyAll(Map<String, String> byName, Map<String, String> byNumber) {
+        if(entries != null)
+            throw new IllegalStateException("Cannot change the directions of a BidirectionalHashTable independently.");
+        apply(namesToNumbers, byName);
+        apply(numbersToNames, byNumber);
+        if(nameIndex != null)
+            for(Map.Entry<String, String> change : byName.entrySet())
+                if(change.getValue() == null)
+                    nameIndex.remove(change.getKey());
+                else
+                    nameIndex.add(change.getKey());
+    }
+
+    private static void apply(HashTable table, Map<String, String> changes) {
+        List<KVPair> puts = new ArrayList<>(changes.size());
+        for(Map.Entry<String, String> change : changes.entrySet()){
+            if(change.getValue() == null)
+                table.removeValue(change.getKey());
+            else
+                puts.add(new KVPair(change.getKey(), change.getValue()));
+        }
+        table.putAll(puts);
+    }
+
+    /** Streams the entries whose names start with prefix, in increasing order of name, as &lt; name, number &gt; pairs,
+     * stopping after limit of them. The entries are found through an ordered index of the names, which is built from
+     * the whole {@link Phonebook} by the first call to this method and kept up to date from then on; the stream walks
+     * that index lazily, so a search stops as soon as enough entries have been consumed, however many names share the
+     * prefix. The stream must be consumed before this {@link Phonebook} is modified again.
+     * @param prefix The prefix of the names to return. The empty string matches every name.
+     * @param limit The maximum number of entries to return.
+     * @return A sequential, ordered stream of at most limit entries, with names as keys and numbers as values.
+     * @throws IllegalArgumentException if prefix is {@code null} or limit is negative.
+     * @see SortedStringIndex
+     */
+    public Stream<KVPair> prefixSearch(String prefix, int limit) {
+        if(prefix == null || limit < 0)
+            throw new IllegalArgumentException("Provided: prefix=" + prefix + " and limit=" + limit);
+        if(nameIndex == null){
+            List<String> names = new ArrayList<>(namesToNumbers.size());
+            namesToNumbers.forEach((name, number) -> names.add(name));
+            nameIndex = new SortedStringIndex();
+            nameIndex.addAll(names);
+        }
+        Iterator<String> matchingNames = nameIndex.iterator(prefix);
+        Iterator<KVPair> matches = new Iterator<KVPair>() {
+            private int returned;
+
+            @Override
+            public boolean hasNext() {
+                return returned < limit && matchingNames.hasNext();
+            }
+
+            @Override
+            public KVPair next() {
+                if(!hasNext())
+                    throw new NoSuchElementException();
+                returned++;
+                String name = matchingNames.next();
+                return new KVPair(name, namesToNumbers.getValue(name));
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(matches,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /** Builds a read-only snapshot of the entries of this {@link Phonebook}, whose lookups go through
+     * {@link PerfectHashTable}s: a single hash and a single comparison per search. This {@link Phonebook} is left as it
+     * is, and later changes to it are not seen by the snapshot. Building takes time linear in the number of entries.
+     * @return A {@link FrozenPhonebook} with the current entries of this {@link Phonebook}.
+     * @throws UnsupportedOperationException if an internal hash table cannot enumerate its entries.
+     * @see FrozenPhonebook
+     */
+    public FrozenPhonebook freeze() {
+        return new FrozenPhonebook(namesToNumbers, numbersToNames);
+    }
+
+    /** Returns the number of entries in the phonebook.
+     * @return the number of entries in the phonebook.
+     */
+    public int size() {
+        assert namesToNumbers.size() == numbersToNames.size() :
+                "Mismatch in internal hash table counts. Names->Numbers has count: " +
+                        namesToNumbers.size() + ", while Numbers->Names has count:  " +
+                        numbersToNames.size() + ".";
+        return namesToNumbers.size();
+    }
+
+    /** Queries the phonebook for emptiness.
+     * @return {@code true} if, and only if, there are 0 entries in this {@link Phonebook}, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Saves every entry of this {@link Phonebook} to out, as a header followed by a {@link TableSnapshot} of each
+     * internal hash table. Tables that support it are saved slot by slot, so that {@link #load(InputStream, CollisionResolver, CollisionResolver)}
+     * can copy them back at the same capacity without hashing a single key again. The table with phone numbers as keys
+     * is a {@link PhoneNumberHashTable} unless it is persistent, and is saved pair by pair: loading it inserts every
+     * number again, after enlarging the table once.
+     * @param out The stream to write to. It is flushed, but not closed; it should be buffered.
+     * @throws IOException if out throws.
+     * @throws IllegalArgumentException if out is {@code null}.
+     * @see TableSnapshot
+     */
+    public void save(OutputStream out) throws IOException {
+        if(out == null)
+            throw new IllegalArgumentException("Provided: out=null");
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(SNAPSHOT_MAGIC);
+        data.writeInt(SNAPSHOT_VERSION);
+        TableSnapshot.write(namesToNumbers, data);
+        TableSnapshot.write(numbersToNames, data);
+    }
+
+    /** Loads a {@link Phonebook} saved by {@link #save(OutputStream)} into new hash tables of the provided types. When
+     * a type is the one that the table was saved from, and its slots were saved, they are copied back as they are;
+     * otherwise, the entries are inserted again, each table being enlarged only once.
+     * @param in The stream to read from. It is not closed; it should be buffered.
+     * @param namesToNumbersHash The {@link CollisionResolver} of the table with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash The {@link CollisionResolver} of the table with <b>phone numbers</b> as keys.
+     * @return A new {@link Phonebook} with the saved entries.
+     * @throws IOException if in throws, or does not hold a saved {@link Phonebook}, or the snapshot is truncated or corrupted.
+     * @throws IllegalArgumentException if in is {@code null}, or if exactly one of the resolvers is
+     * {@link CollisionResolver#MEMORY_MAPPED}.
+     */
+    public static Phonebook load(InputStream in, CollisionResolver namesToNumbersHash,
+                                 CollisionResolver numbersToNamesHash) throws IOException {
+        if(in == null)
+            throw new IllegalArgumentException("Provided: in=null");
+        DataInputStream data = new DataInputStream(in);
+        if(data.readInt() != SNAPSHOT_MAGIC)
+            throw new IOException("The stream does not hold a saved Phonebook.");
+        int version = data.readInt();
+        if(version != SNAPSHOT_VERSION)
+            throw new IOException("Cannot load a Phonebook saved with version " + version + ".");
+        HashTable byName = TableSnapshot.read(data, createTable(paired(namesToNumbersHash, numbersToNamesHash),
+                "namesToNumbers", HashFunction.DEFAULT));
+        HashTable byNumber = TableSnapshot.read(data, numberTable(numbersToNamesHash, "numbersToNames", HashFunction.DEFAULT));
+        return new Phonebook(byName, byNumber);
+    }
+
+    /** Closes every internal hash table that holds resources beyond the heap, e.g a {@link MappedHashTable}, which is
+     * flushed and marked as cleanly shut down, so that the next run opens it without scanning its slots. In-memory tables
+     * need no closing. Any further use of a closed {@link MappedHashTable} throws an {@link IllegalStateException}.
+     * Closing a closed {@link Phonebook} has no effect.
+     * @throws IOException if a table cannot be closed. Both tables are closed regardless.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if(namesToNumbers instanceof Closeable)
+                ((Closeable) namesToNumbers).close();
+        } finally {
+            if(numbersToNames instanceof Closeable)
+                ((Closeable) numbersToNames).close();
+        }
+    }
+}
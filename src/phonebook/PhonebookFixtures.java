@@ -0,0 +1,51 @@
+package phonebook;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * <p>{@link PhonebookFixtures} holds the entries and the scratch directory handling shared by the phonebook test suites,
+ * so that every suite fills its phonebooks with the same names and numbers.</p>
+ *
+ * @see ConcurrentPhonebookTests
+ * @see DurablePhonebookTests
+ * @see ShardedPhonebookTests
+ */
+final class PhonebookFixtures {
+
+    private PhonebookFixtures(){
+    }
+
+    /**
+     * The name of the i-th person, unique for every non-negative i.
+     * @param i The index of the person.
+     * @return The name of the i-th person.
+     */
+    static String name(int i){
+        return "Person #" + i;
+    }
+
+    /**
+     * The phone number of the i-th line, unique for every i in [0, 10^7).
+     * @param i The index of the line.
+     * @return The phone number of the i-th line.
+     */
+    static String number(int i){
+        return String.format("301-%03d-%04d", i / 10000, i % 10000);
+    }
+
+    /**
+     * Deletes a scratch directory along with everything under it.
+     * @param directory The directory to delete.
+     * @throws IOException If some file could not be deleted.
+     */
+    static void deleteDirectory(Path directory) throws IOException {
+        try(Stream<Path> files = Files.walk(directory)){
+            for(Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package phonebook;
+
+import phonebook.hashes.CollisionResolver;
+import phonebook.hashes.HashFunction;
+import phonebook.hashes.HashTable;
+import phonebook.hashes.TableSnapshot;
+import phonebook.utils.KVPair;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiPredicate;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>{@link ShardedPhonebook} offers the operations of a {@link Phonebook}, without extending it, over entries that are
+ * split across a fixed number of independent <em>shards</em>: every name lives in one of several tables with names as keys, and every number in one of several
+ * tables with numbers as keys, chosen by a hash of the name or the number. Point operations touch exactly the shard of
+ * their name and the shard of their number, and behave exactly like those of {@link Phonebook}.</p>
+ *
+ * <p>Sharding bounds the cost of a resize: a table only ever holds its share of the entries, so enlarging it moves
+ * a fraction of them, instead of stalling on the whole phonebook at once. And since the shards share nothing, the
+ * <b>bulk</b> operations, {@link #addAll(Iterable)}, {@link #reserve(int)}, {@link #save(OutputStream)},
+ * {@link #load(InputStream, CollisionResolver, CollisionResolver, ForkJoinPool)}, {@link #findAll(BiPredicate)},
+ * {@link #containsName(String)} and {@link #containsNumber(String)}, run on every shard in parallel, on a
+ * {@link ForkJoinPool}.</p>
+ *
+ * <p>Like {@link Phonebook}, a {@link ShardedPhonebook} is <b>not</b> thread-safe: its bulk operations use many threads
+ * internally, but calls must not overlap. See {@link ConcurrentPhonebook} for a thread-safe phonebook.</p>
+ *
+ * <p>Shards of type {@link CollisionResolver#MEMORY_MAPPED} each open their own pair of files, so a
+ * {@link ShardedPhonebook} over them must be {@link #close() closed}, like a {@link Phonebook}.</p>
+ *
+ * @see Phonebook
+ * @see ForkJoinPool
+ */
+public class ShardedPhonebook implements Closeable {
+
+    /**
+     * The number of shards of the default constructor.
+     */
+    public static final int DEFAULT_SHARDS = 16;
+
+    private static final int SNAPSHOT_MAGIC = 0x50425348; // "PBSH"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final HashTable[] namesToNumbers;
+    private final HashTable[] numbersToNames;
+    private final ForkJoinPool pool;
+
+    /**
+     * Instantiates a new {@link ShardedPhonebook} with {@link #DEFAULT_SHARDS} shards, which runs its bulk operations on
+     * the common {@link ForkJoinPool}.
+     * @param namesToNumbersHash The {@link CollisionResolver} of the shards with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash The {@link CollisionResolver} of the shards with <b>phone numbers</b> as keys.
+     */
+    public ShardedPhonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash) {
+        this(namesToNumbersHash, numbersToNamesHash, DEFAULT_SHARDS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiates a new {@link ShardedPhonebook} with the provided number of shards, which runs its bulk operations on
+     * pool.
+     * @param namesToNumbersHash The {@link CollisionResolver} of the shards with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash The {@link CollisionResolver} of the shards with <b>phone numbers</b> as keys.
+     * @param shards The number of shards of either kind. Rounded up to a power of two.
+     * @param pool The {@link ForkJoinPool} that runs the bulk operations.
+     * @throws IllegalArgumentException if shards is not between 1 and 2^16, or pool is {@code null}, or if exactly one of
+     * the resolvers is {@link CollisionResolver#MEMORY_MAPPED}.
+     */
+    public ShardedPhonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash, int shards,
+                            ForkJoinPool pool) {
+        if (shards < 1 || shards > 1 << 16 || pool == null) {
+            throw new IllegalArgumentException("Provided: shards=" + shards + " and pool=" + pool);
+        }
+        Phonebook.paired(namesToNumbersHash, numbersToNamesHash);
+        int count = Integer.highestOneBit(shards * 2 - 1);
+        namesToNumbers = new HashTable[count];
+        numbersToNames = new HashTable[count];
+        for (int i = 0; i < count; i++) {
+            namesToNumbers[i] = Phonebook.createTable(namesToNumbersHash, "namesToNumbers-" + i, HashFunction.DEFAULT);
+            numbersToNames[i] = Phonebook.numberTable(numbersToNamesHash, "numbersToNames-" + i, HashFunction.DEFAULT);
+        }
+        this.pool = pool;
+    }
+
+    // The shard of key. The tables hash their keys modulo a prime, so the top bits of a multiplicative hash keep the
+    // choice of shard independent of the choice of slot within it.
+    private int shardOf(String key) {
+        return (int) ((key.hashCode() * 0x9E3779B9L & 0xffffffffL) * namesToNumbers.length >>> 32);
+    }
+
+    // Runs body on every shard, in parallel on the pool, and waits for all of them.
+    private void forEachShard(IntConsumer body) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(namesToNumbers.length);
+        for (int i = 0; i < namesToNumbers.length; i++) {
+            int shard = i;
+            tasks.add(ForkJoinTask.adapt(() -> body.accept(shard)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+
+    /**
+     * Returns the number of shards of either kind.
+     * @return The number of shards of either kind.
+     */
+    public int shards() {
+        return namesToNumbers.length;
+    }
+
+    /** Retrieves the phone number associated with the provided full name.
+     * @param name The full name of the owner of the phone number that is being searched for.
+     * @return The phone number associated with name, or {@code null} if name is {@code null} or if name
+     * is not in the {@link ShardedPhonebook}.
+     */
+    public String getNumberOf(String name) {
+        return (name == null) ? null : namesToNumbers[shardOf(name)].getValue(name);
+    }
+
+    /** Retrieves the full name of the owner of the provided phone number.
+     * @param number The phone number whose owner is being searched for.
+     * @return The full name of the owner of number, or {@code null} if number is {@code null} or if number
+     * is not in the {@link ShardedPhonebook}.
+     */
+    public String getOwnerOf(String number) {
+        return (number == null) ? null : numbersToNames[shardOf(number)].getValue(number);
+    }
+
+    /** Adds the tuple &lt; name, number &gt; in the {@link ShardedPhonebook}, exactly like
+     * {@link Phonebook#addEntry(String, String)} does.
+     * @param name The full name of the number's owner.
+     * @param number The phone number of the person.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     */
+    public void addEntry(String name, String number) {
+        if (name == null || number == null) {
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        }
+        namesToNumbers[shardOf(name)].putValue(name, number);
+        numbersToNames[shardOf(number)].putValue(number, name);
+    }
+
+    /** Deletes the entry characterized by the arguments provided, exactly like {@link Phonebook#deleteEntry(String, String)} does.
+     * @param name The &quot;owner&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @param number The &quot;number&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     */
+    public void deleteEntry(String name, String number) {
+        if (name == null || number == null) {
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        }
+        namesToNumbers[shardOf(name)].removeValue(name);
+        numbersToNames[shardOf(number)].removeValue(number);
+    }
+
+    /** Adds every &lt; name, number &gt; tuple of entries, exactly as if {@link #addEntry(String, String)} was called on
+     * each of them in iteration order. The entries are walked once to split them by shard, and then every shard loads its
+     * share through {@link HashTable#putAll(java.util.Collection)}, in parallel with the others, so that every table is
+     * enlarged at most once, by a thread of its own.
+     * @param entries The entries to add, with names as keys and numbers as values.
+     * @throws IllegalArgumentException if any entry, name or number is {@code null}. In that case, no entry is added.
+     */
+    public void addAll(Iterable<KVPair> entries) {
+        if (entries == null) {
+            throw new IllegalArgumentException("Provided: entries=null");
+        }
+        List<List<KVPair>> byName = new ArrayList<>(namesToNumbers.length);
+        List<List<KVPair>> byNumber = new ArrayList<>(numbersToNames.length);
+        for (int i = 0; i < namesToNumbers.length; i++) {
+            byName.add(new ArrayList<>());
+            byNumber.add(new ArrayList<>());
+        }
+        for (KVPair entry : entries) {
+            if (entry == null || entry.getKey() == null || entry.getValue() == null) {
+                throw new IllegalArgumentException("Provided: entry=" + ((entry == null) ? null :
+                        "<" + entry.getKey() + ", " + entry.getValue() + ">"));
+            }
+            byName.get(shardOf(entry.getKey())).add(entry);
+            byNumber.get(shardOf(entry.getValue())).add(new KVPair(entry.getValue(), entry.getKey()));
+        }
+        forEachShard(shard -> {
+            namesToNumbers[shard].putAll(byName.get(shard));
+            numbersToNames[shard].putAll(byNumber.get(shard));
+        });
+    }
+
+    /** Enlarges every shard, in parallel with the others, so that additional more entries can be added without
+     * resizing any of them, e.g before a long run of {@link #addEntry(String, String)} calls. Each shard reserves its
+     * share of the entries, plus a margin of four standard deviations for the unevenness of the hash, through
+     * {@link HashTable#reserve(int)}; tables that cannot size themselves ahead of time ignore the call.
+     * @param additional The number of entries about to be added.
+     * @throws IllegalArgumentException if additional is negative.
+     */
+    public void reserve(int additional) {
+        if (additional < 0) {
+            throw new IllegalArgumentException("Provided: additional=" + additional);
+        }
+        double share = (double) additional / namesToNumbers.length;
+        int perShard = (int) Math.min(additional, Math.ceil(share + 4 * Math.sqrt(share)));
+        forEachShard(shard -> {
+            namesToNumbers[shard].reserve(perShard);
+            numbersToNames[shard].reserve(perShard);
+        });
+    }
+
+    /** Queries whether name owns a number in the {@link ShardedPhonebook}, by scanning the <b>values</b> of the shards
+     * with phone numbers as keys, in parallel, through {@link HashTable#containsValue(String)}. Shards that have not
+     * started scanning yet are skipped once a match is found. {@link #getNumberOf(String)} answers the same question
+     * from a single shard; this scan is its bulk counterpart, which only relies on the other direction.
+     * @param name The full name to search for.
+     * @return {@code true} if, and only if, name is the owner of some number in the {@link ShardedPhonebook}.
+     */
+    public boolean containsName(String name) {
+        return name != null && anyContains(numbersToNames, name);
+    }
+
+    /** Queries whether number belongs to someone in the {@link ShardedPhonebook}, by scanning the <b>values</b> of the
+     * shards with names as keys, in parallel, through {@link HashTable#containsValue(String)}. See
+     * {@link #containsName(String)}.
+     * @param number The phone number to search for.
+     * @return {@code true} if, and only if, number is the number of someone in the {@link ShardedPhonebook}.
+     */
+    public boolean containsNumber(String number) {
+        return number != null && anyContains(namesToNumbers, number);
+    }
+
+    // Whether any of shards holds value, scanned in parallel.
+    private boolean anyContains(HashTable[] shards, String value) {
+        AtomicBoolean found = new AtomicBoolean();
+        forEachShard(shard -> {
+            if (!found.get() && shards[shard].containsValue(value)) {
+                found.set(true);
+            }
+        });
+        return found.get();
+    }
+
+    /** Scans every entry of the {@link ShardedPhonebook}, in parallel across the shards, and collects those that match
+     * predicate, e.g the entries whose number has a given area code. This is the bulk counterpart of
+     * {@link HashTable#containsValue(String)}: a full scan, which takes time linear in the number of entries, divided
+     * among the threads of the pool.
+     * @param predicate The test that every name and its number are put to. It is called from many threads at once.
+     * @return The entries that match, with names as keys and numbers as values, in no particular order.
+     * @throws IllegalArgumentException if predicate is {@code null}.
+     * @throws UnsupportedOperationException if the shards cannot enumerate their entries.
+     */
+    public List<KVPair> findAll(BiPredicate<? super String, ? super String> predicate) {
+        if (predicate == null) {
+            throw new IllegalArgumentException("Provided: predicate=null");
+        }
+        List<List<KVPair>> found = new ArrayList<>(namesToNumbers.length);
+        for (int i = 0; i < namesToNumbers.length; i++) {
+            found.add(new ArrayList<>());
+        }
+        forEachShard(shard -> namesToNumbers[shard].forEach((name, number) -> {
+            if (predicate.test(name, number)) {
+                found.get(shard).add(new KVPair(name, number));
+            }
+        }));
+        List<KVPair> matches = new ArrayList<>();
+        found.forEach(matches::addAll);
+        return matches;
+    }
+
+    /** Returns the number of entries in the phonebook.
+     * @return the number of entries in the phonebook.
+     */
+    public int size() {
+        int size = 0;
+        for (HashTable shard : namesToNumbers) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /** Returns the total capacity of the shards with names as keys, as reported by {@link HashTable#capacity()}.
+     * @return The sum of the capacities of the shards with names as keys.
+     */
+    public int capacity() {
+        int capacity = 0;
+        for (HashTable shard : namesToNumbers) {
+            capacity += shard.capacity();
+        }
+        return capacity;
+    }
+
+    /** Queries the phonebook for emptiness.
+     * @return {@code true} if, and only if, there are 0 entries in this {@link ShardedPhonebook}, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Saves every entry of this {@link ShardedPhonebook} to out. Every shard is encoded to a {@link TableSnapshot} in
+     * parallel with the others, and the snapshots are then written out one after the other, each preceded by its length.
+     * @param out The stream to write to. It is flushed, but not closed; it should be buffered.
+     * @throws IOException if out throws.
+     * @throws IllegalArgumentException if out is {@code null}.
+     * @see TableSnapshot
+     */
+    public void save(OutputStream out) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException("Provided: out=null");
+        }
+        byte[][] byName = new byte[namesToNumbers.length][];
+        byte[][] byNumber = new byte[numbersToNames.length][];
+        try {
+            forEachShard(shard -> {
+                byName[shard] = encode(namesToNumbers[shard]);
+                byNumber[shard] = encode(numbersToNames[shard]);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(SNAPSHOT_MAGIC);
+        data.writeInt(SNAPSHOT_VERSION);
+        data.writeInt(namesToNumbers.length);
+        for (int i = 0; i < namesToNumbers.length; i++) {
+            data.writeInt(byName[i].length);
+            data.write(byName[i]);
+            data.writeInt(byNumber[i].length);
+            data.write(byNumber[i]);
+        }
+        data.flush();
+    }
+
+    private static byte[] encode(HashTable table) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            TableSnapshot.write(table, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Loads a {@link ShardedPhonebook} saved by {@link #save(OutputStream)} into new shards of the provided types. The
+     * snapshots of the shards are read off in one sequential pass, and then decoded in parallel.
+     * @param in The stream to read from. It is not closed; it should be buffered.
+     * @param namesToNumbersHash The {@link CollisionResolver} of the shards with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash The {@link CollisionResolver} of the shards with <b>phone numbers</b> as keys.
+     * @param pool The {@link ForkJoinPool} that decodes the shards, and runs the bulk operations of the new phonebook.
+     * @return A new {@link ShardedPhonebook} with the saved entries, and as many shards as the saved one.
+     * @throws IOException if in throws, or does not hold a saved {@link ShardedPhonebook}, or the snapshot is truncated or corrupted.
+     * @throws IllegalArgumentException if in or pool is {@code null}.
+     */
+    public static ShardedPhonebook load(InputStream in, CollisionResolver namesToNumbersHash,
+                                        CollisionResolver numbersToNamesHash, ForkJoinPool pool) throws IOException {
+        if (in == null || pool == null) {
+            throw new IllegalArgumentException("Provided: in=" + in + " and pool=" + pool);
+        }
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("The stream does not hold a saved ShardedPhonebook.");
+        }
+        int version = data.readInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("Cannot load a ShardedPhonebook saved with version " + version + ".");
+        }
+        int shards = data.readInt();
+        if (shards < 1 || shards > 1 << 16 || Integer.bitCount(shards) != 1) {
+            throw new IOException("Cannot load a ShardedPhonebook with " + shards + " shards.");
+        }
+        byte[][] byName = new byte[shards][];
+        byte[][] byNumber = new byte[shards][];
+        for (int i = 0; i < shards; i++) {
+            byName[i] = readSnapshot(data);
+            byNumber[i] = readSnapshot(data);
+        }
+        ShardedPhonebook phonebook = new ShardedPhonebook(namesToNumbersHash, numbersToNamesHash, shards, pool);
+        try {
+            phonebook.forEachShard(shard -> {
+                decode(byName[shard], phonebook.namesToNumbers[shard]);
+                decode(byNumber[shard], phonebook.numbersToNames[shard]);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return phonebook;
+    }
+
+    private static byte[] readSnapshot(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupted snapshot length: " + length + ".");
+        }
+        byte[] snapshot = new byte[length];
+        data.readFully(snapshot);
+        return snapshot;
+    }
+
+    private static void decode(byte[] snapshot, HashTable target) {
+        try {
+            TableSnapshot.read(new ByteArrayInputStream(snapshot), target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Closes table if it holds resources beyond the heap, and returns the first failure among failure and its own.
+    private static IOException closeShard(HashTable table, IOException failure) {
+        if (!(table instanceof Closeable)) {
+            return failure;
+        }
+        try {
+            ((Closeable) table).close();
+        } catch (IOException | UncheckedIOException e) {
+            IOException cause = (e instanceof UncheckedIOException)
+                    ? ((UncheckedIOException) e).getCause() : (IOException) e;
+            if (failure == null) {
+                return cause;
+            }
+            failure.addSuppressed(cause);
+        }
+        return failure;
+    }
+
+    /** Closes every shard that holds resources beyond the heap, e.g a {@link phonebook.hashes.MappedHashTable}, exactly
+     * like {@link Phonebook#close()} closes its tables. In-memory shards need no closing. Closing a closed
+     * {@link ShardedPhonebook} has no effect.
+     * @throws IOException if a shard cannot be closed. Every shard is closed regardless, and the first failure is thrown
+     * with the later ones suppressed.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (int i = 0; i < namesToNumbers.length; i++) {
+            failure = closeShard(namesToNumbers[i], failure);
+            failure = closeShard(numbersToNames[i], failure);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package phonebook;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import phonebook.hashes.CollisionResolver;
+import phonebook.hashes.MappedHashTable;
+import phonebook.utils.KVPair;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+import static phonebook.PhonebookFixtures.*;
+
+/**
+ * <p>{@link ShardedPhonebookTests} is a jUnit - based test suite for {@link ShardedPhonebook}. Every test runs the same
+ * operations against a plain {@link Phonebook}, and checks that the sharded one gives back the same answers, both for
+ * its point operations and for its parallel bulk operations.</p>
+ *
+ * @see ShardedPhonebook
+ */
+public class ShardedPhonebookTests {
+
+    private static final int ENTRIES = 5000;
+    private static final CollisionResolver[] RESOLVERS = {CollisionResolver.LINEAR_PROBING,
+            CollisionResolver.ROBIN_HOOD, CollisionResolver.CUCKOO, CollisionResolver.ARENA};
+
+    private ForkJoinPool pool;
+
+    private static void assertSameEntries(Phonebook expected, ShardedPhonebook actual, int range){
+        assertEquals("Sizes differ.", expected.size(), actual.size());
+        assertEquals("Emptiness differs.", expected.isEmpty(), actual.isEmpty());
+        for(int i = 0; i < range; i++){
+            assertEquals("Numbers of " + name(i) + " differ.", expected.getNumberOf(name(i)), actual.getNumberOf(name(i)));
+            assertEquals("Owners of " + number(i) + " differ.", expected.getOwnerOf(number(i)), actual.getOwnerOf(number(i)));
+        }
+    }
+
+    @Before
+    public void setUp(){
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown(){
+        pool.shutdownNow();
+        pool = null;
+    }
+
+    @Test
+    public void testPointOperations(){
+        for(CollisionResolver resolver : RESOLVERS){
+            Phonebook expected = new Phonebook(resolver, resolver);
+            ShardedPhonebook actual = new ShardedPhonebook(resolver, resolver, 5, pool);
+            assertEquals("Shards should be rounded up to a power of two.", 8, actual.shards());
+            Random r = new Random(47);
+            for(int op = 0; op < 4 * ENTRIES; op++){
+                int person = r.nextInt(ENTRIES / 4);
+                if(r.nextInt(3) == 0){
+                    expected.deleteEntry(name(person), number(person));
+                    actual.deleteEntry(name(person), number(person));
+                } else {
+                    expected.addEntry(name(person), number(person));
+                    actual.addEntry(name(person), number(person));
+                }
+            }
+            assertSameEntries(expected, actual, ENTRIES / 4);
+            assertNull(actual.getNumberOf(null));
+            assertNull(actual.getOwnerOf(null));
+        }
+    }
+
+    @Test
+    public void testAddAll(){
+        for(CollisionResolver resolver : RESOLVERS){
+            List<KVPair> entries = new ArrayList<>();
+            Phonebook expected = new Phonebook(resolver, resolver);
+            for(int i = 0; i < ENTRIES; i++){
+                entries.add(new KVPair(name(i), number(i)));
+                expected.addEntry(name(i), number(i));
+            }
+            ShardedPhonebook actual = new ShardedPhonebook(resolver, resolver, 16, pool);
+            actual.addAll(entries);
+            assertSameEntries(expected, actual, ENTRIES + 10);
+        }
+    }
+
+    @Test
+    public void testAddAllRejectsNullsUpFront(){
+        ShardedPhonebook pb = new ShardedPhonebook(CollisionResolver.LINEAR_PROBING, CollisionResolver.LINEAR_PROBING);
+        List<KVPair> entries = new ArrayList<>();
+        entries.add(new KVPair(name(0), number(0)));
+        entries.add(new KVPair(name(1), null));
+        try {
+            pb.addAll(entries);
+            fail("An entry with a null number should have been rejected.");
+        } catch(IllegalArgumentException ignored){
+        }
+        assertTrue("No entry should have been added.", pb.isEmpty());
+    }
+
+    @Test
+    public void testFindAll(){
+        ShardedPhonebook pb = new ShardedPhonebook(CollisionResolver.LINEAR_PROBING, CollisionResolver.LINEAR_PROBING,
+                16, pool);
+        Set<String> expected = new HashSet<>();
+        for(int i = 0; i < ENTRIES; i++){
+            pb.addEntry(name(i), number(i));
+            if(i % 7 == 3)
+                expected.add(name(i));
+        }
+        Set<String> found = new HashSet<>();
+        for(KVPair match : pb.findAll((name, number) -> Integer.parseInt(number.substring(8)) % 7 == 3)){
+            assertEquals("A match should pair a name with its number.", pb.getNumberOf(match.getKey()), match.getValue());
+            assertTrue("Every match should be found once.", found.add(match.getKey()));
+        }
+        assertEquals("The scan should find every match.", expected, found);
+        assertTrue(pb.findAll((name, number) -> false).isEmpty());
+    }
+
+    @Test
+    public void testContainsNameAndNumber(){
+        for(CollisionResolver resolver : RESOLVERS){
+            ShardedPhonebook pb = new ShardedPhonebook(resolver, resolver, 8, pool);
+            for(int i = 0; i < ENTRIES; i += 2)
+                pb.addEntry(name(i), number(i));
+            pb.deleteEntry(name(10), number(10));
+            for(int i = 0; i < 200; i++){
+                boolean present = i % 2 == 0 && i != 10;
+                assertEquals("Scan for " + name(i), present, pb.containsName(name(i)));
+                assertEquals("Scan for " + number(i), present, pb.containsNumber(number(i)));
+            }
+            assertFalse(pb.containsName(number(0)));
+            assertFalse(pb.containsNumber(null));
+        }
+    }
+
+    @Test
+    public void testReserve(){
+        for(CollisionResolver resolver : RESOLVERS){
+            Phonebook expected = new Phonebook(resolver, resolver);
+            ShardedPhonebook pb = new ShardedPhonebook(resolver, resolver, 16, pool);
+            int initial = pb.capacity();
+            pb.reserve(ENTRIES);
+            int reserved = pb.capacity();
+            assertTrue("Reserving room for " + ENTRIES + " entries should enlarge the shards.", reserved >= 2 * ENTRIES);
+            for(int i = 0; i < ENTRIES; i++){
+                expected.addEntry(name(i), number(i));
+                pb.addEntry(name(i), number(i));
+            }
+            assertEquals("No shard should have resized after the reservation.", reserved, pb.capacity());
+            assertTrue(initial < reserved);
+            assertSameEntries(expected, pb, ENTRIES);
+        }
+        try {
+            new ShardedPhonebook(CollisionResolver.LINEAR_PROBING, CollisionResolver.LINEAR_PROBING).reserve(-1);
+            fail("A negative reservation should be rejected.");
+        } catch(IllegalArgumentException ignored){
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        for(CollisionResolver resolver : RESOLVERS){
+            Phonebook expected = new Phonebook(resolver, resolver);
+            ShardedPhonebook original = new ShardedPhonebook(resolver, resolver, 4, pool);
+            for(int i = 0; i < ENTRIES; i += 2){
+                expected.addEntry(name(i), number(i));
+                original.addEntry(name(i), number(i));
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            original.save(bytes);
+            ShardedPhonebook loaded = ShardedPhonebook.load(new ByteArrayInputStream(bytes.toByteArray()),
+                    CollisionResolver.LINEAR_PROBING, CollisionResolver.ROBIN_HOOD, pool);
+            assertEquals("The loaded phonebook should have as many shards as the saved one.", 4, loaded.shards());
+            assertSameEntries(expected, loaded, ENTRIES);
+        }
+    }
+
+    @Test
+    public void testCloseMappedShards() throws IOException {
+        Path directory = Files.createTempDirectory("sharded");
+        System.setProperty(MappedHashTable.DIRECTORY_PROPERTY, directory.toString());
+        try {
+            ShardedPhonebook pb = new ShardedPhonebook(CollisionResolver.MEMORY_MAPPED, CollisionResolver.MEMORY_MAPPED,
+                    4, pool);
+            for(int i = 0; i < 500; i++)
+                pb.addEntry(name(i), number(i));
+            pb.close();
+            pb.close();
+            try {
+                pb.getNumberOf(name(0));
+                fail("The shards of a closed phonebook should be closed.");
+            } catch(IllegalStateException ignored){
+            }
+
+            pb = new ShardedPhonebook(CollisionResolver.MEMORY_MAPPED, CollisionResolver.MEMORY_MAPPED, 4, pool);
+            try {
+                assertEquals(500, pb.size());
+                for(int i = 0; i < 500; i++){
+                    assertEquals(number(i), pb.getNumberOf(name(i)));
+                    assertEquals(name(i), pb.getOwnerOf(number(i)));
+                }
+            } finally {
+                pb.close();
+            }
+        } finally {
+            System.clearProperty(MappedHashTable.DIRECTORY_PROPERTY);
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadRejectsTruncatedSnapshot() throws IOException {
+        ShardedPhonebook pb = new ShardedPhonebook(CollisionResolver.LINEAR_PROBING, CollisionResolver.LINEAR_PROBING);
+        for(int i = 0; i < 100; i++)
+            pb.addEntry(name(i), number(i));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        pb.save(bytes);
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() / 2);
+        ShardedPhonebook.load(new ByteArrayInputStream(truncated), CollisionResolver.LINEAR_PROBING,
+                CollisionResolver.LINEAR_PROBING, pool);
+    }
+}
@@ -1,252 +1,1300 @@
-package phonebook;
-
-import org.junit.After;
-import org.junit.Before;
-import org.junit.Test;
-import phonebook.hashes.*;
-import phonebook.utils.NoMorePrimesException;
-
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
-
-import static org.junit.Assert.*;
-import static phonebook.hashes.CollisionResolver.*;
-
-//import sun.plugin.perf.PluginRollup;
-
-/**
- * <p> {@link StudentTests} is a place for you to write your tests for {@link Phonebook} and all the various
- * {@link HashTable} instances.</p>
- *
- * @author YOUR NAME HERE!
- * @see Phonebook
- * @see HashTable
- * @see SeparateChainingHashTable
- * @see LinearProbingHashTable
- * @see QuadraticProbingHashTable
- */
-public class StudentTests {
-
-    private Phonebook pb;
-    private CollisionResolver[] resolvers = {SEPARATE_CHAINING, LINEAR_PROBING, ORDERED_LINEAR_PROBING, QUADRATIC_PROBING};
-    private HashMap<String, String> testingPhoneBook;
-    private static final long SEED = 47;
-    private static final Random RNG = new Random(SEED);
-    private static final int NUMS = 1000;
-    private static final int UPPER_BOUND = 100;
-
-    private String format(String error, CollisionResolver namesToPhones, CollisionResolver phonesToNames) {
-        return error + "Collision resolvers:" + namesToPhones + ", " + phonesToNames + ".";
-    }
-
-
-    private String errorData(Throwable t) {
-        return "Received a " + t.getClass().getSimpleName() + " with message: " + t.getMessage() + ".";
-    }
-
-    @Before
-    public void setUp() {
-        testingPhoneBook = new HashMap<>();
-        testingPhoneBook.put("Arnold", "894-59-0011");
-        testingPhoneBook.put("Tiffany", "894-59-0011");
-        testingPhoneBook.put("Jessie", "705-12-7500");
-        testingPhoneBook.put("Mary", "888-1212-3340");
-    }
-
-    @After
-    public void tearDown() {
-        testingPhoneBook.clear();
-    }
-
-
-    // Make sure that all possible phonebooks we can create will report empty when beginning.
-    @Test
-    public void testBehaviorWhenEmpty() {
-        for (CollisionResolver namesToPhones : resolvers) {
-            for (CollisionResolver phonesToNames : resolvers) {
-                pb = new Phonebook(namesToPhones, phonesToNames);
-                assertTrue(format("Phonebook should be empty", namesToPhones, phonesToNames), pb.isEmpty());
-            }
-        }
-    }
-
-    // See if all of our hash tables cover the simple example from the writeup.
-    @Test
-    public void testOpenAddressingResizeWhenInsert() {
-        SeparateChainingHashTable sc = new SeparateChainingHashTable();
-        LinearProbingHashTable lp = new LinearProbingHashTable(false);
-        QuadraticProbingHashTable qp = new QuadraticProbingHashTable(false);
-        assertEquals("Separate Chaining hash should have a capacity of 7 at startup.", 7, sc.capacity());
-        assertEquals("Linear Probing hash should have a capacity of 7 at startup.", 7, lp.capacity());
-        assertEquals("Quadratic Probing hash should have a capacity of 7 at startup.", 7, qp.capacity());
-        for (Map.Entry<String, String> entry : testingPhoneBook.entrySet()) { // https://docs.oracle.com/javase/10/docs/api/java/util/Map.Entry.html
-            sc.put(entry.getKey(), entry.getValue());
-            lp.put(entry.getKey(), entry.getValue());
-            qp.put(entry.getKey(), entry.getValue());
-        }
-        assertEquals("Separate Chaining hash should have a capacity of 7 after inserting 4 elements.", 7, sc.capacity());
-        assertEquals("Linear Probing hash should have a capacity of 7 after inserting 4 elements.", 7, lp.capacity());
-        assertEquals("Quadratic Probing hash should have a capacity of 7 after inserting 4 elements.", 7, qp.capacity());
-
-        sc.put("DeAndre", "888-1212-3340");
-        assertEquals("Separate Chaining hash should still have a capacity of 7 after inserting 5 elements.", 7, sc.capacity());
-        sc.enlarge();
-        assertEquals("Separate Chaining hash should have a capacity of 13 after first call to enlarge().", 13, sc.capacity());
-        sc.enlarge();
-        assertEquals("Separate Chaining hash should have a capacity of 23 after second call to enlarge().", 23, sc.capacity());
-        sc.shrink();
-        assertEquals("Separate Chaining hash should have a capacity of 13 after two calls to enlarge() and one to shrink().",
-                13, sc.capacity());
-        sc.shrink();
-        assertEquals("Separate Chaining hash should have a capacity of 7 after two calls to enlarge() and two to shrink().",
-                7, sc.capacity());
-        lp.put("DeAndre","888-1212-3340" );
-        assertEquals("Linear Probing hash should have a capacity of 13 after inserting 5 elements.",
-                13, lp.capacity());
-        qp.put("DeAndre","888-1212-3340" );
-        assertEquals("Quadratic Probing hash should have a capacity of 13 after inserting 5 elements.",
-                13, qp.capacity());
-
-        // The following two deletions should both fail and thus not affect capacity.
-
-        lp.remove("Thomas");
-        assertEquals("Linear Probing hash with starting capacity of 7 should have a capacity of 13 after " +
-                "five insertions and a failed deletion.", 13, lp.capacity());
-        qp.remove("Thomas" );
-        assertEquals("Quadratic Probing hash with starting capacity of 7 should have a capacity of 13 after " +
-                "five insertions and a failed deletion.", 13, qp.capacity());
-    }
-
-    // An example of a stress test to catch any insertion errors that you might get.
-    @Test
-    public void insertionStressTest() {
-        HashTable sc = new SeparateChainingHashTable();
-        HashTable lp = new LinearProbingHashTable(false);
-        HashTable qp = new QuadraticProbingHashTable(false);
-        for (int i = 0; i < NUMS; i++) {
-            String randomNumber = Integer.toString(RNG.nextInt(UPPER_BOUND));
-            String randomNumber2 = Integer.toString(RNG.nextInt(UPPER_BOUND));
-            try {
-                sc.put(randomNumber, randomNumber2);
-            } catch (NoMorePrimesException ignored) {
-                // To have this exception thrown is not a problem; we have a finite #primes to generate resizings for.
-            } catch (Throwable t) {
-                fail("Separate Chaining hash failed insertion #" + i + ". Error message: " + errorData(t));
-            }
-
-            try {
-                lp.put(randomNumber, randomNumber2);
-            } catch (NoMorePrimesException ignored) {
-                // To have this exception thrown is not a problem; we have a finite #primes to generate resizings for.
-            } catch (Throwable t) {
-                fail("Linear Probing hash failed insertion #" + i + ". Error message: " + errorData(t));
-            }
-
-
-            try {
-                qp.put(randomNumber, randomNumber2);
-            } catch (NoMorePrimesException ignored) {
-                // To have this exception thrown is not a problem; we have a finite #primes to generate resizings for.
-            } catch (Throwable t) {
-                fail("Quadratic Probing hash failed insertion #" + i + ". Error message: " + errorData(t));
-            }
-        }
-
-    }
-
-    @Test
-    public void testSCProbes() {
-        SeparateChainingHashTable sc = new SeparateChainingHashTable();
-
-        assertEquals(1, sc.put("Arnold", "894-59-0011").getProbes());
-        assertEquals(1, sc.put("Tiffany", "894-59-0011").getProbes());
-        assertEquals(1, sc.put("Jessie", "705-12-7500").getProbes());
-        assertEquals(1, sc.put("Mary", "888-1212-3340").getProbes());
-
-        assertEquals(1, sc.get("Arnold").getProbes());
-        assertEquals("894-59-0011", sc.get("Arnold").getValue());
-        assertEquals(1, sc.get("Tiffany").getProbes());
-        assertEquals(2, sc.get("Jessie").getProbes());
-        assertEquals(1, sc.get("Mary").getProbes());
-
-        // Search fail
-        assertEquals(2, sc.get("Jerry").getProbes());
-        assertEquals(2, sc.remove("Jerry").getProbes());
-        assertNull(sc.remove("Jerry").getValue());
-
-        assertEquals(1, sc.remove("Arnold").getProbes());
-        assertEquals(1, sc.remove("Tiffany").getProbes());
-        assertEquals(1, sc.remove("Jessie").getProbes());
-        assertEquals(1, sc.remove("Mary").getProbes());
-
-    }
-
-
-    @Test
-    public void testLProbes() {
-
-        LinearProbingHashTable lp = new LinearProbingHashTable(false);
-
-        assertEquals(1, lp.put("Arnold", "894-59-0011").getProbes());
-        assertEquals(1, lp.put("Tiffany", "894-59-0011").getProbes());
-        assertEquals(2, lp.put("Jessie", "705-12-7500").getProbes());
-        assertEquals(1, lp.put("Mary", "888-1212-3340").getProbes());
-
-
-        assertEquals(1, lp.get("Arnold").getProbes());
-        assertEquals("894-59-0011", lp.get("Arnold").getValue());
-        assertEquals(1, lp.get("Tiffany").getProbes());
-        assertEquals(2, lp.get("Jessie").getProbes());
-        assertEquals(1, lp.get("Mary").getProbes());
-
-        // Search fail
-        assertEquals(2, lp.get("Jerry").getProbes());
-        assertEquals(2, lp.remove("Jerry").getProbes());
-        assertEquals(null, lp.remove("Jerry").getValue());
-
-        assertEquals(3, lp.remove("Jessie").getProbes());
-        assertEquals(2, lp.remove("Arnold").getProbes());
-        assertEquals(2, lp.remove("Tiffany").getProbes());
-        assertEquals(2, lp.remove("Mary").getProbes());
-
-
-
-    }
-
-    @Test
-    public void testResizeSoftLProbes() {
-
-        LinearProbingHashTable lp = new LinearProbingHashTable(true);
-        String[] add1 = new String[]{"Tiffany", "Helen", "Alexander", "Paulette", "Jason", "Money", "Nakeesha", "Ray", "Jing", "Amg"};
-        String[] remove1 = new String[]{"Helen", "Alexander", "Paulette", "Jason", "Money", "Nakeesha", "Ray", "Jing", "Amg"};
-        String[] add2 = new String[]{"Christine", "Carl"};
-
-        for(String s: add1) {
-            lp.put(s, s);
-        }
-
-        for (String s: remove1) {
-            lp.remove(s);
-        }
-
-        for(String s: add2) {
-            lp.put(s, s);
-        }
-
-        assertEquals("After additions and deletions, and additions again, the capacity should be 23, but get " + lp.capacity() + ".", 23, lp.capacity());
-
-        lp.put("Terry", "new");
-        assertEquals("After additions and deletions, and additions again, resize should be triggered and the capacity should be 43, but get " + lp.capacity() + ".", 43, lp.capacity());
-
-    }
-    
-    @Test
-    public void emptyPB() {
-    	pb = new Phonebook(SEPARATE_CHAINING, SEPARATE_CHAINING);
-    	
-    	String num = pb.getNumberOf("Jerry");
-    }
-
-
-}
+package phonebook;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import phonebook.hashes.*;
+import phonebook.metrics.InstrumentedHashTable;
+import phonebook.utils.KVPair;
+import phonebook.utils.LookupResults;
+import phonebook.utils.NoMorePrimesException;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static phonebook.hashes.CollisionResolver.*;
+
+//import sun.plugin.perf.PluginRollup;
+
+/**
+ * <p> {@link StudentTests} is a place for you to write your tests for {@link Phonebook} and all the various
+ * {@link HashTable} instances.</p>
+ *
+ * @author YOUR NAME HERE!
+ * @see Phonebook
+ * @see HashTable
+ * @see SeparateChainingHashTable
+ * @see LinearProbingHashTable
+ * @see QuadraticProbingHashTable
+ */
+public class StudentTests {
+
+    private Phonebook pb;
+    private CollisionResolver[] resolvers = {SEPARATE_CHAINING, ARRAY_CHAINING, LINEAR_PROBING, ORDERED_LINEAR_PROBING, QUADRATIC_PROBING, ROBIN_HOOD, CUCKOO, HOPSCOTCH, ARENA};
+    private HashMap<String, String> testingPhoneBook;
+    private static final long SEED = 47;
+    private static final Random RNG = new Random(SEED);
+    private static final int NUMS = 1000;
+    private static final int UPPER_BOUND = 100;
+
+    private String format(String error, CollisionResolver namesToPhones, CollisionResolver phonesToNames) {
+        return error + "Collision resolvers:" + namesToPhones + ", " + phonesToNames + ".";
+    }
+
+
+    private String errorData(Throwable t) {
+        return "Received a " + t.getClass().getSimpleName() + " with message: " + t.getMessage() + ".";
+    }
+
+    @Before
+    public void setUp() {
+        testingPhoneBook = new HashMap<>();
+        testingPhoneBook.put("Arnold", "894-59-0011");
+        testingPhoneBook.put("Tiffany", "894-59-0011");
+        testingPhoneBook.put("Jessie", "705-12-7500");
+        testingPhoneBook.put("Mary", "888-1212-3340");
+    }
+
+    @After
+    public void tearDown() {
+        testingPhoneBook.clear();
+    }
+
+
+    // Make sure that all possible phonebooks we can create will report empty when beginning.
+    @Test
+    public void testBehaviorWhenEmpty() {
+        for (CollisionResolver namesToPhones : resolvers) {
+            for (CollisionResolver phonesToNames : resolvers) {
+                pb = new Phonebook(namesToPhones, phonesToNames);
+                assertTrue(format("Phonebook should be empty", namesToPhones, phonesToNames), pb.isEmpty());
+            }
+        }
+    }
+
+    // See if all of our hash tables cover the simple example from the writeup.
+    @Test
+    public void testOpenAddressingResizeWhenInsert() {
+        SeparateChainingHashTable sc = new SeparateChainingHashTable();
+        LinearProbingHashTable lp = new LinearProbingHashTable(false);
+        QuadraticProbingHashTable qp = new QuadraticProbingHashTable(false);
+        assertEquals("Separate Chaining hash should have a capacity of 7 at startup.", 7, sc.capacity());
+        assertEquals("Linear Probing hash should have a capacity of 7 at startup.", 7, lp.capacity());
+        assertEquals("Quadratic Probing hash should have a capacity of 7 at startup.", 7, qp.capacity());
+        for (Map.Entry<String, String> entry : testingPhoneBook.entrySet()) { // https://docs.oracle.com/javase/10/docs/api/java/util/Map.Entry.html
+            sc.put(entry.getKey(), entry.getValue());
+            lp.put(entry.getKey(), entry.getValue());
+            qp.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals("Separate Chaining hash should have a capacity of 7 after inserting 4 elements.", 7, sc.capacity());
+        assertEquals("Linear Probing hash should have a capacity of 7 after inserting 4 elements.", 7, lp.capacity());
+        assertEquals("Quadratic Probing hash should have a capacity of 7 after inserting 4 elements.", 7, qp.capacity());
+
+        sc.put("DeAndre", "888-1212-3340");
+        assertEquals("Separate Chaining hash should still have a capacity of 7 after inserting 5 elements.", 7, sc.capacity());
+        sc.enlarge();
+        assertEquals("Separate Chaining hash should have a capacity of 13 after first call to enlarge().", 13, sc.capacity());
+        sc.enlarge();
+        assertEquals("Separate Chaining hash should have a capacity of 23 after second call to enlarge().", 23, sc.capacity());
+        sc.shrink();
+        assertEquals("Separate Chaining hash should have a capacity of 13 after two calls to enlarge() and one to shrink().",
+                13, sc.capacity());
+        sc.shrink();
+        assertEquals("Separate Chaining hash should have a capacity of 7 after two calls to enlarge() and two to shrink().",
+                7, sc.capacity());
+        lp.put("DeAndre","888-1212-3340" );
+        assertEquals("Linear Probing hash should have a capacity of 13 after inserting 5 elements.",
+                13, lp.capacity());
+        qp.put("DeAndre","888-1212-3340" );
+        assertEquals("Quadratic Probing hash should have a capacity of 13 after inserting 5 elements.",
+                13, qp.capacity());
+
+        // The following two deletions should both fail and thus not affect capacity.
+
+        lp.remove("Thomas");
+        assertEquals("Linear Probing hash with starting capacity of 7 should have a capacity of 13 after " +
+                "five insertions and a failed deletion.", 13, lp.capacity());
+        qp.remove("Thomas" );
+        assertEquals("Quadratic Probing hash with starting capacity of 7 should have a capacity of 13 after " +
+                "five insertions and a failed deletion.", 13, qp.capacity());
+    }
+
+    // An example of a stress test to catch any insertion errors that you might get.
+    @Test
+    public void insertionStressTest() {
+        HashTable sc = new SeparateChainingHashTable();
+        HashTable lp = new LinearProbingHashTable(false);
+        HashTable qp = new QuadraticProbingHashTable(false);
+        for (int i = 0; i < NUMS; i++) {
+            String randomNumber = Integer.toString(RNG.nextInt(UPPER_BOUND));
+            String randomNumber2 = Integer.toString(RNG.nextInt(UPPER_BOUND));
+            try {
+                sc.put(randomNumber, randomNumber2);
+            } catch (NoMorePrimesException ignored) {
+                // To have this exception thrown is not a problem; we have a finite #primes to generate resizings for.
+            } catch (Throwable t) {
+                fail("Separate Chaining hash failed insertion #" + i + ". Error message: " + errorData(t));
+            }
+
+            try {
+                lp.put(randomNumber, randomNumber2);
+            } catch (NoMorePrimesException ignored) {
+                // To have this exception thrown is not a problem; we have a finite #primes to generate resizings for.
+            } catch (Throwable t) {
+                fail("Linear Probing hash failed insertion #" + i + ". Error message: " + errorData(t));
+            }
+
+
+            try {
+                qp.put(randomNumber, randomNumber2);
+            } catch (NoMorePrimesException ignored) {
+                // To have this exception thrown is not a problem; we have a finite #primes to generate resizings for.
+            } catch (Throwable t) {
+                fail("Quadratic Probing hash failed insertion #" + i + ". Error message: " + errorData(t));
+            }
+        }
+
+    }
+
+    @Test
+    public void testSCProbes() {
+        SeparateChainingHashTable sc = new SeparateChainingHashTable();
+
+        assertEquals(1, sc.put("Arnold", "894-59-0011").getProbes());
+        assertEquals(1, sc.put("Tiffany", "894-59-0011").getProbes());
+        assertEquals(1, sc.put("Jessie", "705-12-7500").getProbes());
+        assertEquals(1, sc.put("Mary", "888-1212-3340").getProbes());
+
+        assertEquals(1, sc.get("Arnold").getProbes());
+        assertEquals("894-59-0011", sc.get("Arnold").getValue());
+        assertEquals(1, sc.get("Tiffany").getProbes());
+        assertEquals(2, sc.get("Jessie").getProbes());
+        assertEquals(1, sc.get("Mary").getProbes());
+
+        // Search fail
+        assertEquals(2, sc.get("Jerry").getProbes());
+        assertEquals(2, sc.remove("Jerry").getProbes());
+        assertNull(sc.remove("Jerry").getValue());
+
+        assertEquals(1, sc.remove("Arnold").getProbes());
+        assertEquals(1, sc.remove("Tiffany").getProbes());
+        assertEquals(1, sc.remove("Jessie").getProbes());
+        assertEquals(1, sc.remove("Mary").getProbes());
+
+    }
+
+
+    @Test
+    public void testLProbes() {
+
+        LinearProbingHashTable lp = new LinearProbingHashTable(false);
+
+        assertEquals(1, lp.put("Arnold", "894-59-0011").getProbes());
+        assertEquals(1, lp.put("Tiffany", "894-59-0011").getProbes());
+        assertEquals(2, lp.put("Jessie", "705-12-7500").getProbes());
+        assertEquals(1, lp.put("Mary", "888-1212-3340").getProbes());
+
+
+        assertEquals(1, lp.get("Arnold").getProbes());
+        assertEquals("894-59-0011", lp.get("Arnold").getValue());
+        assertEquals(1, lp.get("Tiffany").getProbes());
+        assertEquals(2, lp.get("Jessie").getProbes());
+        assertEquals(1, lp.get("Mary").getProbes());
+
+        // Search fail
+        assertEquals(2, lp.get("Jerry").getProbes());
+        assertEquals(2, lp.remove("Jerry").getProbes());
+        assertEquals(null, lp.remove("Jerry").getValue());
+
+        assertEquals(3, lp.remove("Jessie").getProbes());
+        assertEquals(2, lp.remove("Arnold").getProbes());
+        assertEquals(2, lp.remove("Tiffany").getProbes());
+        assertEquals(2, lp.remove("Mary").getProbes());
+
+
+
+    }
+
+    // Every key hashes to the same slot, so the keys form a single sorted cluster, and updating a key walks exactly as many
+    // slots as searching for it.
+    @Test
+    public void testOLPProbesOnCollidingCluster() {
+
+        OrderedLinearProbingHashTable olp = new OrderedLinearProbingHashTable(false, false, key -> 0);
+        String[] keys = new String[]{"Tiffany", "Arnold", "Mary"};
+        for(String s: keys) {
+            olp.put(s, s);
+        }
+
+        assertEquals(1, olp.get("Arnold").getProbes());
+        assertEquals(2, olp.get("Mary").getProbes());
+        assertEquals(3, olp.get("Tiffany").getProbes());
+        for(String s: keys) {
+            int probes = olp.get(s).getProbes();
+            assertEquals("Updating " + s + " should make as many probes as searching for it.", probes,
+                    olp.put(s, s + "!").getProbes());
+            assertEquals(s + "!", olp.get(s).getValue());
+        }
+
+    }
+
+    @Test(timeout = 10000)
+    public void testQPProbeSequenceFull() {
+
+        // In a table of 7 slots, these four keys take every slot that the probe sequence of "miss2" reaches.
+        String[] keys = new String[]{"k239978", "k301748", "k136569", "k998473"};
+        for(boolean soft : new boolean[]{false, true}) {
+            QuadraticProbingHashTable qp = new QuadraticProbingHashTable(soft);
+            for(String s: keys) {
+                qp.put(s, s);
+            }
+            assertEquals(7, qp.capacity());
+
+            assertNull(qp.get("miss2").getValue());
+            assertFalse(qp.containsKey("miss2"));
+            assertNull(qp.remove("miss2").getValue());
+            assertEquals(4, qp.size());
+
+            qp.put("miss2", "found");
+            assertTrue("The table should grow when the probe sequence is full.", qp.capacity() > 7);
+            assertEquals("found", qp.get("miss2").getValue());
+            for(String s: keys) {
+                assertEquals(s, qp.get(s).getValue());
+            }
+        }
+
+    }
+
+    @Test
+    public void testResizeSoftLProbes() {
+
+        LinearProbingHashTable lp = new LinearProbingHashTable(true);
+        String[] add1 = new String[]{"Tiffany", "Helen", "Alexander", "Paulette", "Jason", "Money", "Nakeesha", "Ray", "Jing", "Amg"};
+        String[] remove1 = new String[]{"Helen", "Alexander", "Paulette", "Jason", "Money", "Nakeesha", "Ray", "Jing", "Amg"};
+        String[] add2 = new String[]{"Christine", "Carl"};
+
+        for(String s: add1) {
+            lp.put(s, s);
+        }
+
+        for (String s: remove1) {
+            lp.remove(s);
+        }
+
+        for(String s: add2) {
+            lp.put(s, s);
+        }
+
+        assertEquals("After additions and deletions, and additions again, the capacity should be 23, but get " + lp.capacity() + ".", 23, lp.capacity());
+
+        lp.put("Terry", "new");
+        assertEquals("After additions and deletions, and additions again, resize should be triggered and the capacity should be 43, but get " + lp.capacity() + ".", 43, lp.capacity());
+
+    }
+    
+    // Keys behind a tombstone must still be reachable, and a repeated key must update its value instead of being duplicated.
+    @Test
+    public void testOpenAddressingSoftDeletionAndUpdates() {
+        HashTable[] tables = {new LinearProbingHashTable(true), new OrderedLinearProbingHashTable(true),
+                new QuadraticProbingHashTable(true)};
+        for (HashTable table : tables) {
+            String name = table.getClass().getSimpleName();
+            for (int i = 0; i < 50; i++)
+                table.put("Person " + i, "555-" + i);
+            for (int i = 0; i < 50; i += 2)
+                assertEquals(name + " should have removed Person " + i + ".", "555-" + i, table.remove("Person " + i).getValue());
+            for (int i = 1; i < 50; i += 2) {
+                assertEquals(name + " lost Person " + i + " behind a tombstone.", "555-" + i, table.get("Person " + i).getValue());
+                assertTrue(name + " lost Person " + i + " behind a tombstone.", table.containsKey("Person " + i));
+            }
+            assertEquals(name + " should hold 25 entries.", 25, table.size());
+            table.put("Person 1", "555-0000");
+            assertEquals(name + " should have updated Person 1.", "555-0000", table.get("Person 1").getValue());
+            assertEquals(name + " should not have duplicated Person 1.", 25, table.size());
+            assertTrue(table.containsValue("555-0000"));
+            assertFalse(table.containsValue("555-1"));
+        }
+    }
+
+    // Robin Hood hashing at a high load factor: every key is found, and backward-shift deletions keep the rest reachable.
+    @Test
+    public void testRobinHoodHighLoad() {
+        RobinHoodHashTable rh = new RobinHoodHashTable(0.9);
+        for (int i = 0; i < 5000; i++)
+            assertEquals("555-" + i, rh.put("Person " + i, "555-" + i).getValue());
+        assertTrue("Load factor should be above 45%, but was " + (double) rh.size() / rh.capacity() + ".",
+                rh.size() > 0.45 * rh.capacity());
+        int capacity = rh.capacity();
+        for (int i = 0; i < 5000; i += 3)
+            assertEquals("555-" + i, rh.remove("Person " + i).getValue());
+        assertEquals("Deletions should never resize the table.", capacity, rh.capacity());
+        for (int i = 0; i < 5000; i++) {
+            Probes p = rh.get("Person " + i);
+            assertEquals("Wrong value for Person " + i + ".", (i % 3 == 0) ? null : "555-" + i, p.getValue());
+            assertTrue("Probe sequence too long for Person " + i + ": " + p.getProbes(), p.getProbes() < 40);
+        }
+        assertNull(rh.get("Nobody").getValue());
+        assertEquals(5000 - 1667, rh.size());
+    }
+
+    // An incremental resize should never make a single insertion pay for moving the whole table.
+    @Test
+    public void testIncrementalResize() {
+        HashTable[] tables = {new LinearProbingHashTable(false, true), new OrderedLinearProbingHashTable(true, true),
+                new QuadraticProbingHashTable(false, true)};
+        for (HashTable table : tables) {
+            String name = table.getClass().getSimpleName();
+            int resizes = 0;
+            for (int i = 0; i < 3000; i++) {
+                int capacity = table.capacity();
+                Probes p = table.put("Person " + i, "555-" + i);
+                if (table.capacity() != capacity) {
+                    resizes++;
+                    assertTrue(name + " paid " + p.getProbes() + " probes to resize from capacity " + capacity + ".",
+                            capacity < 100 || p.getProbes() < capacity / 4);
+                }
+                if (i % 7 == 0)
+                    assertEquals(name + " lost Person " + (i / 2) + " during a resize.", "555-" + (i / 2),
+                            table.remove("Person " + (i / 2)).getValue());
+                if (i % 7 == 0)
+                    table.put("Person " + (i / 2), "555-" + (i / 2));
+            }
+            assertTrue(name + " should have resized at least 5 times.", resizes >= 5);
+            assertEquals(3000, table.size());
+            for (int i = 0; i < 3000; i++) {
+                assertEquals(name + " lost Person " + i + ".", "555-" + i, table.get("Person " + i).getValue());
+                assertTrue(table.containsValue("555-" + i));
+            }
+        }
+    }
+
+    // Cuckoo lookups should never inspect more than the two candidate slots and the stash.
+    @Test
+    public void testCuckooBoundedLookups() {
+        CuckooHashTable cuckoo = new CuckooHashTable();
+        for (int i = 0; i < 20000; i++)
+            cuckoo.put("Person " + i, "555-" + i);
+        for (int i = 0; i < 20000; i += 2)
+            assertEquals("555-" + i, cuckoo.remove("Person " + i).getValue());
+        for (int i = 0; i < 20000; i++) {
+            Probes p = cuckoo.get("Person " + i);
+            assertEquals("Wrong value for Person " + i + ".", (i % 2 == 0) ? null : "555-" + i, p.getValue());
+            assertTrue("Lookup of Person " + i + " inspected " + p.getProbes() + " buckets.",
+                    p.getProbes() <= 2 + CuckooHashTable.STASH_LIMIT);
+        }
+        assertEquals(10000, cuckoo.size());
+
+        // "Aa" and "BB" have the same hash code, so these 8 keys all share both candidate slots.
+        cuckoo = new CuckooHashTable();
+        String[] halves = {"Aa", "BB"};
+        for (String a : halves)
+            for (String b : halves)
+                for (String c : halves)
+                    cuckoo.put(a + b + c, a + b + c);
+        assertEquals(8, cuckoo.size());
+        for (String a : halves)
+            for (String b : halves)
+                for (String c : halves) {
+                    assertEquals(a + b + c, cuckoo.get(a + b + c).getValue());
+                    assertTrue(cuckoo.containsValue(a + b + c));
+                }
+        assertEquals("AaAaAa", cuckoo.remove("AaAaAa").getValue());
+        assertFalse(cuckoo.containsKey("AaAaAa"));
+        assertEquals(7, cuckoo.size());
+    }
+
+    // Hopscotch tables should keep lookups within the neighborhood of the home slot at 90% load, across hard deletions.
+    @Test
+    public void testHopscotchHighLoad() {
+        HopscotchHashTable hop = new HopscotchHashTable();
+        double maxLoad = 0;
+        for (int i = 0; i < 20000; i++) {
+            hop.put("Person " + i, "555-" + i);
+            maxLoad = Math.max(maxLoad, (double) hop.size() / hop.capacity());
+        }
+        assertTrue("The table should have been run above 85% load, but peaked at " + maxLoad + ".", maxLoad > 0.85);
+        int capacity = hop.capacity();
+        for (int i = 0; i < 20000; i += 3)
+            assertEquals("555-" + i, hop.remove("Person " + i).getValue());
+        assertEquals("Deletions should never resize the table.", capacity, hop.capacity());
+        for (int i = 0; i < 20000; i++) {
+            Probes p = hop.get("Person " + i);
+            assertEquals("Wrong value for Person " + i + ".", (i % 3 == 0) ? null : "555-" + i, p.getValue());
+            assertTrue("Lookup of Person " + i + " compared " + p.getProbes() + " keys.",
+                    p.getProbes() <= HopscotchHashTable.NEIGHBORHOOD);
+        }
+        assertEquals(20000 - 6667, hop.size());
+    }
+
+    // A memory-mapped table should find all of its pairs again after being closed, or abandoned without closing.
+    @Test
+    public void testMappedTablePersistence() throws IOException {
+        Path directory = Files.createTempDirectory("phonebook");
+        MappedHashTable table = null;
+        Phonebook mapped = null;
+        try {
+            table = new MappedHashTable(directory, "names");
+            for (int i = 0; i < 5000; i++)
+                table.put("Person " + i, "555-" + i);
+            for (int i = 0; i < 5000; i += 5)
+                assertEquals("555-" + i, table.remove("Person " + i).getValue());
+            table.put("Person 1", "Zo\u00eb's new number"); // Non-ASCII, longer than the old value.
+            int capacity = table.capacity();
+            table.close();
+
+            table = new MappedHashTable(directory, "names");
+            assertEquals("A reopened table should keep its capacity.", capacity, table.capacity());
+            assertEquals(4000, table.size());
+            assertEquals("Zo\u00eb's new number", table.get("Person 1").getValue());
+            assertTrue(table.containsValue("Zo\u00eb's new number"));
+            for (int i = 2; i < 5000; i++)
+                assertEquals((i % 5 == 0) ? null : "555-" + i, table.get("Person " + i).getValue());
+
+            // Abandon the table without closing it, as a crashed process would.
+            table.put("Person 0", "555-0");
+            table.remove("Person 2");
+            MappedHashTable abandoned = table;
+            table = new MappedHashTable(directory, "names");
+            assertEquals("An uncleanly closed table should rebuild its counters.", 4000, table.size());
+            assertEquals("555-0", table.get("Person 0").getValue());
+            assertNull(table.get("Person 2").getValue());
+            table.put("Person 5", "555-5"); // Appending after recovery must not clobber reachable bytes.
+            assertEquals("555-4999", table.get("Person 4999").getValue());
+            table.close();
+            abandoned.close(); // Only now, so that the reopening above had to recover.
+
+            System.setProperty(MappedHashTable.DIRECTORY_PROPERTY, directory.toString());
+            try {
+                try {
+                    new Phonebook(MEMORY_MAPPED, LINEAR_PROBING);
+                    fail("A mapped table should not be paired with an in-memory one.");
+                } catch (IllegalArgumentException ignored) {
+                }
+                mapped = new Phonebook(MEMORY_MAPPED, MEMORY_MAPPED);
+                mapped.addEntry("Arnold", "894-59-0011");
+                mapped.close();
+                mapped = new Phonebook(MEMORY_MAPPED, MEMORY_MAPPED);
+                assertEquals("894-59-0011", mapped.getNumberOf("Arnold"));
+                assertEquals("Arnold", mapped.getOwnerOf("894-59-0011"));
+            } finally {
+                System.clearProperty(MappedHashTable.DIRECTORY_PROPERTY);
+            }
+        } finally {
+            if (table != null)
+                table.close();
+            if (mapped != null)
+                mapped.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+                    Files.delete(file);
+            }
+        }
+    }
+
+    // Slots whose pairs did not reach the heap file, e.g after a power loss, should be dropped when the table is opened.
+    @Test
+    public void testMappedTableTruncatedHeap() throws IOException {
+        Path directory = Files.createTempDirectory("phonebook");
+        MappedHashTable table = null;
+        try {
+            table = new MappedHashTable(directory, "names");
+            String padding = String.join("", Collections.nCopies(40, "."));
+            for (int i = 0; i < 20000; i++)
+                table.put("Person " + i, "555-" + i + padding);
+            table.close();
+            try (FileChannel heap = FileChannel.open(directory.resolve("names.heap"), StandardOpenOption.WRITE)) {
+                heap.truncate(heap.size() / 3);
+            }
+
+            table = new MappedHashTable(directory, "names");
+            int kept = 0;
+            for (int i = 0; i < 20000; i++) {
+                String value = table.get("Person " + i).getValue();
+                assertTrue(value == null || value.equals("555-" + i + padding));
+                if (value != null)
+                    kept++;
+            }
+            assertTrue("The pairs before the cut should survive.", kept > 0);
+            assertTrue("The pairs past the cut should be dropped.", kept < 20000);
+            assertEquals(kept, table.size());
+            table.put("Jerry", "301-999-9999");
+            table.close();
+
+            table = new MappedHashTable(directory, "names");
+            assertEquals(kept + 1, table.size());
+            assertEquals("301-999-9999", table.get("Jerry").getValue());
+        } finally {
+            if (table != null)
+                table.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+                    Files.delete(file);
+            }
+        }
+    }
+
+    // Bulk loads should resize each table at most once, and behave exactly like a sequence of insertions.
+    @Test
+    public void testBulkLoad() {
+        List<KVPair> pairs = new ArrayList<>();
+        for (int i = 0; i < 20000; i++)
+            pairs.add(new KVPair("Person " + i, "555-" + i));
+        pairs.add(new KVPair("Person 7", "555-updated")); // Later pairs update earlier ones.
+
+        HashTable[] bulk = {new LinearProbingHashTable(false), new OrderedLinearProbingHashTable(true),
+                new QuadraticProbingHashTable(false), new LinearProbingHashTable(false, true), new RobinHoodHashTable(0.8),
+                new CuckooHashTable(), new HopscotchHashTable()};
+        HashTable[] sequential = {new LinearProbingHashTable(false), new OrderedLinearProbingHashTable(true),
+                new QuadraticProbingHashTable(false), new LinearProbingHashTable(false, true), new RobinHoodHashTable(0.8),
+                new CuckooHashTable(), new HopscotchHashTable()};
+        for (int t = 0; t < bulk.length; t++) {
+            String name = bulk[t].getClass().getSimpleName();
+            int sequentialProbes = 0;
+            for (KVPair pair : pairs)
+                sequentialProbes += sequential[t].put(pair.getKey(), pair.getValue()).getProbes();
+            int bulkProbes = bulk[t].putAll(pairs);
+            assertEquals(name + " should hold every distinct key.", 20000, bulk[t].size());
+            assertTrue(name + " should not be larger than after sequential insertions.",
+                    bulk[t].capacity() <= sequential[t].capacity());
+            assertTrue(name + " made " + bulkProbes + " probes in bulk, but only " + sequentialProbes + " one by one.",
+                    bulkProbes < sequentialProbes);
+            assertEquals("555-updated", bulk[t].get("Person 7").getValue());
+            assertEquals("555-19999", bulk[t].get("Person 19999").getValue());
+        }
+
+        pb = new Phonebook(LINEAR_PROBING, QUADRATIC_PROBING);
+        pb.addEntry("Arnold", "894-59-0011");
+        pb.addAll(IntStream.range(0, 1000).mapToObj(i -> new KVPair("Person " + i, "555-" + i)));
+        assertEquals(1001, pb.size());
+        assertEquals("Person 999", pb.getOwnerOf("555-999"));
+        assertEquals("894-59-0011", pb.getNumberOf("Arnold"));
+        try {
+            pb.addAll(Arrays.asList(new KVPair("Jessie", "705-12-7500"), new KVPair("Mary", null)));
+            fail("A null number should have been rejected.");
+        } catch (IllegalArgumentException ignored) {
+        }
+        assertNull("A rejected bulk load should not add any entry.", pb.getNumberOf("Jessie"));
+    }
+
+    @Test
+    public void testTombstoneCompaction() {
+        OpenAddressingHashTable[] tables = {new LinearProbingHashTable(true), new OrderedLinearProbingHashTable(true),
+                new QuadraticProbingHashTable(true), new LinearProbingHashTable(true, true)};
+        for (OpenAddressingHashTable table : tables) {
+            String name = table.getClass().getSimpleName();
+            table.setCompactionThreshold(0.1);
+            for (int i = 0; i < 1000; i++)
+                table.put("Person " + i, "555-" + i);
+            int capacity = table.capacity();
+            // Churn: every new number replaces an old one, so the table should never need to grow.
+            for (int i = 1000; i < 50000; i++) {
+                assertEquals("555-" + (i - 1000), table.remove("Person " + (i - 1000)).getValue());
+                table.put("Person " + i, "555-" + i);
+                assertTrue(name + " has " + table.tombstones() + " tombstones in " + table.capacity() + " cells.",
+                        table.tombstones() <= 0.1 * table.capacity() + 1);
+            }
+            assertEquals(name + " should have compacted instead of growing.", capacity, table.capacity());
+            assertTrue(name + " should have reclaimed tombstones.", table.reclaimedSlots() > 0);
+            assertEquals(1000, table.size());
+            for (int i = 49000; i < 50000; i++)
+                assertEquals("555-" + i, table.get("Person " + i).getValue());
+            assertNull(table.get("Person 48999").getValue());
+        }
+
+        LinearProbingHashTable disabled = new LinearProbingHashTable(true);
+        for (int i = 0; i < 100; i++)
+            disabled.put("Person " + i, "555-" + i);
+        for (int i = 0; i < 100; i++)
+            disabled.remove("Person " + i);
+        assertEquals("Compaction should be off by default.", 100, disabled.tombstones());
+        assertEquals(0, disabled.reclaimedSlots());
+        try {
+            disabled.setCompactionThreshold(0);
+            fail("A threshold of 0 should have been rejected.");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void testBidirectionalTable() {
+        BidirectionalHashTable table = new BidirectionalHashTable();
+        HashTable names = table.forward(), numbers = table.reverse();
+        Map<String, String> byName = new HashMap<>(), byNumber = new HashMap<>();
+        Random random = new Random(47);
+        for (int i = 0; i < 100000; i++) {
+            String name = "Person " + random.nextInt(2000), number = "555-" + random.nextInt(2000);
+            switch (random.nextInt(4)) {
+                case 0: // A bijection: whatever held name or number before is dropped.
+                    byNumber.remove(byName.remove(name));
+                    byName.remove(byNumber.remove(number));
+                    byName.put(name, number);
+                    byNumber.put(number, name);
+                    if (random.nextBoolean())
+                        assertEquals(number, names.put(name, number).getValue());
+                    else
+                        assertEquals(name, numbers.put(number, name).getValue());
+                    break;
+                case 1:
+                    String removed = byName.remove(name);
+                    byNumber.remove(removed);
+                    assertEquals(removed, names.remove(name).getValue());
+                    break;
+                case 2:
+                    assertEquals(byNumber.get(number), numbers.get(number).getValue());
+                    assertEquals(byNumber.containsKey(number), names.containsValue(number));
+                    break;
+                default:
+                    boolean paired = number.equals(byName.get(name));
+                    if (paired) {
+                        byName.remove(name);
+                        byNumber.remove(number);
+                    }
+                    assertEquals(paired ? number : null, table.removeEntry(name, number).getValue());
+            }
+            assertEquals(byName.size(), names.size());
+            assertEquals(byNumber.size(), numbers.size());
+        }
+        for (Map.Entry<String, String> entry : byName.entrySet()) {
+            assertEquals(entry.getValue(), names.get(entry.getKey()).getValue());
+            assertEquals(entry.getKey(), numbers.get(entry.getValue()).getValue());
+        }
+
+        pb = new Phonebook(new BidirectionalHashTable());
+        pb.addEntry("Arnold", "894-59-0011");
+        pb.addEntry("Arnold", "705-12-7500");
+        assertNull("The old number of Arnold should be gone.", pb.getOwnerOf("894-59-0011"));
+        assertEquals("Arnold", pb.getOwnerOf("705-12-7500"));
+        pb.deleteEntry("Arnold", "894-59-0011");
+        assertEquals("Deleting a pair that is not an entry should have no effect.", 1, pb.size());
+        pb.deleteEntry("Arnold", "705-12-7500");
+        assertTrue(pb.isEmpty());
+        assertNull(pb.getNumberOf("Arnold"));
+        pb.addAll(IntStream.range(0, 1000).mapToObj(i -> new KVPair("Person " + i, "555-" + i)));
+        assertEquals(1000, pb.size());
+        assertEquals("Person 999", pb.getOwnerOf("555-999"));
+    }
+
+    @Test
+    public void testArrayChainingHashFlood() {
+        // "Aa" and "BB" have the same String.hashCode(), so every string made of 12 such blocks shares one hash.
+        List<String> flood = new ArrayList<>();
+        for (int mask = 0; mask < (1 << 12); mask++) {
+            StringBuilder key = new StringBuilder();
+            for (int b = 0; b < 12; b++)
+                key.append(((mask >> b) & 1) == 0 ? "Aa" : "BB");
+            flood.add(key.toString());
+        }
+        assertEquals(flood.get(0).hashCode(), flood.get(flood.size() - 1).hashCode());
+
+        ArrayChainingHashTable table = new ArrayChainingHashTable();
+        for (int i = 0; i < flood.size(); i++)
+            table.put(flood.get(i), "555-" + i);
+        for (int i = 0; i < 1000; i++)
+            table.put("Person " + i, "555-x" + i);
+        assertEquals(flood.size() + 1000, table.size());
+        assertTrue(table.size() <= ArrayChainingHashTable.MAX_LOAD_FACTOR * table.capacity());
+
+        int maxProbes = 0;
+        for (int i = 0; i < flood.size(); i++) {
+            Probes found = table.get(flood.get(i));
+            assertEquals("555-" + i, found.getValue());
+            maxProbes = Math.max(maxProbes, found.getProbes());
+        }
+        assertTrue("A flooded bucket took " + maxProbes + " probes.", maxProbes <= 13);
+        assertNull(table.get("AaAaAaAaAaAaAaAaAaAaAaAaAa").getValue());
+        assertTrue(table.get("AaAaAaAaAaAaAaAaAaAaAaAaAa").getProbes() <= 13);
+
+        for (int i = 0; i < flood.size(); i += 2)
+            assertEquals("555-" + i, table.remove(flood.get(i)).getValue());
+        for (int i = 0; i < flood.size(); i++)
+            assertEquals((i % 2 == 0) ? null : "555-" + i, table.get(flood.get(i)).getValue());
+        assertEquals("555-x999", table.put("Person 999", "555-x999").getValue());
+        assertEquals(flood.size() / 2 + 1000, table.size());
+        assertTrue(table.containsValue("555-x0"));
+        assertFalse(table.containsKey(flood.get(0)));
+    }
+
+    @Test
+    public void testSeededHashFunction() {
+        SeededHashFunction seeded = new SeededHashFunction(42);
+        assertEquals(seeded.hash("301-405-1000"), new SeededHashFunction(42).hash("301-405-1000"));
+        assertNotEquals(seeded.hash("301-405-1000"), new SeededHashFunction(43).hash("301-405-1000"));
+        assertNotEquals(seeded.hash("Aa"), seeded.hash("BB"));
+        assertNotEquals(seeded.hash(""), seeded.hash("\u0000"));
+
+        // 2^12 keys that all share the same String.hashCode() only cost a few probes each under a seeded hash.
+        List<String> flood = new ArrayList<>();
+        for (int mask = 0; mask < (1 << 12); mask++) {
+            StringBuilder key = new StringBuilder();
+            for (int b = 0; b < 12; b++)
+                key.append(((mask >> b) & 1) == 0 ? "Aa" : "BB");
+            flood.add(key.toString());
+        }
+        HashTable[] tables = {new LinearProbingHashTable(false, false, seeded),
+                new LinearProbingHashTable(true, true, new SeededHashFunction()),
+                new QuadraticProbingHashTable(false, true, seeded), new OrderedLinearProbingHashTable(true, true, seeded),
+                new RobinHoodHashTable(seeded), new CuckooHashTable(seeded), new HopscotchHashTable(seeded),
+                new ArrayChainingHashTable(seeded)};
+        for (HashTable table : tables) {
+            String name = table.getClass().getSimpleName();
+            long probes = 0;
+            for (int i = 0; i < flood.size(); i++) {
+                table.put(flood.get(i), "555-" + i);
+                // Incremental tables hash keys that are still in their retiring storage with the same function.
+                assertEquals(name, "555-" + (i / 2), table.get(flood.get(i / 2)).getValue());
+            }
+            for (int i = 0; i < flood.size(); i++)
+                probes += table.get(flood.get(i)).getProbes();
+            assertTrue(name + " made " + probes + " probes.", probes < 4L * flood.size());
+        }
+        SeparateChainingHashTable chaining = new SeparateChainingHashTable(seeded);
+        chaining.put("Arnold", "894-59-0011");
+        chaining.enlarge();
+        assertEquals("894-59-0011", chaining.get("Arnold").getValue());
+        try {
+            new LinearProbingHashTable(false, false, null);
+            fail("A null hash function should have been rejected.");
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        for (CollisionResolver namesToPhones : resolvers) {
+            for (CollisionResolver phonesToNames : resolvers) {
+                pb = new Phonebook(namesToPhones, phonesToNames, new SeededHashFunction());
+                for (int i = 0; i < 500; i++)
+                    pb.addEntry("Person " + i, "555-" + i);
+                for (int i = 0; i < 500; i += 2)
+                    pb.deleteEntry("Person " + i, "555-" + i);
+                assertEquals(format("Wrong size.", namesToPhones, phonesToNames), 250, pb.size());
+                assertEquals(format("Wrong owner.", namesToPhones, phonesToNames), "Person 499", pb.getOwnerOf("555-499"));
+                assertNull(format("Deleted entry found.", namesToPhones, phonesToNames), pb.getNumberOf("Person 498"));
+            }
+        }
+    }
+
+    @Test
+    public void testValueIndex() {
+        OpenAddressingHashTable compacting = new OrderedLinearProbingHashTable(true, true);
+        compacting.setCompactionThreshold(0.1);
+        HashFunction eightHashes = key -> key.hashCode() & 7; // Sends most pairs of a cuckoo table to its stash.
+        HashTable[] indexed = {new LinearProbingHashTable(false), new LinearProbingHashTable(true, true),
+                new QuadraticProbingHashTable(true), new QuadraticProbingHashTable(false, true), compacting,
+                new SeparateChainingHashTable(), new RobinHoodHashTable(0.9), new CuckooHashTable(),
+                new CuckooHashTable(eightHashes), new HopscotchHashTable()};
+        HashTable[] scanned = {new LinearProbingHashTable(false), new LinearProbingHashTable(true, true),
+                new QuadraticProbingHashTable(true), new QuadraticProbingHashTable(false, true),
+                new OrderedLinearProbingHashTable(true, true), new SeparateChainingHashTable(),
+                new RobinHoodHashTable(0.9), new CuckooHashTable(), new CuckooHashTable(eightHashes),
+                new HopscotchHashTable()};
+        for (int t = 0; t < indexed.length; t++) {
+            String name = indexed[t].getClass().getSimpleName();
+            Random random = new Random(t);
+            for (int i = 0; i < 20000; i++) {
+                String key = "Person " + random.nextInt(3000), value = "555-" + random.nextInt(500);
+                int dice = random.nextInt(10);
+                if (i == 5000) {
+                    // The index is built from whatever the table holds when it is enabled, retiring storage included.
+                    if (indexed[t] instanceof SeparateChainingHashTable)
+                        ((SeparateChainingHashTable) indexed[t]).enableValueIndex();
+                    else
+                        ((OpenAddressingHashTable) indexed[t]).enableValueIndex();
+                }
+                // Separate chaining appends a second pair instead of updating, so existing keys are not put again.
+                if (dice < 4 && !(indexed[t] instanceof SeparateChainingHashTable && indexed[t].get(key).getValue() != null)) {
+                    indexed[t].put(key, value);
+                    scanned[t].put(key, value);
+                } else if (dice < 7) {
+                    assertEquals(name, scanned[t].remove(key).getValue(), indexed[t].remove(key).getValue());
+                } else {
+                    assertEquals(name + " disagrees about " + value, scanned[t].containsValue(value),
+                            indexed[t].containsValue(value));
+                }
+            }
+            for (int v = 0; v < 600; v++)
+                assertEquals(name, scanned[t].containsValue("555-" + v), indexed[t].containsValue("555-" + v));
+        }
+        long footprint = ((OpenAddressingHashTable) indexed[0]).valueIndexFootprint();
+        assertTrue("An index of 500 values should take a few KiB, not " + footprint + " bytes.",
+                footprint > 0 && footprint < 64 * 1024);
+        assertEquals(0, ((OpenAddressingHashTable) scanned[0]).valueIndexFootprint());
+        ((OpenAddressingHashTable) indexed[0]).disableValueIndex();
+        assertEquals(0, ((OpenAddressingHashTable) indexed[0]).valueIndexFootprint());
+    }
+
+    @Test
+    public void testBinarySnapshot() throws IOException {
+        LinearProbingHashTable saved = new LinearProbingHashTable(true);
+        Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            saved.put("Person " + i, "555-" + i);
+            expected.put("Person " + i, "555-" + i);
+        }
+        for (int i = 0; i < 5000; i += 7) {
+            saved.remove("Person " + i);
+            expected.remove("Person " + i);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TableSnapshot.write(saved, out);
+        byte[] bytes = out.toByteArray();
+
+        // Same class, default hash, soft deletion: the slots are copied as they are, tombstones included.
+        HashTable copy = TableSnapshot.read(new ByteArrayInputStream(bytes), new LinearProbingHashTable(true));
+        assertEquals(saved.capacity(), copy.capacity());
+        assertEquals(saved.tombstones(), copy.tombstones());
+        assertEquals(saved.toString(), copy.toString());
+        for (int i = 0; i < 5000; i++)
+            assertEquals(saved.get("Person " + i).getProbes(), copy.get("Person " + i).getProbes());
+        copy.put("Newcomer", "555-0000");
+        assertEquals("555-0000", copy.get("Newcomer").getValue());
+
+        // Any other table, including one that could not hold the tombstones, gets the pairs inserted again.
+        HashTable[] others = {new LinearProbingHashTable(false), new QuadraticProbingHashTable(true),
+                new SeparateChainingHashTable(), new LinearProbingHashTable(true, false, new SeededHashFunction(42))};
+        for (HashTable other : others) {
+            TableSnapshot.read(new ByteArrayInputStream(bytes), other);
+            assertEquals(expected.size(), other.size());
+            assertEquals(0, other.tombstones());
+            for (Map.Entry<String, String> pair : expected.entrySet())
+                assertEquals(pair.getValue(), other.get(pair.getKey()).getValue());
+        }
+
+        // Tables without a slot layout are saved as plain pairs.
+        CuckooHashTable cuckoo = new CuckooHashTable();
+        expected.forEach(cuckoo::put);
+        out.reset();
+        TableSnapshot.write(cuckoo, out);
+        HashTable fromPairs = TableSnapshot.read(new ByteArrayInputStream(out.toByteArray()), new RobinHoodHashTable());
+        assertEquals(expected.size(), fromPairs.size());
+        for (Map.Entry<String, String> pair : expected.entrySet())
+            assertEquals(pair.getValue(), fromPairs.get(pair.getKey()).getValue());
+
+        // A flipped byte fails the CRC of its block, and a truncated snapshot is noticed; the target is left untouched.
+        byte[] corrupted = bytes.clone();
+        corrupted[bytes.length / 2] ^= 0x10;
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 100);
+        for (byte[] broken : new byte[][] {corrupted, truncated}) {
+            LinearProbingHashTable target = new LinearProbingHashTable(true);
+            try {
+                TableSnapshot.read(new ByteArrayInputStream(broken), target);
+                fail("A broken snapshot should not load.");
+            } catch (IOException ignored) {
+            }
+            assertEquals(0, target.size());
+        }
+
+        // Phonebooks save both of their tables, and load them back into any pair of types.
+        Phonebook phonebook = new Phonebook(LINEAR_PROBING, QUADRATIC_PROBING);
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < 20000; i++)
+            entries.put("Jane Doe #" + i, String.format("301-%03d-%04d", i % 1000, i));
+        entries.forEach(phonebook::addEntry);
+        out.reset();
+        phonebook.save(out);
+        for (CollisionResolver[] types : new CollisionResolver[][] {{LINEAR_PROBING, QUADRATIC_PROBING},
+                {ARRAY_CHAINING, ROBIN_HOOD}}) {
+            Phonebook loaded = Phonebook.load(new ByteArrayInputStream(out.toByteArray()), types[0], types[1]);
+            assertEquals(entries.size(), loaded.size());
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                assertEquals(entry.getValue(), loaded.getNumberOf(entry.getKey()));
+                assertEquals(entry.getKey(), loaded.getOwnerOf(entry.getValue()));
+            }
+        }
+    }
+
+    @Test
+    public void testPrefixSearch() {
+        Phonebook[] phonebooks = {new Phonebook(LINEAR_PROBING, SEPARATE_CHAINING),
+                new Phonebook(new BidirectionalHashTable())};
+        for (Phonebook phonebook : phonebooks) {
+            java.util.TreeMap<String, String> expected = new java.util.TreeMap<>();
+            Random random = new Random(7);
+            String[] lastNames = {"Smith", "Smithers", "Smyth", "Jones", "Johnson"};
+            for (int i = 0; i < 4000; i++) {
+                String name = lastNames[random.nextInt(lastNames.length)] + ", " + random.nextInt(1000);
+                String number = "555-" + i;
+                phonebook.addEntry(name, number);
+                expected.put(name, number);
+                if (i == 2000) // The index is built by the first search, and maintained from then on.
+                    assertEquals(3, phonebook.prefixSearch("Smi", 3).count());
+                if (random.nextInt(4) == 0) {
+                    String victim = lastNames[random.nextInt(lastNames.length)] + ", " + random.nextInt(1000);
+                    if (expected.containsKey(victim)) {
+                        phonebook.deleteEntry(victim, expected.remove(victim));
+                    }
+                }
+            }
+            for (String prefix : new String[] {"Smi", "Smith", "Smithers, 1", "J", "X", ""}) {
+                List<KVPair> found = new ArrayList<>();
+                phonebook.prefixSearch(prefix, 50).forEach(found::add);
+                List<KVPair> wanted = new ArrayList<>();
+                for (Map.Entry<String, String> entry : expected.tailMap(prefix).entrySet()) {
+                    if (!entry.getKey().startsWith(prefix) || wanted.size() == 50)
+                        break;
+                    wanted.add(new KVPair(entry.getKey(), entry.getValue()));
+                }
+                assertEquals("Prefix " + prefix, wanted, found);
+            }
+            assertEquals(0, phonebook.prefixSearch("Smi", 0).count());
+        }
+        // A bidirectional phonebook drops the previous owner of a number that is handed to someone else.
+        String owner = phonebooks[1].prefixSearch("Smyth", 1).findFirst().get().getKey();
+        phonebooks[1].addEntry("Smyth, new", phonebooks[1].getNumberOf(owner));
+        assertEquals("Smyth, new", phonebooks[1].prefixSearch("Smyth", 1000).reduce((a, b) -> b).get().getKey());
+        assertFalse(phonebooks[1].prefixSearch(owner, 1).anyMatch(pair -> pair.getKey().equals(owner)));
+    }
+
+    @Test
+    public void testFrozenPhonebook() {
+        Phonebook phonebook = new Phonebook(LINEAR_PROBING, SEPARATE_CHAINING);
+        assertTrue(phonebook.freeze().isEmpty());
+        assertNull(phonebook.freeze().getNumberOf("Jerry"));
+        Map<String, String> entries = new HashMap<>();
+        long rawBytes = 0;
+        for (int i = 0; i < 20000; i++) {
+            String name = "Person " + i + ((i % 100 == 0) ? " Zo\u00eb" : "");
+            String number = String.format("301-%03d-%04d", i / 10000, i % 10000);
+            phonebook.addEntry(name, number);
+            entries.put(name, number);
+            rawBytes += 2 * (name.getBytes(java.nio.charset.StandardCharsets.UTF_8).length + number.length());
+        }
+        FrozenPhonebook frozen = phonebook.freeze();
+        phonebook.addEntry("Jerry", "301-999-9999");   // Not seen by the snapshot.
+        phonebook.deleteEntry("Person 1", "301-000-0001");
+        assertEquals(entries.size(), frozen.size());
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            assertEquals(new Probes(entry.getValue(), 1), frozen.namesToNumbers().get(entry.getKey()));
+            assertEquals(new Probes(entry.getKey(), 1), frozen.numbersToNames().get(entry.getValue()));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Probes miss = frozen.namesToNumbers().get("Nobody " + i);
+            assertNull(miss.getValue());
+            assertEquals(1, miss.getProbes());
+            assertNull(frozen.getOwnerOf("555-" + i));
+        }
+        assertNull(frozen.getNumberOf("Jerry"));
+        assertEquals("301-000-0001", frozen.getNumberOf("Person 1"));
+        assertNull(frozen.getNumberOf(null));
+        assertTrue("Footprint " + frozen.footprint() + " for " + rawBytes + " bytes of strings.",
+                frozen.footprint() <= rawBytes + 8L * 2 * entries.size());
+        try {
+            frozen.namesToNumbers().put("Jerry", "301-999-9999");
+            fail("A frozen phonebook should not accept insertions.");
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testFreezeDuplicateKeys() {
+        // Separate Chaining appends without looking for the key, so "A" is held twice.
+        Phonebook phonebook = new Phonebook(SEPARATE_CHAINING, LINEAR_PROBING);
+        phonebook.addEntry("A", "1");
+        phonebook.addEntry("A", "2");
+        FrozenPhonebook frozen = phonebook.freeze();
+        assertEquals(1, frozen.size());
+        assertEquals(phonebook.getNumberOf("A"), frozen.getNumberOf("A"));
+        assertEquals("A", frozen.getOwnerOf("1"));
+        assertEquals("A", frozen.getOwnerOf("2"));
+
+        SeparateChainingHashTable chains = new SeparateChainingHashTable();
+        for (int i = 0; i < 100; i++) {
+            chains.put("Person " + (i % 10), "301-" + i);
+        }
+        PerfectHashTable table = new PerfectHashTable(chains);
+        assertEquals(10, table.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(chains.get("Person " + i).getValue(), table.get("Person " + i).getValue());
+        }
+    }
+
+    @Test
+    public void testPhoneNumberHashTable() {
+        PhoneNumberHashTable table = new PhoneNumberHashTable(new LinearProbingHashTable(true));
+        Map<String, String> expected = new HashMap<>();
+        String[] formats = {"%03d-%03d-%04d", "%03d%03d%04d", "(%03d) %03d-%04d", "0%d-%d-%d", "+1 %d %d %d"};
+        Random random = new Random(20);
+        for (int i = 0; i < 30000; i++) {
+            String number = String.format(formats[random.nextInt(formats.length)], random.nextInt(100),
+                    random.nextInt(100), random.nextInt(100));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(number), table.remove(number).getValue());
+            } else {
+                assertEquals("Person " + i, table.put(number, "Person " + i).getValue());
+                expected.put(number, "Person " + i);
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey()).getValue());
+            assertTrue(table.get(entry.getKey()).getProbes() > 0);
+        }
+        // Every key is enumerated exactly as it was put, leading zeros and dashes included.
+        Map<String, String> enumerated = new HashMap<>();
+        table.forEach(enumerated::put);
+        assertEquals(expected, enumerated);
+        for (String odd : new String[] {"-1", "1-", "1--2", "12345678901234", "1-2-3-4-5-6-7-8-9-0-1-2-3", ""}) {
+            table.put(odd, odd);
+            assertEquals(odd, table.get(odd).getValue());
+        }
+        assertNull(table.get("3014051000").getValue());
+        assertNull(table.get(null).getValue());
+        assertEquals(0, table.get(null).getProbes());
+        assertTrue(table.containsValue("1--2"));
+        try {
+            table.put("301-405-1000", null);
+            fail("Null values should be rejected.");
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        // The packed keys are hashed with a seed drawn from the HashFunction: equal seeds lay out equal tables.
+        PhoneNumberHashTable[] seeded = {new PhoneNumberHashTable(new LinearProbingHashTable(false), new SeededHashFunction(1)),
+                new PhoneNumberHashTable(new LinearProbingHashTable(false), new SeededHashFunction(1)),
+                new PhoneNumberHashTable(new LinearProbingHashTable(false), new SeededHashFunction(2))};
+        List<List<String>> layouts = new ArrayList<>();
+        for (PhoneNumberHashTable t : seeded) {
+            for (int i = 0; i < 1000; i++)
+                t.put(String.format("301-405-%04d", i), "Person " + i);
+            List<String> layout = new ArrayList<>();
+            t.forEach((number, owner) -> layout.add(number));
+            assertEquals(1000, layout.size());
+            layouts.add(layout);
+        }
+        assertEquals("Equal seeds should place the numbers alike.", layouts.get(0), layouts.get(1));
+        assertNotEquals("Different seeds should place the numbers differently.", layouts.get(0), layouts.get(2));
+        assertEquals("Person 7", seeded[2].get("301-405-0007").getValue());
+    }
+
+    @Test
+    public void testArenaHashTable() {
+        ArenaHashTable table = new ArenaHashTable();
+        Map<String, String> expected = new HashMap<>();
+        // A lone surrogate has no UTF-8 encoding, so it is only used in keys, which are never read back as they were put.
+        String[] names = {"Zo\u00eb", "\u674e\u5a1c", "\ud83d\ude00 Smile", "", "Jason", "Lone \ud83d"};
+        Random random = new Random(21);
+        for (int i = 0; i < 200000; i++) {
+            String key = names[random.nextInt(names.length)] + random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), table.remove(key).getValue());
+            } else {
+                String value = names[random.nextInt(names.length - 1)] + i;
+                assertEquals(value, table.put(key, value).getValue());
+                expected.put(key, value);
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey()).getValue());
+            assertTrue(table.containsKey(entry.getKey()));
+        }
+        assertFalse(table.containsKey("Lone \ude00" + 1));
+        Map<String, String> enumerated = new HashMap<>();
+        table.forEach(enumerated::put);
+        assertEquals(expected.size(), enumerated.size());
+        assertEquals(new java.util.HashSet<>(expected.values()), new java.util.HashSet<>(enumerated.values()));
+        String someValue = expected.values().iterator().next();
+        assertTrue(table.containsValue(someValue));
+        assertFalse(table.containsValue(someValue + "!"));
+        // Replaced and deleted pairs are reclaimed: the arena stays a small multiple of the live pairs.
+        long live = 0;
+        for (Map.Entry<String, String> entry : expected.entrySet())
+            live += entry.getKey().getBytes(java.nio.charset.StandardCharsets.UTF_8).length
+                    + entry.getValue().getBytes(java.nio.charset.StandardCharsets.UTF_8).length + 2;
+        assertTrue(table.toString(), table.footprint() < 12L * table.capacity() + 4 * live + (1 << 21));
+        assertNull(table.get(null).getValue());
+        assertEquals(0, table.remove(null).getProbes());
+    }
+
+    @Test
+    public void testBatchLookups() {
+        HashTable[] tables = {new LinearProbingHashTable(false), new LinearProbingHashTable(true),
+                new LinearProbingHashTable(false, true), new PhoneNumberHashTable(), new QuadraticProbingHashTable(true)};
+        LookupResults results = new LookupResults();
+        for (HashTable table : tables) {
+            Random random = new Random(22);
+            for (int i = 0; i < 5000; i++) {
+                table.put("301-" + random.nextInt(8000), "Person " + i);
+                if (random.nextInt(3) == 0)
+                    table.remove("301-" + random.nextInt(8000));
+            }
+            for (int round = 0; round < 3; round++) {
+                List<String> batch = new ArrayList<>();
+                for (int i = 0; i < 300 * (3 - round); i++)
+                    batch.add(random.nextInt(50) == 0 ? null : ((i % 7 == 0) ? "(301) " : "301-") + random.nextInt(9000));
+                table.getAll(batch, results);
+                assertEquals(batch.size(), results.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    Probes expected = table.get(batch.get(i));
+                    assertEquals(table.getClass().getSimpleName(), expected.getValue(), results.getValue(i));
+                    assertEquals(table.getClass().getSimpleName(), expected.getProbes(), results.getProbes(i));
+                }
+            }
+        }
+
+        Phonebook phonebook = new Phonebook(LINEAR_PROBING, QUADRATIC_PROBING);
+        for (int i = 0; i < 1000; i++)
+            phonebook.addEntry("Person " + i, "555-" + i);
+        List<String> names = Arrays.asList("Person 5", null, "Nobody", "Person 999");
+        assertEquals(Arrays.asList("555-5", null, null, "555-999"), phonebook.getNumbersOf(names));
+        assertEquals(Arrays.asList("Person 5", null, "Person 999"),
+                phonebook.getOwnersOf(Arrays.asList("555-5", "555-1000", "555-999")));
+        assertSame(results, phonebook.getNumbersOf(names, results));
+        assertEquals(4, results.size());
+        assertEquals(0, results.getProbes(1));
+        assertEquals("555-999", results.values().get(3));
+    }
+
+    @Test
+    public void testPowerOfTwoCapacities() throws IOException {
+        for (boolean soft : new boolean[] {false, true}) {
+            for (boolean incremental : new boolean[] {false, true}) {
+                HashTable[] tables = {new LinearProbingHashTable(soft, incremental, HashFunction.DEFAULT, CapacityPolicy.POWER_OF_TWO),
+                        new QuadraticProbingHashTable(soft, incremental, HashFunction.DEFAULT, CapacityPolicy.POWER_OF_TWO)};
+                for (HashTable table : tables) {
+                    String name = table.getClass().getSimpleName() + "(soft=" + soft + ", incremental=" + incremental + ")";
+                    assertEquals(name, 8, table.capacity());
+                    Map<String, String> expected = new HashMap<>();
+                    Random random = new Random(24);
+                    for (int i = 0; i < 20000; i++) {
+                        String key = "301-" + random.nextInt(6000);
+                        if (random.nextInt(3) == 0) {
+                            assertEquals(name, expected.remove(key), table.remove(key).getValue());
+                        } else {
+                            table.put(key, "Person " + i);
+                            expected.put(key, "Person " + i);
+                        }
+                        assertEquals(name, 1, Integer.bitCount(table.capacity()));
+                    }
+                    assertEquals(name, expected.size(), table.size());
+                    for (Map.Entry<String, String> entry : expected.entrySet())
+                        assertEquals(name, entry.getValue(), table.get(entry.getKey()).getValue());
+                    // Power-of-two tables are saved pair by pair, and load into a prime-sized table just as well.
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    TableSnapshot.write(table, bytes);
+                    HashTable copy = TableSnapshot.read(new ByteArrayInputStream(bytes.toByteArray()),
+                            new LinearProbingHashTable(soft));
+                    assertEquals(name, expected.size(), copy.size());
+                    for (Map.Entry<String, String> entry : expected.entrySet())
+                        assertEquals(name, entry.getValue(), copy.get(entry.getKey()).getValue());
+                }
+            }
+        }
+
+        // Keys that all share the same hash collide on every probe: triangular steps still find a free slot for each.
+        QuadraticProbingHashTable flooded = new QuadraticProbingHashTable(false, false, key -> 42, CapacityPolicy.POWER_OF_TWO);
+        for (int i = 0; i < 1000; i++)
+            flooded.put("Key " + i, "Value " + i);
+        for (int i = 0; i < 1000; i++)
+            assertEquals("Value " + i, flooded.get("Key " + i).getValue());
+        assertEquals(2048, flooded.capacity());
+    }
+
+    @Test
+    public void testAllocationFreeOperations() {
+        List<Supplier<HashTable>> factories = Arrays.asList(() -> new LinearProbingHashTable(false),
+                () -> new LinearProbingHashTable(true, true), () -> new QuadraticProbingHashTable(false),
+                () -> new QuadraticProbingHashTable(true, true), () -> new OrderedLinearProbingHashTable(false),
+                () -> new OrderedLinearProbingHashTable(true, true), PhoneNumberHashTable::new, ArenaHashTable::new,
+                RobinHoodHashTable::new, CuckooHashTable::new, HopscotchHashTable::new, ArrayChainingHashTable::new,
+                () -> new BidirectionalHashTable().forward(),
+                () -> new InstrumentedHashTable(new LinearProbingHashTable(false)));
+        for (Supplier<HashTable> factory : factories) {
+            // Both tables go through the same operations, one with Probes and the other through the allocation-free path.
+            HashTable withProbes = factory.get(), withCounter = factory.get();
+            String name = withProbes.getClass().getSimpleName();
+            Random random = new Random(25);
+            ProbeCounter.reset();
+            long expectedProbes = 0;
+            for (int i = 0; i < 20000; i++) {
+                String key = (random.nextInt(20) == 0) ? null : ((i % 5 == 0) ? "(301) " : "301-") + random.nextInt(4000);
+                int op = random.nextInt(4);
+                if (op == 0 && key != null) {
+                    int size = withProbes.size();
+                    expectedProbes += withProbes.put(key, "Person " + i).getProbes();
+                    assertEquals(name, withProbes.size() > size, withCounter.putValue(key, "Person " + i));
+                } else if (op == 1) {
+                    Probes removed = withProbes.remove(key);
+                    expectedProbes += removed.getProbes();
+                    assertEquals(name, removed.getValue(), withCounter.removeValue(key));
+                } else {
+                    Probes found = withProbes.get(key);
+                    expectedProbes += found.getProbes();
+                    assertEquals(name, found.getValue(), withCounter.getValue(key));
+                }
+                assertEquals(name, expectedProbes, ProbeCounter.probes());
+            }
+            assertEquals(name, withProbes.size(), withCounter.size());
+        }
+        ProbeCounter.reset();
+        assertEquals(0, ProbeCounter.probes());
+        assertEquals(0, ProbeCounter.operations());
+
+        // Once warmed up, searches, updates and re-insertions through the allocation-free path allocate nothing on the
+        // heap. Left out are the tables that still allocate by design: ArenaHashTable, MappedHashTable and
+        // PerfectHashTable decode every value they return into a new String, SeparateChainingHashTable allocates a node
+        // for every insertion, hard deletions from a QuadraticProbingHashTable rebuild its storage, and a soft
+        // OrderedLinearProbingHashTable never re-uses its tombstones, so it keeps compacting.
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            List<HashTable> tables = Arrays.asList(new LinearProbingHashTable(false),
+                    new LinearProbingHashTable(true, true), new QuadraticProbingHashTable(true, true),
+                    new OrderedLinearProbingHashTable(false), new PhoneNumberHashTable(), new RobinHoodHashTable(), new CuckooHashTable(),
+                    new HopscotchHashTable(), new ArrayChainingHashTable(), new BidirectionalHashTable().reverse(),
+                    new InstrumentedHashTable(new LinearProbingHashTable(false)));
+            String[] keys = new String[1000], values = new String[1000], updates = new String[1000];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = String.format("301-%03d-%04d", i / 100, i % 100);
+                values[i] = "Person " + i;
+                updates[i] = "Person " + i + "'";
+            }
+            for (HashTable table : tables) {
+                String name = table.getClass().getSimpleName();
+                for (int i = 0; i < keys.length; i++)
+                    table.put(keys[i], values[i]);
+                long found = 0, before = 0;
+                for (int round = 0; round < 120; round++) {
+                    if (round == 20)
+                        before = allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+                    for (int i = 0; i < keys.length; i++) {
+                        found += table.getValue(keys[i]).length();
+                        table.putValue(keys[i], updates[i]);
+                        found += table.removeValue(keys[i]).length();
+                        table.putValue(keys[i], values[i]);
+                    }
+                }
+                long allocated = allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+                assertTrue(name, found > 0);
+                assertEquals(name, keys.length, table.size());
+                assertTrue(name + ": 400,000 operations allocated " + allocated + " bytes.", allocated < 100000);
+            }
+        }
+    }
+
+    @Test
+    public void emptyPB() {
+    	pb = new Phonebook(SEPARATE_CHAINING, SEPARATE_CHAINING);
+    	
+    	String num = pb.getNumberOf("Jerry");
+    }
+
+
+}
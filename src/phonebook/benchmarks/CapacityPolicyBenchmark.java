@@ -0,0 +1,102 @@
+package phonebook.benchmarks;
+
+import phonebook.hashes.CapacityPolicy;
+import phonebook.hashes.HashFunction;
+import phonebook.hashes.HashTable;
+import phonebook.hashes.LinearProbingHashTable;
+import phonebook.hashes.QuadraticProbingHashTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * <p>{@link CapacityPolicyBenchmark} compares the two {@link CapacityPolicy capacity policies} of
+ * {@link LinearProbingHashTable} and {@link QuadraticProbingHashTable}, both hashing with {@link HashFunction#DEFAULT}:
+ * prime capacities with a modulus, against power - of - two capacities with a mixer and a mask. For every table and key
+ * distribution, it times the insertion of every key into an empty table, resizes included, and then shuffled searches
+ * for every key (hits) and for as many absent keys (misses). It prints the mean number of probes of both kinds of
+ * search, and the best throughput of each phase over several rounds, each on a fresh table.</p>
+ *
+ * <p>Usage: {@code java phonebook.benchmarks.CapacityPolicyBenchmark [entries] [rounds]}. The defaults are 500,000
+ * entries and 5 rounds.</p>
+ *
+ * @see CapacityPolicy
+ * @see HashFunctionBenchmark
+ */
+public class CapacityPolicyBenchmark {
+
+    private static void run(String distribution, List<String> keys, int rounds, Random random) {
+        Map<String, Supplier<HashTable>> tables = new LinkedHashMap<>();
+        tables.put("LinearProbing/prime", () -> new LinearProbingHashTable(false, false, HashFunction.DEFAULT,
+                CapacityPolicy.PRIME));
+        tables.put("LinearProbing/2^k", () -> new LinearProbingHashTable(false, false, HashFunction.DEFAULT,
+                CapacityPolicy.POWER_OF_TWO));
+        tables.put("QuadraticProbing/prime", () -> new QuadraticProbingHashTable(false, false, HashFunction.DEFAULT,
+                CapacityPolicy.PRIME));
+        tables.put("QuadraticProbing/2^k", () -> new QuadraticProbingHashTable(false, false, HashFunction.DEFAULT,
+                CapacityPolicy.POWER_OF_TWO));
+
+        List<String> hits = new ArrayList<>(keys);
+        Collections.shuffle(hits, random);
+        List<String> misses = new ArrayList<>(keys.size());
+        for (String key : hits) {
+            misses.add(key + "?");
+        }
+        System.out.println(distribution + " (" + keys.size() + " keys):");
+        for (Map.Entry<String, Supplier<HashTable>> table : tables.entrySet()) {
+            double bestPuts = 0, bestHits = 0, bestMisses = 0;
+            long hitProbes = 0, missProbes = 0, found = 0;
+            int capacity = 0;
+            for (int round = 0; round < rounds; round++) {
+                HashTable instance = table.getValue().get();
+                long start = System.nanoTime();
+                for (String key : keys) {
+                    instance.put(key, key);
+                }
+                bestPuts = Math.max(bestPuts, keys.size() / ((System.nanoTime() - start) / 1e9));
+
+                start = System.nanoTime();
+                for (String key : hits) {
+                    found += instance.get(key).getValue().length();
+                }
+                bestHits = Math.max(bestHits, hits.size() / ((System.nanoTime() - start) / 1e9));
+
+                start = System.nanoTime();
+                for (String key : misses) {
+                    found += (instance.get(key).getValue() == null) ? 0 : 1;
+                }
+                bestMisses = Math.max(bestMisses, misses.size() / ((System.nanoTime() - start) / 1e9));
+
+                if (round == 0) {
+                    for (String key : hits) {
+                        hitProbes += instance.get(key).getProbes();
+                    }
+                    for (String key : misses) {
+                        missProbes += instance.get(key).getProbes();
+                    }
+                    capacity = instance.capacity();
+                }
+            }
+            System.out.printf("  %-23s capacity %,11d, probes %6.3f hit / %6.3f miss, %,12.0f puts/s, %,12.0f hits/s, "
+                            + "%,12.0f misses/s%s%n", table.getKey(), capacity, (double) hitProbes / hits.size(),
+                    (double) missProbes / misses.size(), bestPuts, bestHits, bestMisses, (found == 0) ? "!" : "");
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args Optionally, the number of entries and the number of rounds.
+     */
+    public static void main(String[] args) {
+        int entries = (args.length > 0) ? Integer.parseInt(args[0]) : 500000;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+        Random random = new Random(420);
+        run("Phone numbers", HashFunctionBenchmark.phoneNumbers(entries, random), rounds, random);
+        run("Names", HashFunctionBenchmark.names(entries, random), rounds, random);
+    }
+}
@@ -0,0 +1,122 @@
+package phonebook.benchmarks;
+
+import phonebook.ConcurrentPhonebook;
+import phonebook.Phonebook;
+import phonebook.hashes.CollisionResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>{@link ConcurrentPhonebookBenchmark} measures how lookups and updates scale with the number of threads, for a
+ * {@link ConcurrentPhonebook} and for a {@link Phonebook} behind a single global lock. Every thread runs a mix of 90&#37;
+ * lookups ({@link ConcurrentPhonebook#getNumberOf(String)} / {@link ConcurrentPhonebook#getOwnerOf(String)}) and
+ * 10&#37; {@link ConcurrentPhonebook#addEntry(String, String)} calls on a preloaded phonebook, for a fixed amount of time,
+ * and the total throughput is printed for 1, 2, 4, ... up to N threads.</p>
+ *
+ * <p>Usage: {@code java phonebook.benchmarks.ConcurrentPhonebookBenchmark [maxThreads] [entries] [millisPerRun]}.
+ * The defaults are the number of available processors, 1,000,000 entries and 2000 ms.</p>
+ *
+ * @see ConcurrentPhonebook
+ */
+public class ConcurrentPhonebookBenchmark {
+
+    private interface Operations {
+        String get(String name, String number, boolean byName);
+        void add(String name, String number);
+    }
+
+    private static String name(int i) {
+        return "Person #" + i;
+    }
+
+    private static String number(int i) {
+        return String.format("%03d-%03d-%04d", i / 10000000, (i / 10000) % 1000, i % 10000);
+    }
+
+    // Runs the mix on the provided number of threads for millis milliseconds, returning operations per second.
+    private static double run(Operations ops, int threads, int entries, long millis) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        long[] done = new long[threads];
+        List<Thread> workers = new ArrayList<>();
+        long deadline = System.nanoTime() + millis * 1000000L + 100000000L; // Start delay included.
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                long operations = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while ((operations & 0xff) != 0 || System.nanoTime() < deadline) {
+                    int i = r.nextInt(entries);
+                    int dice = r.nextInt(10);
+                    if (dice == 0) {
+                        ops.add(name(i), number(i));
+                    } else {
+                        ops.get(name(i), number(i), dice % 2 == 0);
+                    }
+                    operations++;
+                }
+                done[index] = operations;
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        Thread.sleep(100);
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        long total = 0;
+        for (long operations : done) {
+            total += operations;
+        }
+        return total / (elapsed / 1e9);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int entries = (args.length > 1) ? Integer.parseInt(args[1]) : 1000000;
+        long millis = (args.length > 2) ? Long.parseLong(args[2]) : 2000;
+
+        ConcurrentPhonebook concurrent = new ConcurrentPhonebook(maxThreads);
+        Phonebook locked = new Phonebook(CollisionResolver.LINEAR_PROBING, CollisionResolver.LINEAR_PROBING);
+        for (int i = 0; i < entries; i++) {
+            concurrent.addEntry(name(i), number(i));
+            locked.addEntry(name(i), number(i));
+        }
+
+        Operations striped = new Operations() {
+            public String get(String name, String number, boolean byName) {
+                return byName ? concurrent.getNumberOf(name) : concurrent.getOwnerOf(number);
+            }
+            public void add(String name, String number) {
+                concurrent.addEntry(name, number);
+            }
+        };
+        Operations global = new Operations() {
+            public synchronized String get(String name, String number, boolean byName) {
+                return byName ? locked.getNumberOf(name) : locked.getOwnerOf(number);
+            }
+            public synchronized void add(String name, String number) {
+                locked.addEntry(name, number);
+            }
+        };
+
+        System.out.printf("%8s %20s %20s%n", "threads", "global lock (op/s)", "striped (op/s)");
+        for (int threads = 1; threads <= maxThreads; threads = (threads == maxThreads) ? threads + 1 : Math.min(2 * threads, maxThreads)) {
+            run(global, threads, entries, millis / 4); // Warm-up.
+            double g = run(global, threads, entries, millis);
+            run(striped, threads, entries, millis / 4);
+            double s = run(striped, threads, entries, millis);
+            System.out.printf("%8d %20.0f %20.0f%n", threads, g, s);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package phonebook.benchmarks;
+
+import phonebook.hashes.ArrayChainingHashTable;
+import phonebook.hashes.HashFunction;
+import phonebook.hashes.HashTable;
+import phonebook.hashes.LinearProbingHashTable;
+import phonebook.hashes.QuadraticProbingHashTable;
+import phonebook.hashes.RobinHoodHashTable;
+import phonebook.hashes.SeededHashFunction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * <p>{@link HashFunctionBenchmark} compares {@link HashFunction#DEFAULT} with a {@link SeededHashFunction} on three key
+ * distributions: phone numbers that share a handful of area codes and exchanges, full names drawn from lists of common
+ * first and last names, and a <em>hash flood</em> of strings that all share the same {@link String#hashCode()}. For
+ * every table and hash function, it loads the keys, then prints the mean and maximum number of probes per successful
+ * search, and the search throughput over several rounds of shuffled lookups.</p>
+ *
+ * <p>Usage: {@code java phonebook.benchmarks.HashFunctionBenchmark [entries] [rounds]}. The defaults are 200,000
+ * entries (4,096 for the flood, which cannot be made larger cheaply) and 5 rounds.</p>
+ *
+ * @see HashFunction
+ * @see SeededHashFunction
+ */
+public class HashFunctionBenchmark {
+
+    private static final String[] FIRST_NAMES = {"James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael",
+            "Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah",
+            "Charles", "Karen", "Wei", "Mei", "Ahmed", "Fatima", "Jos\u00e9", "Mar\u00eda", "Olga", "Ivan", "Priya", "Arjun"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+            "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor",
+            "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Wang", "Li", "Zhang", "Nguyen",
+            "Kim", "Patel", "Singh", "Ivanov", "M\u00fcller", "Rossi", "Silva"};
+    private static final String[] AREA_CODES = {"301", "240", "410", "443", "202", "703", "571"};
+
+    static List<String> phoneNumbers(int count, Random random) {
+        List<String> numbers = new ArrayList<>(count);
+        // A few exchanges per area code, with line numbers handed out in order, like a real numbering plan.
+        for (int i = 0; numbers.size() < count; i++) {
+            String area = AREA_CODES[i % AREA_CODES.length];
+            int exchange = 200 + (i / AREA_CODES.length) % 800;
+            for (int line = 0; line < 10000 && numbers.size() < count; line++) {
+                numbers.add(String.format("%s-%03d-%04d", area, exchange, line));
+            }
+        }
+        Collections.shuffle(numbers, random);
+        return numbers;
+    }
+
+    static List<String> names(int count, Random random) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            names.add(first + " " + (char) ('A' + i % 26) + ". " + last + " #" + i);  // Unique, but still look-alike.
+        }
+        return names;
+    }
+
+    private static List<String> flood(int bits) {
+        List<String> keys = new ArrayList<>(1 << bits);
+        for (int mask = 0; mask < (1 << bits); mask++) {
+            StringBuilder key = new StringBuilder();
+            for (int b = 0; b < bits; b++) {
+                key.append(((mask >> b) & 1) == 0 ? "Aa" : "BB");
+            }
+            keys.add(key.toString());
+        }
+        return keys;
+    }
+
+    private static void run(String distribution, List<String> keys, int rounds, Random random) {
+        Map<String, Function<HashFunction, HashTable>> tables = new LinkedHashMap<>();
+        tables.put("LinearProbing", f -> new LinearProbingHashTable(false, false, f));
+        tables.put("QuadraticProbing", f -> new QuadraticProbingHashTable(false, false, f));
+        tables.put("RobinHood", RobinHoodHashTable::new);
+        tables.put("ArrayChaining", ArrayChainingHashTable::new);
+        Map<String, HashFunction> functions = new LinkedHashMap<>();
+        functions.put("String.hashCode", HashFunction.DEFAULT);
+        functions.put("Seeded", new SeededHashFunction());
+
+        List<String> lookups = new ArrayList<>(keys);
+        Collections.shuffle(lookups, random);
+        System.out.println(distribution + " (" + keys.size() + " keys):");
+        for (Map.Entry<String, Function<HashFunction, HashTable>> table : tables.entrySet()) {
+            for (Map.Entry<String, HashFunction> function : functions.entrySet()) {
+                HashTable instance = table.getValue().apply(function.getValue());
+                for (String key : keys) {
+                    instance.put(key, key);
+                }
+                long probes = 0, maxProbes = 0;
+                for (String key : lookups) {
+                    int p = instance.get(key).getProbes();
+                    probes += p;
+                    maxProbes = Math.max(maxProbes, p);
+                }
+                long found = 0;
+                long start = System.nanoTime();
+                for (int round = 0; round < rounds; round++) {
+                    for (String key : lookups) {
+                        found += instance.get(key).getValue().length();
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("  %-17s %-16s mean probes %7.3f, max %6d, %,12.0f gets/s%s%n", table.getKey(),
+                        function.getKey(), (double) probes / lookups.size(), maxProbes,
+                        rounds * (double) lookups.size() / elapsed * 1e9, (found == 0) ? "!" : "");
+            }
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args Optionally, the number of entries and the number of rounds of lookups.
+     */
+    public static void main(String[] args) {
+        int entries = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+        Random random = new Random(420);
+        run("Phone numbers", phoneNumbers(entries, random), rounds, random);
+        run("Names", names(entries, random), rounds, random);
+        run("Hash flood", flood(12), 1, random);
+    }
+}
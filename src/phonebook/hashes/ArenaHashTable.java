@@ -0,0 +1,338 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+import phonebook.utils.StringArena;
+
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>{@link ArenaHashTable} is a Linear Probing {@link HashTable} that keeps no {@link String} objects at all: every
+ * pair is written once, as UTF-8 bytes, to a {@link StringArena}, and every slot holds only the cached hash of its key
+ * and the {@code long} reference of its pair in the arena. At tens of millions of pairs, this saves the two object
+ * headers, the two backing arrays and their headers that every pair of the other tables costs, which together take more
+ * room than short names and numbers themselves.</p>
+ *
+ * <p>Searches compare cached hashes first, and then the bytes of the key <b>in place</b>, in the arena; a {@link String}
+ * is only created for the value that is returned. Updating a value appends a new record, and deletions shift the rest of
+ * the cluster backward, like {@link RobinHoodHashTable} does, so there are no tombstones. The bytes of replaced and
+ * deleted pairs are reclaimed by copying the live pairs into a fresh arena once they take up more than half of it.</p>
+ *
+ * <p>The table resizes to the next prime of its {@link PrimeGenerator} when it becomes more than 50&#37; full, and reports
+ * its {@link Probes} exactly like {@link LinearProbingHashTable} does, one probe per slot inspected.</p>
+ *
+ * @see HashTable
+ * @see StringArena
+ * @see CollisionResolver#ARENA
+ */
+public class ArenaHashTable implements HashTable {
+
+    private static final int EMPTY = 0;
+    private static final int LIVE = 0x80000000;
+
+    // Arenas smaller than this are never compacted: there is little to reclaim.
+    private static final long MIN_COMPACTION_BYTES = 1 << 16;
+
+    private final HashFunction hashFunction;
+    private final PrimeGenerator primeGenerator = new PrimeGenerator();
+    private int[] tags;       // EMPTY, or the hash of the key with its top bit set.
+    private long[] refs;      // The reference of the pair of every live slot in arena.
+    private StringArena arena = new StringArena();
+    private int count;
+
+    /**
+     * Default constructor. Initializes the internal storage with a size equal to the starting value of {@link PrimeGenerator}.
+     */
+    public ArenaHashTable() {
+        this(HashFunction.DEFAULT);
+    }
+
+    /**
+     * Constructor with a custom hash function. Initializes the internal storage with a size equal to the starting value
+     * of {@link PrimeGenerator}.
+     * @param hashFunction The {@link HashFunction} with which keys are hashed, e.g a {@link SeededHashFunction}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}.
+     */
+    public ArenaHashTable(HashFunction hashFunction) {
+        if (hashFunction == null) {
+            throw new IllegalArgumentException("Provided: hashFunction=null");
+        }
+        this.hashFunction = hashFunction;
+        tags = new int[primeGenerator.getCurrPrime()];
+        refs = new long[tags.length];
+    }
+
+    private int tag(String key) {
+        return hashFunction.hash(key) | LIVE;
+    }
+
+    private int indexOf(int tag) {
+        return (tag & 0x7fffffff) % tags.length;
+    }
+
+    private int next(int index) {
+        return (index == tags.length - 1) ? 0 : index + 1;
+    }
+
+    // Returns (probes << 32) | (slot + 1) if key is in the table, or just (probes << 32) otherwise.
+    private long find(int tag, String key) {
+        int index = indexOf(tag);
+        int probes = 1;
+        while (tags[index] != EMPTY) {
+            if (tags[index] == tag && arena.keyEquals(refs[index], key)) {
+                return (long) probes << 32 | (index + 1);
+            }
+            index = next(index);
+            probes++;
+        }
+        return (long) probes << 32;
+    }
+
+    // Places a reference whose key is not in the table, without resizing it. Returns the number of probes made.
+    private int place(int tag, long ref) {
+        int index = indexOf(tag);
+        int probes = 1;
+        while (tags[index] != EMPTY) {
+            index = next(index);
+            probes++;
+        }
+        tags[index] = tag;
+        refs[index] = ref;
+        count++;
+        return probes;
+    }
+
+    // Moves every pair to fresh slots of the provided capacity, without touching the arena. Returns the number of probes made.
+    private int rehash(int capacity) {
+        int[] oldTags = tags;
+        long[] oldRefs = refs;
+        tags = new int[capacity];
+        refs = new long[capacity];
+        count = 0;
+        int probes = 0;
+        for (int i = 0; i < oldTags.length; i++) {
+            if (oldTags[i] != EMPTY) {
+                probes += 1 + place(oldTags[i], oldRefs[i]);
+            }
+        }
+        return probes;
+    }
+
+    // Grows the table until at most half of its slots would be taken by the provided number of pairs.
+    private int ensureCapacity(int pairs) {
+        int capacity = tags.length;
+        while ((double) pairs / capacity > 0.50) {
+            capacity = primeGenerator.getNextPrime();
+        }
+        return (capacity == tags.length) ? 0 : rehash(capacity);
+    }
+
+    // Copies the live pairs into a fresh arena once the dead ones take up more than half of the current one.
+    private void compactIfNeeded() {
+        if (arena.deadBytes() < MIN_COMPACTION_BYTES || arena.deadBytes() < arena.liveBytes()) {
+            return;
+        }
+        StringArena compacted = new StringArena();
+        for (int i = 0; i < tags.length; i++) {
+            if (tags[i] != EMPTY) {
+                refs[i] = arena.copy(refs[i], compacted);
+            }
+        }
+        arena = compacted;
+    }
+
+    // Inserts or updates the pair <key, value>. Returns (probes << 32) | 1 if key was not in the table, or just
+    // (probes << 32) otherwise.
+    private long insert(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Provided: key=" + key + " and value=" + value);
+        }
+        int tag = tag(key);
+        long found = find(tag, key);
+        int slot = (int) found - 1;
+        if (slot >= 0) {
+            arena.release(refs[slot]);
+            refs[slot] = arena.append(key, value);
+            compactIfNeeded();
+            return found & ~0xffffffffL;
+        }
+        int probes = ensureCapacity(count + 1);
+        return (long) (probes + place(tag, arena.append(key, value))) << 32 | 1;
+    }
+
+    // Releases the pair in slot, empties it, and shifts back every later pair of the cluster that the new hole would cut
+    // off from its home slot. Returns the number of probes made, counting the empty slot that ends the cluster.
+    private int removeSlot(int slot) {
+        arena.release(refs[slot]);
+        count--;
+        int probes = 1;
+        int hole = slot;
+        for (int index = next(hole); tags[index] != EMPTY; index = next(index)) {
+            probes++;
+            int home = indexOf(tags[index]);
+            boolean reachable = (hole <= index) ? (hole < home && home <= index) : (hole < home || home <= index);
+            if (!reachable) {
+                tags[hole] = tags[index];
+                refs[hole] = refs[index];
+                hole = index;
+            }
+        }
+        tags[hole] = EMPTY;
+        refs[hole] = 0;
+        compactIfNeeded();
+        return probes;
+    }
+
+    @Override
+    public Probes put(String key, String value) {
+        return new Probes(value, (int) (insert(key, value) >>> 32));
+    }
+
+    @Override
+    public boolean putValue(String key, String value) {
+        long inserted = insert(key, value);
+        ProbeCounter.add((int) (inserted >>> 32));
+        return (int) inserted != 0;
+    }
+
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+        long found = find(tag(key), key);
+        int slot = (int) found - 1;
+        return new Probes((slot >= 0) ? arena.value(refs[slot]) : null, (int) (found >>> 32));
+    }
+
+    /**
+     * Searches for key without creating a {@link Probes}. The value that is returned is still decoded from the arena
+     * into a new {@link String}.
+     * @param key The key to search for.
+     * @return The value associated with key, or {@code null} if key is {@code null} or not in the table.
+     */
+    @Override
+    public String getValue(String key) {
+        if (key == null) {
+            ProbeCounter.add(0);
+            return null;
+        }
+        long found = find(tag(key), key);
+        int slot = (int) found - 1;
+        ProbeCounter.add((int) (found >>> 32));
+        return (slot >= 0) ? arena.value(refs[slot]) : null;
+    }
+
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+        long found = find(tag(key), key);
+        int slot = (int) found - 1;
+        int probes = (int) (found >>> 32);
+        if (slot < 0) {
+            return new Probes(null, probes);
+        }
+        String value = arena.value(refs[slot]);
+        return new Probes(value, probes + removeSlot(slot));
+    }
+
+    @Override
+    public String removeValue(String key) {
+        if (key == null) {
+            ProbeCounter.add(0);
+            return null;
+        }
+        long found = find(tag(key), key);
+        int slot = (int) found - 1;
+        int probes = (int) (found >>> 32);
+        String value = null;
+        if (slot >= 0) {
+            value = arena.value(refs[slot]);
+            probes += removeSlot(slot);
+        }
+        ProbeCounter.add(probes);
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return key != null && (int) find(tag(key), key) != 0;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < tags.length; i++) {
+            if (tags[i] != EMPTY && arena.valueEquals(refs[i], value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return tags.length;
+    }
+
+    /**
+     * Enlarges the table, at most once, so that it can take additional more pairs without resizing.
+     * @param additional The number of pairs about to be inserted.
+     * @return The number of probes spent by the resize, if there was one.
+     */
+    @Override
+    public int reserve(int additional) {
+        return ensureCapacity(count + additional);
+    }
+
+    /**
+     * Inserts every pair of pairs, exactly as if {@link #put(String, String)} was called on each of them in iteration
+     * order, after enlarging the table <b>once</b>, to fit all of them.
+     * @param pairs The pairs to insert.
+     * @throws IllegalArgumentException if any key or value is {@code null}. The pairs before it have been inserted.
+     * @return The total number of probes made by the insertions, including those of any resize.
+     */
+    @Override
+    public int putAll(Collection<KVPair> pairs) {
+        int probes = ensureCapacity(count + pairs.size());
+        for (KVPair pair : pairs) {
+            probes += put(pair.getKey(), pair.getValue()).getProbes();
+        }
+        return probes;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        for (int i = 0; i < tags.length; i++) {
+            if (tags[i] != EMPTY) {
+                action.accept(arena.key(refs[i]), arena.value(refs[i]));
+            }
+        }
+    }
+
+    /**
+     * @return An estimate of the heap taken up by this table, in bytes: its slots and its arena, including the bytes of
+     * replaced and deleted pairs that have not been reclaimed yet.
+     */
+    public long footprint() {
+        return 32 + 4L * tags.length + 8L * refs.length + arena.footprint();
+    }
+
+    @Override
+    public String toString() {
+        return "ArenaHashTable{size=" + count + ", capacity=" + tags.length + ", liveBytes=" + arena.liveBytes()
+                + ", deadBytes=" + arena.deadBytes() + "}";
+    }
+}
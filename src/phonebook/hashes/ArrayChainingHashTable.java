@@ -0,0 +1,402 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>{@link ArrayChainingHashTable} is a {@link HashTable} that implements <b>Separate Chaining</b> like
+ * {@link SeparateChainingHashTable}, but with <b>array - backed</b> buckets instead of linked lists: every bucket packs
+ * the cached hashes, keys and values of its pairs into three parallel arrays, so walking a chain touches a few
+ * contiguous arrays instead of chasing one pointer per node, and a key is only compared with {@link String#equals(Object)}
+ * when its cached hash matches.</p>
+ *
+ * <p>Short chains are kept in insertion order and searched linearly. A chain that grows past {@link #SORT_THRESHOLD}
+ * pairs, e.g because many keys share the same {@link String#hashCode()}, is <b>sorted</b> by hash and then by key, and
+ * from then on searched with <b>binary search</b>, much like {@link java.util.HashMap} turns long chains into balanced
+ * trees. Even a bucket flooded with keys of the same hash then answers searches in a logarithmic number of probes.</p>
+ *
+ * <p>The table is enlarged to the next prime offered by {@link PrimeGenerator} once it holds more than
+ * {@link #MAX_LOAD_FACTOR} pairs per bucket. Deletions are always hard. The {@link Probes} of an operation count the
+ * pairs that it inspected, or 1 for an empty bucket.</p>
+ *
+ * @see HashTable
+ * @see SeparateChainingHashTable
+ * @see CollisionResolver
+ */
+public class ArrayChainingHashTable implements HashTable {
+
+    /**
+     * The length past which a chain is sorted and binary searched.
+     */
+    public static final int SORT_THRESHOLD = 8;
+
+    /**
+     * The mean number of pairs per bucket past which the table is enlarged.
+     */
+    public static final double MAX_LOAD_FACTOR = 0.75;
+
+    private static final int INITIAL_BUCKET_CAPACITY = 2;
+
+    /**
+     * One collision chain, as three parallel arrays whose first size cells are used.
+     */
+    private static final class Bucket {
+        int[] hashes = new int[INITIAL_BUCKET_CAPACITY];
+        String[] keys = new String[INITIAL_BUCKET_CAPACITY];
+        String[] values = new String[INITIAL_BUCKET_CAPACITY];
+        int size;
+        boolean sorted;
+
+        // Returns (probes << 32) | (i + 1) if key is at i, or (probes << 32) | (-(insertion point) - 1 & 0xffffffffL)
+        // otherwise; in an unsorted bucket, the insertion point is the end of the bucket.
+        long find(int hash, String key) {
+            if (!sorted) {
+                for (int i = 0; i < size; i++) {
+                    if (hashes[i] == hash && key.equals(keys[i])) {
+                        return ((long) (i + 1) << 32) | (i + 1);
+                    }
+                }
+                return ((long) Math.max(size, 1) << 32) | ((-size - 1) & 0xffffffffL);
+            }
+            int low = 0, high = size - 1;
+            long probes = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                probes++;
+                int cmp = compare(hashes[mid], keys[mid], hash, key);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return (probes << 32) | (mid + 1);
+                }
+            }
+            return (Math.max(probes, 1) << 32) | ((-low - 1) & 0xffffffffL);
+        }
+
+        void insert(int at, int hash, String key, String value) {
+            if (size == keys.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(hashes, at, hashes, at + 1, size - at);
+            System.arraycopy(keys, at, keys, at + 1, size - at);
+            System.arraycopy(values, at, values, at + 1, size - at);
+            hashes[at] = hash;
+            keys[at] = key;
+            values[at] = value;
+            size++;
+            if (!sorted && size > SORT_THRESHOLD) {
+                sort();
+            }
+        }
+
+        void delete(int at) {
+            size--;
+            System.arraycopy(hashes, at + 1, hashes, at, size - at);
+            System.arraycopy(keys, at + 1, keys, at, size - at);
+            System.arraycopy(values, at + 1, values, at, size - at);
+            keys[size] = null;
+            values[size] = null;
+        }
+
+        // Insertion sort: only ever called on a chain of SORT_THRESHOLD + 1 pairs.
+        private void sort() {
+            for (int i = 1; i < size; i++) {
+                int hash = hashes[i];
+                String key = keys[i], value = values[i];
+                int j = i - 1;
+                for (; j >= 0 && compare(hashes[j], keys[j], hash, key) > 0; j--) {
+                    hashes[j + 1] = hashes[j];
+                    keys[j + 1] = keys[j];
+                    values[j + 1] = values[j];
+                }
+                hashes[j + 1] = hash;
+                keys[j + 1] = key;
+                values[j + 1] = value;
+            }
+            sorted = true;
+        }
+    }
+
+    private Bucket[] table;
+    private int count;
+    private final PrimeGenerator primeGenerator;
+    private final HashFunction hashFunction;
+
+    // The number of probes made by the last call to lookup(), insert() or delete(), which return no Probes.
+    private int lastProbes;
+
+    /**
+     * Default constructor. Initializes the internal storage with a size equal to the default of {@link PrimeGenerator}.
+     */
+    public ArrayChainingHashTable() {
+        this(HashFunction.DEFAULT);
+    }
+
+    /**
+     * Constructor with a custom hash function. Initializes the internal storage with a size equal to the default of
+     * {@link PrimeGenerator}.
+     * @param hashFunction The {@link HashFunction} with which keys are hashed, e.g a {@link SeededHashFunction}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}.
+     */
+    public ArrayChainingHashTable(HashFunction hashFunction) {
+        if (hashFunction == null) {
+            throw new IllegalArgumentException("Cannot hash with a null HashFunction.");
+        }
+        this.hashFunction = hashFunction;
+        primeGenerator = new PrimeGenerator();
+        table = new Bucket[primeGenerator.getCurrPrime()];
+        count = 0;
+    }
+
+    private int hash(String key) {
+        return hashFunction.hash(key) & 0x7fffffff;
+    }
+
+    private static int compare(int hash, String key, int otherHash, String otherKey) {
+        int cmp = Integer.compare(hash, otherHash);
+        return (cmp != 0) ? cmp : key.compareTo(otherKey);
+    }
+
+    private static int positionOf(long found) {
+        return (int) found;
+    }
+
+    private static int probesOf(long found) {
+        return (int) (found >>> 32);
+    }
+
+    // Moves every pair into capacity new buckets. Returns one probe per pair moved.
+    private int rehash(int capacity) {
+        Bucket[] old = table;
+        table = new Bucket[capacity];
+        int probes = 0;
+        for (Bucket bucket : old) {
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = 0; i < bucket.size; i++) {
+                int h = bucket.hashes[i];
+                Bucket target = bucketFor(h);
+                target.insert(target.sorted ? -positionOf(target.find(h, bucket.keys[i])) - 1 : target.size,
+                        h, bucket.keys[i], bucket.values[i]);
+                probes++;
+            }
+        }
+        return probes;
+    }
+
+    private Bucket bucketFor(int hash) {
+        int index = hash % table.length;
+        if (table[index] == null) {
+            table[index] = new Bucket();
+        }
+        return table[index];
+    }
+
+    private Bucket existingBucketFor(String key) {
+        return table[hash(key) % table.length];
+    }
+
+    /**
+     * Enlarges the table, at most once, to the smallest capacity offered by {@link PrimeGenerator} that can take
+     * additional more pairs without going past its load factor.
+     * @param additional The number of pairs about to be inserted.
+     * @return The number of probes spent by the resize, if there was one.
+     */
+    @Override
+    public int reserve(int additional) {
+        long needed = (long) count + additional;
+        int capacity = table.length;
+        while (needed > MAX_LOAD_FACTOR * capacity) {
+            capacity = primeGenerator.getNextPrime();
+        }
+        return (capacity == table.length) ? 0 : rehash(capacity);
+    }
+
+    // Searches for key, and leaves the number of probes made in lastProbes. Returns the value of key, or null.
+    private String lookup(String key) {
+        if (key == null) {
+            lastProbes = 0;
+            return null;
+        }
+        Bucket bucket = existingBucketFor(key);
+        if (bucket == null) {
+            lastProbes = 1;
+            return null;
+        }
+        long found = bucket.find(hash(key), key);
+        int position = positionOf(found);
+        lastProbes = probesOf(found);
+        return (position > 0) ? bucket.values[position - 1] : null;
+    }
+
+    // Inserts or updates the pair <key, value>, and leaves the number of probes made in lastProbes. Returns true if,
+    // and only if, key was not in the table.
+    private boolean insert(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+        int hash = hash(key);
+        Bucket bucket = bucketFor(hash);
+        long found = bucket.find(hash, key);
+        int position = positionOf(found);
+        if (position > 0) {
+            bucket.values[position - 1] = value;
+            lastProbes = probesOf(found);
+            return false;
+        }
+        bucket.insert(-position - 1, hash, key, value);
+        count++;
+        lastProbes = probesOf(found) + reserve(0);
+        return true;
+    }
+
+    // Deletes key, and leaves the number of probes made in lastProbes. Returns the value of key, or null.
+    private String delete(String key) {
+        if (key == null) {
+            lastProbes = 0;
+            return null;
+        }
+        Bucket bucket = existingBucketFor(key);
+        if (bucket == null) {
+            lastProbes = 1;
+            return null;
+        }
+        long found = bucket.find(hash(key), key);
+        int position = positionOf(found);
+        lastProbes = probesOf(found);
+        if (position <= 0) {
+            return null;
+        }
+        String value = bucket.values[position - 1];
+        bucket.delete(position - 1);
+        count--;
+        return value;
+    }
+
+    @Override
+    public Probes put(String key, String value) {
+        insert(key, value);
+        return new Probes(value, lastProbes);
+    }
+
+    @Override
+    public boolean putValue(String key, String value) {
+        boolean added = insert(key, value);
+        ProbeCounter.add(lastProbes);
+        return added;
+    }
+
+    @Override
+    public Probes get(String key) {
+        return new Probes(lookup(key), lastProbes);
+    }
+
+    @Override
+    public String getValue(String key) {
+        String value = lookup(key);
+        ProbeCounter.add(lastProbes);
+        return value;
+    }
+
+    @Override
+    public Probes remove(String key) {
+        return new Probes(delete(key), lastProbes);
+    }
+
+    @Override
+    public String removeValue(String key) {
+        String value = delete(key);
+        ProbeCounter.add(lastProbes);
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return lookup(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (Bucket bucket : table) {
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = 0; i < bucket.size; i++) {
+                if (bucket.values[i].equals(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        for (Bucket bucket : table) {
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = 0; i < bucket.size; i++) {
+                action.accept(bucket.keys[i], bucket.values[i]);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return table.length;
+    }
+
+    /**
+     * Inserts every pair of pairs, after enlarging the table <b>once</b> to a capacity that can hold all of them.
+     * @param pairs The pairs to insert.
+     * @throws IllegalArgumentException if any key or value is {@code null}. The pairs before it have been inserted.
+     * @return The total number of probes made by the insertions, including those of the resize.
+     */
+    @Override
+    public int putAll(Collection<KVPair> pairs) {
+        int probes = reserve(pairs.size());
+        for (KVPair pair : pairs) {
+            probes += put(pair.getKey(), pair.getValue()).getProbes();
+        }
+        return probes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder ret = new StringBuilder();
+        ret.append("***---***\n");
+        for (int i = 0; i < table.length; i++) {
+            ret.append(i);
+            if (table[i] == null || table[i].size == 0) {
+                ret.append(" NULL");
+            } else {
+                for (int j = 0; j < table[i].size; j++) {
+                    ret.append(" ").append(table[i].keys[j]);
+                }
+                if (table[i].sorted) {
+                    ret.append(" (sorted)");
+                }
+            }
+            ret.append("\n");
+        }
+        ret.append("***---***");
+        return ret.toString();
+    }
+}
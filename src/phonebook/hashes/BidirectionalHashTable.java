@@ -0,0 +1,454 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>{@link BidirectionalHashTable} is a <b>one-to-one</b> map between names and numbers that stores every entry
+ * <b>once</b>. Entries live in a shared entry array, laid out as a structure of arrays like
+ * {@link OpenAddressingHashTable}: entry {@code e} is described by its name, its number and the cached hash of each.
+ * Two Linear Probing <b>indexes</b>, one keyed by name and one keyed by number, hold nothing but {@code int} offsets
+ * into the entry array. Two {@link HashTable}s over the same entries would each reference every name and every number,
+ * and each cache both of their hashes; here every string is referenced exactly once, and each index slot takes four
+ * bytes.</p>
+ *
+ * <p>The two directions are exposed as {@link HashTable} <b>views</b>, {@link #forward()} (names to numbers) and
+ * {@link #reverse()} (numbers to names), which can be handed to {@link phonebook.Phonebook#Phonebook(HashTable, HashTable)}
+ * or, better, the whole table to {@link phonebook.Phonebook#Phonebook(BidirectionalHashTable)}. Since both views
+ * share the same entries, they can never disagree: an insertion through either view moves the name <b>and</b> the
+ * number of the entry, and drops any other entry that held either of them, and a deletion through either view removes
+ * the whole entry.</p>
+ *
+ * <p>Deletions shift the rest of the cluster backward, like {@link RobinHoodHashTable} does, so no tombstone is ever
+ * left behind. Freed entries are chained into a free list, through their cached name hashes, and re-used by later
+ * insertions. Both indexes are enlarged together, to the next prime, once they are more than 50&#37; full. The
+ * {@link Probes} of an operation count the index slots that it inspected in <b>both</b> indexes.</p>
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ * @see phonebook.Phonebook
+ */
+public class BidirectionalHashTable {
+
+    // The two sides of every entry, which are also the keys of the two indexes.
+    private static final int NAMES = 0;
+    private static final int NUMBERS = 1;
+
+    private static final double MAX_LOAD_FACTOR = 0.5;
+    private static final int INITIAL_ENTRIES = 8;
+
+    // fields[side][e] and hashes[side][e] describe entry e; a free entry has a null name, and its name hash links
+    // to the next free entry (or -1).
+    private final String[][] fields = new String[2][];
+    private final int[][] hashes = new int[2][];
+
+    // indexes[side][slot] is 0 for an empty slot, or 1 + the entry whose key on that side hashes near slot.
+    private final int[][] indexes = new int[2][];
+
+    private final PrimeGenerator primeGenerator;
+    private final HashFunction hashFunction;
+    private final View forward = new View(NAMES);
+    private final View reverse = new View(NUMBERS);
+
+    private int count;
+    private int entryEnd;       // Entries at or after entryEnd have never been used.
+    private int freeList = -1;
+
+    // The number of probes made by the last call to lookup(), insert() or delete(), which return no Probes.
+    private int lastProbes;
+
+    /**
+     * Creates an empty table whose indexes start at the first prime offered by {@link PrimeGenerator}.
+     */
+    public BidirectionalHashTable() {
+        this(HashFunction.DEFAULT);
+    }
+
+    /**
+     * Creates an empty table whose names and numbers are hashed with the provided {@link HashFunction}.
+     * @param hashFunction The {@link HashFunction} with which keys are hashed, e.g a {@link SeededHashFunction}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}.
+     */
+    public BidirectionalHashTable(HashFunction hashFunction) {
+        if (hashFunction == null) {
+            throw new IllegalArgumentException("Cannot hash with a null HashFunction.");
+        }
+        this.hashFunction = hashFunction;
+        primeGenerator = new PrimeGenerator();
+        int capacity = primeGenerator.getCurrPrime();
+        for (int side = NAMES; side <= NUMBERS; side++) {
+            fields[side] = new String[INITIAL_ENTRIES];
+            hashes[side] = new int[INITIAL_ENTRIES];
+            indexes[side] = new int[capacity];
+        }
+    }
+
+    /**
+     * @return The {@link HashTable} view of this table with names as keys and numbers as values.
+     */
+    public HashTable forward() {
+        return forward;
+    }
+
+    /**
+     * @return The {@link HashTable} view of this table with numbers as keys and names as values.
+     */
+    public HashTable reverse() {
+        return reverse;
+    }
+
+    /**
+     * @return The number of entries in this table.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Removes the entry &lt; name, number &gt; as <b>one</b> operation: if name is not mapped to number, nothing is
+     * removed.
+     * @param name The name of the entry.
+     * @param number The number of the entry.
+     * @return A {@link Probes} with number if the entry was removed, or {@code null} otherwise.
+     */
+    public Probes removeEntry(String name, String number) {
+        if (name == null || number == null) {
+            return new Probes(null, 0);
+        }
+        long found = find(NAMES, hash(name), name);
+        int slot = slotOf(found);
+        if (slot < 0 || !number.equals(fields[NUMBERS][entryAt(NAMES, slot)])) {
+            return new Probes(null, probesOf(found));
+        }
+        return new Probes(number, probesOf(found) + unlink(NAMES, slot));
+    }
+
+    private int hash(String key) {
+        return hashFunction.hash(key) & 0x7fffffff;
+    }
+
+    private static int other(int side) {
+        return NUMBERS - side;
+    }
+
+    private static int slotOf(long found) {
+        return (int) found - 1;
+    }
+
+    private static int probesOf(long found) {
+        return (int) (found >>> 32);
+    }
+
+    private int next(int side, int slot) {
+        return (slot == indexes[side].length - 1) ? 0 : slot + 1;
+    }
+
+    private int entryAt(int side, int slot) {
+        return indexes[side][slot] - 1;
+    }
+
+    // Looks key up in the index of side. Returns (probes << 32) | (slot + 1), where slot is -1 on a miss.
+    private long find(int side, int hash, String key) {
+        int[] index = indexes[side];
+        int slot = hash % index.length;
+        long probes = 1;
+        while (index[slot] != 0) {
+            int e = index[slot] - 1;
+            if (hashes[side][e] == hash && key.equals(fields[side][e])) {
+                return (probes << 32) | (slot + 1);
+            }
+            slot = next(side, slot);
+            probes++;
+        }
+        return probes << 32;
+    }
+
+    // Finds the slot of the index of side that points at entry e. The entry must be in that index.
+    private long slotOfEntry(int side, int e) {
+        int[] index = indexes[side];
+        int slot = hashes[side][e] % index.length;
+        long probes = 1;
+        while (index[slot] != e + 1) {
+            slot = next(side, slot);
+            probes++;
+        }
+        return (probes << 32) | (slot + 1);
+    }
+
+    // Points the first empty slot after the home slot of entry e in the index of side at e. Returns the probes.
+    private int link(int side, int e) {
+        int[] index = indexes[side];
+        int slot = hashes[side][e] % index.length;
+        int probes = 1;
+        while (index[slot] != 0) {
+            slot = next(side, slot);
+            probes++;
+        }
+        index[slot] = e + 1;
+        return probes;
+    }
+
+    // Empties slot of the index of side, shifting back every following key of the cluster that can move closer to
+    // its home slot. Returns the probes.
+    private int clear(int side, int slot) {
+        int[] index = indexes[side];
+        int probes = 0;
+        int hole = slot;
+        for (int i = next(side, slot); index[i] != 0; i = next(side, i)) {
+            probes++;
+            int home = hashes[side][index[i] - 1] % index.length;
+            boolean stays = (hole <= i) ? (hole < home && home <= i) : (hole < home || home <= i);
+            if (!stays) {
+                index[hole] = index[i];
+                hole = i;
+            }
+        }
+        index[hole] = 0;
+        return probes + 1;
+    }
+
+    // Removes the entry found at slot of the index of side from both indexes, and frees it. Returns the probes spent
+    // in the indexes.
+    private int unlink(int side, int slot) {
+        int e = entryAt(side, slot);
+        int probes = clear(side, slot);
+        long found = slotOfEntry(other(side), e);
+        probes += probesOf(found) + clear(other(side), slotOf(found));
+        fields[NAMES][e] = null;
+        fields[NUMBERS][e] = null;
+        hashes[NAMES][e] = freeList;
+        freeList = e;
+        count--;
+        return probes;
+    }
+
+    private int allocateEntry() {
+        if (freeList >= 0) {
+            int e = freeList;
+            freeList = hashes[NAMES][e];
+            return e;
+        }
+        if (entryEnd == fields[NAMES].length) {
+            int length = fields[NAMES].length * 2;
+            for (int side = NAMES; side <= NUMBERS; side++) {
+                fields[side] = Arrays.copyOf(fields[side], length);
+                hashes[side] = Arrays.copyOf(hashes[side], length);
+            }
+        }
+        return entryEnd++;
+    }
+
+    // Enlarges both indexes until they can take additional more entries, and re-links every entry. Returns the probes.
+    private int reserve(int additional) {
+        long needed = (long) count + additional;
+        int capacity = indexes[NAMES].length;
+        while (needed > MAX_LOAD_FACTOR * capacity) {
+            capacity = primeGenerator.getNextPrime();
+        }
+        if (capacity == indexes[NAMES].length) {
+            return 0;
+        }
+        indexes[NAMES] = new int[capacity];
+        indexes[NUMBERS] = new int[capacity];
+        int probes = 0;
+        for (int e = 0; e < entryEnd; e++) {
+            if (fields[NAMES][e] != null) {
+                probes += link(NAMES, e) + link(NUMBERS, e);
+            }
+            probes++;
+        }
+        return probes;
+    }
+
+    // Maps key to value on side, dropping whatever entries held either of them before, and leaves the number of probes
+    // made in lastProbes. Returns true if, and only if, key was not in the table.
+    private boolean insert(int side, String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Provided: key=" + key + " and value=" + value);
+        }
+        int hash = hash(key);
+        int valueHash = hash(value);
+        int probes = reserve(1);
+
+        long found = find(side, hash, key);
+        probes += probesOf(found);
+        int e = (slotOf(found) < 0) ? -1 : entryAt(side, slotOf(found));
+        if (e >= 0 && value.equals(fields[other(side)][e])) {
+            lastProbes = probes;
+            return false;
+        }
+        boolean added = e < 0;
+
+        // value now belongs to key, so the entry that held it goes; the entry of key, if any, is re-used.
+        long owner = find(other(side), valueHash, value);
+        probes += probesOf(owner);
+        if (slotOf(owner) >= 0) {
+            probes += unlink(other(side), slotOf(owner));
+        }
+
+        if (e >= 0) {
+            long old = slotOfEntry(other(side), e);
+            probes += probesOf(old) + clear(other(side), slotOf(old));
+        } else {
+            e = allocateEntry();
+            fields[side][e] = key;
+            hashes[side][e] = hash;
+            probes += link(side, e);
+            count++;
+        }
+        fields[other(side)][e] = value;
+        hashes[other(side)][e] = valueHash;
+        probes += link(other(side), e);
+        lastProbes = probes;
+        return added;
+    }
+
+    // Leaves the number of probes made in lastProbes. Returns the value of key on side, or null.
+    private String lookup(int side, String key) {
+        if (key == null) {
+            lastProbes = 0;
+            return null;
+        }
+        long found = find(side, hash(key), key);
+        int slot = slotOf(found);
+        lastProbes = probesOf(found);
+        return (slot < 0) ? null : fields[other(side)][entryAt(side, slot)];
+    }
+
+    // Removes the entry of key on side, and leaves the number of probes made in lastProbes. Returns the value of key,
+    // or null.
+    private String delete(int side, String key) {
+        if (key == null) {
+            lastProbes = 0;
+            return null;
+        }
+        long found = find(side, hash(key), key);
+        int slot = slotOf(found);
+        if (slot < 0) {
+            lastProbes = probesOf(found);
+            return null;
+        }
+        String value = fields[other(side)][entryAt(side, slot)];
+        lastProbes = probesOf(found) + unlink(side, slot);
+        return value;
+    }
+
+    private String toString(int side) {
+        StringBuilder ret = new StringBuilder();
+        ret.append("***---***\n");
+        int[] index = indexes[side];
+        for (int i = 0; i < index.length; i++) {
+            if (index[i] == 0)
+                ret.append(i).append(" NULL\n");
+            else
+                ret.append(i).append(" ").append(fields[side][index[i] - 1]).append("\n");
+        }
+        ret.append("***---***");
+        return ret.toString();
+    }
+
+    /**
+     * One direction of a {@link BidirectionalHashTable}. Every operation is forwarded to the shared entries.
+     */
+    private final class View implements HashTable {
+
+        private final int side;
+
+        private View(int side) {
+            this.side = side;
+        }
+
+        @Override
+        public Probes put(String key, String value) {
+            insert(side, key, value);
+            return new Probes(value, lastProbes);
+        }
+
+        @Override
+        public boolean putValue(String key, String value) {
+            boolean added = insert(side, key, value);
+            ProbeCounter.add(lastProbes);
+            return added;
+        }
+
+        @Override
+        public Probes get(String key) {
+            return new Probes(lookup(side, key), lastProbes);
+        }
+
+        @Override
+        public String getValue(String key) {
+            String value = lookup(side, key);
+            ProbeCounter.add(lastProbes);
+            return value;
+        }
+
+        @Override
+        public Probes remove(String key) {
+            return new Probes(delete(side, key), lastProbes);
+        }
+
+        @Override
+        public String removeValue(String key) {
+            String value = delete(side, key);
+            ProbeCounter.add(lastProbes);
+            return value;
+        }
+
+        @Override
+        public boolean containsKey(String key) {
+            return key != null && slotOf(find(side, hash(key), key)) >= 0;
+        }
+
+        // The other index answers this in amortized constant time, instead of a scan of the table.
+        @Override
+        public boolean containsValue(String value) {
+            return value != null && slotOf(find(other(side), hash(value), value)) >= 0;
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super String, ? super String> action) {
+            for (int e = 0; e < entryEnd; e++) {
+                if (fields[NAMES][e] != null) {
+                    action.accept(fields[side][e], fields[other(side)][e]);
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public int capacity() {
+            return indexes[side].length;
+        }
+
+        @Override
+        public int reserve(int additional) {
+            return BidirectionalHashTable.this.reserve(additional);
+        }
+
+        @Override
+        public int putAll(Collection<KVPair> pairs) {
+            int probes = reserve(pairs.size());
+            for (KVPair pair : pairs) {
+                insert(side, pair.getKey(), pair.getValue());
+                probes += lastProbes;
+            }
+            return probes;
+        }
+
+        @Override
+        public String toString() {
+            return BidirectionalHashTable.this.toString(side);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package phonebook.hashes;
+
+import phonebook.utils.PrimeGenerator;
+
+/**
+ * <p>{@link CapacityPolicy} is an enum of the ways in which an openly addressed {@link HashTable} may size its storage,
+ * and turn a hash into the slot at which its probe sequence begins: </p>
+ * <ol>
+ *     <li><i>Prime</i> capacities, handed out by a {@link PrimeGenerator}, with every hash reduced <b>modulo</b> the
+ *     capacity. A prime modulus uses every bit of the hash, so even weak hashes such as {@link String#hashCode()} spread
+ *     well, but every reduction is an integer division, which takes tens of cycles.</li>
+ *     <li><i>Power - of - two</i> capacities, which double on every resize, with every hash run through a strong
+ *     <b>mixer</b> and then reduced by a bitmask. The mask is a single instruction, and the mixer spreads every bit of the
+ *     hash over the bits that the mask keeps, which a bare mask would not: keys whose hashes only differ in their high
+ *     bits would all land on the same slot.</li>
+ * </ol>
+ *
+ * @see LinearProbingHashTable#LinearProbingHashTable(boolean, boolean, HashFunction, CapacityPolicy)
+ * @see QuadraticProbingHashTable#QuadraticProbingHashTable(boolean, boolean, HashFunction, CapacityPolicy)
+ * @see PrimeGenerator
+ */
+public enum CapacityPolicy {
+    PRIME,
+    POWER_OF_TWO
+}
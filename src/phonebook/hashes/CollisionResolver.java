@@ -1,33 +1,62 @@
-package phonebook.hashes;
-
-/**
- * <p>{@link CollisionResolver} is an enum which provides named constants for
- * four of the most widely used collision resolution techniques in hash tables: </p>
- * <ol>
- *     <li><i>Separate Chaining</i>, a simple collision resolver which allocates a linked list for every cell of the hash table.
- *          All keys hashed to the same cell are put in the back of a linked list which containsKVPair all same-hash keys. Enlarging this hash table
- *          leads to better search performance in the face of many insertions, but leads to additional <b>contiguous</b> storage cost.</li>
- *     <li><i>Linear Probing</i>, the most famous Open Addressing method, where collisions are resolved by having keys move on to the next available cell in the
- *     table. This method is susceptible to the <b>clustering phenomenon</b> talked about in class and in Sedgewick &amp; Wayne, chapter 3.4, but displays <b>excellent
- *     cache locality.</b></li>
- *     <li><i>Ordered Linear Probing</i>, a modification of Linear Probing which keeps the collision chains <b>sorted</b>,
- *     making searches destined to fail, fail <b>faster!</b></li>
- *     <li><i>Quadratic Probing</i>, a  modification of Linear Probing where collisions are resolved by having the key make quadratically - increased &quot; jumps &quot;
- *     until it finds an empty cell. See writeup for more details.</li>
- * </ol>
- *
- * <p><b>**** DO NOT EDIT THIS ENUM! ****** </b></p>
- *
- * @author <a href="https://github.com/JasonFil">Jason Filippou</a>
- *
- * @see HashTable
- * @see SeparateChainingHashTable
- * @see LinearProbingHashTable
- * @see QuadraticProbingHashTable
- */
-public enum CollisionResolver {
-    SEPARATE_CHAINING,
-    LINEAR_PROBING,
-    ORDERED_LINEAR_PROBING,
-    QUADRATIC_PROBING
-}
+package phonebook.hashes;
+
+/**
+ * <p>{@link CollisionResolver} is an enum which provides named constants for
+ * some of the most widely used collision resolution techniques in hash tables: </p>
+ * <ol>
+ *     <li><i>Separate Chaining</i>, a simple collision resolver which allocates a linked list for every cell of the hash table.
+ *          All keys hashed to the same cell are put in the back of a linked list which containsKVPair all same-hash keys. Enlarging this hash table
+ *          leads to better search performance in the face of many insertions, but leads to additional <b>contiguous</b> storage cost.</li>
+ *     <li><i>Array - backed Separate Chaining</i>, where every cell of the table holds its collision chain in <b>arrays</b>
+ *     instead of a linked list, for better cache locality. Chains that grow too long are <b>sorted</b> and binary searched,
+ *     which bounds the cost of searches even when many keys share the same hash.</li>
+ *     <li><i>Linear Probing</i>, the most famous Open Addressing method, where collisions are resolved by having keys move on to the next available cell in the
+ *     table. This method is susceptible to the <b>clustering phenomenon</b> talked about in class and in Sedgewick &amp; Wayne, chapter 3.4, but displays <b>excellent
+ *     cache locality.</b></li>
+ *     <li><i>Ordered Linear Probing</i>, a modification of Linear Probing which keeps the collision chains <b>sorted</b>,
+ *     making searches destined to fail, fail <b>faster!</b></li>
+ *     <li><i>Quadratic Probing</i>, a  modification of Linear Probing where collisions are resolved by having the key make quadratically - increased &quot; jumps &quot;
+ *     until it finds an empty cell. See writeup for more details.</li>
+ *     <li><i>Robin Hood Hashing</i>, a modification of Linear Probing where an inserted key takes the cell of any key that is
+ *     <b>closer</b> to its own home cell, which keeps all collision chains about equally long. Deletions shift the rest of the
+ *     chain backward instead of leaving tombstones behind.</li>
+ *     <li><i>Cuckoo Hashing</i>, where every key may only live in one of <b>two</b> cells, given by two different hash functions.
+ *     A key that finds both of its cells taken evicts one of their residents, which moves to its own other cell. Searches inspect
+ *     at most two cells and a tiny overflow &quot; stash &quot;, which makes them <b>worst-case</b> constant time.</li>
+ *     <li><i>Hopscotch Hashing</i>, a modification of Linear Probing where every key is kept within a small, fixed
+ *     &quot; neighborhood &quot; of cells after its home cell, and every home cell remembers which cells of its neighborhood hold its keys.
+ *     Searches stay short and cache - friendly even in very full tables.</li>
+ *     <li><i>Memory - mapped Linear Probing</i>, where the cells and the bytes of the keys and values live in memory - mapped
+ *     <b>files</b> instead of the heap, so that the table survives restarts and can be re-opened instantly.</li>
+ *     <li><i>Arena - backed Linear Probing</i>, where the keys and values are not kept as {@link String} objects but as
+ *     UTF-8 bytes in a few large, shared arrays, and every cell only holds a hash and an offset. Keys are compared
+ *     <b>in place</b>, which saves most of the memory that object headers take up in very large tables.</li>
+ * </ol>
+ *
+ * <p><b>**** DO NOT EDIT THIS ENUM! ****** </b></p>
+ *
+ * @author <a href="https://github.com/JasonFil">Jason Filippou</a>
+ *
+ * @see HashTable
+ * @see SeparateChainingHashTable
+ * @see ArrayChainingHashTable
+ * @see LinearProbingHashTable
+ * @see QuadraticProbingHashTable
+ * @see RobinHoodHashTable
+ * @see CuckooHashTable
+ * @see HopscotchHashTable
+ * @see MappedHashTable
+ * @see ArenaHashTable
+ */
+public enum CollisionResolver {
+    SEPARATE_CHAINING,
+    ARRAY_CHAINING,
+    LINEAR_PROBING,
+    ORDERED_LINEAR_PROBING,
+    QUADRATIC_PROBING,
+    ROBIN_HOOD,
+    CUCKOO,
+    HOPSCOTCH,
+    MEMORY_MAPPED,
+    ARENA
+}
@@ -0,0 +1,348 @@
+package phonebook.hashes;
+
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.Probes;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>{@link ConcurrentStripedHashTable} is a <b>thread-safe</b> {@link HashTable}. Keys are split across a power-of-two
+ * number of independent <em>segments</em> (stripes), and each segment is a small Linear Probing table of prime capacity,
+ * guarded by its own {@link StampedLock}:</p>
+ * <ul>
+ *     <li><b>Reads</b> ({@link #get(String)}, {@link #containsKey(String)}, {@link #containsValue(String)}) take no lock
+ *     at all in the common case. They run as <em>optimistic reads</em> of the segment and only retry under the read
+ *     lock if a writer touched the same segment in the meantime.</li>
+ *     <li><b>Writes</b> ({@link #put(String, String)}, {@link #remove(String)}) take the write lock of a <b>single</b>
+ *     segment, so writers to different segments never wait for each other.</li>
+ * </ul>
+ *
+ * <p>Each segment publishes its arrays through a single {@code volatile} reference, which is replaced as a whole when
+ * the segment resizes, so an optimistic reader always sees arrays of matching lengths, and bounds its probe loop by
+ * their capacity. Deletions are always <b>soft</b>; tombstones are dropped whenever a segment is rebuilt, which happens
+ * as soon as its live slots and tombstones fill more than 50&#37; of it.</p>
+ *
+ * <p>{@link #size()} and {@link #capacity()} are sums over all segments, and are only <em>estimates</em> while other
+ * threads are writing.</p>
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ * @see phonebook.ConcurrentPhonebook
+ */
+public class ConcurrentStripedHashTable implements HashTable {
+
+    private static final int TOMBSTONE = -1;
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    // Arrays of a segment, always replaced together.
+    private static final class Storage {
+        final int[] hashes;
+        final String[] keys;
+        final String[] values;
+
+        Storage(int capacity) {
+            hashes = new int[capacity];
+            keys = new String[capacity];
+            values = new String[capacity];
+        }
+    }
+
+    private static final class Segment {
+        final StampedLock lock = new StampedLock();
+        final PrimeGenerator primeGenerator = new PrimeGenerator();
+        volatile Storage storage = new Storage(primeGenerator.getCurrPrime());
+        volatile int count;
+        volatile int occCells; // Only written under the write lock.
+    }
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    /**
+     * Default constructor. Creates a table with 16 segments.
+     */
+    public ConcurrentStripedHashTable() {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a table with enough segments for the provided number of concurrent writers.
+     * @param concurrencyLevel The expected number of threads writing at the same time. Rounded up to a power of two.
+     * @throws IllegalArgumentException if concurrencyLevel is not positive.
+     */
+    public ConcurrentStripedHashTable(int concurrencyLevel) {
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Concurrency level should be positive, but was " + concurrencyLevel + ".");
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.min(concurrencyLevel, 1 << 16) - 1);
+        segments = new Segment[1 << bits];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+        segmentShift = 32 - bits;
+    }
+
+    private static int hash(String key) {
+        return key.hashCode() & 0x7fffffff;
+    }
+
+    // The segment is picked from the top bits of a multiplicative scramble of the hash, so that it is
+    // independent of the slot that the hash modulo the (prime) segment capacity picks inside the segment.
+    private Segment segmentFor(int hash) {
+        return (segmentShift == 32) ? segments[0] : segments[(hash * 0x9E3779B9) >>> segmentShift];
+    }
+
+    private static int next(Storage storage, int index) {
+        return (index == storage.keys.length - 1) ? 0 : index + 1;
+    }
+
+    // Searches storage for key, inspecting at most every slot once, so that it terminates even on the
+    // inconsistent state an optimistic reader might see. Returns (probes << 32) | (slot + 1), with a slot of -1 on a miss.
+    private static long find(Storage storage, int hash, String key) {
+        int index = hash % storage.keys.length;
+        int probes = 1;
+        for (; probes <= storage.keys.length; probes++) {
+            String resident = storage.keys[index];
+            if (resident == null && storage.hashes[index] != TOMBSTONE) {
+                break;
+            }
+            if (storage.hashes[index] == hash && key.equals(resident)) {
+                return ((long) probes << 32) | (index + 1);
+            }
+            index = next(storage, index);
+        }
+        return (long) Math.min(probes, storage.keys.length) << 32;
+    }
+
+    private static int slotOf(long found) {
+        return (int) found - 1;
+    }
+
+    private static int probesOf(long found) {
+        return (int) (found >>> 32);
+    }
+
+    // Moves every live pair of the segment into new storage of the provided capacity. Write lock held.
+    private static int rehash(Segment segment, int capacity) {
+        Storage old = segment.storage;
+        Storage fresh = new Storage(capacity);
+        int probes = 0;
+        for (int i = 0; i < old.keys.length; i++) {
+            if (old.keys[i] != null) {
+                int index = old.hashes[i] % capacity;
+                probes++;
+                while (fresh.keys[index] != null) {
+                    index = next(fresh, index);
+                    probes++;
+                }
+                fresh.hashes[index] = old.hashes[i];
+                fresh.keys[index] = old.keys[i];
+                fresh.values[index] = old.values[i];
+            }
+            probes++;
+        }
+        segment.occCells = segment.count;
+        segment.storage = fresh;
+        return probes;
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this, or updates the value of key if it is already in the table.
+     * Only the segment of key is locked.
+     * @param key The record's key.
+     * @param value The record's value.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            int probes = 0;
+            Storage storage = segment.storage;
+            if ((double) segment.occCells / storage.keys.length > 0.50) {
+                // Tombstones alone may have filled the segment; only grow it if the live pairs need the room.
+                int capacity = ((double) segment.count / storage.keys.length > 0.25)
+                        ? segment.primeGenerator.getNextPrime() : storage.keys.length;
+                probes += rehash(segment, capacity);
+                storage = segment.storage;
+            }
+
+            int index = hash % storage.keys.length;
+            int target = -1;
+            probes++;
+            while (storage.keys[index] != null || storage.hashes[index] == TOMBSTONE) {
+                if (storage.hashes[index] == hash && key.equals(storage.keys[index])) {
+                    storage.values[index] = value;
+                    return new Probes(value, probes);
+                }
+                if (target == -1 && storage.hashes[index] == TOMBSTONE) {
+                    target = index;
+                }
+                index = next(storage, index);
+                probes++;
+            }
+            if (target == -1) {
+                target = index;
+                segment.occCells++;
+            }
+            storage.values[target] = value;
+            storage.keys[target] = key;
+            storage.hashes[target] = hash;
+            segment.count++;
+            return new Probes(value, probes);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            Storage storage = segment.storage;
+            long found = find(storage, hash, key);
+            String value = (slotOf(found) < 0) ? null : storage.values[slotOf(found)];
+            if (segment.lock.validate(stamp)) {
+                return new Probes(value, probesOf(found));
+            }
+        }
+        stamp = segment.lock.readLock();
+        try {
+            Storage storage = segment.storage;
+            long found = find(storage, hash, key);
+            return new Probes((slotOf(found) < 0) ? null : storage.values[slotOf(found)], probesOf(found));
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            Storage storage = segment.storage;
+            long found = find(storage, hash, key);
+            int slot = slotOf(found);
+            if (slot < 0) {
+                return new Probes(null, probesOf(found));
+            }
+            String value = storage.values[slot];
+            storage.hashes[slot] = TOMBSTONE;
+            storage.keys[slot] = null;
+            storage.values[slot] = null;
+            segment.count--;
+            return new Probes(value, probesOf(found));
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return get(key).getValue() != null;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (Segment segment : segments) {
+            long stamp = segment.lock.tryOptimisticRead();
+            if (stamp != 0) {
+                boolean found = scan(segment.storage, value);
+                if (segment.lock.validate(stamp)) {
+                    if (found) {
+                        return true;
+                    }
+                    continue;
+                }
+            }
+            stamp = segment.lock.readLock();
+            try {
+                if (scan(segment.storage, value)) {
+                    return true;
+                }
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return false;
+    }
+
+    private static boolean scan(Storage storage, String value) {
+        for (int i = 0; i < storage.values.length; i++) {
+            if (value.equals(storage.values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calls action on every pair of this table. Every segment is read under its read lock, so action sees a consistent
+     * view of each segment, but not of the whole table while other threads are writing. action must not modify this table.
+     * @param action The action to perform on every key and its value.
+     */
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                Storage storage = segment.storage;
+                for (int i = 0; i < storage.keys.length; i++) {
+                    if (storage.keys[i] != null) {
+                        action.accept(storage.keys[i], storage.values[i]);
+                    }
+                }
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        int capacity = 0;
+        for (Segment segment : segments) {
+            capacity += segment.storage.keys.length;
+        }
+        return capacity;
+    }
+
+    @Override
+    public int tombstones() {
+        int tombstones = 0;
+        for (Segment segment : segments) {
+            tombstones += segment.occCells - segment.count;
+        }
+        return tombstones;
+    }
+}
@@ -0,0 +1,405 @@
+package phonebook.hashes;
+
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>{@link CuckooHashTable} is an Openly Addressed {@link HashTable} which resolves collisions with <b>Cuckoo
+ * Hashing</b>. Every key has exactly <b>two</b> candidate slots: its usual home slot, {@link #indexOf(int)}, and an
+ * alternative slot given by a second hash function, which scrambles the cached hash before reducing it modulo the
+ * capacity. A key is always stored in one of its two candidate slots, or, very rarely, in a small <em>stash</em> on the
+ * side. An insertion that finds both candidate slots occupied evicts the key of its home slot, which moves to its own
+ * other candidate slot, possibly evicting another key, and so on (like cuckoo chicks pushing eggs out of the nest). When
+ * this chain of evictions gets too long, the last homeless pair goes to the stash.</p>
+ *
+ * <p>Searches therefore inspect at most the two candidate slots and the stash, which never holds more than
+ * {@value #STASH_LIMIT} pairs as long as keys have distinct hashes: {@link #get(String)} and {@link #containsKey(String)}
+ * take <b>worst-case</b> constant time, and report as {@link Probes} the number of buckets (slots or stash entries) that
+ * they inspect. The table is enlarged to the next prime provided by {@link PrimeGenerator} whenever it becomes more than
+ * 40&#37; full, or whenever the stash overflows. Deletions are <b>always</b> hard: nothing ever probes past a slot, so
+ * no tombstone or re-insertion is needed.</p>
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ * @see CollisionResolver
+ */
+public class CuckooHashTable extends OpenAddressingHashTable {
+
+    private static final double MAX_LOAD_FACTOR = 0.4;
+
+    /**
+     * The number of pairs that the stash may hold before the table is enlarged.
+     */
+    public static final int STASH_LIMIT = 4;
+
+    // Below this load factor, an overflowing stash is blamed on keys with equal hashes, which no capacity can separate,
+    // so the stash is allowed to grow instead of the table.
+    private static final double MIN_LOAD_FACTOR_TO_GROW = 0.125;
+
+    private int[] stashHashes = new int[STASH_LIMIT];
+    private String[] stashKeys = new String[STASH_LIMIT];
+    private String[] stashValues = new String[STASH_LIMIT];
+    private int stashCount;
+
+    // The number of probes made by the last call to lookup(), insert() or delete(), which return no Probes.
+    private int lastProbes;
+
+    /**
+     * Default constructor. Initializes the internal storage with a size equal to the starting value of {@link PrimeGenerator}.
+     */
+    public CuckooHashTable() {
+        this(HashFunction.DEFAULT);
+    }
+
+    /**
+     * Constructor with a custom hash function. Initializes the internal storage with a size equal to the starting value
+     * of {@link PrimeGenerator}. The second hash function of the table is derived from the first one.
+     * @param hashFunction The {@link HashFunction} with which keys are hashed, e.g a {@link SeededHashFunction}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}.
+     */
+    public CuckooHashTable(HashFunction hashFunction) {
+        primeGenerator = new PrimeGenerator();
+        allocate(primeGenerator.getCurrPrime());
+        count = 0;
+        occCells = 0;
+        softFlag = false;
+        setHashFunction(hashFunction);
+    }
+
+    // The second hash function: a full avalanche of the cached hash (MurmurHash3's finalizer), reduced modulo the
+    // capacity. Moved one slot over if it falls on the home slot, so that every key has two distinct candidates.
+    private int alternativeOf(int hash) {
+        int h = hash;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        int home = indexOf(hash);
+        int alternative = (h & 0x7fffffff) % hashes.length;
+        return (alternative != home) ? alternative : (home == hashes.length - 1) ? 0 : home + 1;
+    }
+
+    // The candidate slot of the pair with the provided hash that is not slot.
+    private int otherOf(int slot, int hash) {
+        int home = indexOf(hash);
+        return (slot == home) ? alternativeOf(hash) : home;
+    }
+
+    // The chain of evictions is given up after this many moves; O(log n) moves suffice with high probability.
+    private int maxEvictions() {
+        return 4 * (32 - Integer.numberOfLeadingZeros(hashes.length));
+    }
+
+    private int findInStash(int hash, String key) {
+        for (int i = 0; i < stashCount; i++) {
+            if (stashHashes[i] == hash && key.equals(stashKeys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void stash(int hash, String key, String value) {
+        if (stashCount == stashKeys.length) {
+            stashHashes = Arrays.copyOf(stashHashes, 2 * stashCount);
+            stashKeys = Arrays.copyOf(stashKeys, 2 * stashCount);
+            stashValues = Arrays.copyOf(stashValues, 2 * stashCount);
+        }
+        stashHashes[stashCount] = hash;
+        stashKeys[stashCount] = key;
+        stashValues[stashCount] = value;
+        stashCount++;
+    }
+
+    private void unstash(int i) {
+        stashCount--;
+        stashHashes[i] = stashHashes[stashCount];
+        stashKeys[i] = stashKeys[stashCount];
+        stashValues[i] = stashValues[stashCount];
+        stashKeys[stashCount] = null;
+        stashValues[stashCount] = null;
+    }
+
+    @Override
+    protected int place(int hash, String key, String value) {
+        count++;
+        int slot = indexOf(hash);
+        if (isEmpty(slot)) {
+            fill(slot, hash, key, value);
+            occCells++;
+            return 1;
+        }
+        int probes = 2;
+        int alternative = alternativeOf(hash);
+        if (isEmpty(alternative)) {
+            fill(alternative, hash, key, value);
+            occCells++;
+            return probes;
+        }
+        for (int evictions = maxEvictions(); evictions > 0; evictions--) {
+            // Take the slot, and carry its previous resident to its other candidate slot.
+            int tempHash = hashes[slot];
+            String tempKey = keys[slot];
+            String tempValue = values[slot];
+            fill(slot, hash, key, value);
+            hash = tempHash;
+            key = tempKey;
+            value = tempValue;
+            slot = otherOf(slot, hash);
+            probes++;
+            if (isEmpty(slot)) {
+                fill(slot, hash, key, value);
+                occCells++;
+                return probes;
+            }
+        }
+        stash(hash, key, value);
+        return probes + 1;
+    }
+
+    @Override
+    protected int rehash(int capacity) {
+        int[] oldHashes = Arrays.copyOf(stashHashes, stashCount);
+        String[] oldKeys = Arrays.copyOf(stashKeys, stashCount);
+        String[] oldValues = Arrays.copyOf(stashValues, stashCount);
+        stashHashes = new int[STASH_LIMIT];
+        stashKeys = new String[STASH_LIMIT];
+        stashValues = new String[STASH_LIMIT];
+        stashCount = 0;
+        int probes = super.rehash(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            probes += place(oldHashes[i], oldKeys[i], oldValues[i]) + 1;
+        }
+        return probes;
+    }
+
+    // Stashed pairs count towards the load factor too.
+    @Override
+    protected int occupied() {
+        return count;
+    }
+
+    @Override
+    protected double maxLoadFactor() {
+        return MAX_LOAD_FACTOR;
+    }
+
+    @Override
+    protected OpenAddressingHashTable emptyCopy() {
+        return new CuckooHashTable();
+    }
+
+    @Override
+    protected boolean supportsValueIndex() {
+        return true;
+    }
+
+    // The stashed pairs are indexed along with the slots.
+    @Override
+    public void enableValueIndex() {
+        if (valueIndex != null) {
+            return;
+        }
+        super.enableValueIndex();
+        for (int i = 0; i < stashCount; i++) {
+            valueIndex.add(stashValues[i]);
+        }
+    }
+
+    // Searches for key, and leaves the number of probes made in lastProbes. Returns the value of key, or null.
+    private String lookup(String key) {
+        if (key == null) {
+            lastProbes = 0;
+            return null;
+        }
+
+        int hash = hash(key);
+        int home = indexOf(hash);
+        if (holds(home, hash, key)) {
+            lastProbes = 1;
+            return values[home];
+        }
+        int alternative = alternativeOf(hash);
+        if (holds(alternative, hash, key)) {
+            lastProbes = 2;
+            return values[alternative];
+        }
+        int stashed = findInStash(hash, key);
+        lastProbes = (stashed >= 0) ? 3 + stashed : 2 + stashCount;
+        return (stashed >= 0) ? stashValues[stashed] : null;
+    }
+
+    // Inserts or updates the pair <key, value>, and leaves the number of probes made in lastProbes. Returns true if,
+    // and only if, key was not in the table.
+    private boolean insert(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = hash(key);
+        int home = indexOf(hash);
+        if (holds(home, hash, key)) {
+            indexed(value, values[home]);
+            values[home] = value;
+            lastProbes = 1;
+            return false;
+        }
+        int alternative = alternativeOf(hash);
+        if (holds(alternative, hash, key)) {
+            indexed(value, values[alternative]);
+            values[alternative] = value;
+            lastProbes = 2;
+            return false;
+        }
+        int stashed = findInStash(hash, key);
+        if (stashed >= 0) {
+            indexed(value, stashValues[stashed]);
+            stashValues[stashed] = value;
+            lastProbes = 3 + stashed;
+            return false;
+        }
+
+        // place() inspects the two candidate slots again, so only the stash is counted here.
+        indexed(value, null);
+        int probes = stashCount;
+        if ((double)(count + 1) / hashes.length > MAX_LOAD_FACTOR) {
+            probes += rehash(primeGenerator.getNextPrime());
+        }
+        probes += place(hash, key, value);
+        while (stashCount > STASH_LIMIT && (double)count / hashes.length >= MIN_LOAD_FACTOR_TO_GROW) {
+            probes += rehash(primeGenerator.getNextPrime());
+        }
+        lastProbes = probes;
+        return true;
+    }
+
+    // Deletes key, and leaves the number of probes made in lastProbes. Returns the value of key, or null.
+    private String delete(String key) {
+        if (key == null) {
+            lastProbes = 0;
+            return null;
+        }
+
+        int hash = hash(key);
+        int slot = indexOf(hash);
+        int probes = 1;
+        if (!holds(slot, hash, key)) {
+            slot = alternativeOf(hash);
+            probes++;
+        }
+        if (!holds(slot, hash, key)) {
+            int stashed = findInStash(hash, key);
+            if (stashed < 0) {
+                lastProbes = 2 + stashCount;
+                return null;
+            }
+            String value = stashValues[stashed];
+            indexed(null, value);
+            unstash(stashed);
+            count--;
+            lastProbes = 3 + stashed;
+            return value;
+        }
+
+        String value = values[slot];
+        indexed(null, value);
+        vacate(slot);
+        count--;
+        occCells--;
+        for (int i = 0; i < stashCount; i++) {
+            probes++;
+            if (indexOf(stashHashes[i]) == slot || alternativeOf(stashHashes[i]) == slot) {
+                fill(slot, stashHashes[i], stashKeys[i], stashValues[i]);
+                occCells++;
+                unstash(i);
+                break;
+            }
+        }
+        lastProbes = probes;
+        return value;
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. If key is already in the table, its value is <b>updated</b>.
+     * The table is enlarged to the next prime provided by {@link PrimeGenerator} <b>before</b> an insertion that finds it
+     * more than 40&#37; full, and <b>after</b> an insertion that overflows the stash.
+     * @param key The record's key.
+     * @param value The record's value.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        insert(key, value);
+        return new Probes(value, lastProbes);
+    }
+
+    @Override
+    public boolean putValue(String key, String value) {
+        boolean added = insert(key, value);
+        ProbeCounter.add(lastProbes);
+        return added;
+    }
+
+    @Override
+    public Probes get(String key) {
+        return new Probes(lookup(key), lastProbes);
+    }
+
+    @Override
+    public String getValue(String key) {
+        String value = lookup(key);
+        ProbeCounter.add(lastProbes);
+        return value;
+    }
+
+    /**
+     * <b>Return</b> the value associated with key in the {@link HashTable}, and <b>remove</b> the pair from the table.
+     * If the pair leaves a slot behind, a stashed pair that has this slot as a candidate moves in.
+     * @param key The key to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
+     * and 0 as number of probes; if the key doesn't exist in the database, return {@code null} and the number of probes used.
+     */
+    @Override
+    public Probes remove(String key) {
+        return new Probes(delete(key), lastProbes);
+    }
+
+    @Override
+    public String removeValue(String key) {
+        String value = delete(key);
+        ProbeCounter.add(lastProbes);
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return lookup(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        if (valueIndex != null) {
+            return valueIndex.contains(value);
+        }
+        for (int i = 0; i < stashCount; i++) {
+            if (stashValues[i].equals(value)) {
+                return true;
+            }
+        }
+        return super.containsValue(value);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        super.forEach(action);
+        for (int i = 0; i < stashCount; i++) {
+            action.accept(stashKeys[i], stashValues[i]);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package phonebook.hashes;
+
+/**
+ * <p>{@link HashFunction} is the strategy with which a {@link HashTable} turns its keys into hashes. Tables only ever
+ * use the <b>low 31 bits</b> of a hash, which they reduce modulo their capacity, so a good {@link HashFunction} spreads
+ * its entropy over all of its bits.</p>
+ *
+ * <p>{@link #DEFAULT} is {@link String#hashCode()}, which every table uses unless told otherwise. It is fast and stable
+ * across runs, but it is also weak and public: strings that share the same hash are trivial to craft (e.g
+ * &quot;Aa&quot; and &quot;BB&quot;), and keys such as phone numbers that only differ in their last characters land in
+ * neighboring cells. {@link SeededHashFunction} avoids both problems with a secret, per-instance seed.</p>
+ *
+ * <p>A table hashes every key with the same {@link HashFunction} for as long as it lives, and so do any copies that
+ * it makes of itself during resizes.</p>
+ *
+ * @see SeededHashFunction
+ * @see HashTable
+ */
+@FunctionalInterface
+public interface HashFunction {
+
+    /**
+     * {@link String#hashCode()}: the hash function of every table that is not given one.
+     */
+    HashFunction DEFAULT = String::hashCode;
+
+    /**
+     * Hashes the provided key. Equal keys <b>must</b> have equal hashes.
+     * @param key A non-{@code null} key.
+     * @return The hash of key. May be negative.
+     */
+    int hash(String key);
+}
@@ -1,85 +1,210 @@
-package phonebook.hashes;
-
-import phonebook.utils.Probes;
-
-/**
- * <p>{@link HashTable} is an abstraction over hash tables which store {@link String} keys and map to 
- * {@link String} values. Implementing classes should offer <em>amortized constant</em> insertion, search and 
- * deletion. The method names that you have to implement are the namesakes of {@link java.util.Hashtable}
- * (<b>not</b> {@link java.util.HashMap}!). </p>
- *
- *  <p><b>**** DO NOT EDIT THIS INTERFACE'S DECLARATION! ****** </b></p>
- * *
- * @author <a href="https://github.com/JasonFil">Jason Filippou</a>
- *
- * @see OpenAddressingHashTable
- * @see SeparateChainingHashTable
- * @see LinearProbingHashTable
- * @see OrderedLinearProbingHashTable
- * @see QuadraticProbingHashTable
- */
-public interface HashTable {
-
-    /**
-     * Inserts the pair &lt;key, value&gt; into this. The container should <b>not</b> allow for {@code null}
-     * keys and values, and we <b>will</b> test if you are throwing a {@link IllegalArgumentException} from your code
-     * if this method is given {@code null} arguments! It is important that we establish that no {@code null} entries
-     * can exist in our database because the semantics of {@link #get(String)} and {@link #remove(String)} are that they
-     * return {@code null} if, and only if, their key parameter is {@code null}. This method is expected to run in <em>amortized
-     * constant time</em>.
-     * @param key The record's key.
-     * @param value The record's value.
-     * @throws IllegalArgumentException if either argument is {@code null}.
-     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
-     */
-    Probes put(String key, String value);
-
-    /**
-     * Get the value associated with key in the {@link HashTable}. This method is expected to run in <em>amortized constant time</em>.
-     * @param key The key to search for.
-     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
-     * and 0 as number of probes; if the key dones't exists in the database, return {@code null} and the number of probes used.
-     */
-    Probes get(String key);
-
-    /**
-     * <b>Return</b> the value associated with key in the {@link HashTable}, and <b>remove</b> the {@link phonebook.utils.KVPair} from the table.
-     * This method is expected to run in <em>amortized constant time</em>.
-     * @param key The key to search for.
-     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
-     * and 0 as number of probes; if the key doesn't exist in the database, return {@code null} and the number of probes used.
-     */
-    Probes remove(String key);
-
-    /**
-     * Queries the {@link HashTable} about the existence of the key key in its internal storage. This method is expected to run in <em>amortized constant time</em>.
-     * @param key The key to search for.
-     * @return {@code true} if key is the key of some record in our hash table, {@code false} otherwise.
-     */
-    boolean containsKey(String key);
-
-    /**
-     * Queries the {@link HashTable} about the existence of the value value in its internal storage. This method is expected to run in <em>linear time</em> (i.e
-     * containsValue() is expected to be an <b>inefficient</b> operation. This is to be expected, since this {@link HashTable} hashes \
-     * keys, not values.
-     * @param value The value to search for.
-     * @return {@code true} if key is the key of some record in our hash table, {@code false} otherwise.
-     */
-    boolean containsValue(String value);
-
-    /**
-     * Returns the number of records in this {@link HashTable}. Please note that this is <b>not</b> the same as returning the hash table's <b>capacity</b>
-     * in Open Addressing collision resolution schemes (like Linear Probing)!
-     * @return The number of records stored in this.
-     */
-    int size();
-
-    /**
-     * Returns the <b>capacity</b> of this {@link HashTable}. In Separate Chaining, this is the total number of cells from which the lists begin. In Open Addressing
-     * methods, this method returns the size of the underlying array. As a consequence, in {@link SeparateChainingHashTable}, it's possible for {@link #size()} to
-     * return a value larger than this method. On the other hand, for Open Addressing methods like {@link LinearProbingHashTable} and {@link QuadraticProbingHashTable},
-     * the value returned by this method is an <b>upper bound</b> on the value returned by {@link #size()}.
-     * @return the number of cells in the table.
-     */
-    int capacity();
-}
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.LookupResults;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>{@link HashTable} is an abstraction over hash tables which store {@link String} keys and map to 
+ * {@link String} values. Implementing classes should offer <em>amortized constant</em> insertion, search and 
+ * deletion. The method names that you have to implement are the namesakes of {@link java.util.Hashtable}
+ * (<b>not</b> {@link java.util.HashMap}!). </p>
+ *
+ *  <p><b>**** DO NOT EDIT THIS INTERFACE'S DECLARATION! ****** </b></p>
+ * *
+ * @author <a href="https://github.com/JasonFil">Jason Filippou</a>
+ *
+ * @see OpenAddressingHashTable
+ * @see SeparateChainingHashTable
+ * @see LinearProbingHashTable
+ * @see OrderedLinearProbingHashTable
+ * @see QuadraticProbingHashTable
+ */
+public interface HashTable {
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. The container should <b>not</b> allow for {@code null}
+     * keys and values, and we <b>will</b> test if you are throwing a {@link IllegalArgumentException} from your code
+     * if this method is given {@code null} arguments! It is important that we establish that no {@code null} entries
+     * can exist in our database because the semantics of {@link #get(String)} and {@link #remove(String)} are that they
+     * return {@code null} if, and only if, their key parameter is {@code null}. This method is expected to run in <em>amortized
+     * constant time</em>.
+     * @param key The record's key.
+     * @param value The record's value.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     */
+    Probes put(String key, String value);
+
+    /**
+     * Get the value associated with key in the {@link HashTable}. This method is expected to run in <em>amortized constant time</em>.
+     * @param key The key to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
+     * and 0 as number of probes; if the key dones't exists in the database, return {@code null} and the number of probes used.
+     */
+    Probes get(String key);
+
+    /**
+     * <b>Return</b> the value associated with key in the {@link HashTable}, and <b>remove</b> the {@link phonebook.utils.KVPair} from the table.
+     * This method is expected to run in <em>amortized constant time</em>.
+     * @param key The key to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
+     * and 0 as number of probes; if the key doesn't exist in the database, return {@code null} and the number of probes used.
+     */
+    Probes remove(String key);
+
+    /**
+     * Queries the {@link HashTable} about the existence of the key key in its internal storage. This method is expected to run in <em>amortized constant time</em>.
+     * @param key The key to search for.
+     * @return {@code true} if key is the key of some record in our hash table, {@code false} otherwise.
+     */
+    boolean containsKey(String key);
+
+    /**
+     * Queries the {@link HashTable} about the existence of the value value in its internal storage. This method is expected to run in <em>linear time</em> (i.e
+     * containsValue() is expected to be an <b>inefficient</b> operation. This is to be expected, since this {@link HashTable} hashes \
+     * keys, not values.
+     * @param value The value to search for.
+     * @return {@code true} if key is the key of some record in our hash table, {@code false} otherwise.
+     */
+    boolean containsValue(String value);
+
+    /**
+     * Returns the number of records in this {@link HashTable}. Please note that this is <b>not</b> the same as returning the hash table's <b>capacity</b>
+     * in Open Addressing collision resolution schemes (like Linear Probing)!
+     * @return The number of records stored in this.
+     */
+    int size();
+
+    /**
+     * Returns the <b>capacity</b> of this {@link HashTable}. In Separate Chaining, this is the total number of cells from which the lists begin. In Open Addressing
+     * methods, this method returns the size of the underlying array. As a consequence, in {@link SeparateChainingHashTable}, it's possible for {@link #size()} to
+     * return a value larger than this method. On the other hand, for Open Addressing methods like {@link LinearProbingHashTable} and {@link QuadraticProbingHashTable},
+     * the value returned by this method is an <b>upper bound</b> on the value returned by {@link #size()}.
+     * @return the number of cells in the table.
+     */
+    int capacity();
+
+    /**
+     * The <b>allocation - free</b> counterpart of {@link #get(String)}: returns the value associated with key directly,
+     * and adds the probes of the search to the {@link ProbeCounter} of the calling thread, instead of wrapping both in a
+     * new {@link Probes}. By default, this method just calls {@link #get(String)}, so it only allocates nothing in
+     * tables that override it.
+     * @param key The key to search for.
+     * @return The value associated with key, or {@code null} if key is {@code null} or not in the table.
+     */
+    default String getValue(String key) {
+        Probes found = get(key);
+        ProbeCounter.add(found.getProbes());
+        return found.getValue();
+    }
+
+    /**
+     * The <b>allocation - free</b> counterpart of {@link #put(String, String)}: inserts or updates the pair
+     * &lt;key, value&gt;, and adds the probes of the insertion to the {@link ProbeCounter} of the calling thread. By
+     * default, this method just calls {@link #put(String, String)}, so it only allocates nothing in tables that
+     * override it.
+     * @param key The record's key.
+     * @param value The record's value.
+     * @return {@code true} if key was not in the table, {@code false} if its value was updated.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     */
+    default boolean putValue(String key, String value) {
+        int size = size();
+        ProbeCounter.add(put(key, value).getProbes());
+        return size() > size;
+    }
+
+    /**
+     * The <b>allocation - free</b> counterpart of {@link #remove(String)}: removes the pair with key key, returns its
+     * value directly, and adds the probes of the deletion to the {@link ProbeCounter} of the calling thread. By
+     * default, this method just calls {@link #remove(String)}, so it only allocates nothing in tables that override it.
+     * @param key The key to search for.
+     * @return The value that was associated with key, or {@code null} if key is {@code null} or not in the table.
+     */
+    default String removeValue(String key) {
+        Probes removed = remove(key);
+        ProbeCounter.add(removed.getProbes());
+        return removed.getValue();
+    }
+
+    /**
+     * Returns the number of cells of this {@link HashTable} that are taken up by <b>tombstones</b>, i.e by pairs that were
+     * softly deleted and whose cells have not been reclaimed yet. Useful to judge how much soft deletions are slowing
+     * down searches. Tables that never leave tombstones behind return 0, which is the default.
+     * @return The number of tombstones in this.
+     */
+    default int tombstones() {
+        return 0;
+    }
+
+    /**
+     * Returns the total number of tombstones that this {@link HashTable} has reclaimed by <b>compacting</b> itself,
+     * i.e by rebuilding its storage without growing it once too many of its cells were taken up by tombstones.
+     * Tables that never compact themselves return 0, which is the default.
+     * @return The number of cells reclaimed by compactions since this was created.
+     * @see OpenAddressingHashTable#setCompactionThreshold(double)
+     */
+    default long reclaimedSlots() {
+        return 0;
+    }
+
+    /**
+     * Enlarges this {@link HashTable}, at most once, so that additional more pairs can be inserted without resizing it
+     * again, e.g before a long run of {@link #put(String, String)} calls whose pairs are not at hand all at once. Tables
+     * that never resize, or that cannot size themselves ahead of time, ignore the call, which is the default.
+     * @param additional The number of pairs about to be inserted.
+     * @return The number of probes spent by the resize, if there was one.
+     */
+    default int reserve(int additional) {
+        return 0;
+    }
+
+    /**
+     * Inserts every pair of pairs into this, exactly as if {@link #put(String, String)} was called on each of them in
+     * iteration order: later pairs update the values of earlier pairs with the same key. Implementations may use the
+     * number of pairs to enlarge the table <b>once</b>, to its final capacity, instead of going through every
+     * intermediate capacity; by default, this method just calls {@link #put(String, String)} repeatedly.
+     * @param pairs The pairs to insert.
+     * @throws IllegalArgumentException if any key or value is {@code null}. The pairs before it have been inserted.
+     * @return The total number of probes made by the insertions, including those of any resize.
+     */
+    default int putAll(Collection<KVPair> pairs) {
+        int probes = 0;
+        for (KVPair pair : pairs) {
+            probes += put(pair.getKey(), pair.getValue()).getProbes();
+        }
+        return probes;
+    }
+
+    /**
+     * Searches for every key of keys, and records in results the value and the number of probes of every search, exactly
+     * as {@link #get(String)} would report them, in the order of the keys. Implementations may hash every key first and
+     * then advance all of the searches together, one slot at a time, so that the memory loads of different searches
+     * overlap instead of waiting for each other; by default, this method just calls {@link #get(String)} repeatedly.
+     * @param keys The keys to search for. {@code null} keys are found with value {@code null} and 0 probes.
+     * @param results The buffer that receives the results. It is reset to the size of keys first.
+     */
+    default void getAll(List<String> keys, LookupResults results) {
+        results.reset(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Probes found = get(keys.get(i));
+            results.set(i, found.getValue(), found.getProbes());
+        }
+    }
+
+    /**
+     * Calls action on every pair of this {@link HashTable}, in no particular order. The table must not be modified while
+     * this method runs. Tables that cannot enumerate their pairs throw, which is the default.
+     * @param action The action to perform on every key and its value.
+     * @throws UnsupportedOperationException if this table cannot enumerate its pairs.
+     */
+    default void forEach(BiConsumer<? super String, ? super String> action) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot enumerate its pairs.");
+    }
+}
@@ -0,0 +1,371 @@
+package phonebook.hashes;
+
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+/**
+ * <p>{@link HopscotchHashTable} is an Openly Addressed {@link HashTable} which resolves collisions with <b>Hopscotch
+ * Hashing</b>. Every key lives within the first {@value #NEIGHBORHOOD} slots that start at its home slot, its
+ * <em>neighborhood</em>, and every home slot keeps a bitmap (an {@code int}) of which slots of its neighborhood hold
+ * keys that hash to it. A search only inspects the slots whose bit is set, which all lie within a couple of cache lines
+ * of the array of cached hashes, so its cost does not depend on how long the surrounding cluster is.</p>
+ *
+ * <p>An insertion looks for the closest empty slot, linearly. If that slot lies outside the neighborhood, it is moved
+ * closer by <em>hopping</em>: some key between the home slot and the empty slot, whose own neighborhood still covers
+ * the empty slot, moves there, and the slot that it leaves behind becomes the new empty slot. If no key can hop, the table
+ * is enlarged to the next prime provided by {@link PrimeGenerator}. Deletions are <b>always</b> hard, and only clear the
+ * slot and its bit in the bitmap: unlike {@link LinearProbingHashTable}, no tombstone is left behind and the rest of the
+ * cluster is <b>not</b> re-inserted.</p>
+ *
+ * <p>Since searches never walk clusters, the table can be run at a high load factor: by default, it is only enlarged
+ * when it becomes more than 90&#37; full. {@link Probes} count one probe per slot whose key is compared, and at least
+ * one for reading the bitmap of the home slot.</p>
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ * @see CollisionResolver
+ */
+public class HopscotchHashTable extends OpenAddressingHashTable {
+
+    /**
+     * The number of slots, starting at its home slot, within which every key is stored.
+     */
+    public static final int NEIGHBORHOOD = 32;
+
+    private static final double DEFAULT_MAX_LOAD_FACTOR = 0.9;
+
+    private final double maxLoadFactor;
+
+    // Bit i of hops[s] is set if, and only if, slot s + i (modulo the capacity) holds a key whose home slot is s.
+    private int[] hops;
+
+    /**
+     * Default constructor. Initializes the internal storage with a size equal to the starting value of {@link PrimeGenerator}
+     * and resizes when the table becomes more than 90&#37; full.
+     */
+    public HopscotchHashTable() {
+        this(DEFAULT_MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructor with a custom hash function. Resizes when the table becomes more than 90&#37; full, like the
+     * default constructor.
+     * @param hashFunction The {@link HashFunction} with which keys are hashed, e.g a {@link SeededHashFunction}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}.
+     */
+    public HopscotchHashTable(HashFunction hashFunction) {
+        this(DEFAULT_MAX_LOAD_FACTOR, hashFunction);
+    }
+
+    /**
+     * Constructor with a custom load factor. Initializes the internal storage with a size equal to the starting value of
+     * {@link PrimeGenerator}.
+     * @param maxLoadFactor The fraction of the table that may be occupied before an insertion enlarges it.
+     * @throws IllegalArgumentException if maxLoadFactor is not strictly between 0 and 1.
+     */
+    public HopscotchHashTable(double maxLoadFactor) {
+        this(maxLoadFactor, HashFunction.DEFAULT);
+    }
+
+    /**
+     * Constructor with a custom load factor and hash function. Initializes the internal storage with a size equal to the starting value of
+     * {@link PrimeGenerator}.
+     * @param maxLoadFactor The fraction of the table that may be occupied before an insertion enlarges it.
+     * @param hashFunction The {@link HashFunction} with which keys are hashed, e.g a {@link SeededHashFunction}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}, or if maxLoadFactor is not strictly between 0 and 1.
+     */
+    public HopscotchHashTable(double maxLoadFactor, HashFunction hashFunction) {
+        if (!(maxLoadFactor > 0 && maxLoadFactor < 1)) {
+            throw new IllegalArgumentException("Load factor should be strictly between 0 and 1, but was " + maxLoadFactor + ".");
+        }
+        this.maxLoadFactor = maxLoadFactor;
+        primeGenerator = new PrimeGenerator();
+        allocate(primeGenerator.getCurrPrime());
+        count = 0;
+        occCells = 0;
+        softFlag = false;
+        setHashFunction(hashFunction);
+    }
+
+    @Override
+    protected void allocate(int capacity) {
+        super.allocate(capacity);
+        hops = new int[capacity];
+    }
+
+    // Small tables are shorter than a neighborhood; offsets must never wrap onto the home slot again.
+    private int neighborhood() {
+        return Math.min(NEIGHBORHOOD, hashes.length);
+    }
+
+    private int slotAt(int home, int offset) {
+        int slot = home + offset;
+        return (slot >= hashes.length) ? slot - hashes.length : slot;
+    }
+
+    // Searches the neighborhood of the home slot of key. Returns (probes << 32) | (slot + 1), with a slot of -1 on a miss.
+    private long find(int hash, String key) {
+        int home = indexOf(hash);
+        int compared = 0;
+        for (int bits = hops[home]; bits != 0; bits &= bits - 1) {
+            int slot = slotAt(home, Integer.numberOfTrailingZeros(bits));
+            compared++;
+            if (holds(slot, hash, key)) {
+                return ((long) compared << 32) | (slot + 1);
+            }
+        }
+        return (long) Math.max(compared, 1) << 32;
+    }
+
+    private static int slotOf(long found) {
+        return (int) found - 1;
+    }
+
+    private static int probesOf(long found) {
+        return (int) (found >>> 32);
+    }
+
+    // Inserts a key known not to be in the table, and returns one probe per slot inspected or moved. Returns -1 if no
+    // empty slot can be brought into its neighborhood; keys may have hopped by then, but the pair is not inserted.
+    private int tryPlace(int hash, String key, String value) {
+        int home = indexOf(hash);
+        int free = home;
+        int distance = 0;
+        int probes = 1;
+        while (!isEmpty(free)) {
+            if (++distance == hashes.length) {
+                return -1;
+            }
+            free = slotAt(free, 1);
+            probes++;
+        }
+        int h = neighborhood();
+        while (distance >= h) {
+            // Find the furthest home slot before free whose neighborhood covers free, with a key that can hop there.
+            boolean hopped = false;
+            for (int back = h - 1; back > 0 && !hopped; back--) {
+                int candidate = slotAt(free, hashes.length - back);
+                int bits = hops[candidate];
+                if (bits != 0 && Integer.numberOfTrailingZeros(bits) < back) {
+                    int offset = Integer.numberOfTrailingZeros(bits);
+                    int slot = slotAt(candidate, offset);
+                    fill(free, hashes[slot], keys[slot], values[slot]);
+                    vacate(slot);
+                    hops[candidate] ^= (1 << offset) | (1 << back);
+                    free = slot;
+                    distance -= back - offset;
+                    probes++;
+                    hopped = true;
+                }
+            }
+            if (!hopped) {
+                return -1;
+            }
+        }
+        fill(free, hash, key, value);
+        hops[home] |= 1 << distance;
+        count++;
+        occCells++;
+        return probes;
+    }
+
+    /**
+     * Inserts a pair whose key is known <b>not</b> to be in the table. Unlike the other openly addressed tables, if no
+     * empty slot can be brought into the neighborhood of key, this method does enlarge the table, and then retries.
+     * @param hash The cached hash of key.
+     * @param key The key to insert.
+     * @param value The value to insert.
+     * @return The number of probes it took to insert the pair, including those of any resize.
+     * @throws IllegalStateException if the neighborhood of key is already filled with keys of the same hash, which no
+     * capacity can separate.
+     */
+    @Override
+    protected int place(int hash, String key, String value) {
+        int probes = 0;
+        int placed;
+        while ((placed = tryPlace(hash, key, value)) < 0) {
+            if (sameHashes(hash) == NEIGHBORHOOD) {
+                throw new IllegalStateException("More than " + NEIGHBORHOOD + " keys have the hash " + hash + ".");
+            }
+            probes += rehash(primeGenerator.getNextPrime());
+        }
+        return probes + placed;
+    }
+
+    // The number of keys in the neighborhood of the home slot of hash that have that exact hash.
+    private int sameHashes(int hash) {
+        int home = indexOf(hash);
+        int same = 0;
+        for (int bits = hops[home]; bits != 0; bits &= bits - 1) {
+            if (hashes[slotAt(home, Integer.numberOfTrailingZeros(bits))] == hash) {
+                same++;
+            }
+        }
+        return same;
+    }
+
+    // Re-placing every pair can itself fail at an unlucky capacity, in which case we move on to the next prime.
+    @Override
+    protected int rehash(int capacity) {
+        int[] oldHashes = hashes;
+        String[] oldKeys = keys;
+        String[] oldValues = values;
+        int probes = 0;
+        while (true) {
+            allocate(capacity);
+            count = 0;
+            occCells = 0;
+            boolean failed = false;
+            for (int i = 0; i < oldKeys.length && !failed; i++) {
+                if (oldKeys[i] != null) {
+                    int placed = tryPlace(oldHashes[i], oldKeys[i], oldValues[i]);
+                    failed = placed < 0;
+                    probes += Math.max(placed, 0);
+                }
+                probes++;
+            }
+            if (!failed) {
+                return probes;
+            }
+            capacity = primeGenerator.getNextPrime();
+        }
+    }
+
+    @Override
+    protected double maxLoadFactor() {
+        return maxLoadFactor;
+    }
+
+    @Override
+    protected OpenAddressingHashTable emptyCopy() {
+        return new HopscotchHashTable(maxLoadFactor);
+    }
+
+    @Override
+    protected boolean supportsValueIndex() {
+        return true;
+    }
+
+    // Inserts or updates the pair <key, value>. Returns (probes << 32) | 1 if key was not in the table, or just
+    // (probes << 32) otherwise.
+    private long insert(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = hash(key);
+        long found = find(hash, key);
+        int slot = slotOf(found);
+        if (slot >= 0) {
+            indexed(value, values[slot]);
+            values[slot] = value;
+            return (long) probesOf(found) << 32;
+        }
+
+        indexed(value, null);
+        int probes = probesOf(found);
+        if ((double)(occCells + 1) / hashes.length > maxLoadFactor) {
+            probes += rehash(primeGenerator.getNextPrime());
+        }
+        return (long) (probes + place(hash, key, value)) << 32 | 1;
+    }
+
+    // Empties slot, which holds a key with the provided hash, and clears its bit in the bitmap of the home slot.
+    // Returns the value that slot held, or null if slot is negative, i.e if the key was not found.
+    private String removeSlot(int slot, int hash) {
+        if (slot < 0) {
+            return null;
+        }
+
+        String value = values[slot];
+        indexed(null, value);
+        int home = indexOf(hash);
+        int offset = (slot >= home) ? slot - home : slot + hashes.length - home;
+        hops[home] &= ~(1 << offset);
+        vacate(slot);
+        count--;
+        occCells--;
+        return value;
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. If key is already in the table, its value is <b>updated</b>.
+     * The table is enlarged to the next prime provided by {@link PrimeGenerator} <b>before</b> an insertion that finds
+     * it filled beyond its load factor, or when no empty slot can be brought into the neighborhood of key.
+     * @param key The record's key.
+     * @param value The record's value.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        long inserted = insert(key, value);
+        return new Probes(value, (int) (inserted >>> 32));
+    }
+
+    @Override
+    public boolean putValue(String key, String value) {
+        long inserted = insert(key, value);
+        ProbeCounter.add((int) (inserted >>> 32));
+        return (inserted & 1) != 0;
+    }
+
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        long found = find(hash(key), key);
+        return new Probes((slotOf(found) < 0) ? null : values[slotOf(found)], probesOf(found));
+    }
+
+    @Override
+    public String getValue(String key) {
+        if (key == null) {
+            ProbeCounter.add(0);
+            return null;
+        }
+
+        long found = find(hash(key), key);
+        ProbeCounter.add(probesOf(found));
+        return (slotOf(found) < 0) ? null : values[slotOf(found)];
+    }
+
+    /**
+     * <b>Return</b> the value associated with key in the {@link HashTable}, and <b>remove</b> the pair from the table.
+     * Only the slot and its bit in the bitmap of the home slot are cleared.
+     * @param key The key to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
+     * and 0 as number of probes; if the key doesn't exist in the database, return {@code null} and the number of probes used.
+     */
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+
+        int hash = hash(key);
+        long found = find(hash, key);
+        return new Probes(removeSlot(slotOf(found), hash), probesOf(found));
+    }
+
+    @Override
+    public String removeValue(String key) {
+        if (key == null) {
+            ProbeCounter.add(0);
+            return null;
+        }
+
+        int hash = hash(key);
+        long found = find(hash, key);
+        ProbeCounter.add(probesOf(found));
+        return removeSlot(slotOf(found), hash);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return key != null && slotOf(find(hash(key), key)) >= 0;
+    }
+}
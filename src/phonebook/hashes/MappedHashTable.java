@@ -0,0 +1,628 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>{@link MappedHashTable} is a <b>persistent</b> Linear Probing {@link HashTable} whose storage lives in two
+ * memory-mapped files (see {@link FileChannel#map(FileChannel.MapMode, long, long)}) instead of the Java heap:</p>
+ * <ul>
+ *     <li>{@code <name>.slots} starts with a small header (capacity, counters, clean-shutdown flag), followed by one
+ *     16-byte slot per cell: a <em>tag</em> (0 for empty, 1 for a tombstone, or the cached hash with its top bit set),
+ *     the byte lengths of the key and the value, and the offset of their bytes in the heap file.</li>
+ *     <li>{@code <name>.heap} is an append-only log of UTF-8 encoded keys, each followed by its value.</li>
+ * </ul>
+ *
+ * <p>Opening an existing table only maps the two files, so it takes milliseconds regardless of how many pairs they
+ * hold. Searches compare the UTF-8 bytes of the key <b>in place</b>, without copying them out of the mapping; only the
+ * value that is returned is decoded into a {@link String}.</p>
+ *
+ * <p>Every write goes to the mapping, i.e to the operating system's page cache, so nothing is lost if the process
+ * crashes. {@link #flush()} forces both files to the storage device, which protects the pairs written so far against a
+ * crash of the whole machine too. To keep the files consistent at any instant, the bytes of a pair are appended to the heap
+ * before the slot that refers to them is written, and the tag of a new slot is written <b>last</b>; a value update
+ * rewrites the value length and heap offset of its slot with one 8-byte store. {@link #close()} marks the files as
+ * cleanly shut down; opening files that were not closed cleanly rebuilds the counters with one scan of the slots.
+ * Resizes write the new slots into a fresh file, force it, and atomically rename it over the old one.</p>
+ *
+ * <p>Deletions are <b>always</b> soft; tombstones are dropped whenever the slots are rebuilt, which happens as soon as
+ * live slots and tombstones fill more than 50&#37; of the table. The bytes of deleted or updated pairs are not reclaimed
+ * from the heap file. Like the other tables, {@link MappedHashTable} is <b>not</b> thread-safe.</p>
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ * @see CollisionResolver#MEMORY_MAPPED
+ */
+public class MappedHashTable implements HashTable, Closeable {
+
+    /**
+     * The system property that names the directory in which {@link CollisionResolver#MEMORY_MAPPED} tables keep their files.
+     */
+    public static final String DIRECTORY_PROPERTY = "phonebook.mapped.dir";
+
+    /**
+     * The directory used when {@link #DIRECTORY_PROPERTY} is not set.
+     */
+    public static final String DEFAULT_DIRECTORY = "phonebook-data";
+
+    private static final int MAGIC = 0x50484254; // "PHBT"
+    private static final int VERSION = 1;
+
+    // Header layout of the slots file.
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int CAPACITY_AT = 8;
+    private static final int COUNT_AT = 12;
+    private static final int OCCUPIED_AT = 16;
+    private static final int HEAP_END_AT = 20;
+    private static final int CLEAN_AT = 24;
+    private static final int HEADER_BYTES = 64;
+
+    // Layout of a slot. VALUE_LENGTH and OFFSET are adjacent, so that one long store can update both.
+    private static final int TAG = 0;
+    private static final int KEY_LENGTH = 4;
+    private static final int VALUE_LENGTH = 8;
+    private static final int OFFSET = 12;
+    private static final int SLOT_BYTES = 16;
+
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = 1;
+    private static final int LIVE = 0x80000000;
+
+    private static final int INITIAL_HEAP_BYTES = 1 << 20;
+
+    private final Path slotsPath;
+    private final Path heapPath;
+    private final PrimeGenerator primeGenerator = new PrimeGenerator();
+
+    private FileChannel slotsChannel;
+    private FileChannel heapChannel;
+    private MappedByteBuffer slots;
+    private MappedByteBuffer heap;
+
+    private int capacity;
+    private int count;
+    private int occCells;
+    private int heapEnd;
+    private boolean closed;
+
+    // The number of probes made by the last call to lookup(), insert() or delete(), which return no Probes.
+    private int lastProbes;
+
+    /**
+     * Opens the table stored in the files {@code <name>.slots} and {@code <name>.heap} of directory, creating the
+     * directory and an empty table if they do not exist yet.
+     * @param directory The directory that holds the files of the table.
+     * @param name The name of the table, used as the prefix of its files.
+     * @throws UncheckedIOException if the files cannot be opened, or do not hold a {@link MappedHashTable}.
+     */
+    public MappedHashTable(Path directory, String name) {
+        slotsPath = directory.resolve(name + ".slots");
+        heapPath = directory.resolve(name + ".heap");
+        try {
+            Files.createDirectories(directory);
+            boolean exists = Files.exists(slotsPath) && Files.size(slotsPath) >= HEADER_BYTES;
+            heapChannel = FileChannel.open(heapPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Mapping the heap enlarges its file, so its size on disk is taken first.
+            long heapBytes = heapChannel.size();
+            heap = heapChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(heapBytes, INITIAL_HEAP_BYTES));
+            if (exists) {
+                open(heapBytes);
+            } else {
+                slotsChannel = createSlots(slotsPath, primeGenerator.getCurrPrime());
+                capacity = primeGenerator.getCurrPrime();
+                writeHeader(slots);
+                flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the table " + name + " in " + directory + ".", e);
+        }
+    }
+
+    // Opens the existing slots file, whose heap file held heapBytes bytes on disk.
+    private void open(long heapBytes) throws IOException {
+        slotsChannel = FileChannel.open(slotsPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        slots = slotsChannel.map(FileChannel.MapMode.READ_WRITE, 0, slotsChannel.size());
+        if (slots.getInt(MAGIC_AT) != MAGIC || slots.getInt(VERSION_AT) != VERSION) {
+            throw new IOException(slotsPath + " does not hold a table of version " + VERSION + ".");
+        }
+        capacity = slots.getInt(CAPACITY_AT);
+        if (slots.capacity() < HEADER_BYTES + (long) capacity * SLOT_BYTES) {
+            throw new IOException(slotsPath + " is truncated.");
+        }
+        while (primeGenerator.getCurrPrime() < capacity) {
+            primeGenerator.getNextPrime();
+        }
+        if (slots.getInt(CLEAN_AT) == 1 && slots.getInt(HEAP_END_AT) <= heapBytes) {
+            count = slots.getInt(COUNT_AT);
+            occCells = slots.getInt(OCCUPIED_AT);
+            heapEnd = slots.getInt(HEAP_END_AT);
+        } else {
+            recover(heapBytes);
+        }
+        // Until the next close(), a crash leaves the files marked as dirty.
+        slots.putInt(CLEAN_AT, 0);
+        slots.force();
+    }
+
+    // Rebuilds the counters from the slots, after a crash. Heap bytes past the last pair referred to by a slot were
+    // never made reachable, so they may be overwritten. A page of slots may also have reached the disk without the heap
+    // bytes that it refers to: a slot whose pair does not lie within the heapBytes of the heap file is buried.
+    private void recover(long heapBytes) {
+        count = 0;
+        occCells = 0;
+        heapEnd = 0;
+        for (int i = 0; i < capacity; i++) {
+            int at = slotAt(i);
+            int tag = slots.getInt(at + TAG);
+            if (isLive(tag)) {
+                int offset = slots.getInt(at + OFFSET);
+                int keyLength = slots.getInt(at + KEY_LENGTH);
+                int valueLength = slots.getInt(at + VALUE_LENGTH);
+                long end = (long) offset + keyLength + valueLength;
+                if (offset < 0 || keyLength < 0 || valueLength < 0 || end > heapBytes) {
+                    slots.putInt(at + TAG, TOMBSTONE);
+                } else {
+                    count++;
+                    heapEnd = (int) Math.max(heapEnd, end);
+                }
+            }
+            if (tag != EMPTY) {
+                occCells++;
+            }
+        }
+        slots.putInt(HEAP_END_AT, heapEnd);
+        updateCounters();
+    }
+
+    private FileChannel createSlots(Path path, int slotCount) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        slots = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) slotCount * SLOT_BYTES);
+        return channel;
+    }
+
+    private void writeHeader(MappedByteBuffer target) {
+        target.putInt(MAGIC_AT, MAGIC);
+        target.putInt(VERSION_AT, VERSION);
+        target.putInt(CAPACITY_AT, capacity);
+        target.putInt(COUNT_AT, count);
+        target.putInt(OCCUPIED_AT, occCells);
+        target.putInt(HEAP_END_AT, heapEnd);
+        target.putInt(CLEAN_AT, 0);
+    }
+
+    private static int slotAt(int index) {
+        return HEADER_BYTES + index * SLOT_BYTES;
+    }
+
+    private static boolean isLive(int tag) {
+        return (tag & LIVE) != 0;
+    }
+
+    private static int hash(String key) {
+        return key.hashCode() & 0x7fffffff;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The table in " + slotsPath + " is closed.");
+        }
+    }
+
+    // Compares the bytes of the key in slot at with the provided bytes, straight from the mapping.
+    private boolean keyEquals(int at, byte[] key) {
+        if (slots.getInt(at + KEY_LENGTH) != key.length) {
+            return false;
+        }
+        int offset = slots.getInt(at + OFFSET);
+        for (int i = 0; i < key.length; i++) {
+            if (heap.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String keyAt(int at) {
+        return decode(slots.getInt(at + OFFSET), slots.getInt(at + KEY_LENGTH));
+    }
+
+    private String valueAt(int at) {
+        return decode(slots.getInt(at + OFFSET) + slots.getInt(at + KEY_LENGTH), slots.getInt(at + VALUE_LENGTH));
+    }
+
+    private String decode(int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = heap.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Appends the bytes of a pair to the heap, enlarging its mapping if needed, and returns their offset.
+    private int append(byte[] key, byte[] value) {
+        long end = (long) heapEnd + key.length + value.length;
+        if (end > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The heap file " + heapPath + " is full.");
+        }
+        if (end > heap.capacity()) {
+            try {
+                heap = heapChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(Math.max(2L * heap.capacity(), end), Integer.MAX_VALUE));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not enlarge " + heapPath + ".", e);
+            }
+        }
+        int offset = heapEnd;
+        for (int i = 0; i < key.length; i++) {
+            heap.put(offset + i, key[i]);
+        }
+        for (int i = 0; i < value.length; i++) {
+            heap.put(offset + key.length + i, value[i]);
+        }
+        heapEnd = (int) end;
+        slots.putInt(HEAP_END_AT, heapEnd);
+        return offset;
+    }
+
+    private void updateCounters() {
+        slots.putInt(COUNT_AT, count);
+        slots.putInt(OCCUPIED_AT, occCells);
+    }
+
+    // Searches for the key. Returns (probes << 32) | (slot + 1), with a slot of -1 on a miss.
+    private long find(int hash, byte[] key) {
+        int tag = hash | LIVE;
+        int index = hash % capacity;
+        int probes = 1;
+        for (; probes <= capacity; probes++) {
+            int at = slotAt(index);
+            int resident = slots.getInt(at + TAG);
+            if (resident == EMPTY) {
+                break;
+            }
+            if (resident == tag && keyEquals(at, key)) {
+                return ((long) probes << 32) | (index + 1);
+            }
+            index = (index == capacity - 1) ? 0 : index + 1;
+        }
+        return (long) Math.min(probes, capacity) << 32;
+    }
+
+    private static int slotOf(long found) {
+        return (int) found - 1;
+    }
+
+    private static int probesOf(long found) {
+        return (int) (found >>> 32);
+    }
+
+    // Writes the live slots into a new slots file of the provided capacity, and renames it over the current one.
+    private int rehash(int newCapacity) {
+        Path fresh = slotsPath.resolveSibling(slotsPath.getFileName() + ".tmp");
+        MappedByteBuffer old = slots;
+        FileChannel oldChannel = slotsChannel;
+        int probes = 0;
+        try {
+            slotsChannel = createSlots(fresh, newCapacity);
+            for (int i = 0; i < capacity; i++) {
+                int from = slotAt(i);
+                int tag = old.getInt(from + TAG);
+                if (isLive(tag)) {
+                    int index = (tag & ~LIVE) % newCapacity;
+                    probes++;
+                    while (slots.getInt(slotAt(index) + TAG) != EMPTY) {
+                        index = (index == newCapacity - 1) ? 0 : index + 1;
+                        probes++;
+                    }
+                    int to = slotAt(index);
+                    slots.putInt(to + KEY_LENGTH, old.getInt(from + KEY_LENGTH));
+                    slots.putLong(to + VALUE_LENGTH, old.getLong(from + VALUE_LENGTH));
+                    slots.putInt(to + TAG, tag);
+                }
+                probes++;
+            }
+            capacity = newCapacity;
+            occCells = count;
+            writeHeader(slots);
+            // The new slots must never reach the disk before the heap bytes that they refer to.
+            heap.force();
+            slots.force();
+            Files.move(fresh, slotsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            oldChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not resize " + slotsPath + ".", e);
+        }
+        return probes;
+    }
+
+    // Inserts or updates the pair <key, value>, and leaves the number of probes made in lastProbes. Returns true if,
+    // and only if, key was not in the table.
+    private boolean insert(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+        checkOpen();
+
+        int probes = 0;
+        if ((double) occCells / capacity > 0.50) {
+            probes += rehash(((double) count / capacity > 0.25) ? primeGenerator.getNextPrime() : capacity);
+        }
+
+        int hash = hash(key);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        int index = hash % capacity;
+        int target = -1;
+        probes++;
+        while (true) {
+            int at = slotAt(index);
+            int resident = slots.getInt(at + TAG);
+            if (resident == EMPTY) {
+                break;
+            }
+            if (resident == TOMBSTONE) {
+                if (target == -1) {
+                    target = index;
+                }
+            } else if (resident == (hash | LIVE) && keyEquals(at, keyBytes)) {
+                int offset = append(keyBytes, valueBytes);
+                slots.putLong(at + VALUE_LENGTH, ((long) valueBytes.length << 32) | offset);
+                lastProbes = probes;
+                return false;
+            }
+            index = (index == capacity - 1) ? 0 : index + 1;
+            probes++;
+        }
+        if (target == -1) {
+            target = index;
+            occCells++;
+        }
+
+        int at = slotAt(target);
+        int offset = append(keyBytes, valueBytes);
+        slots.putInt(at + KEY_LENGTH, keyBytes.length);
+        slots.putLong(at + VALUE_LENGTH, ((long) valueBytes.length << 32) | offset);
+        slots.putInt(at + TAG, hash | LIVE);
+        count++;
+        updateCounters();
+        lastProbes = probes;
+        return true;
+    }
+
+    // Leaves the number of probes made in lastProbes. Returns the value of key, or null.
+    private String lookup(String key) {
+        if (key == null) {
+            lastProbes = 0;
+            return null;
+        }
+        checkOpen();
+        long found = find(hash(key), key.getBytes(StandardCharsets.UTF_8));
+        lastProbes = probesOf(found);
+        return (slotOf(found) < 0) ? null : valueAt(slotAt(slotOf(found)));
+    }
+
+    // Deletes key, and leaves the number of probes made in lastProbes. Returns the value of key, or null.
+    private String delete(String key) {
+        if (key == null) {
+            lastProbes = 0;
+            return null;
+        }
+        checkOpen();
+        long found = find(hash(key), key.getBytes(StandardCharsets.UTF_8));
+        lastProbes = probesOf(found);
+        if (slotOf(found) < 0) {
+            return null;
+        }
+        int at = slotAt(slotOf(found));
+        String value = valueAt(at);
+        slots.putInt(at + TAG, TOMBSTONE);
+        count--;
+        updateCounters();
+        return value;
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this, or updates the value of key if it is already in the table. The
+     * slots are enlarged to the next prime provided by {@link PrimeGenerator} <b>before</b> an insertion that finds them
+     * more than 50&#37; occupied (or rebuilt at the same capacity, if most occupied slots are tombstones).
+     * @param key The record's key.
+     * @param value The record's value.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     * @throws IllegalStateException if the table has been closed.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        insert(key, value);
+        return new Probes(value, lastProbes);
+    }
+
+    /**
+     * Inserts or updates the pair &lt;key, value&gt; without creating a {@link Probes}. The key and the value are still
+     * encoded into new byte arrays before they are appended to the heap.
+     * @param key The record's key.
+     * @param value The record's value.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     * @throws IllegalStateException if the table has been closed.
+     * @return {@code true} if key was not in the table, {@code false} if its value was updated.
+     */
+    @Override
+    public boolean putValue(String key, String value) {
+        boolean added = insert(key, value);
+        ProbeCounter.add(lastProbes);
+        return added;
+    }
+
+    @Override
+    public Probes get(String key) {
+        return new Probes(lookup(key), lastProbes);
+    }
+
+    /**
+     * Searches for key without creating a {@link Probes}. The key is still encoded into a new byte array, and the value
+     * that is returned is still decoded from the heap into a new {@link String}.
+     * @param key The key to search for.
+     * @throws IllegalStateException if the table has been closed.
+     * @return The value associated with key, or {@code null} if key is {@code null} or not in the table.
+     */
+    @Override
+    public String getValue(String key) {
+        String value = lookup(key);
+        ProbeCounter.add(lastProbes);
+        return value;
+    }
+
+    @Override
+    public Probes remove(String key) {
+        return new Probes(delete(key), lastProbes);
+    }
+
+    @Override
+    public String removeValue(String key) {
+        String value = delete(key);
+        ProbeCounter.add(lastProbes);
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return lookup(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        checkOpen();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < capacity; i++) {
+            int at = slotAt(i);
+            if (isLive(slots.getInt(at + TAG)) && slots.getInt(at + VALUE_LENGTH) == bytes.length) {
+                int offset = slots.getInt(at + OFFSET) + slots.getInt(at + KEY_LENGTH);
+                int j = 0;
+                while (j < bytes.length && heap.get(offset + j) == bytes[j]) {
+                    j++;
+                }
+                if (j == bytes.length) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rewrites the slots, at most once, at the smallest capacity offered by {@link PrimeGenerator} that keeps them at
+     * most 50&#37; occupied once additional more pairs are in.
+     * @param additional The number of pairs about to be inserted.
+     * @throws IllegalStateException if the table has been closed.
+     * @return The number of probes spent by the resize, if there was one.
+     */
+    @Override
+    public int reserve(int additional) {
+        checkOpen();
+        long needed = (long) occCells + additional + 1;
+        int newCapacity = capacity;
+        while (needed > 0.50 * newCapacity) {
+            newCapacity = primeGenerator.getNextPrime();
+        }
+        return (newCapacity == capacity) ? 0 : rehash(newCapacity);
+    }
+
+    /**
+     * Inserts every pair of pairs, after rewriting the slots <b>once</b>, at the smallest capacity offered by
+     * {@link PrimeGenerator} that keeps them at most 50&#37; occupied once all pairs are in.
+     * @param pairs The pairs to insert.
+     * @throws IllegalArgumentException if any key or value is {@code null}. The pairs before it have been inserted.
+     * @throws IllegalStateException if the table has been closed.
+     * @return The total number of probes made by the insertions, including those of the resize.
+     */
+    @Override
+    public int putAll(Collection<KVPair> pairs) {
+        int probes = reserve(pairs.size());
+        for (KVPair pair : pairs) {
+            insert(pair.getKey(), pair.getValue());
+            probes += lastProbes;
+        }
+        return probes;
+    }
+
+    /**
+     * Calls action on every pair of this table, decoding each key and value from the heap.
+     * @param action The action to perform on every key and its value.
+     * @throws IllegalStateException if the table has been closed.
+     */
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        checkOpen();
+        for (int i = 0; i < capacity; i++) {
+            int at = slotAt(i);
+            if (isLive(slots.getInt(at + TAG))) {
+                action.accept(keyAt(at), valueAt(at));
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int tombstones() {
+        return occCells - count;
+    }
+
+    /**
+     * Forces every write made so far to the storage device, so that it survives a crash of the machine.
+     * The heap file is forced before the slots file, so that no slot can ever refer to bytes that were lost.
+     * @throws IllegalStateException if the table has been closed.
+     */
+    public void flush() {
+        checkOpen();
+        heap.force();
+        slots.force();
+    }
+
+    /**
+     * Flushes the table and marks its files as cleanly shut down, so that the next opening does not have to scan the
+     * slots. Any further operation on this instance throws an {@link IllegalStateException}. Closing a closed table
+     * has no effect.
+     * @throws UncheckedIOException if the files cannot be closed.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        slots.putInt(CLEAN_AT, 1);
+        slots.force();
+        closed = true;
+        try {
+            slotsChannel.close();
+            heapChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close " + slotsPath + ".", e);
+        }
+    }
+}
@@ -1,109 +1,667 @@
-package phonebook.hashes;
-
-import phonebook.utils.KVPair;
-import phonebook.utils.PrimeGenerator;
-
-/**
- * <p>{@code OpenAddressingHashTable} is an {@code abstract} class that models <b>openly addressed hash tables</b>, i.e
- * hash tables which store the key-value pairs within the table itself instead of using
- * the table to store pointers to separate buckets. A {@code OpenAddressingHashTable} instance
- * needs to provide <i>amortized constant time</i> for searches, insertions and deletions&quot; soft &quot;
- * or &quot; hard &quot;). It also needs to resize the table when it's getting full or empty, otherwise
- * keys will not be able to be inserted or we will be wasting a lot of memory respectively. This is
- * in contradiction to {@link SeparateChainingHashTable} instances, where resizing is a <i>suggested</i>
- * operation meant to improve efficiency.</p>
- *
- * <p>Essentially, this class allows us to re-use some fields and methods that are common across <b>all</b>
- * of your openly addressed hash tables. For example, <b>all</b> openly addressed {@link HashTable}
- * instances need to contain a one-dimensional array over {@link KVPair} instances, and they also
- * need ab accepted constant for the tombstone and a store for a {@code boolean} variable that
- * determines what kind of deletion we are doing (&quot; soft &quot; or &quot; hard &quot;).</p>
- *
- * <p> DO NOT EDIT THE <b>**** EXISTING ****** </b> FUNCTIONALITY OF THIS CLASS! If there is a method
- * or field that you want <b>all</b> of your openly addressed hash tables to see, you should
- * add it to this class as a {@code protected} field.</p>
- *
- * @author <a href="github.com/JasonFil">Jason Filippou</a>
- *
- * @see HashTable
- * @see KVPair
- * @see SeparateChainingHashTable
- * @see LinearProbingHashTable
- * @see OrderedLinearProbingHashTable
- * @see QuadraticProbingHashTable
- */
-public abstract class OpenAddressingHashTable implements HashTable{
-
-    /* *************************************************************** */
-    /* *** DO NOT EDIT THE FOLLOWING PROTECTED FIELDS AND METHODS! *** */
-    /* *************************************************************** */
-
-    /**
-     * A {@code final} variable which will be used in soft deletion across all our
-     * openly addressed hash tables.
-     */
-    protected KVPair TOMBSTONE = new KVPair("", "");
-
-    /**
-     * A 1D array over {@link KVPair} instances which will hold our Key-Value pairs.
-     */
-    protected KVPair[] table;
-
-    /**
-     * A {@link PrimeGenerator} instance which will be used for resizings of the table.
-     * We must always keep the size of the Hash Table <b>prime</b>, and this instance will
-     * help us with that.
-     *
-     * @see PrimeGenerator
-     */
-    protected PrimeGenerator primeGenerator;
-
-    /**
-     * Initialized to zero, this variable should hold the number of key-value pairs stored in {@code this.}
-     */
-    protected int count;
-
-    /**
-     * A store of the user's preference towards deletion type. {@code true} means soft deletion,
-     * {@code false} means hard.
-     */
-    protected boolean softFlag;
-
-    /**
-     * A hash function that uses the default hash code for {@link String} types, but masks the top
-     * bit to avoid negative hashes.
-     * @param key The {@link String} key to find the hash code of.
-     * @return The hash code of the parameter {@link String} as produced by {@link String#hashCode()},
-     * but with the top bit masked.
-     * @see String#hashCode()
-     */
-    protected int hash(String key) {
-        return (key.hashCode() & 0x7fffffff) % table.length;
-    }
-
-    /**
-     * A {@code public } {@link Object#toString()} overriding we provide for you. Allows you to
-     * print the table to stdout to help you visualize it. Useful for debugging.
-     */
-    @Override
-    public String toString() {
-        StringBuilder ret = new StringBuilder();
-        ret.append("***---***\n");
-        for (int i = 0; i < table.length; i++) {
-            if (table[i] == null)
-                ret.append(i).append(" NULL\n");    // Chained append() is better than constructor with String concatenation.
-            else if (table[i].equals(TOMBSTONE))
-                ret.append(i).append(" TOMBSTONE\n");
-            else
-                ret.append(i).append(" ").append(table[i].getKey()).append("\n");
-        }
-        ret.append("***---***");
-        return ret.toString();
-    }
-
-    /* *************************************************************** */
-    /* *** ADD ANY ADDITIONAL PROTECTED FIELDS OR METHODS HERE: ****** */
-    /* *************************************************************** */
-
-    protected int occCells;
-}
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.Probes;
+
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>{@code OpenAddressingHashTable} is an {@code abstract} class that models <b>openly addressed hash tables</b>, i.e
+ * hash tables which store the key-value pairs within the table itself instead of using
+ * the table to store pointers to separate buckets. A {@code OpenAddressingHashTable} instance
+ * needs to provide <i>amortized constant time</i> for searches, insertions and deletions&quot; soft &quot;
+ * or &quot; hard &quot;). It also needs to resize the table when it's getting full or empty, otherwise
+ * keys will not be able to be inserted or we will be wasting a lot of memory respectively. This is
+ * in contradiction to {@link SeparateChainingHashTable} instances, where resizing is a <i>suggested</i>
+ * operation meant to improve efficiency.</p>
+ *
+ * <p>Essentially, this class allows us to re-use some fields and methods that are common across <b>all</b>
+ * of your openly addressed hash tables. For example, <b>all</b> openly addressed {@link HashTable}
+ * instances need to store their Key-Value pairs in the table itself, and they also
+ * need an accepted constant for the tombstone and a store for a {@code boolean} variable that
+ * determines what kind of deletion we are doing (&quot; soft &quot; or &quot; hard &quot;).</p>
+ *
+ * <p>The table is laid out as a <b>structure of arrays</b> instead of an array of {@link KVPair} instances: slot
+ * {@code i} is described by {@code hashes[i]}, {@code keys[i]} and {@code values[i]}. Caching the hash of every key
+ * means that a probe only calls {@link String#equals(Object)} when the cached hashes agree, and that resizes never
+ * have to call {@link String#hashCode()} again. Slots are always inspected through the {@code protected} helpers
+ * {@link #isEmpty(int)}, {@link #isTombstone(int)}, {@link #isLive(int)} and {@link #holds(int, int, String)}: </p>
+ * <ul>
+ *     <li>An <b>empty</b> slot has a {@code null} key and a cached hash that is not {@link #TOMBSTONE}.</li>
+ *     <li>A <b>tombstone</b> has a {@code null} key and {@link #TOMBSTONE} as its cached hash.</li>
+ *     <li>A <b>live</b> slot has a non-{@code null} key and a non-negative cached hash.</li>
+ * </ul>
+ *
+ * <p> DO NOT EDIT THE <b>**** EXISTING ****** </b> FUNCTIONALITY OF THIS CLASS! If there is a method
+ * or field that you want <b>all</b> of your openly addressed hash tables to see, you should
+ * add it to this class as a {@code protected} field.</p>
+ *
+ * @author <a href="github.com/JasonFil">Jason Filippou</a>
+ *
+ * @see HashTable
+ * @see KVPair
+ * @see SeparateChainingHashTable
+ * @see LinearProbingHashTable
+ * @see OrderedLinearProbingHashTable
+ * @see QuadraticProbingHashTable
+ */
+public abstract class OpenAddressingHashTable implements HashTable{
+
+    /* *************************************************************** */
+    /* *** DO NOT EDIT THE FOLLOWING PROTECTED FIELDS AND METHODS! *** */
+    /* *************************************************************** */
+
+    /**
+     * A {@code final} sentinel hash which will be used in soft deletion across all our
+     * openly addressed hash tables. Since {@link #hash(String)} masks the top bit, no live
+     * key can ever have this cached hash.
+     */
+    protected static final int TOMBSTONE = -1;
+
+    /**
+     * The cached hash of the key stored in every slot, or {@link #TOMBSTONE}.
+     */
+    protected int[] hashes;
+
+    /**
+     * The key stored in every slot, or {@code null} for empty slots and tombstones.
+     */
+    protected String[] keys;
+
+    /**
+     * The value stored in every slot, or {@code null} for empty slots and tombstones.
+     */
+    protected String[] values;
+
+    /**
+     * A {@link PrimeGenerator} instance which will be used for resizings of the table.
+     * We must always keep the size of the Hash Table <b>prime</b>, and this instance will
+     * help us with that.
+     *
+     * @see PrimeGenerator
+     */
+    protected PrimeGenerator primeGenerator;
+
+    /**
+     * Initialized to zero, this variable should hold the number of key-value pairs stored in {@code this.}
+     */
+    protected int count;
+
+    /**
+     * A store of the user's preference towards deletion type. {@code true} means soft deletion,
+     * {@code false} means hard.
+     */
+    protected boolean softFlag;
+
+    /**
+     * A hash function that uses the {@link #hashFunction} of this table ({@link String#hashCode()} by default), but masks
+     * the top bit to avoid negative hashes. This is the value cached in {@link #hashes}; use {@link #indexOf(int)}
+     * to turn it into an address of the table.
+     * @param key The {@link String} key to find the hash code of.
+     * @return The hash code of the parameter {@link String} as produced by {@link #hashFunction},
+     * but with the top bit masked.
+     * @see String#hashCode()
+     */
+    protected int hash(String key) {
+        return hashFunction.hash(key) & 0x7fffffff;
+    }
+
+    /**
+     * Maps a hash produced by {@link #hash(String)} to the slot at which its probe sequence begins: the hash modulo the
+     * capacity, or its {@link #mix(int) mixed} bits under a mask if the {@link #capacityPolicy} is
+     * {@link CapacityPolicy#POWER_OF_TWO}.
+     * @param hash A non-negative hash.
+     * @return An index into the table.
+     */
+    protected int indexOf(int hash) {
+        return (capacityPolicy == CapacityPolicy.POWER_OF_TWO) ? mix(hash) & (hashes.length - 1) : hash % hashes.length;
+    }
+
+    /**
+     * A {@code public } {@link Object#toString()} overriding we provide for you. Allows you to
+     * print the table to stdout to help you visualize it. Useful for debugging.
+     */
+    @Override
+    public String toString() {
+        StringBuilder ret = new StringBuilder();
+        ret.append("***---***\n");
+        for (int i = 0; i < keys.length; i++) {
+            if (isEmpty(i))
+                ret.append(i).append(" NULL\n");    // Chained append() is better than constructor with String concatenation.
+            else if (isTombstone(i))
+                ret.append(i).append(" TOMBSTONE\n");
+            else
+                ret.append(i).append(" ").append(keys[i]).append("\n");
+        }
+        ret.append("***---***");
+        return ret.toString();
+    }
+
+    /* *************************************************************** */
+    /* *** ADD ANY ADDITIONAL PROTECTED FIELDS OR METHODS HERE: ****** */
+    /* *************************************************************** */
+
+    /**
+     * The number of slots that are not empty, i.e live slots <b>and</b> tombstones.
+     */
+    protected int occCells;
+
+    /**
+     * The {@link HashFunction} behind {@link #hash(String)}. {@link HashFunction#DEFAULT} unless a constructor says otherwise.
+     */
+    protected HashFunction hashFunction = HashFunction.DEFAULT;
+
+    /**
+     * Sets the {@link HashFunction} of this table. Only meant to be called by constructors, before any key is hashed.
+     * @param hashFunction The new {@link HashFunction}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}.
+     */
+    protected void setHashFunction(HashFunction hashFunction) {
+        if (hashFunction == null) {
+            throw new IllegalArgumentException("Cannot hash with a null HashFunction.");
+        }
+        this.hashFunction = hashFunction;
+    }
+
+    /**
+     * How the capacity of this table is chosen, and how hashes are mapped to slots. {@link CapacityPolicy#PRIME} unless a
+     * constructor says otherwise.
+     */
+    protected CapacityPolicy capacityPolicy = CapacityPolicy.PRIME;
+
+    /**
+     * The largest capacity of a table whose {@link #capacityPolicy} is {@link CapacityPolicy#POWER_OF_TWO}.
+     */
+    protected static final int MAX_POWER_OF_TWO = 1 << 30;
+
+    /**
+     * Sets the {@link CapacityPolicy} of this table, and replaces its storage with empty storage of the smallest capacity
+     * that the policy allows at or above the current one. Only meant to be called by constructors, before any key is
+     * inserted.
+     * @param capacityPolicy The new {@link CapacityPolicy}.
+     * @throws IllegalArgumentException if capacityPolicy is {@code null}.
+     */
+    protected void setCapacityPolicy(CapacityPolicy capacityPolicy) {
+        if (capacityPolicy == null) {
+            throw new IllegalArgumentException("Cannot size a table with a null CapacityPolicy.");
+        }
+        this.capacityPolicy = capacityPolicy;
+        if (capacityPolicy == CapacityPolicy.POWER_OF_TWO) {
+            allocate(Integer.highestOneBit(hashes.length * 2 - 1));
+        }
+    }
+
+    /**
+     * The finalizer of MurmurHash3: spreads every bit of hash over all the bits of the result, so that the low bits that
+     * a power - of - two mask keeps depend on the whole hash. Two multiplications and three shifts, against the integer
+     * division of a prime modulus.
+     * @param hash A hash.
+     * @return The mixed hash.
+     */
+    protected static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the capacity that the table grows to from capacity: twice it if the {@link #capacityPolicy} is
+     * {@link CapacityPolicy#POWER_OF_TWO}, or the next prime of {@link #primeGenerator} otherwise, which advances it.
+     * @param capacity The current capacity, which must be the current prime of {@link #primeGenerator} under
+     *                 {@link CapacityPolicy#PRIME}.
+     * @return The next capacity.
+     * @throws IllegalStateException if a power - of - two capacity is already {@link #MAX_POWER_OF_TWO}.
+     * @throws phonebook.utils.NoMorePrimesException if a prime capacity is already {@link PrimeGenerator#MAX_PRIME}.
+     */
+    protected int nextCapacity(int capacity) {
+        if (capacityPolicy == CapacityPolicy.PRIME) {
+            return primeGenerator.getNextPrime();
+        }
+        if (capacity >= MAX_POWER_OF_TWO) {
+            throw new IllegalStateException("A table cannot grow past " + MAX_POWER_OF_TWO + " slots.");
+        }
+        return capacity << 1;
+    }
+
+    /**
+     * Replaces the storage of this table with empty arrays of the provided length.
+     * @param capacity The number of slots of the new storage.
+     */
+    protected void allocate(int capacity) {
+        hashes = new int[capacity];
+        keys = new String[capacity];
+        values = new String[capacity];
+    }
+
+    /**
+     * Queries whether slot has never held a key since the last resize or hard deletion.
+     * @param slot An index into the table.
+     * @return {@code true} if, and only if, the slot is empty.
+     */
+    protected boolean isEmpty(int slot) {
+        return keys[slot] == null && hashes[slot] != TOMBSTONE;
+    }
+
+    /**
+     * Queries whether slot holds a tombstone left by a soft deletion.
+     * @param slot An index into the table.
+     * @return {@code true} if, and only if, the slot holds a tombstone.
+     */
+    protected boolean isTombstone(int slot) {
+        return hashes[slot] == TOMBSTONE;
+    }
+
+    /**
+     * Queries whether slot holds a key - value pair.
+     * @param slot An index into the table.
+     * @return {@code true} if, and only if, the slot holds a pair.
+     */
+    protected boolean isLive(int slot) {
+        return keys[slot] != null;
+    }
+
+    /**
+     * Queries whether slot holds the provided key. {@link String#equals(Object)} is only called when the
+     * cached hash of the slot is equal to hash.
+     * @param slot An index into the table.
+     * @param hash The hash of key, as produced by {@link #hash(String)}.
+     * @param key The key to compare against.
+     * @return {@code true} if, and only if, the slot holds key.
+     */
+    protected boolean holds(int slot, int hash, String key) {
+        return hashes[slot] == hash && key.equals(keys[slot]);
+    }
+
+    /**
+     * Stores a pair in slot, overwriting whatever the slot held. Counters are <b>not</b> updated.
+     * @param slot An index into the table.
+     * @param hash The hash of key, as produced by {@link #hash(String)}.
+     * @param key The key to store.
+     * @param value The value to store.
+     */
+    protected void fill(int slot, int hash, String key, String value) {
+        hashes[slot] = hash;
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Replaces the pair in slot with a tombstone. Counters are <b>not</b> updated.
+     * @param slot An index into the table.
+     */
+    protected void bury(int slot) {
+        hashes[slot] = TOMBSTONE;
+        keys[slot] = null;
+        values[slot] = null;
+    }
+
+    /**
+     * Empties slot. Counters are <b>not</b> updated.
+     * @param slot An index into the table.
+     */
+    protected void vacate(int slot) {
+        hashes[slot] = 0;
+        keys[slot] = null;
+        values[slot] = null;
+    }
+
+    /**
+     * Inserts a pair whose key is known <b>not</b> to be in the table, following the probe sequence and
+     * ordering rules of the implementing class. This method never resizes the table, but it does update
+     * {@link #count} and {@link #occCells}.
+     * @param hash The cached hash of key.
+     * @param key The key to insert.
+     * @param value The value to insert.
+     * @return The number of probes it took to insert the pair.
+     */
+    protected abstract int place(int hash, String key, String value);
+
+    /**
+     * Moves every live pair into new storage of the provided capacity, dropping all tombstones. The cached
+     * hashes are re-used, so no key is hashed or compared for equality.
+     * @param capacity The capacity of the new storage.
+     * @return The number of probes it took to move every pair: one per old slot, plus the probes of every re-insertion.
+     */
+    protected int rehash(int capacity) {
+        int[] oldHashes = hashes;
+        String[] oldKeys = keys;
+        String[] oldValues = values;
+        allocate(capacity);
+        count = 0;
+        occCells = 0;
+        int probes = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null)
+                probes += place(oldHashes[i], oldKeys[i], oldValues[i]);
+            probes++;
+        }
+        return probes;
+    }
+
+    /* *************************************************************** */
+    /* ****************** Incremental resizing ********************** */
+    /* *************************************************************** */
+
+    /**
+     * The number of slots of {@link #retiring} that every operation moves into the current storage while
+     * an incremental resize is in progress.
+     */
+    protected static final int MIGRATION_STEP = 8;
+
+    /**
+     * {@code true} if this table enlarges <b>incrementally</b>: instead of moving every pair into the new storage
+     * within the insertion that triggers the resize, the old storage is kept alive as {@link #retiring}, and every
+     * subsequent operation moves at most {@link #MIGRATION_STEP} of its slots. {@code false} by default.
+     */
+    protected boolean incremental;
+
+    /**
+     * While an incremental resize is in progress, a table of the same type that holds the old storage, whose pairs
+     * have not all been moved yet. Searches that fail in the current storage continue in this table. Deletions from it
+     * are always soft, so that its probe sequences stay intact until it is discarded. {@code null} at all other times.
+     */
+    protected OpenAddressingHashTable retiring;
+
+    // The next slot of retiring to be moved.
+    private int migrationCursor;
+
+    /**
+     * Creates a new, empty table of the same type as this one, with the same probing rules. Used to hold the old storage
+     * during an incremental resize, which hands it the {@link #hashFunction} of this table.
+     * @return A new, empty table of the same type as {@code this}.
+     */
+    protected abstract OpenAddressingHashTable emptyCopy();
+
+    /**
+     * The number of slots that will be occupied once any resize in progress is over: the live slots and
+     * tombstones of the current storage, plus the pairs that are still waiting in {@link #retiring}.
+     * @return The number of slots that count towards the load factor of this table.
+     */
+    protected int occupied() {
+        return (retiring == null) ? occCells : occCells + retiring.count;
+    }
+
+    /**
+     * Enlarges the table to the provided capacity. Unless the table is {@link #incremental}, this is just
+     * {@link #rehash(int)}. Otherwise, any previous resize is finished first, and the current storage is handed over
+     * to {@link #retiring} without moving a single pair.
+     * @param capacity The capacity of the new storage.
+     * @return The number of probes spent in this call.
+     */
+    protected int grow(int capacity) {
+        if (!incremental) {
+            return rehash(capacity);
+        }
+        int probes = migrate(Integer.MAX_VALUE);
+        OpenAddressingHashTable old = emptyCopy();
+        old.hashFunction = hashFunction;  // Searches that fall through to retiring must hash their keys the same way.
+        old.capacityPolicy = capacityPolicy;
+        old.hashes = hashes;
+        old.keys = keys;
+        old.values = values;
+        old.count = count;
+        old.occCells = occCells;
+        old.softFlag = true;
+        retiring = old;
+        migrationCursor = 0;
+        allocate(capacity);
+        count = 0;
+        occCells = 0;
+        return probes;
+    }
+
+    /**
+     * Moves at most budget slots of {@link #retiring} into the current storage, and discards {@link #retiring} once
+     * all of its slots have been moved. Does nothing if no resize is in progress.
+     * @param budget The maximum number of slots to move.
+     * @return The number of probes spent: one per slot moved, plus the probes of every re-insertion.
+     */
+    protected int migrate(int budget) {
+        if (retiring == null) {
+            return 0;
+        }
+        int probes = 0;
+        int end = (int)Math.min(retiring.keys.length, (long)migrationCursor + budget);
+        for (; migrationCursor < end; migrationCursor++) {
+            if (retiring.isLive(migrationCursor)) {
+                probes += place(retiring.hashes[migrationCursor], retiring.keys[migrationCursor], retiring.values[migrationCursor]);
+                retiring.bury(migrationCursor);
+                retiring.count--;
+            }
+            probes++;
+        }
+        if (migrationCursor == retiring.keys.length) {
+            assert retiring.count == 0 : "migrate(): " + retiring.count + " pairs were left behind.";
+            retiring = null;
+        }
+        return probes;
+    }
+
+    /**
+     * Completes the result of a search that failed in the current storage with the result of the same search in
+     * {@link #retiring}, if there was one.
+     * @param old The result of the search in {@link #retiring}, or {@code null} if no resize is in progress.
+     * @param probes The probes spent in the current storage.
+     * @return The combined {@link Probes}.
+     */
+    protected Probes missed(Probes old, int probes) {
+        return (old == null) ? new Probes(null, probes) : new Probes(old.getValue(), probes + old.getProbes());
+    }
+
+    /* *************************************************************** */
+    /* ******************** Tombstone compaction ******************** */
+    /* *************************************************************** */
+
+    /**
+     * The fraction of the table that tombstones may take up before a soft deletion compacts the table, or 1 if
+     * compaction is disabled, which is the default.
+     */
+    protected double compactionThreshold = 1.0;
+
+    /**
+     * The total number of tombstones dropped by compactions. Tombstones dropped by resizes that grow the table are
+     * not counted.
+     */
+    protected long reclaimed;
+
+    /**
+     * Enables automatic compaction of this table: whenever a soft deletion leaves more than threshold &times;
+     * {@link #capacity()} tombstones behind, the table is rebuilt at the <b>same</b> capacity without any of them.
+     * Non-{@link #incremental} tables are rebuilt within that deletion, whose {@link Probes} include the probes of the
+     * rebuild. Incremental tables hand their storage over to {@link #retiring}, like a resize does, so that the rebuild
+     * is spread over the operations that follow.
+     * @param threshold A fraction of the capacity in (0, 1]. 1 disables compaction, since a table is never full of
+     *                  tombstones.
+     * @throws IllegalArgumentException if threshold is not in (0, 1].
+     */
+    public void setCompactionThreshold(double threshold) {
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("Compaction threshold must be in (0, 1], was " + threshold + ".");
+        }
+        compactionThreshold = threshold;
+    }
+
+    /**
+     * Compacts the table if its tombstones have gone past {@link #compactionThreshold}. Meant to be called by soft
+     * deletions, right after they bury a pair. Does nothing while a resize is in progress, since that resize drops the
+     * tombstones of the current storage anyway.
+     * @return The number of probes spent by the compaction, if there was one.
+     */
+    protected int compactIfNeeded() {
+        int tombstones = occCells - count;
+        if (retiring != null || tombstones <= compactionThreshold * hashes.length) {
+            return 0;
+        }
+        reclaimed += tombstones;
+        return grow(hashes.length);
+    }
+
+    @Override
+    public long reclaimedSlots() {
+        return reclaimed;
+    }
+
+    /* *************************************************************** */
+    /* ************************* Value index ************************* */
+    /* *************************************************************** */
+
+    /**
+     * The index of the values of this table, or {@code null} if {@link #containsValue(String)} scans the table, which is
+     * the default. Covers the pairs of {@link #retiring} as well.
+     */
+    protected ValueIndex valueIndex;
+
+    /**
+     * Queries whether the insertions and deletions of this type of table keep a {@link ValueIndex} up to date, through
+     * {@link #indexed(String, String)}. {@code false} unless overridden.
+     * @return {@code true} if, and only if, {@link #enableValueIndex()} is supported.
+     */
+    protected boolean supportsValueIndex() {
+        return false;
+    }
+
+    /**
+     * Records in {@link #valueIndex}, if there is one, that a pair with value added appeared and a pair with value
+     * removed went away. Must be called by every insertion and deletion that changes the <b>values</b> of the table,
+     * but not when pairs are merely moved around.
+     * @param added The value of the new pair, or {@code null} if none appeared.
+     * @param removed The value of the pair that went away, or {@code null} if none did.
+     */
+    protected void indexed(String added, String removed) {
+        if (valueIndex != null) {
+            if (removed != null) {
+                valueIndex.remove(removed);
+            }
+            if (added != null) {
+                valueIndex.add(added);
+            }
+        }
+    }
+
+    /**
+     * Builds an index of the values of this table, which is kept up to date from then on, so that
+     * {@link #containsValue(String)} runs in amortized constant time instead of scanning the whole table. A Bloom filter
+     * in front of the index rejects most absent values after a few bit tests. See {@link #valueIndexFootprint()} for the
+     * memory that this costs. Has no effect if the index is already enabled.
+     * @throws UnsupportedOperationException if this type of table does not maintain a value index.
+     */
+    public void enableValueIndex() {
+        if (!supportsValueIndex()) {
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot index its values.");
+        }
+        if (valueIndex != null) {
+            return;
+        }
+        ValueIndex index = new ValueIndex(hashFunction);
+        for (OpenAddressingHashTable storage = this; storage != null; storage = storage.retiring) {
+            for (int i = 0; i < storage.keys.length; i++) {
+                if (storage.isLive(i)) {
+                    index.add(storage.values[i]);
+                }
+            }
+        }
+        valueIndex = index;
+    }
+
+    /**
+     * Drops the index of the values of this table, if there is one, so that {@link #containsValue(String)} scans the table again.
+     */
+    public void disableValueIndex() {
+        valueIndex = null;
+    }
+
+    /**
+     * @return An estimate of the heap taken up by the value index of this table, in bytes, or 0 if it is not enabled.
+     */
+    public long valueIndexFootprint() {
+        return (valueIndex == null) ? 0 : valueIndex.footprint();
+    }
+
+    /* *************************************************************** */
+    /* ************************ Bulk loading ************************* */
+    /* *************************************************************** */
+
+    /**
+     * The fraction of the table that may be occupied before an insertion enlarges it. 50&#37; unless overridden.
+     * @return The maximum load factor of this table.
+     */
+    protected double maxLoadFactor() {
+        return 0.5;
+    }
+
+    /**
+     * Enlarges the table, at most once, to the smallest capacity offered by {@link #nextCapacity(int)} that can take
+     * additional more pairs without going past {@link #maxLoadFactor()}, so that none of their insertions resizes.
+     * @param additional The number of pairs about to be inserted.
+     * @return The number of probes spent by the resize, if there was one.
+     */
+    @Override
+    public int reserve(int additional) {
+        long needed = (long) occupied() + additional + 1;
+        int capacity = hashes.length;
+        while (needed > maxLoadFactor() * capacity) {
+            capacity = nextCapacity(capacity);
+        }
+        return (capacity == hashes.length) ? 0 : grow(capacity);
+    }
+
+    /**
+     * Inserts every pair of pairs, after enlarging the table <b>once</b> to a capacity that can hold all of them
+     * (see {@link #reserve(int)}), instead of going through every intermediate prime.
+     * @param pairs The pairs to insert.
+     * @throws IllegalArgumentException if any key or value is {@code null}. The pairs before it have been inserted.
+     * @return The total number of probes made by the insertions, including those of the resize.
+     */
+    @Override
+    public int putAll(Collection<KVPair> pairs) {
+        int probes = reserve(pairs.size());
+        for (KVPair pair : pairs) {
+            probes += put(pair.getKey(), pair.getValue()).getProbes();
+        }
+        return probes;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        if (valueIndex != null) {
+            return valueIndex.contains(value);
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (isLive(i) && values[i].equals(value)) {
+                return true;
+            }
+        }
+        return retiring != null && retiring.containsValue(value);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (isLive(i)) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+        if (retiring != null) {
+            retiring.forEach(action);
+        }
+    }
+
+    @Override
+    public int size() {
+        return (retiring == null) ? count : count + retiring.count;
+    }
+
+    @Override
+    public int capacity() {
+        return keys.length;
+    }
+
+    @Override
+    public int tombstones() {
+        return occCells - count;
+    }
+}
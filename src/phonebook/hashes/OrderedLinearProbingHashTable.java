@@ -1,324 +1,385 @@
-package phonebook.hashes;
-
-import java.util.ArrayList;
-
-import phonebook.exceptions.UnimplementedMethodException;
-import phonebook.utils.KVPair;
-import phonebook.utils.PrimeGenerator;
-import phonebook.utils.Probes;
-
-/**
- * <p>{@link OrderedLinearProbingHashTable} is an Openly Addressed {@link HashTable} implemented with
- * <b>Ordered Linear Probing</b> as its collision resolution strategy: every key collision is resolved by moving
- * one address over, and the keys in the chain is in order. It suffer from the &quot; clustering &quot; problem:
- * collision resolutions tend to cluster collision chains locally, making it hard for new keys to be
- * inserted without collisions. {@link QuadraticProbingHashTable} is a {@link HashTable} that
- * tries to avoid this problem, albeit sacrificing cache locality.</p>
- *
- * @author YOUR NAME HERE!
- *
- * @see HashTable
- * @see SeparateChainingHashTable
- * @see LinearProbingHashTable
- * @see QuadraticProbingHashTable
- * @see CollisionResolver
- */
-public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
-
-    /* ********************************************************************/
-    /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
-    /* ********************************************************************/
-
-	private Probes resize(KVPair[] table) {
-		OrderedLinearProbingHashTable newTable = new OrderedLinearProbingHashTable(softFlag); 
-		newTable.table = new KVPair[primeGenerator.getNextPrime()];
-		
-		int probes = 0;
-		
-		for(int i = 0; i < table.length; i++) {
-			if (table[i] != null && table[i] != TOMBSTONE) {
-				KVPair pair = table[i];
-				probes += newTable.put(pair.getKey(), pair.getValue()).getProbes();
-			}
-			
-			probes++;
-		}
-		
-		this.table = newTable.table;
-		this.count = newTable.count;
-		this.occCells = newTable.occCells;
-		
-		return new Probes(null, probes);
-	}
-	
-	private Probes reinsert(int index) {
-		System.out.println("Reinserting:");
-		ArrayList<KVPair> temp = new ArrayList<KVPair>();
-		int probes = 0;
-		while (table[index] != null && table[index] != TOMBSTONE) {
-			temp.add(table[index]);
-			System.out.println(table[index].getKey());
-			table[index] = null;
-			
-			probes++;
-			index++;
-			count--;
-			
-			if (index >= table.length) {
-				index = 0;
-			}
-		}
-		
-		probes++;
-		
-		//Collections.reverse(temp);
-		
-		for(KVPair pair : temp) {
-			probes += this.put(pair.getKey(), pair.getValue()).getProbes();
-		}
-		
-		/*LinearProbingHashTable newTable = new LinearProbingHashTable(softFlag); 
-		newTable.table = new KVPair[primeGenerator.getCurrPrime()];
-		
-		int probes = 0;
-		
-		for(int j = 0; j < table.length; j++) {
-			if (table[j] != null) {
-				KVPair pair = table[j];
-				probes += newTable.put(pair.getKey(), pair.getValue()).getProbes();
-			}
-			
-			probes++;
-		}
-		
-		this.table = newTable.table;
-		this.count = newTable.count;
-		this.occCells = newTable.occCells;*/
-		
-		return new Probes(null, probes);
-	}
-	
-    /* ******************************************/
-    /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
-    /* **************************************** */
-
-    /**
-     * Constructor with soft deletion option. Initializes the internal storage with a size equal to the starting value of  {@link PrimeGenerator}.
-     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
-     *               we want soft deletion, {@code false} otherwise.
-     */
-    public OrderedLinearProbingHashTable(boolean soft){
-    	primeGenerator = new PrimeGenerator();
-        table = new KVPair[primeGenerator.getCurrPrime()];
-        count = 0;
-        occCells = 0;
-        softFlag = soft;
-    }
-
-
-
-    /**
-     * Inserts the pair &lt;key, value&gt; into this. The container should <b>not</b> allow for {@code null}
-     * keys and values, and we <b>will</b> test if you are throwing a {@link IllegalArgumentException} from your code
-     * if this method is given {@code null} arguments! It is important that we establish that no {@code null} entries
-     * can exist in our database because the semantics of {@link #get(String)} and {@link #remove(String)} are that they
-     * return {@code null} if, and only if, their key parameter is {@code null}. This method is expected to run in <em>amortized
-     * constant time</em>.
-     *
-     * Different from {@link LinearProbingHashTable}, the keys in the chain are <b>in order</b>. As a result, we might increase
-     * the cost of insertion and reduce the cost on search miss. One thing to notice is that, in soft deletion, we ignore
-     * the tombstone during the reordering of the keys in the chain. We will have some example in the writeup.
-     *
-     * Instances of {@link OrderedLinearProbingHashTable} will follow the writeup's guidelines about how to internally resize
-     * the hash table when the capacity exceeds 50&#37;
-     * @param key The record's key.
-     * @param value The record's value.
-     * @throws IllegalArgumentException if either argument is {@code null}.
-     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
-     */
-    @Override
-    public Probes put(String key, String value) {
-    	if (key.equals(null) == true || value.equals(null) == true) {
-        	throw new IllegalArgumentException();
-        }
-    	
-    	int probes = 0;
-    	double cap = (double)occCells / table.length;
-    	
-    	if (cap > 0.50) {
-    		probes += resize(table).getProbes();
-    	}
-        
-    	int index = hash(key) % table.length;
-        
-        if (table[index] == null || table[index] == TOMBSTONE) {
-        	table[index] = new KVPair(key, value);
-        	probes++;
-        	count++;
-        	occCells++;
-        	
-        	return new Probes(value, probes);
-        }
-        
-    	KVPair pair = new KVPair(key, value);
-    	while (!(table[index] == null) && !(table[index] == TOMBSTONE)) {
-    		if (table[index].getKey().compareTo(pair.getKey()) > 0) {
-    			KVPair temp = table[index];
-    			table[index] = pair;
-    			pair = temp;
-    		}
-    		
-    		index++;
-    		
-    		if (index == table.length) {
-    			index = 0;
-    		}
-    		
-    		probes++;
-    	}
-    	
-    	table[index] = pair;
-    	
-    	probes++;
-    	count++;
-    	occCells++;
-        
-        return new Probes(value, probes);
-    }
-
-    @Override
-    public Probes get(String key) {
-    	int index = hash(key) % table.length;
-        int probes = 0; 
-        String value = null;
-        
-        while ((!(table[index] == null) && !(table[index] == TOMBSTONE)) && !table[index].getKey().equals(key)) {
-        	if (table[index].getKey().compareTo(key) > 0) {
-        		break;
-        	}
-        	
-        	index++;
-        	
-        	if (index == table.length) {
-        		index = 0;
-        	}
-        	
-        	probes++;
-        }
-        
-    	if (table[index] != null && table[index].getKey().equals(key)) {
-        	value = table[index].getValue();
-        }
-        
-        probes++;
-        
-        return new Probes(value, probes);
-    }
-
-
-    /**
-     * <b>Return</b> the value associated with key in the {@link HashTable}, and <b>remove</b> the {@link phonebook.utils.KVPair} from the table.
-     * If key does not exist in the database
-     * or if key = {@code null}, this method returns {@code null}. This method is expected to run in <em>amortized constant time</em>.
-     *
-     * @param key The key to search for.
-     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
-     * and 0 as number of probes; if the key doesn't exist in the database, return {@code null} and the number of probes used.
-     */
-    @Override
-    public Probes remove(String key) {
-    	System.out.println(this.toString());
-    	System.out.println(key);
-    	if (key == null) {
-    		return new Probes(null, 0);
-    	}
-    	
-    	int index = hash(key) % table.length;
-    	System.out.println(index);
-    	int probes = 0;
-    	String value = null;
-    	
-    	while ((!(table[index] == null)) && !table[index].getKey().equals(key)) {
-    		index++;
-    		
-    		if (index == table.length) {
-    			index = 0;
-    		}
-    		
-    		probes++;
-    	}
-    	
-    	probes++;
-    	
-    	if (table[index] != null && table[index].getKey().equals(key)) {
-    		value = table[index].getValue();
-    		if (softFlag) {
-    			table[index] = TOMBSTONE;
-    			count--;
-    		} else {
-    			table[index] = null;
-    			count--;
-    			occCells--;
-    			
-    			if (index == table.length - 1) {
-    				probes += reinsert(0).getProbes();
-    			} else {
-    				probes += reinsert(index + 1).getProbes();
-    			}
-    		}
-    		System.out.println("After deletion:\n");
-    		System.out.println(this.toString());
-    	} else {
-    		return new Probes(value, probes);
-    	}
-    	
-    	return new Probes(value, probes);
-    }
-
-    @Override
-    public boolean containsKey(String key) {
-    	int index = hash(key) % table.length;
-    	
-    	while ((!(table[index] == null) && !(table[index] == TOMBSTONE)) && !table[index].getKey().equals(key)) {
-    		if (table[index].getKey().compareTo(key) > 0) {
-        		break;
-        	}
-    		
-    		index++;
-    		
-			if (index == table.length) {
-				index = 0;
-			}
-    	}
-    	
-    	if (table[index] != null && table[index].getKey().equals(key)) {
-    		return true;
-    	} else {
-    		return false;
-    	}
-    }
-
-    @Override
-    public boolean containsValue(String value) {
-    	for (int i = 0; i < table.length; i++) {
-        	if (table[i] != null || table[i] != TOMBSTONE) {
-        		if (table[i].getValue().equals(value)) {
-        			return true;
-        		}
-        	}
-        }
-        
-        return false;
-    }
-
-    @Override
-    public int size() {
-        return count;
-    }
-
-    @Override
-    public int capacity() {
-        return table.length;
-    }
-
-}
+package phonebook.hashes;
+
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+/**
+ * <p>{@link OrderedLinearProbingHashTable} is an Openly Addressed {@link HashTable} implemented with
+ * <b>Ordered Linear Probing</b> as its collision resolution strategy: every key collision is resolved by moving
+ * one address over, and the keys in the chain is in order. It suffer from the &quot; clustering &quot; problem:
+ * collision resolutions tend to cluster collision chains locally, making it hard for new keys to be
+ * inserted without collisions. {@link QuadraticProbingHashTable} is a {@link HashTable} that
+ * tries to avoid this problem, albeit sacrificing cache locality.</p>
+ *
+ * @author YOUR NAME HERE!
+ *
+ * @see HashTable
+ * @see SeparateChainingHashTable
+ * @see LinearProbingHashTable
+ * @see QuadraticProbingHashTable
+ * @see CollisionResolver
+ */
+public class OrderedLinearProbingHashTable extends OpenAddressingHashTable {
+
+    /* ********************************************************************/
+    /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
+    /* ********************************************************************/
+
+	// The number of probes made by the last call to lookup(), insert() or delete(), which return no Probes.
+	private int lastProbes;
+
+	// Scratch space of reinsert(), kept from one hard deletion to the next.
+	private int[] clusterHashes = new int[0];
+	private String[] clusterKeys = new String[0];
+	private String[] clusterValues = new String[0];
+
+	private int next(int index) {
+		return (index == hashes.length - 1) ? 0 : index + 1;
+	}
+
+	private int resize() {
+		return grow(primeGenerator.getNextPrime());
+	}
+	
+	// Takes the cluster that follows a hard-deleted slot out of the table and places it back, so that
+	// none of its keys is cut off from its home slot by the new empty slot.
+	private int reinsert(int index) {
+		int probes = 0;
+		int start = index;
+		int length = 0;
+		while (isLive(index)) {
+			probes++;
+			length++;
+			index = next(index);
+		}
+		
+		probes++;
+		
+		if (clusterHashes.length < length) {
+			int capacity = Math.max(length, 2 * clusterHashes.length);
+			clusterHashes = new int[capacity];
+			clusterKeys = new String[capacity];
+			clusterValues = new String[capacity];
+		}
+		index = start;
+		for (int i = 0; i < length; i++) {
+			clusterHashes[i] = hashes[index];
+			clusterKeys[i] = keys[index];
+			clusterValues[i] = values[index];
+			vacate(index);
+			count--;
+			occCells--;
+			index = next(index);
+		}
+		
+		for (int i = 0; i < length; i++) {
+			probes += place(clusterHashes[i], clusterKeys[i], clusterValues[i]);
+			clusterKeys[i] = null;
+			clusterValues[i] = null;
+		}
+		
+		return probes;
+	}
+	
+	// Searches for key, and leaves the number of probes made in lastProbes. Returns the value of key, or null.
+	private String lookup(String key) {
+		if (key == null) {
+			lastProbes = 0;
+			return null;
+		}
+		
+		int hash = hash(key);
+		int index = indexOf(hash);
+		int probes = 1 + migrate(MIGRATION_STEP);
+		
+		while (!isEmpty(index)) {
+			if (holds(index, hash, key)) {
+				lastProbes = probes;
+				return values[index];
+			}
+			
+			if (isLive(index) && keys[index].compareTo(key) > 0) {
+				break;
+			}
+			
+			index = next(index);
+			probes++;
+		}
+		
+		if (retiring == null) {
+			lastProbes = probes;
+			return null;
+		}
+		OrderedLinearProbingHashTable old = (OrderedLinearProbingHashTable) retiring;
+		String value = old.lookup(key);
+		lastProbes = probes + old.lastProbes;
+		return value;
+	}
+	
+	// Inserts or updates the pair <key, value>, and leaves the number of probes made in lastProbes. Returns true if,
+	// and only if, key was not in the table.
+	private boolean insert(String key, String value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException();
+		}
+		
+		int probes = migrate(MIGRATION_STEP);
+		double cap = (double)occupied() / hashes.length;
+		
+		if (cap > 0.50) {
+			probes += resize();
+		}
+		
+		// A key that is still in retiring is moved over, so it is updated rather than added.
+		boolean moved = false;
+		if (retiring != null) {
+			OrderedLinearProbingHashTable old = (OrderedLinearProbingHashTable) retiring;
+			String previous = old.delete(key);
+			probes += old.lastProbes;
+			indexed(null, previous);
+			moved = previous != null;
+		}
+		
+		int hash = hash(key);
+		int index = indexOf(hash);
+		
+		// Since the chain is sorted, key can only be in the table before the first greater key that we meet.
+		while (!isEmpty(index) && !(isLive(index) && keys[index].compareTo(key) > 0)) {
+			if (holds(index, hash, key)) {
+				indexed(value, values[index]);
+				values[index] = value;
+				lastProbes = probes + 1;
+				return false;
+			}
+			
+			index = next(index);
+			probes++;
+		}
+		
+		indexed(value, null);
+		lastProbes = probes + place(hash, key, value);
+		return !moved;
+	}
+	
+	// Deletes key, and leaves the number of probes made in lastProbes. Returns the value of key, or null.
+	private String delete(String key) {
+		if (key == null) {
+			lastProbes = 0;
+			return null;
+		}
+		
+		int hash = hash(key);
+		int index = indexOf(hash);
+		int probes = 1 + migrate(MIGRATION_STEP);
+		
+		while (!isEmpty(index) && !holds(index, hash, key)) {
+			index = next(index);
+			probes++;
+		}
+		
+		if (isEmpty(index)) {
+			String value = null;
+			if (retiring != null) {
+				OrderedLinearProbingHashTable old = (OrderedLinearProbingHashTable) retiring;
+				value = old.delete(key);
+				probes += old.lastProbes;
+			}
+			indexed(null, value);
+			lastProbes = probes;
+			return value;
+		}
+		
+		String value = values[index];
+		indexed(null, value);
+		count--;
+		if (softFlag) {
+			bury(index);
+			probes += compactIfNeeded();
+		} else {
+			vacate(index);
+			occCells--;
+			probes += reinsert(next(index));
+		}
+		
+		lastProbes = probes;
+		return value;
+	}
+	
+	// Walks the cluster from the home slot of the pair, swapping the carried pair with every greater key that it
+	// meets, until an empty slot is found. Tombstones are ignored during the reordering, so that the live keys of
+	// every chain stay sorted.
+	@Override
+	protected int place(int hash, String key, String value) {
+		int index = indexOf(hash);
+		int probes = 1;
+		while (!isEmpty(index)) {
+			if (isLive(index) && keys[index].compareTo(key) > 0) {
+				int tempHash = hashes[index];
+				String tempKey = keys[index];
+				String tempValue = values[index];
+				fill(index, hash, key, value);
+				hash = tempHash;
+				key = tempKey;
+				value = tempValue;
+			}
+			
+			index = next(index);
+			probes++;
+		}
+		
+		fill(index, hash, key, value);
+		count++;
+		occCells++;
+		return probes;
+	}
+	
+	@Override
+	protected OpenAddressingHashTable emptyCopy() {
+		return new OrderedLinearProbingHashTable(softFlag);
+	}
+
+	@Override
+	protected boolean supportsValueIndex() {
+		return true;
+	}
+	
+    /* ******************************************/
+    /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
+    /* **************************************** */
+
+    /**
+     * Constructor with soft deletion option. Initializes the internal storage with a size equal to the starting value of  {@link PrimeGenerator}.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     */
+    public OrderedLinearProbingHashTable(boolean soft) {
+        this(soft, false);
+    }
+
+    /**
+     * Constructor with soft deletion and incremental resizing options. Initializes the internal storage with a size equal
+     * to the starting value of {@link PrimeGenerator}. An incremental table never moves all of its pairs within a single
+     * operation: the old storage stays searchable while every later operation moves a bounded number of its slots.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param incremental {@code true} if and only if the table should enlarge incrementally, {@code false} otherwise.
+     */
+    public OrderedLinearProbingHashTable(boolean soft, boolean incremental) {
+        this(soft, incremental, HashFunction.DEFAULT);
+    }
+
+    /**
+     * Constructor with soft deletion, incremental resizing and hash function options. Initializes the internal storage with a size equal
+     * to the starting value of {@link PrimeGenerator}. An incremental table never moves all of its pairs within a single
+     * operation: the old storage stays searchable while every later operation moves a bounded number of its slots.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param incremental {@code true} if and only if the table should enlarge incrementally, {@code false} otherwise.
+     * @param hashFunction The {@link HashFunction} with which keys are hashed, e.g a {@link SeededHashFunction}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}.
+     */
+    public OrderedLinearProbingHashTable(boolean soft, boolean incremental, HashFunction hashFunction) {
+    	primeGenerator = new PrimeGenerator();
+        allocate(primeGenerator.getCurrPrime());
+        count = 0;
+        occCells = 0;
+        softFlag = soft;
+        this.incremental = incremental;
+        setHashFunction(hashFunction);
+    }
+
+
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. The container should <b>not</b> allow for {@code null}
+     * keys and values, and we <b>will</b> test if you are throwing a {@link IllegalArgumentException} from your code
+     * if this method is given {@code null} arguments! It is important that we establish that no {@code null} entries
+     * can exist in our database because the semantics of {@link #get(String)} and {@link #remove(String)} are that they
+     * return {@code null} if, and only if, their key parameter is {@code null}. This method is expected to run in <em>amortized
+     * constant time</em>.
+     *
+     * Different from {@link LinearProbingHashTable}, the keys in the chain are <b>in order</b>. As a result, we might increase
+     * the cost of insertion and reduce the cost on search miss. One thing to notice is that, in soft deletion, we ignore
+     * the tombstone during the reordering of the keys in the chain. We will have some example in the writeup.
+     *
+     * Instances of {@link OrderedLinearProbingHashTable} will follow the writeup's guidelines about how to internally resize
+     * the hash table when the capacity exceeds 50&#37;. If key is already in the table, its value is <b>updated</b>.
+     * @param key The record's key.
+     * @param value The record's value.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     */
+    @Override
+    public Probes put(String key, String value) {
+    	insert(key, value);
+    	return new Probes(value, lastProbes);
+    }
+
+    @Override
+    public boolean putValue(String key, String value) {
+    	boolean added = insert(key, value);
+    	ProbeCounter.add(lastProbes);
+    	return added;
+    }
+
+    @Override
+    public Probes get(String key) {
+    	return new Probes(lookup(key), lastProbes);
+    }
+
+    @Override
+    public String getValue(String key) {
+    	String value = lookup(key);
+    	ProbeCounter.add(lastProbes);
+    	return value;
+    }
+
+
+    /**
+     * <b>Return</b> the value associated with key in the {@link HashTable}, and <b>remove</b> the {@link phonebook.utils.KVPair} from the table.
+     * If key does not exist in the database
+     * or if key = {@code null}, this method returns {@code null}. This method is expected to run in <em>amortized constant time</em>.
+     *
+     * @param key The key to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
+     * and 0 as number of probes; if the key doesn't exist in the database, return {@code null} and the number of probes used.
+     */
+    @Override
+    public Probes remove(String key) {
+    	return new Probes(delete(key), lastProbes);
+    }
+
+    @Override
+    public String removeValue(String key) {
+    	String value = delete(key);
+    	ProbeCounter.add(lastProbes);
+    	return value;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+    	if (key == null) {
+    		return false;
+    	}
+    	
+    	migrate(MIGRATION_STEP);
+    	int hash = hash(key);
+    	int index = indexOf(hash);
+    	
+    	while (!isEmpty(index)) {
+    		if (holds(index, hash, key)) {
+    			return true;
+    		}
+    		
+    		if (isLive(index) && keys[index].compareTo(key) > 0) {
+    			break;
+    		}
+    		
+    		index = next(index);
+    	}
+    	
+    	return retiring != null && retiring.containsKey(key);
+    }
+
+}
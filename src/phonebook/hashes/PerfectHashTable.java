@@ -0,0 +1,423 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>{@link PerfectHashTable} is an <b>immutable</b> {@link HashTable}, built once from the pairs of another table with
+ * a <b>minimal perfect hash function</b> in the style of <em>CHD</em> (&quot;compress, hash and displace&quot;): every
+ * key of the table is sent to a slot of its own, so a search computes one hash, jumps to one slot, and compares the key
+ * stored there with the one it looks for. There is no probing at all, and every search, successful or not, reports
+ * exactly 1 {@link Probes}.</p>
+ *
+ * <p>To build the table, the keys are first spread over a few <em>buckets</em>, about {@link #KEYS_PER_BUCKET} per
+ * bucket, by a 64 - bit {@link SeededHashFunction}. The buckets are then placed from the largest to the smallest: the keys
+ * of a bucket go to slots {@code (h1 + d * h2) mod m}, where h1 and h2 are derived from their hash, and the
+ * <em>displacement</em> d of the bucket is the smallest one that sends all of its keys to distinct free slots. Only the
+ * displacements are kept, one {@code int} per bucket. The number of slots m is the smallest prime that is at least the
+ * number of keys, so that every displacement visits every slot and even the last, smallest buckets always find a free
+ * one. In the rare case that two keys of a bucket can never be separated, the build starts over with another seed, up to
+ * {@link #MAX_SEEDS} times. A source that holds a key more than once, such as a {@link SeparateChainingHashTable}, only
+ * has the pair that its {@link HashTable#get(String)} returns copied, since two equal keys could never be separated.</p>
+ *
+ * <p>Keys and values are stored as UTF-8 bytes, back to back in a single array, and every slot only holds the offset of
+ * its pair; the table therefore takes about the size of its encoded strings, plus 5 bytes or so per pair. See
+ * {@link #footprint()}.</p>
+ *
+ * @see HashTable
+ * @see SeededHashFunction
+ * @see phonebook.FrozenPhonebook
+ */
+public final class PerfectHashTable implements HashTable {
+
+    /**
+     * The mean number of keys per bucket. Larger buckets save displacements, but take longer to place.
+     */
+    public static final int KEYS_PER_BUCKET = 4;
+
+    /**
+     * The number of seeds that are tried before the build gives up. Every seed fails with a small probability, so the
+     * limit is only ever reached by a broken hash function.
+     */
+    public static final int MAX_SEEDS = 64;
+
+    // Rough sizes on a 64-bit JVM, used to report the footprint of the table.
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final SeededHashFunction hashFunction;
+    private final int slotCount;        // m, a prime, or 0 for an empty table.
+    private final int[] displacements;  // One per bucket.
+    private final int[] offsets;        // Slot i holds the pair in heap[offsets[i], offsets[i + 1]); empty if equal.
+    private final byte[] heap;          // Every pair as the varint length of its key, its key, and its value.
+    private final int count;
+
+    /**
+     * Builds a {@link PerfectHashTable} that holds the same pairs as source.
+     * @param source The table to copy, which must implement {@link HashTable#forEach(BiConsumer)}.
+     * @throws IllegalArgumentException if source is {@code null}, or its pairs do not fit in a single array.
+     * @throws UnsupportedOperationException if source cannot enumerate its pairs.
+     * @throws IllegalStateException if none of the first {@link #MAX_SEEDS} seeds separates the keys.
+     */
+    public PerfectHashTable(HashTable source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Cannot build a PerfectHashTable from a null table.");
+        }
+        List<String> keys = new ArrayList<>(source.size());
+        List<String> values = new ArrayList<>(source.size());
+        Map<String, Integer> indexOfKey = new HashMap<>();
+        List<String> repeated = new ArrayList<>();
+        source.forEach((key, value) -> {
+            if (indexOfKey.putIfAbsent(key, keys.size()) == null) {
+                keys.add(key);
+                values.add(value);
+            } else {
+                repeated.add(key);
+            }
+        });
+        for (String key : repeated) {
+            values.set(indexOfKey.get(key), source.get(key).getValue());
+        }
+        count = keys.size();
+        slotCount = (count == 0) ? 0 : smallestPrimeAtLeast(count);
+        displacements = new int[(count + KEYS_PER_BUCKET - 1) / KEYS_PER_BUCKET];
+
+        int[] slotOfKey = new int[count];
+        SeededHashFunction function;
+        long seed = 0x5EED;
+        do {
+            if (seed == 0x5EED + MAX_SEEDS) {
+                throw new IllegalStateException("No perfect hash function found for " + count + " keys after "
+                        + MAX_SEEDS + " seeds.");
+            }
+            function = new SeededHashFunction(seed++);
+        } while (!place(function, keys, slotOfKey));
+        hashFunction = function;
+
+        // Encode every pair, in slot order.
+        byte[][] encoded = new byte[slotCount][];
+        long total = 0;
+        for (int k = 0; k < count; k++) {
+            byte[] key = keys.get(k).getBytes(StandardCharsets.UTF_8);
+            byte[] value = values.get(k).getBytes(StandardCharsets.UTF_8);
+            byte[] pair = new byte[varintLength(key.length) + key.length + value.length];
+            int at = writeVarint(pair, 0, key.length);
+            System.arraycopy(key, 0, pair, at, key.length);
+            System.arraycopy(value, 0, pair, at + key.length, value.length);
+            encoded[slotOfKey[k]] = pair;
+            total += pair.length;
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("The pairs take " + total + " bytes, which do not fit in a single array.");
+        }
+        heap = new byte[(int) total];
+        offsets = new int[slotCount + 1];
+        int end = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            offsets[slot] = end;
+            if (encoded[slot] != null) {
+                System.arraycopy(encoded[slot], 0, heap, end, encoded[slot].length);
+                end += encoded[slot].length;
+            }
+        }
+        offsets[slotCount] = end;
+    }
+
+    private static int smallestPrimeAtLeast(int n) {
+        if (n > PrimeGenerator.MAX_PRIME) {
+            throw new IllegalArgumentException("Cannot hold " + n + " pairs in a single array.");
+        }
+        int candidate = Math.max(n, 2);
+        while (!PrimeGenerator.isPrime(candidate)) {
+            candidate++;
+        }
+        return candidate;
+    }
+
+    /* *************************************************************** */
+    /* ***************************** Build *************************** */
+    /* *************************************************************** */
+
+    private int bucketOf(long hash) {
+        return (int) (((hash >>> 32) * displacements.length) >>> 32);
+    }
+
+    private int firstSlot(long hash) {
+        return (int) Long.remainderUnsigned(hash, slotCount);
+    }
+
+    // In [1, m), so that stepping by it from any slot visits every slot of the prime m before coming back.
+    private int step(long hash) {
+        long scrambled = hash * 0x9E3779B97F4A7C15L;
+        return 1 + (int) Long.remainderUnsigned(scrambled ^ (scrambled >>> 29), slotCount - 1);
+    }
+
+    private int slotOf(int first, int step, int displacement) {
+        return (int) ((first + (long) displacement * step) % slotCount);
+    }
+
+    // Tries to place every key with the provided hash function. Returns false if some bucket cannot be placed.
+    private boolean place(SeededHashFunction function, List<String> keys, int[] slotOfKey) {
+        if (count == 0) {
+            return true;
+        }
+        int buckets = displacements.length;
+        long[] hashes = new long[count];
+        int[] bucketStart = new int[buckets + 1];
+        for (int k = 0; k < count; k++) {
+            hashes[k] = function.hash64(keys.get(k));
+            bucketStart[bucketOf(hashes[k]) + 1]++;
+        }
+        int largest = 0;
+        for (int b = 0; b < buckets; b++) {
+            largest = Math.max(largest, bucketStart[b + 1]);
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        int[] members = new int[count];
+        int[] filled = Arrays.copyOf(bucketStart, buckets);
+        for (int k = 0; k < count; k++) {
+            members[filled[bucketOf(hashes[k])]++] = k;
+        }
+        // Buckets from the largest to the smallest, with a counting sort on their sizes.
+        int[] bySize = new int[largest + 2];
+        for (int b = 0; b < buckets; b++) {
+            bySize[largest - (bucketStart[b + 1] - bucketStart[b]) + 1]++;
+        }
+        for (int s = 0; s <= largest; s++) {
+            bySize[s + 1] += bySize[s];
+        }
+        int[] order = new int[buckets];
+        for (int b = 0; b < buckets; b++) {
+            order[bySize[largest - (bucketStart[b + 1] - bucketStart[b])]++] = b;
+        }
+
+        boolean[] taken = new boolean[slotCount];
+        int[] firsts = new int[largest], steps = new int[largest], slots = new int[largest];
+        for (int b : order) {
+            int size = bucketStart[b + 1] - bucketStart[b];
+            if (size == 0) {
+                break;
+            }
+            for (int i = 0; i < size; i++) {
+                long hash = hashes[members[bucketStart[b] + i]];
+                firsts[i] = firstSlot(hash);
+                steps[i] = step(hash);
+            }
+            int displacement = 0;
+            search:
+            for (; displacement < slotCount; displacement++) {
+                for (int i = 0; i < size; i++) {
+                    slots[i] = slotOf(firsts[i], steps[i], displacement);
+                    if (taken[slots[i]]) {
+                        continue search;
+                    }
+                    for (int j = 0; j < i; j++) {
+                        if (slots[j] == slots[i]) {
+                            continue search;
+                        }
+                    }
+                }
+                break;
+            }
+            if (displacement == slotCount) {
+                return false;
+            }
+            displacements[b] = displacement;
+            for (int i = 0; i < size; i++) {
+                taken[slots[i]] = true;
+                slotOfKey[members[bucketStart[b] + i]] = slots[i];
+            }
+        }
+        return true;
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarint(byte[] target, int at, int value) {
+        while ((value & ~0x7f) != 0) {
+            target[at++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        target[at++] = (byte) value;
+        return at;
+    }
+
+    /* *************************************************************** */
+    /* **************************** Search *************************** */
+    /* *************************************************************** */
+
+    // Returns the slot of key, or -1 if key is not in the table.
+    private int find(String key) {
+        if (count == 0) {
+            return -1;
+        }
+        long hash = hashFunction.hash64(key);
+        int slot = slotOf(firstSlot(hash), step(hash), displacements[bucketOf(hash)]);
+        if (offsets[slot] == offsets[slot + 1]) {
+            return -1;
+        }
+        int keyLength = keyLength(slot);
+        return keyEquals(offsets[slot] + varintLength(keyLength), keyLength, key) ? slot : -1;
+    }
+
+    private int keyLength(int slot) {
+        int length = 0;
+        for (int at = offsets[slot], shift = 0; ; at++, shift += 7) {
+            length |= (heap[at] & 0x7f) << shift;
+            if (heap[at] >= 0) {
+                return length;
+            }
+        }
+    }
+
+    // Returns the offset of the value in slot, or -1 if the slot is empty.
+    private int valueOffset(int slot) {
+        if (offsets[slot] == offsets[slot + 1]) {
+            return -1;
+        }
+        int keyLength = keyLength(slot);
+        return offsets[slot] + varintLength(keyLength) + keyLength;
+    }
+
+    // Compares the keyLength bytes at offset at with the UTF-8 encoding of key, without encoding ASCII keys.
+    private boolean keyEquals(int at, int keyLength, String key) {
+        int length = key.length();
+        if (length > keyLength) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+                return Arrays.equals(heap, at, at + keyLength, encoded, 0, encoded.length);
+            }
+            if (heap[at + i] != c) {
+                return false;
+            }
+        }
+        return length == keyLength;
+    }
+
+    private String valueAt(int at, int slot) {
+        return new String(heap, at, offsets[slot + 1] - at, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+        int slot = find(key);
+        return new Probes((slot < 0) ? null : valueAt(valueOffset(slot), slot), 1);
+    }
+
+    /**
+     * Searches for key without creating a {@link Probes}. The value that is returned is still decoded from the heap
+     * into a new {@link String}.
+     * @param key The key to search for.
+     * @return The value associated with key, or {@code null} if key is {@code null} or not in the table.
+     */
+    @Override
+    public String getValue(String key) {
+        if (key == null) {
+            ProbeCounter.add(0);
+            return null;
+        }
+        int slot = find(key);
+        ProbeCounter.add(1);
+        return (slot < 0) ? null : valueAt(valueOffset(slot), slot);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return key != null && find(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        if (value == null) {
+            return false;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        for (int slot = 0; slot < slotCount; slot++) {
+            int at = valueOffset(slot);
+            if (at >= 0 && Arrays.equals(heap, at, offsets[slot + 1], encoded, 0, encoded.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (offsets[slot] != offsets[slot + 1]) {
+                int keyLength = keyLength(slot);
+                int keyAt = offsets[slot] + varintLength(keyLength);
+                action.accept(new String(heap, keyAt, keyLength, StandardCharsets.UTF_8),
+                        valueAt(keyAt + keyLength, slot));
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return slotCount;
+    }
+
+    /**
+     * @return An estimate of the heap taken up by this table, in bytes: its encoded pairs, the offset of every slot and
+     * the displacement of every bucket.
+     */
+    public long footprint() {
+        return 3L * ARRAY_HEADER_BYTES + heap.length + 4L * offsets.length + 4L * displacements.length;
+    }
+
+    /**
+     * Always throws: a {@link PerfectHashTable} is immutable.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        throw new UnsupportedOperationException("A PerfectHashTable is immutable.");
+    }
+
+    /**
+     * Always throws: a {@link PerfectHashTable} is immutable.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public Probes remove(String key) {
+        throw new UnsupportedOperationException("A PerfectHashTable is immutable.");
+    }
+
+    /**
+     * Always throws: a {@link PerfectHashTable} is immutable.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public int putAll(Collection<KVPair> pairs) {
+        throw new UnsupportedOperationException("A PerfectHashTable is immutable.");
+    }
+}
@@ -0,0 +1,513 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.LookupResults;
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>{@link PhoneNumberHashTable} is a {@link HashTable} specialized for <b>phone numbers</b> as keys. A key made of up
+ * to {@link #MAX_DIGITS} digits, optionally grouped by single dashes (e.g {@code 301-405-1000}), is packed
+ * <b>losslessly</b> into a {@code long}: its digits, how many there are, and where its dashes go. Such keys are kept in a
+ * linearly probed {@code long[]}, next to a {@code String[]} of values, so they cost no key object at all, are hashed by a
+ * couple of multiplications instead of {@link String#hashCode()}, and are compared as primitives. That hash is keyed by a
+ * seed drawn from the {@link HashFunction} of the table, so a {@link SeededHashFunction} protects the packed keys
+ * against flooding just like it protects the keys of any other table.</p>
+ *
+ * <p>Every other key, e.g {@code (301) 405-1000} or {@code +1 301 405 1000}, goes to a <em>fallback</em> table that is
+ * provided at construction, so the table as a whole accepts any {@link String} key, and a key is always found exactly as
+ * it was put: {@code 3014051000} and {@code 301-405-1000} are distinct keys, just like in any other {@link HashTable}.</p>
+ *
+ * <p>The packed table resizes to the next prime of its {@link PrimeGenerator} when more than half of its slots are taken,
+ * like {@link LinearProbingHashTable}, and deletes by shifting the rest of the cluster back, so it never holds
+ * tombstones. {@link Probes} count the packed slots inspected, or whatever the fallback table reports.</p>
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ * @see phonebook.Phonebook
+ */
+public class PhoneNumberHashTable implements HashTable {
+
+    /**
+     * The most digits that a key may have to be packed into a {@code long}. Longer keys go to the fallback table.
+     */
+    public static final int MAX_DIGITS = 13;
+
+    // A packed key holds its digits, as a number, in its low 44 bits, the number of digits in the next 4, and a bit per
+    // digit but the last in the 12 after those, set if a dash follows that digit. It is never 0, which marks empty slots.
+    private static final int COUNT_SHIFT = 44;
+    private static final int DASHES_SHIFT = 48;
+    private static final long DIGITS_MASK = (1L << COUNT_SHIFT) - 1;
+    private static final long EMPTY = 0;
+
+    // Hashed by the HashFunction of the table to draw the seed of the packed hash.
+    private static final String SEED_KEY = "PhoneNumberHashTable";
+
+    private final HashTable fallback;
+    private final long seed;
+    private final long multiplier;   // Odd, so that it is a bijection.
+    private PrimeGenerator primeGenerator;
+    private long[] keys;
+    private String[] values;
+    private int count;
+
+    // Scratch space of getAll(), kept from one batch to the next.
+    private long[] batchKeys = new long[0];
+    private int[] batchSlots = new int[0];
+    private int[] batchProbes = new int[0];
+    private int[] batchPending = new int[0];
+
+    /**
+     * Default constructor. Keys that are not plain phone numbers go to a hard - deleting {@link LinearProbingHashTable}.
+     */
+    public PhoneNumberHashTable() {
+        this(new LinearProbingHashTable(false));
+    }
+
+    /**
+     * Instantiates a new {@link PhoneNumberHashTable} whose keys that are not plain phone numbers go to fallback, and
+     * whose packed keys are hashed with the seed that {@link HashFunction#DEFAULT} yields, which never changes.
+     * @param fallback The empty {@link HashTable} that will hold the keys that cannot be packed into a {@code long}.
+     * @throws IllegalArgumentException if fallback is {@code null} or not empty.
+     */
+    public PhoneNumberHashTable(HashTable fallback) {
+        this(fallback, HashFunction.DEFAULT);
+    }
+
+    /**
+     * Instantiates a new {@link PhoneNumberHashTable} whose keys that are not plain phone numbers go to fallback, and
+     * whose packed keys are hashed with a seed drawn from hashFunction. fallback should hash with the same function.
+     * @param fallback The empty {@link HashTable} that will hold the keys that cannot be packed into a {@code long}.
+     * @param hashFunction The {@link HashFunction} that seeds the hash of the packed keys, e.g a {@link SeededHashFunction}.
+     * @throws IllegalArgumentException if fallback is {@code null} or not empty, or if hashFunction is {@code null}.
+     */
+    public PhoneNumberHashTable(HashTable fallback, HashFunction hashFunction) {
+        if (fallback == null || fallback.size() != 0) {
+            throw new IllegalArgumentException("A PhoneNumberHashTable needs an empty fallback table.");
+        }
+        if (hashFunction == null) {
+            throw new IllegalArgumentException("Provided: hashFunction=null");
+        }
+        this.fallback = fallback;
+        seed = (long) hashFunction.hash(SEED_KEY) << 32 | (hashFunction.hash(SEED_KEY + "#") & 0xffffffffL);
+        multiplier = (long) hashFunction.hash(SEED_KEY + "*") << 32 | 0x7F4A7C15L;
+        primeGenerator = new PrimeGenerator();
+        keys = new long[primeGenerator.getCurrPrime()];
+        values = new String[keys.length];
+    }
+
+    /**
+     * Packs key into a {@code long}, if it is a plain phone number: between 1 and {@link #MAX_DIGITS} decimal digits,
+     * possibly separated by single dashes, starting and ending with a digit.
+     * @param key The key to pack.
+     * @return The packed key, or 0 if key is not a plain phone number.
+     */
+    static long pack(String key) {
+        int length = key.length();
+        if (length == 0 || length > 2 * MAX_DIGITS - 1) {
+            return EMPTY;
+        }
+        long digits = 0, dashes = 0;
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++count > MAX_DIGITS) {
+                    return EMPTY;
+                }
+                digits = digits * 10 + (c - '0');
+            } else if (c == '-' && count > 0 && i + 1 < length && key.charAt(i - 1) != '-') {
+                dashes |= 1L << (count - 1);
+            } else {
+                return EMPTY;
+            }
+        }
+        return digits | (long) count << COUNT_SHIFT | dashes << DASHES_SHIFT;
+    }
+
+    /**
+     * Rebuilds the key that was packed into packed.
+     * @param packed A key packed by {@link #pack(String)}.
+     * @return The key, exactly as it was before it was packed.
+     */
+    static String unpack(long packed) {
+        int count = (int) (packed >>> COUNT_SHIFT) & 0xf;
+        long digits = packed & DIGITS_MASK;
+        long dashes = packed >>> DASHES_SHIFT;
+        char[] key = new char[count + Long.bitCount(dashes)];
+        int at = key.length;
+        for (int d = count - 1; d >= 0; d--) {
+            if (d < count - 1 && (dashes & (1L << d)) != 0) {
+                key[--at] = '-';
+            }
+            key[--at] = (char) ('0' + digits % 10);
+            digits /= 10;
+        }
+        return new String(key);
+    }
+
+    private int indexOf(long packed) {
+        long h = (packed ^ seed) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        h *= multiplier;
+        h ^= h >>> 32;
+        return (int) (((h >>> 32) * keys.length) >>> 32);
+    }
+
+    private int next(int index) {
+        return (index == keys.length - 1) ? 0 : index + 1;
+    }
+
+    // Returns (probes << 32) | (slot + 1) if packed is in the table, or just (probes << 32) otherwise.
+    private long find(long packed) {
+        int index = indexOf(packed);
+        int probes = 1;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == packed) {
+                return (long) probes << 32 | (index + 1);
+            }
+            index = next(index);
+            probes++;
+        }
+        return (long) probes << 32;
+    }
+
+    // Places a packed key that is not in the table, without resizing it. Returns the number of probes made.
+    private int place(long packed, String value) {
+        int index = indexOf(packed);
+        int probes = 1;
+        while (keys[index] != EMPTY) {
+            index = next(index);
+            probes++;
+        }
+        keys[index] = packed;
+        values[index] = value;
+        count++;
+        return probes;
+    }
+
+    // Moves every pair to fresh arrays of the provided capacity. Returns the number of probes made.
+    private int rehash(int capacity) {
+        long[] oldKeys = keys;
+        String[] oldValues = values;
+        keys = new long[capacity];
+        values = new String[capacity];
+        count = 0;
+        int probes = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                probes += 1 + place(oldKeys[i], oldValues[i]);
+            }
+        }
+        return probes;
+    }
+
+    // Grows the table until at most half of its slots would be taken by the provided number of pairs.
+    private int ensureCapacity(int pairs) {
+        int capacity = keys.length;
+        while ((double) pairs / capacity > 0.50) {
+            capacity = primeGenerator.getNextPrime();
+        }
+        return (capacity == keys.length) ? 0 : rehash(capacity);
+    }
+
+    // Inserts or updates the pair <packed, value>. Returns (probes << 32) | 1 if packed was not in the table, or just
+    // (probes << 32) otherwise.
+    private long insert(long packed, String value) {
+        long found = find(packed);
+        int slot = (int) found - 1;
+        if (slot >= 0) {
+            values[slot] = value;
+            return found & ~0xffffffffL;
+        }
+        int probes = ensureCapacity(count + 1);
+        return (long) (probes + place(packed, value)) << 32 | 1;
+    }
+
+    // Empties slot, and shifts back every later key of the cluster that the new hole would cut off from its home slot.
+    // Returns the number of probes made, counting the empty slot that ends the cluster.
+    private int removeSlot(int slot) {
+        count--;
+        int probes = 1;
+        int hole = slot;
+        for (int index = next(hole); keys[index] != EMPTY; index = next(index)) {
+            probes++;
+            int home = indexOf(keys[index]);
+            boolean reachable = (hole <= index) ? (hole < home && home <= index) : (hole < home || home <= index);
+            if (!reachable) {
+                keys[hole] = keys[index];
+                values[hole] = values[index];
+                hole = index;
+            }
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+        return probes;
+    }
+
+    @Override
+    public Probes put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Provided: key=" + key + " and value=" + value);
+        }
+        long packed = pack(key);
+        if (packed == EMPTY) {
+            return fallback.put(key, value);
+        }
+        return new Probes(value, (int) (insert(packed, value) >>> 32));
+    }
+
+    @Override
+    public boolean putValue(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Provided: key=" + key + " and value=" + value);
+        }
+        long packed = pack(key);
+        if (packed == EMPTY) {
+            return fallback.putValue(key, value);
+        }
+        long inserted = insert(packed, value);
+        ProbeCounter.add((int) (inserted >>> 32));
+        return (int) inserted != 0;
+    }
+
+    @Override
+    public Probes get(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+        long packed = pack(key);
+        if (packed == EMPTY) {
+            return fallback.get(key);
+        }
+        long found = find(packed);
+        int slot = (int) found - 1;
+        return new Probes((slot >= 0) ? values[slot] : null, (int) (found >>> 32));
+    }
+
+    @Override
+    public String getValue(String key) {
+        if (key == null) {
+            ProbeCounter.add(0);
+            return null;
+        }
+        long packed = pack(key);
+        if (packed == EMPTY) {
+            return fallback.getValue(key);
+        }
+        long found = find(packed);
+        int slot = (int) found - 1;
+        ProbeCounter.add((int) (found >>> 32));
+        return (slot >= 0) ? values[slot] : null;
+    }
+
+    /**
+     * Searches for every key of keys, advancing the searches for all of the packed keys together, one slot per round,
+     * so that their cache misses overlap. Keys that cannot be packed are searched for in the fallback table, one by one.
+     * Every search reports the exact value and number of probes that {@link #get(String)} would.
+     * @param batch The keys to search for. {@code null} keys are found with value {@code null} and 0 probes.
+     * @param results The buffer that receives the results. It is reset to the size of batch first.
+     */
+    @Override
+    public void getAll(List<String> batch, LookupResults results) {
+        int size = batch.size();
+        results.reset(size);
+        if (batchKeys.length < size) {
+            int capacity = Math.max(size, 2 * batchKeys.length);
+            batchKeys = new long[capacity];
+            batchSlots = new int[capacity];
+            batchProbes = new int[capacity];
+            batchPending = new int[capacity];
+        }
+        int pending = 0;
+        for (int i = 0; i < size; i++) {
+            String key = batch.get(i);
+            if (key == null) {
+                continue;
+            }
+            long packed = pack(key);
+            if (packed == EMPTY) {
+                Probes found = fallback.get(key);
+                results.set(i, found.getValue(), found.getProbes());
+            } else {
+                batchKeys[i] = packed;
+                batchSlots[i] = indexOf(packed);
+                batchProbes[i] = 1;
+                batchPending[pending++] = i;
+            }
+        }
+        while (pending > 0) {
+            int stillPending = 0;
+            for (int p = 0; p < pending; p++) {
+                int i = batchPending[p];
+                int index = batchSlots[i];
+                if (keys[index] == EMPTY) {
+                    results.set(i, null, batchProbes[i]);
+                } else if (keys[index] == batchKeys[i]) {
+                    results.set(i, values[index], batchProbes[i]);
+                } else {
+                    batchSlots[i] = next(index);
+                    batchProbes[i]++;
+                    batchPending[stillPending++] = i;
+                }
+            }
+            pending = stillPending;
+        }
+    }
+
+    @Override
+    public Probes remove(String key) {
+        if (key == null) {
+            return new Probes(null, 0);
+        }
+        long packed = pack(key);
+        if (packed == EMPTY) {
+            return fallback.remove(key);
+        }
+        long found = find(packed);
+        int slot = (int) found - 1;
+        int probes = (int) (found >>> 32);
+        if (slot < 0) {
+            return new Probes(null, probes);
+        }
+        String value = values[slot];
+        return new Probes(value, probes + removeSlot(slot));
+    }
+
+    @Override
+    public String removeValue(String key) {
+        if (key == null) {
+            ProbeCounter.add(0);
+            return null;
+        }
+        long packed = pack(key);
+        if (packed == EMPTY) {
+            return fallback.removeValue(key);
+        }
+        long found = find(packed);
+        int slot = (int) found - 1;
+        int probes = (int) (found >>> 32);
+        String value = null;
+        if (slot >= 0) {
+            value = values[slot];
+            probes += removeSlot(slot);
+        }
+        ProbeCounter.add(probes);
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        if (key == null) {
+            return false;
+        }
+        long packed = pack(key);
+        return (packed == EMPTY) ? fallback.containsKey(key) : (int) find(packed) != 0;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && values[i].equals(value)) {
+                return true;
+            }
+        }
+        return fallback.containsValue(value);
+    }
+
+    @Override
+    public int size() {
+        return count + fallback.size();
+    }
+
+    @Override
+    public int capacity() {
+        return keys.length + fallback.capacity();
+    }
+
+    @Override
+    public int tombstones() {
+        return fallback.tombstones();
+    }
+
+    @Override
+    public long reclaimedSlots() {
+        return fallback.reclaimedSlots();
+    }
+
+    /**
+     * Enlarges the packed table, at most once, so that it can take additional more packed keys without resizing.
+     * Keys that cannot be packed are rare, so the fallback table is left as it is.
+     * @param additional The number of pairs about to be inserted.
+     * @return The number of probes spent by the resize, if there was one.
+     */
+    @Override
+    public int reserve(int additional) {
+        return ensureCapacity(count + additional);
+    }
+
+    /**
+     * Inserts every pair of pairs, exactly as if {@link #put(String, String)} was called on each of them in iteration
+     * order. The packed table is enlarged once, to fit all of the pairs that it may take, and the other pairs are handed
+     * to the fallback table in a single {@link HashTable#putAll(Collection)}.
+     * @param pairs The pairs to insert.
+     * @throws IllegalArgumentException if any key or value is {@code null}. In that case, no pair is inserted.
+     * @return The total number of probes made by the insertions, including those of any resize.
+     */
+    @Override
+    public int putAll(Collection<KVPair> pairs) {
+        long[] packed = new long[pairs.size()];
+        List<KVPair> others = new ArrayList<>();
+        int n = 0;
+        for (KVPair pair : pairs) {
+            if (pair.getKey() == null || pair.getValue() == null) {
+                throw new IllegalArgumentException("Provided: key=" + pair.getKey() + " and value=" + pair.getValue());
+            }
+            packed[n] = pack(pair.getKey());
+            if (packed[n++] == EMPTY) {
+                others.add(pair);
+            }
+        }
+        int probes = ensureCapacity(count + n - others.size());
+        int i = 0;
+        for (KVPair pair : pairs) {
+            if (packed[i] != EMPTY) {
+                long found = find(packed[i]);
+                int slot = (int) found - 1;
+                if (slot >= 0) {
+                    values[slot] = pair.getValue();
+                    probes += (int) (found >>> 32);
+                } else {
+                    probes += place(packed[i], pair.getValue());
+                }
+            }
+            i++;
+        }
+        return probes + fallback.putAll(others);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(unpack(keys[i]), values[i]);
+            }
+        }
+        fallback.forEach(action);
+    }
+
+    @Override
+    public String toString() {
+        return "PhoneNumberHashTable{packed=" + count + ", capacity=" + keys.length + ", fallback=" + fallback.size()
+                + "}";
+    }
+}
@@ -1,273 +1,376 @@
-package phonebook.hashes;
-
-import phonebook.exceptions.UnimplementedMethodException;
-import phonebook.utils.KVPair;
-import phonebook.utils.PrimeGenerator;
-import phonebook.utils.Probes;
-
-/**
- * <p>{@link QuadraticProbingHashTable} is an Openly Addressed {@link HashTable} which uses <b>Quadratic
- * Probing</b> as its collision resolution strategy. Quadratic Probing differs from <b>Linear</b> Probing
- * in that collisions are resolved by taking &quot; jumps &quot; on the hash table, the length of which
- * determined by an increasing polynomial factor. For example, during a key insertion which generates
- * several collisions, the first collision will be resolved by moving 1^2 + 1 = 2 positions over from
- * the originally hashed address (like Linear Probing), the second one will be resolved by moving
- * 2^2 + 2= 6 positions over from our hashed address, the third one by moving 3^2 + 3 = 12 positions over, etc.
- * </p>
- *
- * <p>By using this collision resolution technique, {@link QuadraticProbingHashTable} aims to get rid of the
- * &quot;key clustering &quot; problem that {@link LinearProbingHashTable} suffers from. Leaving more
- * space in between memory probes allows other keys to be inserted without many collisions. The tradeoff
- * is that, in doing so, {@link QuadraticProbingHashTable} sacrifices <em>cache locality</em>.</p>
- *
- * @author YOUR NAME HERE!
- *
- * @see HashTable
- * @see SeparateChainingHashTable
- * @see OrderedLinearProbingHashTable
- * @see LinearProbingHashTable
- * @see CollisionResolver
- */
-public class QuadraticProbingHashTable extends OpenAddressingHashTable {
-
-    /* ********************************************************************/
-    /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
-    /* ********************************************************************/
-
-	private Probes resize() {
-		QuadraticProbingHashTable newTable = new QuadraticProbingHashTable(softFlag); 
-		newTable.table = new KVPair[primeGenerator.getNextPrime()];
-		
-		int probes = 0;
-		
-		for(int i = 0; i < table.length; i++) {
-			if (table[i] != null && table[i] != TOMBSTONE) {
-				KVPair pair = table[i];
-				probes += newTable.put(pair.getKey(), pair.getValue()).getProbes();
-			}
-			
-			probes++;
-		}
-		
-		this.table = newTable.table;
-		this.count = newTable.count;
-		this.occCells = newTable.occCells;
-		
-		return new Probes(null, probes);
-	}
-	
-	private Probes reinsert() {
-		QuadraticProbingHashTable newTable = new QuadraticProbingHashTable(softFlag); 
-		newTable.table = new KVPair[primeGenerator.getCurrPrime()];
-		
-		int probes = 0;
-		
-		for(int i = 0; i < table.length; i++) {
-			if (table[i] != null && table[i] != TOMBSTONE) {
-				KVPair pair = table[i];
-				probes += newTable.put(pair.getKey(), pair.getValue()).getProbes();
-			}
-			
-			probes++;
-		}
-		
-		//probes++;
-		
-		this.table = newTable.table;
-		this.count = newTable.count;
-		this.occCells = newTable.occCells;
-		
-		return new Probes(null, probes);
-	}
-	
-    /* ******************************************/
-    /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
-    /* **************************************** */
-
-    /**
-     * Constructor with soft deletion option. Initializes the internal storage with a size equal to the starting value of  {@link PrimeGenerator}.
-     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
-     *               we want soft deletion, {@code false} otherwise.
-     */
-    public QuadraticProbingHashTable(boolean soft) {
-    	primeGenerator = new PrimeGenerator();
-    	table = new KVPair[primeGenerator.getCurrPrime()];
-        count = 0;
-        occCells = 0;
-        softFlag = soft;
-    }
-
-    @Override
-    public Probes put(String key, String value) {
-    	System.out.println(this.toString());
-    	System.out.println("Inserting: " + key);
-    	if (key.equals(null) == true || value.equals(null) == true) {
-        	throw new IllegalArgumentException();
-        }
-    	
-    	int probes = 0;
-    	double cap = (double)occCells / table.length;
-    	
-    	if (cap > 0.50) {
-    		probes += resize().getProbes();
-    	}
-        
-    	int index = hash(key) % table.length;
-    	//System.out.println(index);
-    	int i = 2;
-        
-        if (table[index] == null || table[index] == TOMBSTONE) {
-        	table[index] = new KVPair(key, value);
-        	probes++;
-        	count++;
-        	occCells++;
-        	
-        	System.out.println("Probes: " + probes);
-        	return new Probes(value, probes);
-        }
-        
-    	while (!(table[index] == null) && !(table[index] == TOMBSTONE)) {
-    		System.out.println(index);
-    		index = (hash(key) + (i - 1) + ((i - 1) * (i - 1))) % table.length;
-    		
-    		if (index >= table.length) {
-    			index = index - table.length;
-    		}
-    		
-    		probes++;
-    		i++;
-    	}
-    	
-    	table[index] = new KVPair(key, value);
-    	
-    	probes++;
-    	count++;
-    	occCells++;
-        
-    	System.out.println("Probes: " + probes);
-        return new Probes(value, probes);
-    }
-
-
-    @Override
-    public Probes get(String key) {
-    	int index = hash(key) % table.length;
-        int probes = 0;
-        int i = 2;
-        String value = null;
-        
-        while ((!(table[index] == null) && !(table[index] == TOMBSTONE)) && !table[index].getKey().equals(key)) {
-        	index = (hash(key) + (i - 1) + ((i - 1) * (i - 1))) % table.length;
-        	
-        	if (index >= table.length) {
-        		index = index - table.length;
-        	}
-        	
-        	probes++;
-        	i++;
-        }
-        
-        probes++;
-        
-        if (table[index] != null && table[index] != null) {
-        	if (table[index].getKey().equals(key)) {
-            	value = table[index].getValue();
-            }
-        }
-        System.out.println("Probes: " + probes);
-        return new Probes(value, probes);
-    }
-
-    @Override
-    public Probes remove(String key) {
-    	System.out.println(this.toString());
-    	System.out.println("Removing: " + key);
-    	if (key == null) {
-    		return new Probes(null, 0);
-    	}
-    	
-    	int index = hash(key) % table.length;
-    	int probes = 0;
-    	int i = 2;
-    	String value = null;
-    	
-    	while ((!(table[index] == null)) && !table[index].getKey().equals(key)) {
-    		System.out.println(index);
-    		index = (hash(key) + (i - 1) + ((i - 1) * (i - 1))) % table.length;
-    		
-    		if (index >= table.length) {
-        		index = index - table.length;
-        	}
-    		
-    		probes++;
-    		i++;
-    	}
-    	
-    	probes++;
-    	
-    	if (table[index] != null && table[index].getKey().equals(key)) {
-    		value = table[index].getValue();
-    		if (softFlag) {
-    			table[index] = TOMBSTONE;
-    			count--;
-    		} else {
-    			table[index] = null;
-    			count--;
-    			occCells--;
-    			
-    			probes += reinsert().getProbes();
-    		}
-    	} else {
-    		System.out.println("Probes: " + probes);
-    		return new Probes(value, probes);
-    	}
-    	System.out.println("Probes: " + probes);
-    	return new Probes(value, probes);
-    }
-
-
-    @Override
-    public boolean containsKey(String key) {
-    	int index = hash(key) % table.length;
-    	int i = 2;
-    	
-    	while ((!(table[index] == null) && !(table[index] == TOMBSTONE)) && !table[index].getKey().equals(key)) {
-    		index = (hash(key) + (i - 1) + ((i - 1) * (i - 1))) % table.length;
-    		
-    		if (index >= table.length) {
-        		index = index - table.length;
-        	}
-    		
-    		i++;
-    	}
-    	
-    	if (table[index] != null && table[index].getKey().equals(key)) {
-    		return true;
-    	} else {
-    		return false;
-    	}
-    }
-
-    @Override
-    public boolean containsValue(String value) {
-    	for (int i = 0; i < table.length; i++) {
-        	if (table[i] != null || table[i] != TOMBSTONE) {
-        		if (table[i].getValue().equals(value)) {
-        			return true;
-        		}
-        	}
-        }
-        
-        return false;
-    }
-    @Override
-    public int size(){
-        return count;
-    }
-
-    @Override
-    public int capacity() {
-        return table.length;
-    }
-
-}
\ No newline at end of file
+package phonebook.hashes;
+
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+/**
+ * <p>{@link QuadraticProbingHashTable} is an Openly Addressed {@link HashTable} which uses <b>Quadratic
+ * Probing</b> as its collision resolution strategy. Quadratic Probing differs from <b>Linear</b> Probing
+ * in that collisions are resolved by taking &quot; jumps &quot; on the hash table, the length of which
+ * determined by an increasing polynomial factor. For example, during a key insertion which generates
+ * several collisions, the first collision will be resolved by moving 1^2 + 1 = 2 positions over from
+ * the originally hashed address (like Linear Probing), the second one will be resolved by moving
+ * 2^2 + 2= 6 positions over from our hashed address, the third one by moving 3^2 + 3 = 12 positions over, etc.
+ * </p>
+ *
+ * <p>By using this collision resolution technique, {@link QuadraticProbingHashTable} aims to get rid of the
+ * &quot;key clustering &quot; problem that {@link LinearProbingHashTable} suffers from. Leaving more
+ * space in between memory probes allows other keys to be inserted without many collisions. The tradeoff
+ * is that, in doing so, {@link QuadraticProbingHashTable} sacrifices <em>cache locality</em>.</p>
+ *
+ * @author YOUR NAME HERE!
+ *
+ * @see HashTable
+ * @see SeparateChainingHashTable
+ * @see OrderedLinearProbingHashTable
+ * @see LinearProbingHashTable
+ * @see CollisionResolver
+ */
+public class QuadraticProbingHashTable extends OpenAddressingHashTable {
+
+    /* ********************************************************************/
+    /* ** INSERT ANY PRIVATE METHODS OR FIELDS YOU WANT TO USE HERE: ******/
+    /* ********************************************************************/
+
+	// The number of probes made by the last call to lookup(), insert() or delete(), which return no Probes.
+	private int lastProbes;
+
+	// The i-th collision moves i^2 + i positions away from the home slot, i.e 2i positions away from the
+	// previous address. Long arithmetic keeps the jump from overflowing on very large tables. Offsets of i^2 + i are
+	// all even, though, so a power-of-two table would only ever see half of its slots: there, the i-th collision
+	// moves by the triangular number (i^2 + i) / 2 instead, i.e i positions away from the previous address, which
+	// visits every slot of the table before repeating one.
+	private int next(int index, int i) {
+		if (capacityPolicy == CapacityPolicy.POWER_OF_TWO) {
+			return (index + i) & (hashes.length - 1);
+		}
+		return (int)((index + 2L * i) % hashes.length);
+	}
+
+	// In a prime table, the sequence only reaches (p + 1) / 2 distinct slots, which may all be taken, so every walk
+	// stops after hashes.length probes, at the latest.
+	private boolean exhausted(int i) {
+		return i > hashes.length;
+	}
+
+	private int resize() {
+		return grow(nextCapacity(hashes.length));
+	}
+	
+	private int reinsert() {
+		return rehash(hashes.length);
+	}
+	
+	// Searches for key, and leaves the number of probes made in lastProbes. Returns the value of key, or null.
+	private String lookup(String key) {
+		if (key == null) {
+			lastProbes = 0;
+			return null;
+		}
+
+		int hash = hash(key);
+		int index = indexOf(hash);
+		int probes = 1 + migrate(MIGRATION_STEP);
+		int i = 1;
+
+		while (!exhausted(i) && !isEmpty(index)) {
+			if (holds(index, hash, key)) {
+				lastProbes = probes;
+				return values[index];
+			}
+
+			index = next(index, i);
+			probes++;
+			i++;
+		}
+
+		if (retiring == null) {
+			lastProbes = probes;
+			return null;
+		}
+		QuadraticProbingHashTable old = (QuadraticProbingHashTable) retiring;
+		String value = old.lookup(key);
+		lastProbes = probes + old.lastProbes;
+		return value;
+	}
+
+	// Inserts or updates the pair <key, value>, and leaves the number of probes made in lastProbes. Returns true if,
+	// and only if, key was not in the table.
+	private boolean insert(String key, String value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException();
+		}
+
+		int probes = migrate(MIGRATION_STEP);
+		double cap = (double)occupied() / hashes.length;
+
+		if (cap > 0.50) {
+			probes += resize();
+		}
+
+		// A key that is still in retiring is moved over, so it is updated rather than added.
+		boolean moved = false;
+		if (retiring != null) {
+			QuadraticProbingHashTable old = (QuadraticProbingHashTable) retiring;
+			String previous = old.delete(key);
+			indexed(null, previous);
+			probes += old.lastProbes;
+			moved = previous != null;
+		}
+
+		int hash = hash(key);
+		int index = indexOf(hash);
+		int i = 1;
+
+		if (isEmpty(index)) {
+			fill(index, hash, key, value);
+			indexed(value, null);
+			count++;
+			occCells++;
+
+			lastProbes = probes + 1;
+			return !moved;
+		}
+
+		// The first tombstone on the way is re-used, but only once we know that key is not further down the sequence.
+		int target = -1;
+		while (!exhausted(i) && !isEmpty(index)) {
+			if (holds(index, hash, key)) {
+				indexed(value, values[index]);
+				values[index] = value;
+				lastProbes = probes + 1;
+				return false;
+			}
+
+			if (target == -1 && isTombstone(index)) {
+				target = index;
+			}
+
+			index = next(index, i);
+			probes++;
+			i++;
+		}
+
+		if (target == -1 && !isEmpty(index)) {
+			// Every slot that the sequence reaches is taken: the table grows, and key goes into the new storage.
+			probes += resize();
+			indexed(value, null);
+			lastProbes = probes + place(hash, key, value);
+			return !moved;
+		}
+
+		fill(target == -1 ? index : target, hash, key, value);
+		indexed(value, null);
+
+		count++;
+		if (target == -1) {
+			occCells++;
+		}
+
+		lastProbes = probes + 1;
+		return !moved;
+	}
+
+	// Deletes key, and leaves the number of probes made in lastProbes. Returns the value of key, or null.
+	private String delete(String key) {
+		if (key == null) {
+			lastProbes = 0;
+			return null;
+		}
+
+		int hash = hash(key);
+		int index = indexOf(hash);
+		int probes = 1 + migrate(MIGRATION_STEP);
+		int i = 1;
+
+		while (!exhausted(i) && !isEmpty(index) && !holds(index, hash, key)) {
+			index = next(index, i);
+			probes++;
+			i++;
+		}
+
+		if (exhausted(i) || isEmpty(index)) {
+			String value = null;
+			if (retiring != null) {
+				QuadraticProbingHashTable old = (QuadraticProbingHashTable) retiring;
+				value = old.delete(key);
+				probes += old.lastProbes;
+			}
+			indexed(null, value);
+			lastProbes = probes;
+			return value;
+		}
+
+		String value = values[index];
+		indexed(null, value);
+		count--;
+		if (softFlag) {
+			bury(index);
+			probes += compactIfNeeded();
+		} else {
+			vacate(index);
+			occCells--;
+			probes += reinsert();
+		}
+
+		lastProbes = probes;
+		return value;
+	}
+
+	@Override
+	protected int place(int hash, String key, String value) {
+		int index = indexOf(hash);
+		int probes = 1;
+		int i = 1;
+		while (isLive(index)) {
+			if (exhausted(i)) {
+				throw new IllegalStateException("No free slot on the probe sequence of " + key + ".");
+			}
+			index = next(index, i);
+			probes++;
+			i++;
+		}
+		if (isEmpty(index)) {
+			occCells++;
+		}
+		fill(index, hash, key, value);
+		count++;
+		return probes;
+	}
+	
+	@Override
+	protected OpenAddressingHashTable emptyCopy() {
+		return new QuadraticProbingHashTable(softFlag);
+	}
+
+	@Override
+	protected boolean supportsValueIndex() {
+		return true;
+	}
+	
+    /* ******************************************/
+    /*  IMPLEMENT THE FOLLOWING PUBLIC METHODS: */
+    /* **************************************** */
+
+    /**
+     * Constructor with soft deletion option. Initializes the internal storage with a size equal to the starting value of  {@link PrimeGenerator}.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     */
+    public QuadraticProbingHashTable(boolean soft) {
+        this(soft, false);
+    }
+
+    /**
+     * Constructor with soft deletion and incremental resizing options. Initializes the internal storage with a size equal
+     * to the starting value of {@link PrimeGenerator}. An incremental table never moves all of its pairs within a single
+     * operation: the old storage stays searchable while every later operation moves a bounded number of its slots.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param incremental {@code true} if and only if the table should enlarge incrementally, {@code false} otherwise.
+     */
+    public QuadraticProbingHashTable(boolean soft, boolean incremental) {
+        this(soft, incremental, HashFunction.DEFAULT);
+    }
+
+    /**
+     * Constructor with soft deletion, incremental resizing and hash function options. Initializes the internal storage with a size equal
+     * to the starting value of {@link PrimeGenerator}. An incremental table never moves all of its pairs within a single
+     * operation: the old storage stays searchable while every later operation moves a bounded number of its slots.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param incremental {@code true} if and only if the table should enlarge incrementally, {@code false} otherwise.
+     * @param hashFunction The {@link HashFunction} with which keys are hashed, e.g a {@link SeededHashFunction}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}.
+     */
+    public QuadraticProbingHashTable(boolean soft, boolean incremental, HashFunction hashFunction) {
+        this(soft, incremental, hashFunction, CapacityPolicy.PRIME);
+    }
+
+    /**
+     * Constructor with soft deletion, incremental resizing, hash function and capacity policy options. Under
+     * {@link CapacityPolicy#PRIME}, the internal storage starts with a size equal to the starting value of
+     * {@link PrimeGenerator}, and the i-th collision jumps i^2 + i positions away from the home slot. Under
+     * {@link CapacityPolicy#POWER_OF_TWO}, it starts at the next power of two and doubles on every resize, every search
+     * starts at a slot found with a bitmask instead of an integer division, and the i-th collision jumps (i^2 + i) / 2
+     * positions away, so that every slot is still reachable.
+     * @param soft A boolean indicator of whether we want to use soft deletion or not. {@code true} if and only if
+     *               we want soft deletion, {@code false} otherwise.
+     * @param incremental {@code true} if and only if the table should enlarge incrementally, {@code false} otherwise.
+     * @param hashFunction The {@link HashFunction} with which keys are hashed, e.g a {@link SeededHashFunction}.
+     * @param capacityPolicy How the capacity of the table is chosen, and how hashes are mapped to slots.
+     * @throws IllegalArgumentException if hashFunction or capacityPolicy is {@code null}.
+     */
+    public QuadraticProbingHashTable(boolean soft, boolean incremental, HashFunction hashFunction, CapacityPolicy capacityPolicy) {
+    	primeGenerator = new PrimeGenerator();
+    	allocate(primeGenerator.getCurrPrime());
+        count = 0;
+        occCells = 0;
+        softFlag = soft;
+        this.incremental = incremental;
+        setHashFunction(hashFunction);
+        setCapacityPolicy(capacityPolicy);
+    }
+
+    @Override
+    public Probes put(String key, String value) {
+    	insert(key, value);
+    	return new Probes(value, lastProbes);
+    }
+
+    @Override
+    public boolean putValue(String key, String value) {
+    	boolean added = insert(key, value);
+    	ProbeCounter.add(lastProbes);
+    	return added;
+    }
+
+    @Override
+    public Probes get(String key) {
+    	return new Probes(lookup(key), lastProbes);
+    }
+
+    @Override
+    public String getValue(String key) {
+    	String value = lookup(key);
+    	ProbeCounter.add(lastProbes);
+    	return value;
+    }
+
+    @Override
+    public Probes remove(String key) {
+    	return new Probes(delete(key), lastProbes);
+    }
+
+    @Override
+    public String removeValue(String key) {
+    	String value = delete(key);
+    	ProbeCounter.add(lastProbes);
+    	return value;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+    	if (key == null) {
+    		return false;
+    	}
+    	
+    	migrate(MIGRATION_STEP);
+    	int hash = hash(key);
+    	int index = indexOf(hash);
+    	int i = 1;
+    	
+    	while (!exhausted(i) && !isEmpty(index)) {
+    		if (holds(index, hash, key)) {
+    			return true;
+    		}
+    		
+    		index = next(index, i);
+    		i++;
+    	}
+    	
+    	return retiring != null && retiring.containsKey(key);
+    }
+
+}
@@ -0,0 +1,316 @@
+package phonebook.hashes;
+
+import phonebook.utils.PrimeGenerator;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+/**
+ * <p>{@link RobinHoodHashTable} is an Openly Addressed {@link HashTable} which resolves collisions with <b>Robin Hood
+ * Hashing</b>, a variant of Linear Probing. Every key remembers how far it had to move away from its home slot, its
+ * <em>probe sequence length</em>. During an insertion, whenever the key that we are carrying is further away from its
+ * home than the key occupying the current slot, the two swap places and we carry on with the displaced key: the
+ * &quot;rich&quot; keys (close to home) give up their slots to the &quot;poor&quot; ones (far from home). As a
+ * consequence, probe sequence lengths stay very close to their average, and searches destined to fail can stop as soon
+ * as they meet a key that is closer to its home than the sought key would be.</p>
+ *
+ * <p>Deletions are <b>always</b> hard, but they neither leave tombstones behind nor re-insert the rest of the cluster
+ * like {@link LinearProbingHashTable} does: the keys that follow the deleted one are shifted <b>one slot backward</b>,
+ * until we meet an empty slot or a key that already sits on its home slot (<em>backward-shift deletion</em>).</p>
+ *
+ * <p>{@link RobinHoodHashTable} reports its {@link Probes} exactly like {@link LinearProbingHashTable} does, i.e one
+ * probe per slot inspected, so that the two can be compared directly. Since long probe sequences are kept in check,
+ * it can be run at much higher load factors than the 50&#37; threshold of the other openly addressed tables.</p>
+ *
+ * @see HashTable
+ * @see LinearProbingHashTable
+ * @see CollisionResolver
+ */
+public class RobinHoodHashTable extends OpenAddressingHashTable {
+
+    private static final double DEFAULT_MAX_LOAD_FACTOR = 0.5;
+
+    private final double maxLoadFactor;
+
+    // The number of probes made by the last call to lookup(), insert() or delete(), which return no Probes.
+    private int lastProbes;
+
+    /**
+     * Default constructor. Initializes the internal storage with a size equal to the starting value of {@link PrimeGenerator}
+     * and resizes when the table becomes more than 50&#37; full, like every other openly addressed table.
+     */
+    public RobinHoodHashTable() {
+        this(DEFAULT_MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructor with a custom hash function. Resizes when the table becomes more than 50&#37; full, like the
+     * default constructor.
+     * @param hashFunction The {@link HashFunction} with which keys are hashed, e.g a {@link SeededHashFunction}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}.
+     */
+    public RobinHoodHashTable(HashFunction hashFunction) {
+        this(DEFAULT_MAX_LOAD_FACTOR, hashFunction);
+    }
+
+    /**
+     * Constructor with a custom load factor. Initializes the internal storage with a size equal to the starting value of
+     * {@link PrimeGenerator}.
+     * @param maxLoadFactor The fraction of the table that may be occupied before an insertion enlarges it.
+     * @throws IllegalArgumentException if maxLoadFactor is not strictly between 0 and 1.
+     */
+    public RobinHoodHashTable(double maxLoadFactor) {
+        this(maxLoadFactor, HashFunction.DEFAULT);
+    }
+
+    /**
+     * Constructor with a custom load factor and hash function. Initializes the internal storage with a size equal to the starting value of
+     * {@link PrimeGenerator}.
+     * @param maxLoadFactor The fraction of the table that may be occupied before an insertion enlarges it.
+     * @param hashFunction The {@link HashFunction} with which keys are hashed, e.g a {@link SeededHashFunction}.
+     * @throws IllegalArgumentException if hashFunction is {@code null}, or if maxLoadFactor is not strictly between 0 and 1.
+     */
+    public RobinHoodHashTable(double maxLoadFactor, HashFunction hashFunction) {
+        if (!(maxLoadFactor > 0 && maxLoadFactor < 1)) {
+            throw new IllegalArgumentException("Load factor should be strictly between 0 and 1, but was " + maxLoadFactor + ".");
+        }
+        this.maxLoadFactor = maxLoadFactor;
+        primeGenerator = new PrimeGenerator();
+        allocate(primeGenerator.getCurrPrime());
+        count = 0;
+        occCells = 0;
+        softFlag = false;
+        setHashFunction(hashFunction);
+    }
+
+    private int next(int index) {
+        return (index == hashes.length - 1) ? 0 : index + 1;
+    }
+
+    // How many slots away from its home slot the key in slot lives.
+    private int distance(int slot) {
+        int home = indexOf(hashes[slot]);
+        return (slot >= home) ? slot - home : slot + hashes.length - home;
+    }
+
+    private void move(int from, int to) {
+        fill(to, hashes[from], keys[from], values[from]);
+    }
+
+    // Robin Hood insertion, starting dist slots away from the home slot of the carried pair: whenever the
+    // resident of a slot is closer to its home than the carried pair, the two swap. Returns the slots inspected.
+    private int shiftIn(int index, int dist, int hash, String key, String value) {
+        int probes = 1;
+        while (!isEmpty(index)) {
+            int resident = distance(index);
+            if (resident < dist) {
+                int tempHash = hashes[index];
+                String tempKey = keys[index];
+                String tempValue = values[index];
+                fill(index, hash, key, value);
+                hash = tempHash;
+                key = tempKey;
+                value = tempValue;
+                dist = resident;
+            }
+            index = next(index);
+            dist++;
+            probes++;
+        }
+        fill(index, hash, key, value);
+        count++;
+        occCells++;
+        return probes;
+    }
+
+    @Override
+    protected int place(int hash, String key, String value) {
+        return shiftIn(indexOf(hash), 0, hash, key, value);
+    }
+
+    @Override
+    protected double maxLoadFactor() {
+        return maxLoadFactor;
+    }
+
+    @Override
+    protected OpenAddressingHashTable emptyCopy() {
+        return new RobinHoodHashTable(maxLoadFactor);
+    }
+
+    @Override
+    protected boolean supportsValueIndex() {
+        return true;
+    }
+
+    // Searches for key, and leaves the number of probes made in lastProbes. Returns the value of key, or null.
+    private String lookup(String key) {
+        if (key == null) {
+            lastProbes = 0;
+            return null;
+        }
+
+        int hash = hash(key);
+        int index = indexOf(hash);
+        int dist = 0;
+
+        while (!isEmpty(index) && distance(index) >= dist) {
+            if (holds(index, hash, key)) {
+                lastProbes = dist + 1;
+                return values[index];
+            }
+            index = next(index);
+            dist++;
+        }
+
+        lastProbes = dist + 1;
+        return null;
+    }
+
+    // Inserts or updates the pair <key, value>, and leaves the number of probes made in lastProbes. Returns true if,
+    // and only if, key was not in the table.
+    private boolean insert(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int probes = 0;
+        if ((double)occCells / hashes.length > maxLoadFactor) {
+            probes += rehash(primeGenerator.getNextPrime());
+        }
+
+        int hash = hash(key);
+        int index = indexOf(hash);
+        int dist = 0;
+
+        // Nothing richer than us can precede key in its probe sequence, so the first such slot is where we insert.
+        while (!isEmpty(index) && distance(index) >= dist) {
+            if (holds(index, hash, key)) {
+                indexed(value, values[index]);
+                values[index] = value;
+                lastProbes = probes + dist + 1;
+                return false;
+            }
+            index = next(index);
+            dist++;
+        }
+
+        indexed(value, null);
+        lastProbes = probes + dist + shiftIn(index, dist, hash, key, value);
+        return true;
+    }
+
+    // Deletes key, and leaves the number of probes made in lastProbes. Returns the value of key, or null.
+    private String delete(String key) {
+        if (key == null) {
+            lastProbes = 0;
+            return null;
+        }
+
+        int hash = hash(key);
+        int index = indexOf(hash);
+        int dist = 0;
+
+        while (!isEmpty(index) && distance(index) >= dist && !holds(index, hash, key)) {
+            index = next(index);
+            dist++;
+        }
+
+        int probes = dist + 1;
+        if (isEmpty(index) || !holds(index, hash, key)) {
+            lastProbes = probes;
+            return null;
+        }
+
+        String value = values[index];
+        indexed(null, value);
+        int hole = index;
+        int follower = next(hole);
+        probes++;
+        while (!isEmpty(follower) && distance(follower) > 0) {
+            move(follower, hole);
+            hole = follower;
+            follower = next(follower);
+            probes++;
+        }
+        vacate(hole);
+        count--;
+        occCells--;
+
+        lastProbes = probes;
+        return value;
+    }
+
+    /**
+     * Inserts the pair &lt;key, value&gt; into this. If key is already in the table, its value is <b>updated</b>.
+     * The table is enlarged to the next prime provided by {@link PrimeGenerator} <b>before</b> an insertion that finds
+     * it filled beyond its load factor.
+     * @param key The record's key.
+     * @param value The record's value.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     * @return The {@link phonebook.utils.Probes} with the value added and the number of probes it makes.
+     */
+    @Override
+    public Probes put(String key, String value) {
+        insert(key, value);
+        return new Probes(value, lastProbes);
+    }
+
+    @Override
+    public boolean putValue(String key, String value) {
+        boolean added = insert(key, value);
+        ProbeCounter.add(lastProbes);
+        return added;
+    }
+
+    @Override
+    public Probes get(String key) {
+        return new Probes(lookup(key), lastProbes);
+    }
+
+    @Override
+    public String getValue(String key) {
+        String value = lookup(key);
+        ProbeCounter.add(lastProbes);
+        return value;
+    }
+
+    /**
+     * <b>Return</b> the value associated with key in the {@link HashTable}, and <b>remove</b> the pair from the table.
+     * The pairs that follow key in its cluster are shifted one slot backward, and every shifted slot costs one probe.
+     * @param key The key to search for.
+     * @return The {@link phonebook.utils.Probes} with associated value and the number of probe used. If the key is {@code null}, return value {@code null}
+     * and 0 as number of probes; if the key doesn't exist in the database, return {@code null} and the number of probes used.
+     */
+    @Override
+    public Probes remove(String key) {
+        return new Probes(delete(key), lastProbes);
+    }
+
+    @Override
+    public String removeValue(String key) {
+        String value = delete(key);
+        ProbeCounter.add(lastProbes);
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        if (key == null) {
+            return false;
+        }
+
+        int hash = hash(key);
+        int index = indexOf(hash);
+        int dist = 0;
+
+        while (!isEmpty(index) && distance(index) >= dist) {
+            if (holds(index, hash, key)) {
+                return true;
+            }
+            index = next(index);
+            dist++;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,83 @@
+package phonebook.hashes;
+
+import java.security.SecureRandom;
+
+/**
+ * <p>{@link SeededHashFunction} is a {@link HashFunction} in the style of <a href="https://github.com/wangyi-fudan/wyhash">wyhash</a>:
+ * the characters of the key are read four at a time into 64 - bit words, and every word is folded into the state with a
+ * <em>multiply - mix</em>, i.e the high and low halves of a full 128 - bit product XORed together. One such round
+ * avalanches every bit of its input into every bit of its output. The characters are read straight out of the
+ * {@link String}, two bytes each, so hashing allocates nothing.</p>
+ *
+ * <p>Every instance draws a random 64 - bit <b>seed</b> from a {@link SecureRandom}, which both initializes the state and
+ * derives the odd multiplier of every round. Since the seed is never exposed, keys that collide in one instance cannot be
+ * computed in advance, and a table that hashes with it cannot be flooded on purpose. The {@link #SeededHashFunction(long)}
+ * constructor takes an explicit seed instead, for reproducible experiments and tests.</p>
+ *
+ * <p>Hashes are <b>not</b> stable across instances, so a {@link SeededHashFunction} is of no use to tables whose hashes
+ * outlive the process, like {@link MappedHashTable}.</p>
+ *
+ * @see HashFunction
+ */
+public final class SeededHashFunction implements HashFunction {
+
+    // The default secrets of wyhash.
+    private static final long P0 = 0xa0761d6478bd642fL;
+    private static final long P1 = 0xe7037ed1a0b428dbL;
+    private static final long P2 = 0x8ebc6af09c88c6e3L;
+
+    private final long seed;
+    private final long multiplier;      // Odd, so that a round never collapses to 0 unless its input does.
+    private final long finalMultiplier;
+
+    /**
+     * Creates a hash function with a fresh random seed.
+     */
+    public SeededHashFunction() {
+        this(new SecureRandom().nextLong());
+    }
+
+    /**
+     * Creates a hash function with the provided seed. Two instances with the same seed compute the same hashes.
+     * @param seed The seed.
+     */
+    public SeededHashFunction(long seed) {
+        this.seed = mix(seed ^ P0, P1);
+        this.multiplier = mix(seed ^ P1, P2) | 1;
+        this.finalMultiplier = mix(seed ^ P2, P0) | 1;
+    }
+
+    private static long mix(long a, long b) {
+        return a * b ^ Math.multiplyHigh(a, b);
+    }
+
+    @Override
+    public int hash(String key) {
+        long h = hash64(key);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Hashes key to a full 64 - bit value, for structures that need more bits than {@link #hash(String)} offers.
+     * @param key A non-{@code null} key.
+     * @return The 64 - bit hash of key.
+     */
+    long hash64(String key) {
+        int length = key.length();
+        long h = seed ^ length;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long word = key.charAt(i) | (long) key.charAt(i + 1) << 16 | (long) key.charAt(i + 2) << 32
+                    | (long) key.charAt(i + 3) << 48;
+            h = mix(h ^ word, multiplier);
+        }
+        if (i < length) {
+            long word = 0;
+            for (int shift = 0; i < length; i++, shift += 16) {
+                word |= (long) key.charAt(i) << shift;
+            }
+            h = mix(h ^ word, multiplier);
+        }
+        return mix(h ^ (h >>> 32), finalMultiplier);
+    }
+}
@@ -0,0 +1,381 @@
+package phonebook.hashes;
+
+import phonebook.utils.KVPair;
+import phonebook.utils.PrimeGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * <p>{@link TableSnapshot} saves the pairs of a {@link HashTable} to a stream, in a compact binary format, and loads them
+ * back. A snapshot is a sequence of <b>blocks</b>, each written as its length, its bytes and the CRC-32 of its bytes, and
+ * ended by an empty block. The first block describes the table; the others hold its pairs, with every string written as
+ * the length of its UTF-8 encoding followed by the encoding itself. Blocks are checked as they are read, so a truncated
+ * or corrupted snapshot is rejected with an {@link IOException} instead of silently loading the wrong pairs.</p>
+ *
+ * <p>Pairs are written in one of two layouts:</p>
+ * <ul>
+ *     <li><b>Slots</b>, for {@link LinearProbingHashTable}, {@link QuadraticProbingHashTable},
+ *     {@link OrderedLinearProbingHashTable} and {@link RobinHoodHashTable} that hash with {@link HashFunction#DEFAULT},
+ *     have prime capacities and are not in the middle of an incremental resize. Every slot is written in order, as empty, a tombstone, or a pair
+ *     with its cached hash. Loaded into an empty table of the same class, such a snapshot is copied slot by slot at its
+ *     saved capacity: nothing is hashed or probed again, and the loaded table is an exact copy of the saved one, down to
+ *     the number of probes that every later operation makes.</li>
+ *     <li><b>Pairs</b>, for every other table that implements {@link HashTable#forEach(java.util.function.BiConsumer)}.
+ *     Only the pairs are written, and they are inserted again, through {@link HashTable#putAll(java.util.Collection)},
+ *     when the snapshot is loaded.</li>
+ * </ul>
+ *
+ * <p>A snapshot in the slot layout is loaded through {@link HashTable#putAll(java.util.Collection)} as well whenever it
+ * cannot be copied as is, e.g into a table of another class, or one that hashes with a {@link SeededHashFunction}.</p>
+ *
+ * <p>Neither method buffers, closes or reads past the end of its stream, so several snapshots may follow each other on
+ * the same stream; callers should pass buffered streams.</p>
+ *
+ * @see phonebook.Phonebook#save(OutputStream)
+ * @see phonebook.Phonebook#load(InputStream, CollisionResolver, CollisionResolver)
+ */
+public final class TableSnapshot {
+
+    /**
+     * The number of bytes past which a block of pairs is written out, and a new one started.
+     */
+    public static final int BLOCK_BYTES = 1 << 16;
+
+    /**
+     * The largest block that is read back. A longer block can only come from a corrupted snapshot.
+     */
+    public static final int MAX_BLOCK_BYTES = 1 << 28;
+
+    private static final int MAGIC = 0x50425453; // "PBTS"
+    private static final int VERSION = 1;
+
+    private static final byte SLOTS = 1;
+    private static final byte PAIRS = 2;
+
+    private static final byte EMPTY_SLOT = 0;
+    private static final byte TOMBSTONE_SLOT = 1;
+    private static final byte LIVE_SLOT = 2;
+
+    // The openly addressed tables whose whole state is their slots and counters, so that copying those is enough.
+    private static final Set<Class<?>> SLOT_LAYOUTS = new HashSet<>(Arrays.asList(LinearProbingHashTable.class,
+            QuadraticProbingHashTable.class, OrderedLinearProbingHashTable.class, RobinHoodHashTable.class));
+
+    private TableSnapshot() {
+        // Static utility.
+    }
+
+    /* *************************************************************** */
+    /* *************************** Writing *************************** */
+    /* *************************************************************** */
+
+    // Accumulates the bytes of a block, and writes it out with its length and CRC once it is large enough.
+    private static final class BlockWriter {
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(BLOCK_BYTES + (BLOCK_BYTES >> 2));
+        private final DataOutputStream data = new DataOutputStream(bytes);
+        private final CRC32 crc = new CRC32();
+
+        BlockWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeString(String s) throws IOException {
+            byte[] encoded = s.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(encoded.length);
+            data.write(encoded);
+        }
+
+        // Writes the block out if it went past BLOCK_BYTES, or unconditionally if force is set.
+        void endRecord(boolean force) throws IOException {
+            if (bytes.size() > MAX_BLOCK_BYTES) {
+                throw new IOException("A pair of " + bytes.size() + " bytes does not fit in a block of a snapshot.");
+            }
+            if (bytes.size() >= BLOCK_BYTES || (force && bytes.size() > 0)) {
+                byte[] block = bytes.toByteArray();
+                crc.reset();
+                crc.update(block, 0, block.length);
+                out.writeInt(block.length);
+                out.write(block);
+                out.writeInt((int) crc.getValue());
+                bytes.reset();
+            }
+        }
+
+        void finish() throws IOException {
+            endRecord(true);
+            out.writeInt(0);
+            out.flush();
+        }
+    }
+
+    private static boolean hasSlotLayout(HashTable table) {
+        if (!SLOT_LAYOUTS.contains(table.getClass())) {
+            return false;
+        }
+        OpenAddressingHashTable open = (OpenAddressingHashTable) table;
+        return open.retiring == null && open.hashFunction == HashFunction.DEFAULT
+                && open.capacityPolicy == CapacityPolicy.PRIME;
+    }
+
+    /**
+     * Writes a snapshot of table to out. See the class documentation for the format.
+     * @param table The table to save. It must not be modified while it is being saved.
+     * @param out The stream to write to. It is flushed, but neither buffered nor closed.
+     * @throws IOException if out throws, or a single pair is larger than {@link #MAX_BLOCK_BYTES}.
+     * @throws UnsupportedOperationException if table is not in the slot layout and cannot enumerate its pairs.
+     */
+    public static void write(HashTable table, OutputStream out) throws IOException {
+        DataOutputStream data = (out instanceof DataOutputStream) ? (DataOutputStream) out : new DataOutputStream(out);
+        BlockWriter writer = new BlockWriter(data);
+        boolean slots = hasSlotLayout(table);
+
+        // Header block.
+        writer.data.writeInt(MAGIC);
+        writer.data.writeInt(VERSION);
+        writer.data.writeByte(slots ? SLOTS : PAIRS);
+        writer.writeString(table.getClass().getName());
+        writer.data.writeInt(table.capacity());
+        writer.data.writeInt(table.size());
+        writer.data.writeInt(table.tombstones());
+        writer.data.writeBoolean(slots && ((OpenAddressingHashTable) table).softFlag);
+        writer.endRecord(true);
+
+        if (slots) {
+            OpenAddressingHashTable open = (OpenAddressingHashTable) table;
+            for (int i = 0; i < open.keys.length; i++) {
+                if (open.isLive(i)) {
+                    writer.data.writeByte(LIVE_SLOT);
+                    writer.data.writeInt(open.hashes[i]);
+                    writer.writeString(open.keys[i]);
+                    writer.writeString(open.values[i]);
+                } else {
+                    writer.data.writeByte(open.isTombstone(i) ? TOMBSTONE_SLOT : EMPTY_SLOT);
+                }
+                writer.endRecord(false);
+            }
+        } else {
+            try {
+                table.forEach((key, value) -> {
+                    try {
+                        writer.writeString(key);
+                        writer.writeString(value);
+                        writer.endRecord(false);
+                    } catch (IOException e) {
+                        throw new WrappedIOException(e);
+                    }
+                });
+            } catch (WrappedIOException e) {
+                throw e.getCause();
+            }
+        }
+        writer.finish();
+    }
+
+    // Carries an IOException out of a BiConsumer.
+    private static final class WrappedIOException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        WrappedIOException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /* *************************************************************** */
+    /* *************************** Reading *************************** */
+    /* *************************************************************** */
+
+    // Returns the next block, after checking its CRC, or null at the empty block that ends a snapshot.
+    private static ByteBuffer readBlock(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            throw new IOException("The snapshot is truncated.", e);
+        }
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0 || length > MAX_BLOCK_BYTES) {
+            throw new IOException("The snapshot is corrupted: a block claims to hold " + length + " bytes.");
+        }
+        byte[] block = new byte[length];
+        int crc;
+        try {
+            in.readFully(block);
+            crc = in.readInt();
+        } catch (EOFException e) {
+            throw new IOException("The snapshot is truncated.", e);
+        }
+        CRC32 expected = new CRC32();
+        expected.update(block, 0, length);
+        if ((int) expected.getValue() != crc) {
+            throw new IOException("The snapshot is corrupted: a block of " + length + " bytes fails its CRC check.");
+        }
+        return ByteBuffer.wrap(block);
+    }
+
+    private static String readString(ByteBuffer block) throws IOException {
+        int length = block.getInt();
+        if (length < 0 || length > block.remaining()) {
+            throw new IOException("The snapshot is corrupted: a string claims to hold " + length + " bytes.");
+        }
+        String s = new String(block.array(), block.position(), length, StandardCharsets.UTF_8);
+        block.position(block.position() + length);
+        return s;
+    }
+
+    // Returns a PrimeGenerator positioned at capacity, or null if capacity is not one of the primes that it offers.
+    private static PrimeGenerator generatorAt(int capacity) {
+        if (capacity > PrimeGenerator.MAX_PRIME) {
+            return null;
+        }
+        PrimeGenerator generator = new PrimeGenerator();
+        while (generator.getCurrPrime() < capacity) {
+            generator.getNextPrime();
+        }
+        return (generator.getCurrPrime() == capacity) ? generator : null;
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write(HashTable, OutputStream)} from in, and inserts its pairs into target. If
+     * the snapshot is in the slot layout and target is an empty table of the same class, which hashes with
+     * {@link HashFunction#DEFAULT}, has a {@link CapacityPolicy#PRIME} capacity and allows tombstones if the snapshot holds any, the saved slots are copied into
+     * target as they are; otherwise, the pairs are inserted with a single call to
+     * {@link HashTable#putAll(java.util.Collection)}.
+     * @param in The stream to read from. It is neither buffered nor closed, and nothing past the snapshot is read.
+     * @param target The table that receives the pairs.
+     * @return target.
+     * @throws IOException if in throws, or the snapshot is truncated or corrupted. target is then left unchanged.
+     */
+    public static HashTable read(InputStream in, HashTable target) throws IOException {
+        DataInputStream data = (in instanceof DataInputStream) ? (DataInputStream) in : new DataInputStream(in);
+        ByteBuffer header = readBlock(data);
+        if (header == null || header.remaining() < 8 || header.getInt() != MAGIC) {
+            throw new IOException("The stream does not hold a snapshot of a table.");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Cannot read a snapshot of version " + version + ", only of version " + VERSION + ".");
+        }
+        byte layout;
+        String className;
+        int capacity, size, tombstones;
+        boolean soft;
+        try {
+            layout = header.get();
+            className = readString(header);
+            capacity = header.getInt();
+            size = header.getInt();
+            tombstones = header.getInt();
+            soft = header.get() != 0;
+        } catch (RuntimeException e) {
+            throw new IOException("The snapshot is corrupted: its header is too short.", e);
+        }
+        if ((layout != SLOTS && layout != PAIRS) || capacity <= 0 || size < 0 || tombstones < 0) {
+            throw new IOException("The snapshot is corrupted: its header is invalid.");
+        }
+
+        if (layout == SLOTS && target.getClass().getName().equals(className) && hasSlotLayout(target)
+                && target.size() == 0 && target.tombstones() == 0 && (tombstones == 0 || ((OpenAddressingHashTable) target).softFlag)) {
+            PrimeGenerator generator = generatorAt(capacity);
+            if (generator != null) {
+                copySlots(data, (OpenAddressingHashTable) target, generator, capacity, size, tombstones);
+                return target;
+            }
+        }
+
+        List<KVPair> pairs = new ArrayList<>(size);
+        int slot = 0;
+        for (ByteBuffer block = readBlock(data); block != null; block = readBlock(data)) {
+            try {
+                while (block.hasRemaining()) {
+                    if (layout == PAIRS) {
+                        pairs.add(new KVPair(readString(block), readString(block)));
+                        continue;
+                    }
+                    byte tag = block.get();
+                    if (tag == LIVE_SLOT) {
+                        block.getInt();
+                        pairs.add(new KVPair(readString(block), readString(block)));
+                    } else if (tag != EMPTY_SLOT && tag != TOMBSTONE_SLOT) {
+                        throw new IOException("The snapshot is corrupted: slot " + slot + " has an unknown tag " + tag + ".");
+                    }
+                    slot++;
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("The snapshot is corrupted: a block ends in the middle of a pair.", e);
+            }
+        }
+        if (pairs.size() != size) {
+            throw new IOException("The snapshot is corrupted: it holds " + pairs.size() + " pairs instead of " + size + ".");
+        }
+        target.putAll(pairs);
+        return target;
+    }
+
+    // Reads the slots of a snapshot straight into new storage, which replaces that of target once all of it checks out.
+    private static void copySlots(DataInputStream in, OpenAddressingHashTable target, PrimeGenerator generator,
+                                  int capacity, int size, int tombstones) throws IOException {
+        int[] hashes = new int[capacity];
+        String[] keys = new String[capacity];
+        String[] values = new String[capacity];
+        int slot = 0, live = 0, buried = 0;
+        for (ByteBuffer block = readBlock(in); block != null; block = readBlock(in)) {
+            try {
+                while (block.hasRemaining()) {
+                    if (slot == capacity) {
+                        throw new IOException("The snapshot is corrupted: it holds more than " + capacity + " slots.");
+                    }
+                    byte tag = block.get();
+                    if (tag == LIVE_SLOT) {
+                        hashes[slot] = block.getInt();
+                        keys[slot] = readString(block);
+                        values[slot] = readString(block);
+                        live++;
+                    } else if (tag == TOMBSTONE_SLOT) {
+                        hashes[slot] = OpenAddressingHashTable.TOMBSTONE;
+                        buried++;
+                    } else if (tag != EMPTY_SLOT) {
+                        throw new IOException("The snapshot is corrupted: slot " + slot + " has an unknown tag " + tag + ".");
+                    }
+                    slot++;
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("The snapshot is corrupted: a block ends in the middle of a slot.", e);
+            }
+        }
+        if (slot != capacity || live != size || buried != tombstones) {
+            throw new IOException("The snapshot is corrupted: its slots do not match its header.");
+        }
+        target.hashes = hashes;
+        target.keys = keys;
+        target.values = values;
+        target.count = size;
+        target.occCells = size + tombstones;
+        target.primeGenerator = generator;
+        for (String value : values) {
+            if (value != null) {
+                target.indexed(value, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package phonebook.hashes;
+
+/**
+ * <p>{@link ValueIndex} answers {@link HashTable#containsValue(String)} in amortized constant time for the tables that
+ * enable it, instead of a scan of their whole storage. It holds the <b>multiset</b> of the values of a table: every
+ * distinct value is stored once, as a cached hash, a reference to the value itself (which the table already holds) and
+ * the number of pairs that map to it, in a Linear Probing table with backward-shift deletion. A <b>Bloom filter</b> of
+ * the value hashes sits in front of the multiset, so that most searches for absent values end after a few bit tests,
+ * without touching the multiset at all.</p>
+ *
+ * <p>Bloom filters cannot forget, so the filter is rebuilt from the multiset whenever the multiset is resized, and
+ * whenever more values have been removed since the last rebuild than there are distinct values left. The false
+ * positive rate therefore stays close to its design value of about 1&#37; no matter how much the table churns.</p>
+ *
+ * <p>The index is <b>exact</b>: a positive answer of the filter is always confirmed by the multiset, which compares the
+ * values themselves. Tables keep it up to date from their insertions and deletions; moving a pair within the table, or
+ * into new storage during a resize, leaves it untouched.</p>
+ *
+ * @see OpenAddressingHashTable#enableValueIndex()
+ * @see SeparateChainingHashTable#enableValueIndex()
+ */
+final class ValueIndex {
+
+    private static final int BITS_PER_VALUE = 10;
+    private static final int BLOOM_HASHES = 4;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Rough sizes on a 64-bit JVM with compressed references, used to report the footprint of the index.
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+
+    private final HashFunction hashFunction;
+
+    // The multiset: slot i holds distinct value values[i], whose hash is hashes[i], counts[i] > 0 times.
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int distinct;
+
+    private long[] bloom;
+    private int removedSinceRebuild;
+
+    ValueIndex(HashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+        rebuildBloom();
+    }
+
+    private int hash(String value) {
+        return hashFunction.hash(value);
+    }
+
+    private int home(int hash) {
+        return (hash * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(values.length));
+    }
+
+    private int next(int slot) {
+        return (slot + 1) & (values.length - 1);
+    }
+
+    private int find(int hash, String value) {
+        for (int slot = home(hash); values[slot] != null; slot = next(slot)) {
+            if (hashes[slot] == hash && value.equals(values[slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // The i-th bit of a value is h1 + i * h2 (modulo the size of the filter), with h2 odd.
+    private boolean bloomTest(int hash, boolean set) {
+        long bits = (long) bloom.length << 6;
+        long h1 = hash & 0xffffffffL;
+        long h2 = ((hash * 0x85EBCA6BL) >>> 15) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = (h1 + i * h2) & (bits - 1);
+            if (set) {
+                bloom[(int) (bit >>> 6)] |= 1L << bit;
+            } else if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rebuildBloom() {
+        // A power of two of at least BITS_PER_VALUE bits for every slot that the multiset can fill before it resizes.
+        long bits = Long.highestOneBit(Math.max(64L, (long) values.length / 2 * BITS_PER_VALUE - 1) << 1);
+        bloom = new long[(int) (bits >>> 6)];
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                bloomTest(hashes[slot], true);
+            }
+        }
+        removedSinceRebuild = 0;
+    }
+
+    private void resize(int capacity) {
+        int[] oldHashes = hashes;
+        String[] oldValues = values;
+        int[] oldCounts = counts;
+        hashes = new int[capacity];
+        values = new String[capacity];
+        counts = new int[capacity];
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = home(oldHashes[i]);
+                while (values[slot] != null) {
+                    slot = next(slot);
+                }
+                hashes[slot] = oldHashes[i];
+                values[slot] = oldValues[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+        rebuildBloom();
+    }
+
+    /**
+     * Records one more pair with the provided value.
+     * @param value A non-{@code null} value.
+     */
+    void add(String value) {
+        int hash = hash(value);
+        int slot = find(hash, value);
+        if (slot >= 0) {
+            counts[slot]++;
+            return;
+        }
+        if (distinct + 1 > values.length / 2) {
+            resize(values.length * 2);
+        }
+        slot = home(hash);
+        while (values[slot] != null) {
+            slot = next(slot);
+        }
+        hashes[slot] = hash;
+        values[slot] = value;
+        counts[slot] = 1;
+        distinct++;
+        bloomTest(hash, true);
+    }
+
+    /**
+     * Records one less pair with the provided value. Has no effect if no pair has that value.
+     * @param value A non-{@code null} value.
+     */
+    void remove(String value) {
+        int slot = find(hash(value), value);
+        if (slot < 0 || --counts[slot] > 0) {
+            return;
+        }
+        // Backward-shift deletion: pull back every later value of the cluster that may move closer to its home.
+        int hole = slot;
+        for (int i = next(slot); values[i] != null; i = next(i)) {
+            int home = home(hashes[i]);
+            boolean stays = (hole <= i) ? (hole < home && home <= i) : (hole < home || home <= i);
+            if (!stays) {
+                hashes[hole] = hashes[i];
+                values[hole] = values[i];
+                counts[hole] = counts[i];
+                hole = i;
+            }
+        }
+        values[hole] = null;
+        counts[hole] = 0;
+        distinct--;
+        if (distinct < values.length / 8 && values.length > INITIAL_CAPACITY) {
+            resize(values.length / 2);
+        } else if (++removedSinceRebuild > distinct) {
+            rebuildBloom();
+        }
+    }
+
+    /**
+     * @param value A value.
+     * @return {@code true} if, and only if, at least one pair has value.
+     */
+    boolean contains(String value) {
+        if (value == null) {
+            return false;
+        }
+        int hash = hash(value);
+        return bloomTest(hash, false) && find(hash, value) >= 0;
+    }
+
+    /**
+     * @return An estimate of the heap taken up by this index, in bytes. The values themselves are not counted, since
+     * the table holds them anyway.
+     */
+    long footprint() {
+        return 4L * ARRAY_HEADER_BYTES + 4L * hashes.length + (long) REFERENCE_BYTES * values.length
+                + 4L * counts.length + 8L * bloom.length;
+    }
+}
@@ -0,0 +1,202 @@
+package phonebook.metrics;
+
+import phonebook.hashes.HashTable;
+import phonebook.utils.KVPair;
+import phonebook.utils.ProbeCounter;
+import phonebook.utils.Probes;
+
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>{@link InstrumentedHashTable} is a decorator that adds {@link TableMetrics} to <b>any</b> {@link HashTable}. Every
+ * operation is forwarded to the decorated table, and the {@link Probes} that it returns are recorded before being
+ * handed back unchanged. Insertions and deletions are also timed, and those that change the capacity of the table are
+ * recorded as resizes; searches are not timed, so they only pay for a few striped counter increments.</p>
+ *
+ * <p>An {@link InstrumentedHashTable} is exactly as thread-safe as the table that it decorates. Since decorated tables
+ * are plain {@link HashTable}s, they can be handed to {@link phonebook.Phonebook#Phonebook(HashTable, HashTable)}:</p>
+ *
+ * <pre>{@code
+ * InstrumentedHashTable names = new InstrumentedHashTable(new LinearProbingHashTable(true));
+ * names.metrics().register("namesToNumbers");
+ * Phonebook pb = new Phonebook(names, new LinearProbingHashTable(true));
+ * }</pre>
+ *
+ * @see TableMetrics
+ * @see MetricsSnapshot
+ */
+public class InstrumentedHashTable implements HashTable {
+
+    private final HashTable table;
+    private final TableMetrics metrics;
+
+    /**
+     * Decorates the provided table with new, empty metrics.
+     * @param table The table to instrument.
+     * @throws IllegalArgumentException if table is {@code null}.
+     */
+    public InstrumentedHashTable(HashTable table) {
+        if (table == null) {
+            throw new IllegalArgumentException("Cannot instrument a null table.");
+        }
+        this.table = table;
+        this.metrics = new TableMetrics(table);
+    }
+
+    /**
+     * @return The metrics of this table.
+     */
+    public TableMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * @return The decorated table.
+     */
+    public HashTable unwrap() {
+        return table;
+    }
+
+    @Override
+    public Probes put(String key, String value) {
+        int capacity = table.capacity();
+        long start = System.nanoTime();
+        Probes result = table.put(key, value);
+        if (table.capacity() != capacity) {
+            metrics.recordResize(System.nanoTime() - start);
+        }
+        metrics.record(TableMetrics.Operation.PUT, result.getProbes());
+        return result;
+    }
+
+    // The allocation - free operations report their probes to the ProbeCounter of the calling thread, so the probes of
+    // one of them are the growth of that counter while it runs.
+    @Override
+    public boolean putValue(String key, String value) {
+        int capacity = table.capacity();
+        long start = System.nanoTime();
+        long before = ProbeCounter.probes();
+        boolean added = table.putValue(key, value);
+        if (table.capacity() != capacity) {
+            metrics.recordResize(System.nanoTime() - start);
+        }
+        metrics.record(TableMetrics.Operation.PUT, (int) (ProbeCounter.probes() - before));
+        return added;
+    }
+
+    @Override
+    public Probes get(String key) {
+        Probes result = table.get(key);
+        metrics.record(TableMetrics.Operation.GET, result.getProbes());
+        return result;
+    }
+
+    @Override
+    public String getValue(String key) {
+        long before = ProbeCounter.probes();
+        String value = table.getValue(key);
+        metrics.record(TableMetrics.Operation.GET, (int) (ProbeCounter.probes() - before));
+        return value;
+    }
+
+    @Override
+    public Probes remove(String key) {
+        int capacity = table.capacity();
+        long start = System.nanoTime();
+        Probes result = table.remove(key);
+        if (table.capacity() != capacity) {
+            metrics.recordResize(System.nanoTime() - start);
+        }
+        metrics.record(TableMetrics.Operation.REMOVE, result.getProbes());
+        return result;
+    }
+
+    @Override
+    public String removeValue(String key) {
+        int capacity = table.capacity();
+        long start = System.nanoTime();
+        long before = ProbeCounter.probes();
+        String value = table.removeValue(key);
+        if (table.capacity() != capacity) {
+            metrics.recordResize(System.nanoTime() - start);
+        }
+        metrics.record(TableMetrics.Operation.REMOVE, (int) (ProbeCounter.probes() - before));
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        metrics.recordContainsKey();
+        return table.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        return table.containsValue(value);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super String> action) {
+        table.forEach(action);
+    }
+
+    @Override
+    public int size() {
+        return table.size();
+    }
+
+    @Override
+    public int capacity() {
+        return table.capacity();
+    }
+
+    @Override
+    public int tombstones() {
+        return table.tombstones();
+    }
+
+    @Override
+    public long reclaimedSlots() {
+        return table.reclaimedSlots();
+    }
+
+    /**
+     * Forwards the reservation to the decorated table, and records the resize, if there was one.
+     * @param additional The number of pairs about to be inserted.
+     * @return The number of probes spent by the resize, if there was one.
+     */
+    @Override
+    public int reserve(int additional) {
+        int capacity = table.capacity();
+        long start = System.nanoTime();
+        int probes = table.reserve(additional);
+        if (table.capacity() != capacity) {
+            metrics.recordResize(System.nanoTime() - start);
+        }
+        return probes;
+    }
+
+    /**
+     * Forwards the bulk load to the decorated table, so that it keeps its single resize, and records the pairs as
+     * insertions that all made the mean number of probes.
+     * @param pairs The pairs to insert.
+     * @return The total number of probes made by the insertions, including those of any resize.
+     */
+    @Override
+    public int putAll(Collection<KVPair> pairs) {
+        int capacity = table.capacity();
+        long start = System.nanoTime();
+        int probes = table.putAll(pairs);
+        if (table.capacity() != capacity) {
+            metrics.recordResize(System.nanoTime() - start);
+        }
+        metrics.recordBatch(TableMetrics.Operation.PUT, pairs.size(), probes);
+        return probes;
+    }
+
+    @Override
+    public String toString() {
+        return table.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package phonebook.metrics;
+
+import org.junit.Test;
+import phonebook.hashes.LinearProbingHashTable;
+import phonebook.hashes.QuadraticProbingHashTable;
+import phonebook.utils.KVPair;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static phonebook.metrics.TableMetrics.Operation.*;
+
+/**
+ * <p>{@link InstrumentedHashTableTests} is a jUnit - based test suite for {@link InstrumentedHashTable} and
+ * {@link TableMetrics}.</p>
+ *
+ * @see InstrumentedHashTable
+ * @see TableMetrics
+ */
+public class InstrumentedHashTableTests {
+
+    @Test
+    public void testCountersAndHistograms() {
+        InstrumentedHashTable table = new InstrumentedHashTable(new LinearProbingHashTable(true));
+        int resizes = 0;
+        for (int i = 0; i < 1000; i++) {
+            int capacity = table.capacity();
+            table.put("Person " + i, "555-" + i);
+            if (table.capacity() != capacity)
+                resizes++;
+        }
+        for (int i = 0; i < 1000; i++)
+            assertEquals("555-" + i, table.get("Person " + i).getValue());
+        for (int i = 0; i < 500; i++)
+            table.remove("Person " + i);
+        assertTrue(table.containsKey("Person 999"));
+
+        MetricsSnapshot snapshot = table.metrics().snapshot();
+        assertEquals(1000, snapshot.getOperations(PUT));
+        assertEquals(1000, snapshot.getOperations(GET));
+        assertEquals(500, snapshot.getOperations(REMOVE));
+        assertEquals(1, snapshot.getContainsKeys());
+        for (TableMetrics.Operation operation : TableMetrics.Operation.values()) {
+            long inHistogram = 0;
+            for (long bucket : snapshot.getHistogram(operation))
+                inHistogram += bucket;
+            assertEquals("Every " + operation + " should land in one histogram bucket.", snapshot.getOperations(operation), inHistogram);
+            assertTrue(snapshot.getMeanProbes(operation) >= 1);
+            assertTrue(snapshot.getProbesPercentile(operation, 99) <= 2 * snapshot.getMaxProbes());
+        }
+
+        assertTrue(resizes > 0);
+        assertEquals(resizes, snapshot.getResizes());
+        assertTrue(snapshot.getResizeNanos() > 0);
+        assertEquals(500, snapshot.getSize());
+        assertEquals(500, snapshot.getTombstones());
+        assertEquals(500.0 / table.capacity(), snapshot.getTombstoneRatio(), 1e-9);
+        assertEquals(500.0 / table.capacity(), snapshot.getLoadFactor(), 1e-9);
+
+        table.get("Nobody");
+        MetricsSnapshot delta = table.metrics().snapshot().since(snapshot);
+        assertEquals(1, delta.getOperations(GET));
+        assertEquals(0, delta.getOperations(PUT));
+        assertEquals(0, delta.getResizes());
+    }
+
+    @Test
+    public void testBulkLoadIsRecorded() {
+        InstrumentedHashTable table = new InstrumentedHashTable(new QuadraticProbingHashTable(false));
+        List<KVPair> pairs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            pairs.add(new KVPair("Person " + i, "555-" + i));
+        int probes = table.putAll(pairs);
+        MetricsSnapshot snapshot = table.metrics().snapshot();
+        assertEquals(1000, snapshot.getOperations(PUT));
+        assertEquals(probes, snapshot.getProbes(PUT));
+        assertEquals("A bulk load should resize once.", 1, snapshot.getResizes());
+    }
+
+    @Test
+    public void testReclaimedSlotsAreReported() {
+        LinearProbingHashTable compacting = new LinearProbingHashTable(true);
+        compacting.setCompactionThreshold(0.2);
+        InstrumentedHashTable table = new InstrumentedHashTable(compacting);
+        for (int i = 0; i < 100; i++)
+            table.put("Person " + i, "555-" + i);
+        MetricsSnapshot before = table.metrics().snapshot();
+        for (int i = 0; i < 100; i++)
+            table.remove("Person " + i);
+        MetricsSnapshot after = table.metrics().snapshot();
+        assertEquals(compacting.reclaimedSlots(), after.getReclaimedSlots());
+        assertTrue(after.since(before).getReclaimedSlots() > 0);
+        assertTrue(after.getTombstoneRatio() <= 0.2);
+        assertEquals(before.getCapacity(), after.getCapacity());
+    }
+
+    @Test
+    public void testJmxRegistration() throws Exception {
+        InstrumentedHashTable table = new InstrumentedHashTable(new LinearProbingHashTable(false));
+        table.put("Arnold", "894-59-0011");
+        table.get("Arnold");
+        table.metrics().register("tests");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("phonebook:type=HashTable,name=\"tests\"");
+        try {
+            assertEquals(1L, server.getAttribute(name, "Puts"));
+            assertEquals(1L, server.getAttribute(name, "Gets"));
+            assertEquals(1, server.getAttribute(name, "Size"));
+            assertEquals(0L, server.getAttribute(name, "ReclaimedSlots"));
+            assertEquals(TableMetrics.HISTOGRAM_BUCKETS, ((long[]) server.getAttribute(name, "GetHistogram")).length);
+        } finally {
+            table.metrics().unregister();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,205 @@
+package phonebook.metrics;
+
+import java.util.Arrays;
+
+/**
+ * <p>{@link MetricsSnapshot} is an <b>immutable</b> copy of the metrics of an instrumented {@link phonebook.hashes.HashTable},
+ * taken by {@link TableMetrics#snapshot()}. Two snapshots of the same table can be compared to find out what happened
+ * in between, e.g with {@link #since(MetricsSnapshot)}.</p>
+ *
+ * <p>The counters are read one after the other while the table may keep on working, so a snapshot of a table that is
+ * used by several threads is only consistent up to the operations that were in flight.</p>
+ *
+ * @see TableMetrics
+ */
+public final class MetricsSnapshot {
+
+    private final long[] operations;
+    private final long[] probes;
+    private final long[][] histograms;
+    private final long containsKeys;
+    private final long maxProbes;
+    private final long resizes;
+    private final long resizeNanos;
+    private final int size;
+    private final int capacity;
+    private final int tombstones;
+    private final long reclaimed;
+
+    MetricsSnapshot(long[] operations, long[] probes, long[][] histograms, long containsKeys, long maxProbes,
+                    long resizes, long resizeNanos, int size, int capacity, int tombstones, long reclaimed) {
+        this.operations = operations;
+        this.probes = probes;
+        this.histograms = histograms;
+        this.containsKeys = containsKeys;
+        this.maxProbes = maxProbes;
+        this.resizes = resizes;
+        this.resizeNanos = resizeNanos;
+        this.size = size;
+        this.capacity = capacity;
+        this.tombstones = tombstones;
+        this.reclaimed = reclaimed;
+    }
+
+    /**
+     * @param operation The type of operation.
+     * @return The number of operations of that type.
+     */
+    public long getOperations(TableMetrics.Operation operation) {
+        return operations[operation.ordinal()];
+    }
+
+    /**
+     * @param operation The type of operation.
+     * @return The total number of probes made by operations of that type.
+     */
+    public long getProbes(TableMetrics.Operation operation) {
+        return probes[operation.ordinal()];
+    }
+
+    /**
+     * @param operation The type of operation.
+     * @return The mean number of probes per operation of that type, or 0 if there has been none.
+     */
+    public double getMeanProbes(TableMetrics.Operation operation) {
+        long count = getOperations(operation);
+        return (count == 0) ? 0 : (double) getProbes(operation) / count;
+    }
+
+    /**
+     * @param operation The type of operation.
+     * @return A copy of the histogram of probes per operation of that type. See {@link TableMetricsMXBean} for the buckets.
+     */
+    public long[] getHistogram(TableMetrics.Operation operation) {
+        return histograms[operation.ordinal()].clone();
+    }
+
+    /**
+     * Estimates a percentile of the probes per operation of the provided type from its histogram.
+     * @param operation The type of operation.
+     * @param percentile A number between 0 and 100.
+     * @return The upper bound of the histogram bucket in which the percentile falls, or 0 if there has been no operation.
+     */
+    public long getProbesPercentile(TableMetrics.Operation operation, double percentile) {
+        long[] histogram = histograms[operation.ordinal()];
+        long total = Arrays.stream(histogram).sum();
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int b = 0; b < histogram.length; b++) {
+            seen += histogram[b];
+            if (seen >= rank && seen > 0) {
+                return (b == 0) ? 0 : (1L << b) - 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return The number of key containment queries.
+     */
+    public long getContainsKeys() {
+        return containsKeys;
+    }
+
+    /**
+     * @return The largest number of probes made by a single operation.
+     */
+    public long getMaxProbes() {
+        return maxProbes;
+    }
+
+    /**
+     * @return The number of operations that changed the capacity of the table.
+     */
+    public long getResizes() {
+        return resizes;
+    }
+
+    /**
+     * @return The total time spent in operations that changed the capacity of the table, in nanoseconds.
+     */
+    public long getResizeNanos() {
+        return resizeNanos;
+    }
+
+    /**
+     * @return The number of pairs in the table.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return The capacity of the table.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of tombstones in the table.
+     */
+    public int getTombstones() {
+        return tombstones;
+    }
+
+    /**
+     * @return The number of tombstones reclaimed by compactions of the table.
+     */
+    public long getReclaimedSlots() {
+        return reclaimed;
+    }
+
+    /**
+     * @return The number of pairs per cell of the table.
+     */
+    public double getLoadFactor() {
+        return (capacity == 0) ? 0 : (double) size / capacity;
+    }
+
+    /**
+     * @return The fraction of the cells of the table that hold tombstones.
+     */
+    public double getTombstoneRatio() {
+        return (capacity == 0) ? 0 : (double) tombstones / capacity;
+    }
+
+    /**
+     * Computes the activity between an earlier snapshot and this one. Counters, histograms and reclaimed slots are subtracted;
+     * gauges (size, capacity, tombstones) and the maximum number of probes are those of this snapshot.
+     * @param earlier A snapshot of the same table, taken before this one.
+     * @return A snapshot of what happened in between.
+     */
+    public MetricsSnapshot since(MetricsSnapshot earlier) {
+        long[] ops = operations.clone();
+        long[] prb = probes.clone();
+        long[][] hist = new long[histograms.length][];
+        for (int o = 0; o < ops.length; o++) {
+            ops[o] -= earlier.operations[o];
+            prb[o] -= earlier.probes[o];
+            hist[o] = histograms[o].clone();
+            for (int b = 0; b < hist[o].length; b++) {
+                hist[o][b] -= earlier.histograms[o][b];
+            }
+        }
+        return new MetricsSnapshot(ops, prb, hist, containsKeys - earlier.containsKeys, maxProbes,
+                resizes - earlier.resizes, resizeNanos - earlier.resizeNanos, size, capacity, tombstones,
+                reclaimed - earlier.reclaimed);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder ret = new StringBuilder();
+        for (TableMetrics.Operation operation : TableMetrics.Operation.values()) {
+            ret.append(operation).append(": ").append(getOperations(operation)).append(" ops, ")
+                    .append(String.format("%.2f", getMeanProbes(operation))).append(" probes/op, p99 <= ")
+                    .append(getProbesPercentile(operation, 99)).append("\n");
+        }
+        ret.append("size=").append(size).append(", capacity=").append(capacity)
+                .append(String.format(", load=%.3f, tombstones=%.3f", getLoadFactor(), getTombstoneRatio()))
+                .append(", reclaimed=").append(reclaimed)
+                .append(", resizes=").append(resizes).append(" (").append(resizeNanos / 1000000).append(" ms)")
+                .append(", maxProbes=").append(maxProbes);
+        return ret.toString();
+    }
+}
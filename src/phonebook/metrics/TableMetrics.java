@@ -0,0 +1,281 @@
+package phonebook.metrics;
+
+import phonebook.hashes.HashTable;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>{@link TableMetrics} accumulates the metrics of one {@link HashTable}: how many operations of every type it served,
+ * the distribution of their {@link phonebook.utils.Probes} as a histogram with logarithmic buckets, and how many resizes
+ * happened and how long they took. Gauges (size, capacity, load factor, tombstone ratio, reclaimed tombstones) are read from the table itself
+ * whenever they are asked for.</p>
+ *
+ * <p>Recording is meant to stay on in production: every counter is a {@link LongAdder} (or a {@link LongAccumulator}),
+ * which stripes its updates across cells when several threads contend, and recording an operation allocates nothing.
+ * The metrics can be read through {@link #snapshot()}, or through JMX once {@link #register(String)} has been called.</p>
+ *
+ * @see InstrumentedHashTable
+ * @see MetricsSnapshot
+ * @see TableMetricsMXBean
+ */
+public class TableMetrics implements TableMetricsMXBean {
+
+    /**
+     * The types of operations whose probes are recorded.
+     */
+    public enum Operation {
+        PUT,
+        GET,
+        REMOVE
+    }
+
+    /**
+     * The number of buckets of every probe histogram. Enough for every non-negative {@code int}.
+     */
+    public static final int HISTOGRAM_BUCKETS = 33;
+
+    private static final int OPERATIONS = Operation.values().length;
+
+    private final HashTable table;
+    private final LongAdder[] operations = new LongAdder[OPERATIONS];
+    private final LongAdder[] probes = new LongAdder[OPERATIONS];
+    private final LongAdder[][] histograms = new LongAdder[OPERATIONS][HISTOGRAM_BUCKETS];
+    private final LongAdder containsKeys = new LongAdder();
+    private final LongAccumulator maxProbes = new LongAccumulator(Math::max, 0);
+    private final LongAdder resizes = new LongAdder();
+    private final LongAdder resizeNanos = new LongAdder();
+
+    private ObjectName registeredAs;
+
+    /**
+     * Creates empty metrics for the provided table.
+     * @param table The table whose gauges will be reported.
+     */
+    public TableMetrics(HashTable table) {
+        this.table = table;
+        for (int o = 0; o < OPERATIONS; o++) {
+            operations[o] = new LongAdder();
+            probes[o] = new LongAdder();
+            for (int b = 0; b < HISTOGRAM_BUCKETS; b++) {
+                histograms[o][b] = new LongAdder();
+            }
+        }
+    }
+
+    // Bucket 0 holds 0 probes; bucket b > 0 holds [2^(b-1), 2^b - 1].
+    private static int bucketOf(int probes) {
+        return (probes <= 0) ? 0 : 32 - Integer.numberOfLeadingZeros(probes);
+    }
+
+    /**
+     * Records one operation.
+     * @param operation The type of the operation.
+     * @param probeCount The number of probes that it made.
+     */
+    public void record(Operation operation, int probeCount) {
+        int o = operation.ordinal();
+        operations[o].increment();
+        probes[o].add(probeCount);
+        histograms[o][bucketOf(probeCount)].increment();
+        maxProbes.accumulate(probeCount);
+    }
+
+    /**
+     * Records that several operations of the same type made probeCount probes <b>in total</b>, e.g a bulk load. Since
+     * the probes of each operation are not known, they are recorded in the histogram at their mean.
+     * @param operation The type of the operations.
+     * @param count The number of operations.
+     * @param probeCount The total number of probes that they made.
+     */
+    public void recordBatch(Operation operation, int count, long probeCount) {
+        if (count <= 0) {
+            return;
+        }
+        int o = operation.ordinal();
+        operations[o].add(count);
+        probes[o].add(probeCount);
+        histograms[o][bucketOf((int) Math.min(probeCount / count, Integer.MAX_VALUE))].add(count);
+    }
+
+    /**
+     * Records one key containment query.
+     */
+    public void recordContainsKey() {
+        containsKeys.increment();
+    }
+
+    /**
+     * Records one operation that changed the capacity of the table.
+     * @param nanos How long the operation took, in nanoseconds.
+     */
+    public void recordResize(long nanos) {
+        resizes.increment();
+        resizeNanos.add(nanos);
+    }
+
+    /**
+     * Takes an immutable copy of the current metrics.
+     * @return A new {@link MetricsSnapshot}.
+     */
+    public MetricsSnapshot snapshot() {
+        long[] ops = new long[OPERATIONS];
+        long[] prb = new long[OPERATIONS];
+        long[][] hist = new long[OPERATIONS][];
+        for (int o = 0; o < OPERATIONS; o++) {
+            ops[o] = operations[o].sum();
+            prb[o] = probes[o].sum();
+            hist[o] = histogram(o);
+        }
+        return new MetricsSnapshot(ops, prb, hist, containsKeys.sum(), maxProbes.get(), resizes.sum(),
+                resizeNanos.sum(), table.size(), table.capacity(), table.tombstones(), table.reclaimedSlots());
+    }
+
+    private long[] histogram(int o) {
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        for (int b = 0; b < HISTOGRAM_BUCKETS; b++) {
+            histogram[b] = histograms[o][b].sum();
+        }
+        return histogram;
+    }
+
+    private double mean(Operation operation) {
+        long count = operations[operation.ordinal()].sum();
+        return (count == 0) ? 0 : (double) probes[operation.ordinal()].sum() / count;
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, as {@code phonebook:type=HashTable,name=<name>}.
+     * Registering metrics that are already registered moves them to the new name.
+     * @param name The name under which the table is shown, e.g &quot;namesToNumbers&quot;.
+     * @throws IllegalArgumentException if the name is already taken.
+     */
+    public synchronized void register(String name) {
+        unregister();
+        try {
+            ObjectName objectName = new ObjectName("phonebook:type=HashTable,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registeredAs = objectName;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalArgumentException("Metrics named " + name + " are already registered.", e);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Could not register metrics named " + name + ".", e);
+        }
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server. Has no effect if they are not registered.
+     */
+    public synchronized void unregister() {
+        if (registeredAs == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(registeredAs);
+        } catch (InstanceNotFoundException ignored) {
+            // Someone else unregistered us; nothing left to do.
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister " + registeredAs + ".", e);
+        }
+        registeredAs = null;
+    }
+
+    @Override
+    public long getPuts() {
+        return operations[Operation.PUT.ordinal()].sum();
+    }
+
+    @Override
+    public long getGets() {
+        return operations[Operation.GET.ordinal()].sum();
+    }
+
+    @Override
+    public long getRemoves() {
+        return operations[Operation.REMOVE.ordinal()].sum();
+    }
+
+    @Override
+    public long getContainsKeys() {
+        return containsKeys.sum();
+    }
+
+    @Override
+    public double getMeanPutProbes() {
+        return mean(Operation.PUT);
+    }
+
+    @Override
+    public double getMeanGetProbes() {
+        return mean(Operation.GET);
+    }
+
+    @Override
+    public double getMeanRemoveProbes() {
+        return mean(Operation.REMOVE);
+    }
+
+    @Override
+    public long getMaxProbes() {
+        return maxProbes.get();
+    }
+
+    @Override
+    public long[] getPutHistogram() {
+        return histogram(Operation.PUT.ordinal());
+    }
+
+    @Override
+    public long[] getGetHistogram() {
+        return histogram(Operation.GET.ordinal());
+    }
+
+    @Override
+    public long[] getRemoveHistogram() {
+        return histogram(Operation.REMOVE.ordinal());
+    }
+
+    @Override
+    public long getResizes() {
+        return resizes.sum();
+    }
+
+    @Override
+    public long getResizeNanos() {
+        return resizeNanos.sum();
+    }
+
+    @Override
+    public int getSize() {
+        return table.size();
+    }
+
+    @Override
+    public int getCapacity() {
+        return table.capacity();
+    }
+
+    @Override
+    public double getLoadFactor() {
+        int capacity = table.capacity();
+        return (capacity == 0) ? 0 : (double) table.size() / capacity;
+    }
+
+    @Override
+    public double getTombstoneRatio() {
+        int capacity = table.capacity();
+        return (capacity == 0) ? 0 : (double) table.tombstones() / capacity;
+    }
+
+    @Override
+    public long getReclaimedSlots() {
+        return table.reclaimedSlots();
+    }
+}
@@ -0,0 +1,106 @@
+package phonebook.metrics;
+
+/**
+ * <p>{@link TableMetricsMXBean} is the JMX management interface of {@link TableMetrics}. Every attribute is read
+ * straight from the live counters of the instrumented table, so a JMX console (e.g {@code jconsole}) always shows
+ * current values.</p>
+ *
+ * <p>Probe histograms are arrays of {@value TableMetrics#HISTOGRAM_BUCKETS} counts: bucket 0 counts operations that made
+ * no probe at all, and bucket {@code b > 0} counts operations that made between 2<sup>b-1</sup> and 2<sup>b</sup>-1
+ * probes.</p>
+ *
+ * @see TableMetrics
+ * @see InstrumentedHashTable
+ */
+public interface TableMetricsMXBean {
+
+    /**
+     * @return The number of insertions made so far, including those of bulk loads.
+     */
+    long getPuts();
+
+    /**
+     * @return The number of searches made so far.
+     */
+    long getGets();
+
+    /**
+     * @return The number of deletions made so far.
+     */
+    long getRemoves();
+
+    /**
+     * @return The number of key containment queries made so far. Their probes are not reported by the tables.
+     */
+    long getContainsKeys();
+
+    /**
+     * @return The mean number of probes per insertion, or 0 if there has been none.
+     */
+    double getMeanPutProbes();
+
+    /**
+     * @return The mean number of probes per search, or 0 if there has been none.
+     */
+    double getMeanGetProbes();
+
+    /**
+     * @return The mean number of probes per deletion, or 0 if there has been none.
+     */
+    double getMeanRemoveProbes();
+
+    /**
+     * @return The largest number of probes made by a single operation of any type.
+     */
+    long getMaxProbes();
+
+    /**
+     * @return The histogram of probes per insertion.
+     */
+    long[] getPutHistogram();
+
+    /**
+     * @return The histogram of probes per search.
+     */
+    long[] getGetHistogram();
+
+    /**
+     * @return The histogram of probes per deletion.
+     */
+    long[] getRemoveHistogram();
+
+    /**
+     * @return The number of operations that changed the capacity of the table.
+     */
+    long getResizes();
+
+    /**
+     * @return The total time spent in operations that changed the capacity of the table, in nanoseconds.
+     */
+    long getResizeNanos();
+
+    /**
+     * @return The number of pairs currently in the table.
+     */
+    int getSize();
+
+    /**
+     * @return The current capacity of the table.
+     */
+    int getCapacity();
+
+    /**
+     * @return The current number of pairs per cell of the table.
+     */
+    double getLoadFactor();
+
+    /**
+     * @return The current fraction of the cells of the table that hold tombstones.
+     */
+    double getTombstoneRatio();
+
+    /**
+     * @return The total number of tombstones that the table has reclaimed by compacting itself.
+     */
+    long getReclaimedSlots();
+}
@@ -0,0 +1,114 @@
+package phonebook.utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>{@link LookupResults} is a reusable buffer for the results of a <b>batch</b> of searches, e.g those of
+ * {@link phonebook.hashes.HashTable#getAll(List, LookupResults)}: the value found for every key of the batch, or
+ * {@code null}, and the number of {@link Probes} that its search made, in the order of the keys. Its arrays only grow,
+ * so a buffer that is reused for batches of similar sizes stops allocating after the first one.</p>
+ *
+ * <p>A {@link LookupResults} is <b>not</b> thread-safe; every thread should have its own.</p>
+ *
+ * @see Probes
+ * @see phonebook.hashes.HashTable#getAll(List, LookupResults)
+ */
+public final class LookupResults {
+
+    private String[] values = new String[0];
+    private int[] probes = new int[0];
+    private int size;
+
+    /**
+     * Default constructor. Initializes an empty buffer, which grows to fit the first batch that it holds.
+     */
+    public LookupResults() {
+    }
+
+    /**
+     * Empties this buffer and makes room for the results of a batch of size keys, all {@code null} with 0 probes until set.
+     * @param size The number of keys of the batch.
+     * @throws IllegalArgumentException if size is negative.
+     */
+    public void reset(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("A batch cannot have " + size + " keys.");
+        }
+        if (size > values.length) {
+            int capacity = Math.max(size, 2 * values.length);
+            values = new String[capacity];
+            probes = new int[capacity];
+        } else {
+            Arrays.fill(values, 0, this.size, null);
+            Arrays.fill(probes, 0, this.size, 0);
+        }
+        this.size = size;
+    }
+
+    /**
+     * Records the result of the search for the key at index i of the batch.
+     * @param i The index of the key in the batch.
+     * @param value The value found, or {@code null}.
+     * @param probes The number of probes that the search made.
+     * @throws IndexOutOfBoundsException if i is not an index of the batch.
+     */
+    public void set(int i, String value, int probes) {
+        this.values[checkIndex(i)] = value;
+        this.probes[i] = probes;
+    }
+
+    private int checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " is out of a batch of " + size + " keys.");
+        }
+        return i;
+    }
+
+    /**
+     * Returns the number of keys of the current batch.
+     * @return The number of keys of the current batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value found for the key at index i of the batch.
+     * @param i The index of the key in the batch.
+     * @return The value found, or {@code null} if the key was {@code null} or not found.
+     * @throws IndexOutOfBoundsException if i is not an index of the batch.
+     */
+    public String getValue(int i) {
+        return values[checkIndex(i)];
+    }
+
+    /**
+     * Returns the number of probes that the search for the key at index i of the batch made.
+     * @param i The index of the key in the batch.
+     * @return The number of probes made, 0 for a {@code null} key.
+     * @throws IndexOutOfBoundsException if i is not an index of the batch.
+     */
+    public int getProbes(int i) {
+        return probes[checkIndex(i)];
+    }
+
+    /**
+     * Returns a read-only view of the values of the current batch, which follows this buffer as it is reused.
+     * @return The values found, in the order of the keys of the batch.
+     */
+    public List<String> values() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int i) {
+                return getValue(i);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
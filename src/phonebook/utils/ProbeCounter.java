@@ -0,0 +1,59 @@
+package phonebook.utils;
+
+/**
+ * <p>{@link ProbeCounter} keeps, for every thread, the running total of the probes made by the <b>allocation - free</b>
+ * operations of {@link phonebook.hashes.HashTable}, e.g {@link phonebook.hashes.HashTable#getValue(String)}, and the
+ * number of those operations. Those operations return their value, or a primitive status, instead of a new
+ * {@link Probes} object, and add their probes to the counters of the calling thread instead, which are read on
+ * demand.</p>
+ *
+ * <p>The counters of a thread are only ever touched by that thread, so they need no synchronization, and cost a
+ * {@link ThreadLocal} lookup and two additions per operation.</p>
+ *
+ * @see Probes
+ * @see phonebook.hashes.HashTable#getValue(String)
+ */
+public final class ProbeCounter {
+
+    // The probes and the operations counted on every thread.
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[2]);
+
+    private ProbeCounter() {
+        // Static utility.
+    }
+
+    /**
+     * Counts one operation, which made the provided number of probes, on the calling thread.
+     * @param probes The number of probes that the operation made.
+     */
+    public static void add(int probes) {
+        long[] counters = COUNTERS.get();
+        counters[0] += probes;
+        counters[1]++;
+    }
+
+    /**
+     * Returns the number of probes counted on the calling thread since it started, or since its last {@link #reset()}.
+     * @return The number of probes counted on the calling thread.
+     */
+    public static long probes() {
+        return COUNTERS.get()[0];
+    }
+
+    /**
+     * Returns the number of operations counted on the calling thread since it started, or since its last {@link #reset()}.
+     * @return The number of operations counted on the calling thread.
+     */
+    public static long operations() {
+        return COUNTERS.get()[1];
+    }
+
+    /**
+     * Sets both counters of the calling thread back to 0.
+     */
+    public static void reset() {
+        long[] counters = COUNTERS.get();
+        counters[0] = 0;
+        counters[1] = 0;
+    }
+}
@@ -0,0 +1,255 @@
+package phonebook.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>{@link SortedStringIndex} is an ordered set of {@link String}s, built for <b>prefix</b> and <b>range</b> searches. Its
+ * strings are kept in a compact, sorted <em>base</em> array, plus a small sorted <em>delta</em> buffer that takes new
+ * strings. Removing a string from the base only marks its cell as deleted. Once the delta buffer grows past a small multiple of
+ * the square root of the size of the base, or once a quarter of the base is deleted, both are merged into a fresh base in
+ * one linear pass, so insertions and deletions take amortized O(&radic;n) time, with a very small constant, and
+ * searches O(log n).</p>
+ *
+ * <p>{@link #iterator(String)} walks the strings with a given prefix in sorted order, merging the base and the delta on
+ * the fly. It never copies the range it walks, so stopping after a few strings costs a couple of binary searches and
+ * those few steps, however many strings share the prefix.</p>
+ *
+ * <p>Strings are ordered by {@link String#compareTo(String)}. {@code null} strings are not allowed.</p>
+ *
+ * @see SortedStringIndexTests
+ */
+public class SortedStringIndex {
+
+    private static final int MIN_DELTA_LIMIT = 64;
+    private static final String[] NONE = new String[0];
+
+    private String[] base = NONE;
+    private boolean[] deleted = new boolean[0];
+    private int deletedCount;
+
+    private String[] delta = new String[MIN_DELTA_LIMIT];
+    private int deltaSize;
+
+    private int modCount;
+
+    /**
+     * Default constructor. Initializes an empty {@link SortedStringIndex}.
+     */
+    public SortedStringIndex(){
+    }
+
+    // Index of s in the first size cells of sorted, or -(insertion point) - 1, like Arrays.binarySearch.
+    private static int search(String[] sorted, int size, String s){
+        return Arrays.binarySearch(sorted, 0, size, s);
+    }
+
+    private static int lowerBound(String[] sorted, int size, String s){
+        int i = search(sorted, size, s);
+        return (i >= 0) ? i : -i - 1;
+    }
+
+    // Merging costs a comparison per string, while inserting into the delta only shifts references, which is far
+    // cheaper: a delta of a few times the square root of the base balances the two.
+    private int deltaLimit(){
+        return Math.max(MIN_DELTA_LIMIT, 8 * (int) Math.sqrt(base.length));
+    }
+
+    /**
+     * Adds s to this index.
+     * @param s The string to add.
+     * @return {@code true} if, and only if, s was not already in the index.
+     * @throws IllegalArgumentException if s is {@code null}.
+     */
+    public boolean add(String s){
+        if(s == null)
+            throw new IllegalArgumentException("Cannot index a null string.");
+        int i = search(base, base.length, s);
+        if(i >= 0){
+            if(!deleted[i])
+                return false;
+            deleted[i] = false;
+            deletedCount--;
+            modCount++;
+            return true;
+        }
+        int j = search(delta, deltaSize, s);
+        if(j >= 0)
+            return false;
+        j = -j - 1;
+        if(deltaSize == delta.length)
+            delta = Arrays.copyOf(delta, 2 * delta.length);
+        System.arraycopy(delta, j, delta, j + 1, deltaSize - j);
+        delta[j] = s;
+        deltaSize++;
+        modCount++;
+        if(deltaSize > deltaLimit())
+            merge();
+        return true;
+    }
+
+    /**
+     * Adds every string of strings to this index. The strings are sorted once and merged with the index in a single
+     * linear pass, instead of going through the delta buffer one by one, so this is the way to build an index, or to add
+     * many strings at once.
+     * @param strings The strings to add. Duplicates, and strings already in the index, are ignored.
+     * @throws IllegalArgumentException if any of the strings is {@code null}. In that case, the index is unchanged.
+     */
+    public void addAll(Collection<String> strings){
+        String[] batch = strings.toArray(new String[0]);
+        for(String s : batch)
+            if(s == null)
+                throw new IllegalArgumentException("Cannot index a null string.");
+        // The delta joins the batch, and every string that is already live in the base leaves it.
+        batch = Arrays.copyOf(batch, batch.length + deltaSize);
+        System.arraycopy(delta, 0, batch, batch.length - deltaSize, deltaSize);
+        Arrays.sort(batch);
+        int distinct = 0;
+        for(int i = 0; i < batch.length; i++){
+            if(distinct > 0 && batch[distinct - 1].equals(batch[i]))
+                continue;
+            int at = search(base, base.length, batch[i]);
+            if(at < 0 || deleted[at])
+                batch[distinct++] = batch[i];
+        }
+        merge(batch, distinct);
+    }
+
+    /**
+     * Removes s from this index, if it is there.
+     * @param s The string to remove.
+     * @return {@code true} if, and only if, s was in the index.
+     */
+    public boolean remove(String s){
+        if(s == null)
+            return false;
+        int j = search(delta, deltaSize, s);
+        if(j >= 0){
+            deltaSize--;
+            System.arraycopy(delta, j + 1, delta, j, deltaSize - j);
+            delta[deltaSize] = null;
+            modCount++;
+            return true;
+        }
+        int i = search(base, base.length, s);
+        if(i < 0 || deleted[i])
+            return false;
+        deleted[i] = true;
+        deletedCount++;
+        modCount++;
+        if(deletedCount > base.length / 4)
+            merge();
+        return true;
+    }
+
+    /**
+     * Queries this index for s.
+     * @param s The string to search for.
+     * @return {@code true} if, and only if, s is in the index.
+     */
+    public boolean contains(String s){
+        if(s == null)
+            return false;
+        int i = search(base, base.length, s);
+        return (i >= 0) ? !deleted[i] : search(delta, deltaSize, s) >= 0;
+    }
+
+    /**
+     * Returns the number of strings in this index.
+     * @return The number of strings in this index.
+     */
+    public int size(){
+        return base.length - deletedCount + deltaSize;
+    }
+
+    private void merge(){
+        merge(delta, deltaSize);
+    }
+
+    // Merges the live cells of the base with the first size strings of sorted, which are sorted, distinct and not live
+    // in the base, into a new base, in one linear pass, and empties the delta.
+    private void merge(String[] sorted, int size){
+        String[] merged = new String[base.length - deletedCount + size];
+        int i = 0, j = 0, n = 0;
+        while(i < base.length || j < size){
+            if(i < base.length && deleted[i]){
+                i++;
+            } else if(j == size || (i < base.length && base[i].compareTo(sorted[j]) < 0)){
+                merged[n++] = base[i++];
+            } else {
+                merged[n++] = sorted[j++];
+            }
+        }
+        modCount++;
+        base = merged;
+        deleted = new boolean[merged.length];
+        deletedCount = 0;
+        Arrays.fill(delta, 0, deltaSize, null);
+        deltaSize = 0;
+        if(delta.length > 2 * deltaLimit())
+            delta = new String[deltaLimit()];
+    }
+
+    /**
+     * Returns an iterator over the strings of this index that start with prefix, in sorted order. The iterator walks the
+     * index itself, without copying anything, and fails fast with a {@link ConcurrentModificationException} if the
+     * index is modified while it is in use.
+     * @param prefix The prefix of the strings to walk. The empty string walks the whole index.
+     * @return An iterator over the strings that start with prefix, in sorted order.
+     * @throws IllegalArgumentException if prefix is {@code null}.
+     */
+    public Iterator<String> iterator(String prefix){
+        if(prefix == null)
+            throw new IllegalArgumentException("Cannot search for a null prefix.");
+        return new Iterator<String>() {
+
+            private final int expectedModCount = modCount;
+            private int i = lowerBound(base, base.length, prefix);
+            private int j = lowerBound(delta, deltaSize, prefix);
+            private String next = advance();
+
+            // Returns the next string with the prefix, or null once there is none.
+            private String advance(){
+                while(i < base.length && deleted[i])
+                    i++;
+                String fromBase = (i < base.length) ? base[i] : null;
+                String fromDelta = (j < deltaSize) ? delta[j] : null;
+                String smallest;
+                if(fromBase != null && (fromDelta == null || fromBase.compareTo(fromDelta) < 0)){
+                    smallest = fromBase;
+                    i++;
+                } else if(fromDelta != null){
+                    smallest = fromDelta;
+                    j++;
+                } else {
+                    return null;
+                }
+                return smallest.startsWith(prefix) ? smallest : null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if(modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                if(next == null)
+                    throw new NoSuchElementException();
+                String retVal = next;
+                next = advance();
+                return retVal;
+            }
+
+            @Override
+            public void remove(){
+                throw new UnsupportedOperationException("SortedStringIndex Iterator does not implement remove().");
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package phonebook.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * <p>{@link SortedStringIndexTests} is a small jUnit - based test suite for {@link SortedStringIndex}, which checks it
+ * against a {@link TreeSet} through enough insertions and deletions to go through many merges of its delta buffer.</p>
+ *
+ * @see SortedStringIndex
+ */
+public class SortedStringIndexTests {
+
+    private SortedStringIndex index;
+
+    private static List<String> walk(Iterator<String> it){
+        List<String> ret = new ArrayList<>();
+        while(it.hasNext())
+            ret.add(it.next());
+        return ret;
+    }
+
+    @Before
+    public void setUp(){
+        index = new SortedStringIndex();
+    }
+
+    @After
+    public void tearDown(){
+        index = null;
+    }
+
+    @Test
+    public void testAgainstTreeSet(){
+        TreeSet<String> expected = new TreeSet<>();
+        Random random = new Random(420);
+        for(int i = 0; i < 50000; i++){
+            String s = Integer.toString(random.nextInt(20000), 7);
+            if(random.nextInt(3) == 0)
+                assertEquals(expected.remove(s), index.remove(s));
+            else
+                assertEquals(expected.add(s), index.add(s));
+            if(i % 5000 == 0){
+                assertEquals(expected.size(), index.size());
+                for(String prefix : new String[] {"", "1", "23", "456", "6666"}){
+                    List<String> matches = new ArrayList<>();
+                    for(String t : expected.tailSet(prefix))
+                        if(t.startsWith(prefix))
+                            matches.add(t);
+                        else
+                            break;
+                    assertEquals("Prefix " + prefix, matches, walk(index.iterator(prefix)));
+                }
+            }
+        }
+        for(int i = 0; i < 20000; i++){
+            String s = Integer.toString(i, 7);
+            assertEquals(expected.contains(s), index.contains(s));
+        }
+        assertFalse(index.remove(null));
+        assertFalse(index.contains(null));
+    }
+
+    @Test
+    public void testIteratorFailsFast(){
+        for(int i = 0; i < 100; i++)
+            index.add("Smith " + i);
+        Iterator<String> it = index.iterator("Smith 1");
+        assertEquals("Smith 1", it.next());
+        assertEquals("Smith 10", it.next());
+        index.add("Smithers");
+        try {
+            it.next();
+            fail("The iterator should notice that the index changed.");
+        } catch(ConcurrentModificationException ignored){
+        }
+        assertFalse(index.iterator("Jones").hasNext());
+        assertEquals(101, walk(index.iterator("")).size());
+    }
+}
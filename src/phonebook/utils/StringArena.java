@@ -0,0 +1,270 @@
+package phonebook.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>{@link StringArena} stores &lt;key, value&gt; pairs of {@link String}s as <b>UTF-8 bytes</b>, appended back to back
+ * to a few large, shared {@code byte[]} <em>chunks</em>, instead of as two {@link String} objects per pair, each with
+ * its own header and backing array. Every pair is written once, as the varint length of its key, its key, the varint
+ * length of its value and its value, and is known by a {@code long} <em>reference</em>: the index of its chunk and its
+ * offset within that chunk. A record never spans two chunks; records longer than a chunk get a chunk of their own. Chunks
+ * start small and double in size up to {@link #CHUNK_BYTES}.</p>
+ *
+ * <p>Keys and values are compared with {@link String}s <b>in place</b>, by encoding the {@link String} on the fly, one
+ * character at a time, so searching an arena allocates nothing. {@link String}s are only created when a key or a value
+ * is read back. Like {@link String#getBytes(java.nio.charset.Charset)}, the arena encodes every unpaired surrogate
+ * character as {@code '?'}, which is what such a character reads back as.</p>
+ *
+ * <p>The arena only grows: {@link #release(long)} merely accounts for the bytes of a pair that is no longer needed.
+ * Its owner reclaims them by copying the live pairs into a fresh arena with {@link #copy(long, StringArena)} once
+ * {@link #deadBytes()} grow large enough.</p>
+ *
+ * @see phonebook.hashes.ArenaHashTable
+ */
+public class StringArena {
+
+    /**
+     * The size of the largest chunks, in bytes.
+     */
+    public static final int CHUNK_BYTES = 1 << 20;
+
+    private static final int MIN_CHUNK_BYTES = 1 << 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final List<byte[]> chunks = new ArrayList<>();
+    private byte[] current;   // The last chunk, which new records are appended to.
+    private int end;          // The first free byte of current.
+    private long liveBytes;
+    private long deadBytes;
+
+    /**
+     * Default constructor. Initializes an empty {@link StringArena}, which allocates its first chunk on its first append.
+     */
+    public StringArena() {
+    }
+
+    private static int chunkOf(long ref) {
+        return (int) (ref >>> 32);
+    }
+
+    private static int offsetOf(long ref) {
+        return (int) ref;
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarint(byte[] target, int at, int value) {
+        while ((value & ~0x7f) != 0) {
+            target[at++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        target[at++] = (byte) value;
+        return at;
+    }
+
+    // Reads the varint at at in chunk, and returns (value << 32) | (offset just past it).
+    private static long readVarint(byte[] chunk, int at) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = chunk[at++];
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return (long) value << 32 | at;
+            }
+        }
+    }
+
+    // Reserves length bytes for a record, and returns its reference.
+    private long reserve(int length) {
+        if (current == null || end + length > current.length) {
+            // Chunks double up to CHUNK_BYTES, so that small arenas stay small.
+            int size = (current == null) ? MIN_CHUNK_BYTES : Math.min(CHUNK_BYTES, 2 * current.length);
+            current = new byte[Math.max(size, length)];
+            chunks.add(current);
+            end = 0;
+        }
+        long ref = (long) (chunks.size() - 1) << 32 | end;
+        end += length;
+        liveBytes += length;
+        return ref;
+    }
+
+    /**
+     * Appends the pair &lt;key, value&gt; to this arena.
+     * @param key The key of the pair.
+     * @param value The value of the pair.
+     * @return The reference of the new record.
+     * @throws IllegalArgumentException if either argument is {@code null}.
+     */
+    public long append(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Provided: key=" + key + " and value=" + value);
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = varintLength(keyBytes.length) + keyBytes.length + varintLength(valueBytes.length) + valueBytes.length;
+        long ref = reserve(length);
+        int at = writeVarint(current, offsetOf(ref), keyBytes.length);
+        System.arraycopy(keyBytes, 0, current, at, keyBytes.length);
+        at = writeVarint(current, at + keyBytes.length, valueBytes.length);
+        System.arraycopy(valueBytes, 0, current, at, valueBytes.length);
+        return ref;
+    }
+
+    /**
+     * Copies the record at ref to target, byte for byte, without decoding it.
+     * @param ref The reference of a record of this arena.
+     * @param target The arena to copy the record to.
+     * @return The reference of the copy in target.
+     */
+    public long copy(long ref, StringArena target) {
+        byte[] chunk = chunks.get(chunkOf(ref));
+        int start = offsetOf(ref);
+        int valueAt = valueHeader(chunk, start);
+        long value = readVarint(chunk, valueAt);
+        int length = (int) value + (int) (value >>> 32) - start;
+        long copied = target.reserve(length);
+        System.arraycopy(chunk, start, target.current, offsetOf(copied), length);
+        return copied;
+    }
+
+    // Returns the offset of the varint length of the value of the record at start.
+    private static int valueHeader(byte[] chunk, int start) {
+        long key = readVarint(chunk, start);
+        return (int) key + (int) (key >>> 32);
+    }
+
+    /**
+     * Marks the record at ref as no longer needed, so that its bytes are counted by {@link #deadBytes()}.
+     * @param ref The reference of a live record of this arena.
+     */
+    public void release(long ref) {
+        byte[] chunk = chunks.get(chunkOf(ref));
+        int start = offsetOf(ref);
+        long value = readVarint(chunk, valueHeader(chunk, start));
+        int length = (int) value + (int) (value >>> 32) - start;
+        liveBytes -= length;
+        deadBytes += length;
+    }
+
+    // Compares the UTF-8 bytes of chunk in [at, at + length) with the UTF-8 encoding of s, encoding s on the fly.
+    private static boolean equalsUtf8(byte[] chunk, int at, int length, String s) {
+        int end = at + length;
+        int n = s.length();
+        if (n > length) {
+            return false;   // Every character takes at least one byte.
+        }
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (at == end || chunk[at++] != c) {
+                    return false;
+                }
+            } else if (c < 0x800) {
+                if (end - at < 2 || chunk[at++] != (byte) (0xc0 | c >> 6) || chunk[at++] != (byte) (0x80 | c & 0x3f)) {
+                    return false;
+                }
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                if (end - at < 4 || chunk[at++] != (byte) (0xf0 | cp >> 18) || chunk[at++] != (byte) (0x80 | cp >> 12 & 0x3f)
+                        || chunk[at++] != (byte) (0x80 | cp >> 6 & 0x3f) || chunk[at++] != (byte) (0x80 | cp & 0x3f)) {
+                    return false;
+                }
+            } else if (Character.isSurrogate(c)) {
+                // A lone surrogate is encoded as '?', like String.getBytes() does.
+                if (at == end || chunk[at++] != '?') {
+                    return false;
+                }
+            } else {
+                if (end - at < 3 || chunk[at++] != (byte) (0xe0 | c >> 12) || chunk[at++] != (byte) (0x80 | c >> 6 & 0x3f)
+                        || chunk[at++] != (byte) (0x80 | c & 0x3f)) {
+                    return false;
+                }
+            }
+        }
+        return at == end;
+    }
+
+    /**
+     * Compares the key of the record at ref with key, without decoding the record or encoding key into a new array.
+     * @param ref The reference of a record of this arena.
+     * @param key A non-{@code null} key.
+     * @return {@code true} if, and only if, the record has key as its key.
+     */
+    public boolean keyEquals(long ref, String key) {
+        byte[] chunk = chunks.get(chunkOf(ref));
+        long header = readVarint(chunk, offsetOf(ref));
+        return equalsUtf8(chunk, (int) header, (int) (header >>> 32), key);
+    }
+
+    /**
+     * Compares the value of the record at ref with value, without decoding the record or encoding value into a new array.
+     * @param ref The reference of a record of this arena.
+     * @param value A non-{@code null} value.
+     * @return {@code true} if, and only if, the record has value as its value.
+     */
+    public boolean valueEquals(long ref, String value) {
+        byte[] chunk = chunks.get(chunkOf(ref));
+        long header = readVarint(chunk, valueHeader(chunk, offsetOf(ref)));
+        return equalsUtf8(chunk, (int) header, (int) (header >>> 32), value);
+    }
+
+    /**
+     * Decodes the key of the record at ref.
+     * @param ref The reference of a record of this arena.
+     * @return A new {@link String} with the key of the record.
+     */
+    public String key(long ref) {
+        byte[] chunk = chunks.get(chunkOf(ref));
+        long header = readVarint(chunk, offsetOf(ref));
+        return new String(chunk, (int) header, (int) (header >>> 32), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the value of the record at ref.
+     * @param ref The reference of a record of this arena.
+     * @return A new {@link String} with the value of the record.
+     */
+    public String value(long ref) {
+        byte[] chunk = chunks.get(chunkOf(ref));
+        long header = readVarint(chunk, valueHeader(chunk, offsetOf(ref)));
+        return new String(chunk, (int) header, (int) (header >>> 32), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of bytes taken up by the records that were appended and not released.
+     * @return The number of live bytes of this arena.
+     */
+    public long liveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Returns the number of bytes taken up by released records, which are only reclaimed by copying the live records
+     * into a fresh arena.
+     * @return The number of dead bytes of this arena.
+     */
+    public long deadBytes() {
+        return deadBytes;
+    }
+
+    /**
+     * Returns an estimate of the heap taken up by this arena, in bytes, counting its chunks in full.
+     * @return An estimate of the heap taken up by this arena, in bytes.
+     */
+    public long footprint() {
+        long bytes = 0;
+        for (byte[] chunk : chunks) {
+            bytes += ARRAY_HEADER_BYTES + chunk.length;
+        }
+        return bytes + ARRAY_HEADER_BYTES + 4L * chunks.size();
+    }
+}